@@ -0,0 +1,69 @@
+// Concurrent chat streams against one backend instance.
+//
+// Ramps up virtual users that each hold one /api/chat/stream request open and
+// reports how many streams completed within the time-to-first-byte threshold.
+// Run it against a container limited like the production pod (500m CPU):
+//
+//   docker run --cpus=0.5 -p 8080:8080 --env-file .env fined-mentor-backend
+//   k6 run -e BASE_URL=http://localhost:8080 -e USERNAME=loadtest -e PASSWORD=secret chat-stream.js
+//
+// The user must exist and be activated. Compare the highest stage that stays
+// within thresholds between builds.
+import http from 'k6/http';
+import { check } from 'k6';
+import { Trend } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const MAX_STREAMS = parseInt(__ENV.MAX_STREAMS || '400', 10);
+
+const streamDuration = new Trend('chat_stream_duration', true);
+
+// One session per virtual user, reused across its iterations
+let sessionId = null;
+
+export const options = {
+    scenarios: {
+        streams: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '1m', target: MAX_STREAMS / 4 },
+                { duration: '1m', target: MAX_STREAMS / 2 },
+                { duration: '1m', target: MAX_STREAMS },
+                { duration: '1m', target: MAX_STREAMS },
+            ],
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+        http_req_waiting: ['p(95)<3000'],
+    },
+};
+
+export function setup() {
+    const login = http.post(`${BASE_URL}/api/auth/login`,
+        JSON.stringify({ usernameOrEmail: __ENV.USERNAME, password: __ENV.PASSWORD }),
+        { headers: { 'Content-Type': 'application/json' } });
+    check(login, { 'logged in': (r) => r.status === 200 });
+    return { cookies: login.cookies };
+}
+
+function cookieHeader(cookies) {
+    return Object.keys(cookies).map((name) => `${name}=${cookies[name][0].value}`).join('; ');
+}
+
+export default function (data) {
+    const headers = { Cookie: cookieHeader(data.cookies) };
+
+    if (!sessionId) {
+        const created = http.post(`${BASE_URL}/api/chat/sessions?title=load-${__VU}`, null, { headers });
+        sessionId = created.json('data.id');
+    }
+
+    const response = http.post(`${BASE_URL}/api/chat/stream`,
+        JSON.stringify({ chatSessionId: sessionId, message: 'What is an ETF?' }),
+        { headers: { ...headers, 'Content-Type': 'application/json', Accept: 'text/event-stream' }, timeout: '120s' });
+
+    check(response, { 'stream completed': (r) => r.status === 200 && r.body.length > 0 });
+    streamDuration.add(response.timings.duration);
+}
@@ -19,7 +19,8 @@ import java.util.function.Supplier;
 
 @Configuration
 public class RedisConfig {
-        private RedisClient redisClient() {
+        @Bean(destroyMethod = "shutdown")
+        public RedisClient redisClient() {
                 String host = System.getenv().getOrDefault("REDIS_HOST", "localhost");
                 String portStr = System.getenv().getOrDefault("REDIS_PORT", "6379");
                 int port = Integer.parseInt(portStr);
@@ -33,8 +34,7 @@ public class RedisConfig {
         }
 
         @Bean
-        public ProxyManager<String> lettuceBasedProxyManager() {
-                RedisClient redisClient = redisClient();
+        public ProxyManager<String> lettuceBasedProxyManager(RedisClient redisClient) {
                 StatefulRedisConnection<String, byte[]> redisConnection = redisClient
                                 .connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE));
 
@@ -3,15 +3,20 @@ package com.fined.mentor.chat.controller;
 import com.fined.mentor.auth.entity.User;
 import com.fined.mentor.chat.dto.ChatMessageRequest;
 import com.fined.mentor.chat.dto.ChatMessageResponse;
+import com.fined.mentor.chat.dto.ChatSessionSummary;
 import com.fined.mentor.chat.dto.UpdateSessionTitleRequest;
 import com.fined.mentor.chat.entity.ChatMessage;
 import com.fined.mentor.chat.entity.ChatSession;
 import com.fined.mentor.chat.service.ChatService;
 import com.fined.mentor.chat.service.ChatSessionService;
+import com.fined.mentor.core.admission.AdmissionRejectedException;
 import com.fined.mentor.core.dto.ApiResponse;
+import com.fined.mentor.core.dto.CursorPage;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -36,11 +41,7 @@ public class ChatController {
         try {
             log.info("Creating new chat session with title: {}", title);
 
-            // Get current user
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            User user = (User) authentication.getPrincipal();
-
-            ChatSession session = chatSessionService.createSession(title, user.getId());
+            ChatSession session = chatSessionService.createSession(title, currentUserId());
             return ResponseEntity.ok(ApiResponse.success(session));
         } catch (Exception e) {
             log.error("Error creating chat session", e);
@@ -51,11 +52,7 @@ public class ChatController {
     @GetMapping("/sessions")
     public ResponseEntity<ApiResponse<List<ChatSession>>> getActiveSessions() {
         try {
-            // Get current user
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            User user = (User) authentication.getPrincipal();
-
-            List<ChatSession> sessions = chatSessionService.getActiveSessions(user.getId());
+            List<ChatSession> sessions = chatSessionService.getActiveSessions(currentUserId());
             return ResponseEntity.ok(ApiResponse.success(sessions));
         } catch (Exception e) {
             log.error("Error retrieving active chat sessions", e);
@@ -63,11 +60,26 @@ public class ChatController {
         }
     }
 
+    @GetMapping("/sessions/page")
+    public ResponseEntity<ApiResponse<CursorPage<ChatSessionSummary>>> getActiveSessionPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            CursorPage<ChatSessionSummary> page = chatSessionService.getActiveSessionPage(currentUserId(), cursor,
+                    limit);
+            return ResponseEntity.ok(ApiResponse.success(page));
+        } catch (Exception e) {
+            log.error("Error retrieving page of chat sessions", e);
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @PostMapping("/message")
     public ResponseEntity<ApiResponse<ChatMessageResponse>> sendMessage(
             @Valid @RequestBody ChatMessageRequest request) {
         try {
             log.debug("Processing chat message for session: {}", request.getChatSessionId());
+            chatSessionService.verifyOwnership(request.getChatSessionId(), currentUserId());
             ChatMessage response = chatService.getChatResponse(
                     request.getChatSessionId(), request.getMessage());
 
@@ -81,6 +93,12 @@ public class ChatController {
 
             return ResponseEntity.ok(ApiResponse.success(responseDto));
         } catch (Exception e) {
+            if (AdmissionRejectedException.isCauseOf(e)) {
+                log.warn("No model capacity for chat message, rejecting it");
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body(ApiResponse.error("The server is busy. Please try again shortly."));
+            }
             log.error("Error processing chat message", e);
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
@@ -90,7 +108,8 @@ public class ChatController {
     public Flux<String> streamMessage(@Valid @RequestBody ChatMessageRequest request) {
         try {
             log.debug("Streaming chat message for session: {}", request.getChatSessionId());
-            return chatService.streamChatResponse(request.getChatSessionId(), request.getMessage());
+            return chatService.streamChatResponse(request.getChatSessionId(), currentUserId(),
+                    request.getMessage());
         } catch (Exception e) {
             log.error("Error starting chat stream", e);
             return Flux.error(e);
@@ -101,6 +120,7 @@ public class ChatController {
     public ResponseEntity<ApiResponse<ChatSession>> getChatSession(@PathVariable String sessionId) {
         try {
             log.info("Retrieving chat session with details for id: {}", sessionId);
+            chatSessionService.verifyOwnership(sessionId, currentUserId());
             ChatSession session = chatSessionService.getSessionWithDetails(sessionId);
             return ResponseEntity.ok(ApiResponse.success(session));
         } catch (Exception e) {
@@ -113,6 +133,7 @@ public class ChatController {
     public ResponseEntity<ApiResponse<List<ChatMessage>>> getChatHistory(
             @PathVariable String sessionId) {
         try {
+            chatSessionService.verifyOwnership(sessionId, currentUserId());
             List<ChatMessage> history = chatService.getChatHistory(sessionId);
             return ResponseEntity.ok(ApiResponse.success(history));
         } catch (Exception e) {
@@ -121,12 +142,28 @@ public class ChatController {
         }
     }
 
+    @GetMapping("/sessions/{sessionId}/history/page")
+    public ResponseEntity<ApiResponse<CursorPage<ChatMessage>>> getChatHistoryPage(
+            @PathVariable String sessionId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            chatSessionService.verifyOwnership(sessionId, currentUserId());
+            CursorPage<ChatMessage> page = chatService.getChatHistoryPage(sessionId, cursor, limit);
+            return ResponseEntity.ok(ApiResponse.success(page));
+        } catch (Exception e) {
+            log.error("Error retrieving chat history page for session: {}", sessionId, e);
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @PutMapping("/sessions/{sessionId}/title")
     public ResponseEntity<ApiResponse<ChatSession>> updateSessionTitle(
             @PathVariable String sessionId,
             @Valid @RequestBody UpdateSessionTitleRequest request) {
         try {
             log.info("Updating title for session: {} to: {}", sessionId, request.getTitle());
+            chatSessionService.verifyOwnership(sessionId, currentUserId());
             ChatSession updatedSession = chatSessionService.updateSessionTitle(sessionId, request.getTitle());
             return ResponseEntity.ok(ApiResponse.success(updatedSession));
         } catch (Exception e) {
@@ -138,6 +175,7 @@ public class ChatController {
     @DeleteMapping("/sessions/{sessionId}")
     public ResponseEntity<ApiResponse<Void>> deactivateSession(@PathVariable String sessionId) {
         try {
+            chatSessionService.verifyOwnership(sessionId, currentUserId());
             chatService.deactivateChatSession(sessionId);
             return ResponseEntity.ok(ApiResponse.success(null));
         } catch (Exception e) {
@@ -145,4 +183,10 @@ public class ChatController {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    private String currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        User user = (User) authentication.getPrincipal();
+        return user.getId();
+    }
+}
@@ -0,0 +1,23 @@
+package com.fined.mentor.chat.dto;
+
+import com.fined.mentor.chat.entity.ChatSession;
+
+import java.time.Instant;
+
+/**
+ * The small, rarely changing part of a chat session needed on every chat request:
+ * identity, owner, state and the rolling summary used to build prompts.
+ */
+public record ChatSessionMetadata(
+        String id,
+        String userId,
+        boolean active,
+        String title,
+        String summary,
+        Instant summarizedUntil) {
+
+    public static ChatSessionMetadata from(ChatSession session) {
+        return new ChatSessionMetadata(session.getId(), session.getUserId(), session.isActive(),
+                session.getTitle(), session.getSummary(), session.getSummarizedUntil());
+    }
+}
@@ -0,0 +1,31 @@
+package com.fined.mentor.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Lean list-view form of a chat session: metadata plus progress of its latest
+ * quiz, without quiz questions or messages. Quiz fields are null when the
+ * session has no quiz.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSessionSummary {
+    private String id;
+    private String title;
+    private Instant createdAt;
+
+    private String quizId;
+    private String quizTopic;
+    private Integer quizQuestionCount;
+    private Integer quizCurrentQuestionIndex;
+    private Integer quizScore;
+    private Boolean quizFinished;
+    private Boolean quizCurrentQuestionSubmitted;
+}
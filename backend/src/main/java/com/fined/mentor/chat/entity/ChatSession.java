@@ -1,5 +1,6 @@
 package com.fined.mentor.chat.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fined.mentor.quiz.entity.Quiz;
 import com.fined.mentor.quiz.entity.QuizState;
 import lombok.AllArgsConstructor;
@@ -26,6 +27,12 @@ public class ChatSession {
     private boolean active;
     private String userId;
 
+    // Rolling summary of every message up to and including summarizedUntil
+    private String summary;
+    private Instant summarizedUntil;
+    @JsonIgnore
+    private Instant summaryLockedUntil;
+
     @Transient
     private List<ChatMessage> messages;
     @Transient
@@ -1,12 +1,18 @@
 package com.fined.mentor.chat.repository;
 
 import com.fined.mentor.chat.entity.ChatMessage;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
+import java.time.Instant;
 import java.util.List;
 
 @Repository
-public interface ChatMessageRepository extends MongoRepository<ChatMessage, String> {
+public interface ChatMessageRepository extends MongoRepository<ChatMessage, String>, ChatMessageRepositoryCustom {
     List<ChatMessage> findByChatSessionIdOrderByTimestampAsc(String chatSessionId);
+    List<ChatMessage> findByChatSessionIdOrderByTimestampDesc(String chatSessionId, Limit limit);
+    List<ChatMessage> findByChatSessionIdAndTimestampAfterOrderByTimestampAsc(String chatSessionId, Instant after,
+            Limit limit);
+    long countByChatSessionIdAndTimestampAfter(String chatSessionId, Instant after);
     void deleteByChatSessionId(String chatSessionId);
 }
\ No newline at end of file
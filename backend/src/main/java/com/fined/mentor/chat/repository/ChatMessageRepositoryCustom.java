@@ -0,0 +1,17 @@
+package com.fined.mentor.chat.repository;
+
+import com.fined.mentor.chat.entity.ChatMessage;
+import com.fined.mentor.core.dto.KeysetCursor;
+
+import java.util.List;
+
+public interface ChatMessageRepositoryCustom {
+
+    /**
+     * Up to {@code limit} messages of a session older than {@code before}, newest first,
+     * in (timestamp, id) descending order.
+     *
+     * @param before cursor of the oldest message already loaded, or null to start from the newest
+     */
+    List<ChatMessage> findPageBefore(String chatSessionId, KeysetCursor before, int limit);
+}
@@ -0,0 +1,30 @@
+package com.fined.mentor.chat.repository;
+
+import com.fined.mentor.chat.entity.ChatMessage;
+import com.fined.mentor.core.dto.KeysetCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ChatMessageRepositoryCustomImpl implements ChatMessageRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<ChatMessage> findPageBefore(String chatSessionId, KeysetCursor before, int limit) {
+        Criteria criteria = Criteria.where("chatSessionId").is(chatSessionId);
+        if (before != null) {
+            criteria = new Criteria().andOperator(criteria, KeysetQueries.before("timestamp", before));
+        }
+
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "timestamp", "_id"))
+                .limit(limit);
+        return mongoTemplate.find(query, ChatMessage.class);
+    }
+}
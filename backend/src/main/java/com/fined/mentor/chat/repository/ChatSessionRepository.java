@@ -7,10 +7,8 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ChatSessionRepository extends MongoRepository<ChatSession, String> {
+public interface ChatSessionRepository extends MongoRepository<ChatSession, String>, ChatSessionRepositoryCustom {
     Optional<ChatSession> findByIdAndActiveTrue(String id);
 
-    List<ChatSession> findByActiveTrueOrderByCreatedAtDesc();
-
     List<ChatSession> findByUserIdAndActiveTrueOrderByCreatedAtDesc(String userId);
 }
@@ -0,0 +1,24 @@
+package com.fined.mentor.chat.repository;
+
+import com.fined.mentor.chat.dto.ChatSessionSummary;
+import com.fined.mentor.chat.entity.ChatSession;
+import com.fined.mentor.core.dto.KeysetCursor;
+
+import java.util.List;
+
+public interface ChatSessionRepositoryCustom {
+
+    /**
+     * Active sessions of a user, newest first, each with its latest quiz and that
+     * quiz's state populated, loaded in a single aggregation.
+     */
+    List<ChatSession> findActiveSessionsWithLatestQuiz(String userId);
+
+    /**
+     * Up to {@code limit} active sessions of a user after {@code after} in
+     * (createdAt, id) descending order, as summaries without quiz bodies.
+     *
+     * @param after cursor of the last session of the previous page, or null for the first page
+     */
+    List<ChatSessionSummary> findActiveSessionSummaries(String userId, KeysetCursor after, int limit);
+}
@@ -0,0 +1,160 @@
+package com.fined.mentor.chat.repository;
+
+import com.fined.mentor.chat.dto.ChatSessionSummary;
+import com.fined.mentor.chat.entity.ChatSession;
+import com.fined.mentor.core.dto.KeysetCursor;
+import com.fined.mentor.quiz.entity.Quiz;
+import com.fined.mentor.quiz.entity.QuizState;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class ChatSessionRepositoryCustomImpl implements ChatSessionRepositoryCustom {
+
+    private static final String SESSIONS = "chat_sessions";
+    private static final String QUIZZES = "quizzes";
+    private static final String QUIZ_STATES = "quiz_states";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<ChatSession> findActiveSessionsWithLatestQuiz(String userId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("userId").is(userId).and("active").is(true)),
+                Aggregation.sort(Sort.Direction.DESC, "createdAt"),
+                // Internal bookkeeping of the summarizer is not part of the list view
+                Aggregation.project().andExclude("summary", "summarizedUntil", "summaryLockedUntil"),
+                Aggregation.stage(latestQuizLookup(null, null)),
+                Aggregation.stage(new Document("$unwind",
+                        new Document("path", "$quiz").append("preserveNullAndEmptyArrays", true))));
+
+        MongoConverter converter = mongoTemplate.getConverter();
+        return mongoTemplate.aggregate(aggregation, SESSIONS, Document.class)
+                .getMappedResults()
+                .stream()
+                .map(row -> toSession(converter, row))
+                .toList();
+    }
+
+    @Override
+    public List<ChatSessionSummary> findActiveSessionSummaries(String userId, KeysetCursor after, int limit) {
+        Criteria criteria = Criteria.where("userId").is(userId).and("active").is(true);
+        if (after != null) {
+            criteria = new Criteria().andOperator(criteria, KeysetQueries.before("createdAt", after));
+        }
+
+        // Only what the list view shows: question count instead of questions, progress instead of answers
+        Document quizProjection = new Document("topic", 1)
+                .append("questionCount", new Document("$size",
+                        new Document("$ifNull", List.of("$questions", List.of()))));
+        Document stateProjection = new Document("currentQuestionIndex", 1)
+                .append("score", 1)
+                .append("isFinished", 1)
+                .append("isSubmitted", 1);
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, "createdAt", "_id")),
+                Aggregation.limit(limit),
+                Aggregation.project("title", "createdAt"),
+                Aggregation.stage(latestQuizLookup(quizProjection, stateProjection)),
+                Aggregation.stage(new Document("$unwind",
+                        new Document("path", "$quiz").append("preserveNullAndEmptyArrays", true))));
+
+        return mongoTemplate.aggregate(aggregation, SESSIONS, Document.class)
+                .getMappedResults()
+                .stream()
+                .map(this::toSummary)
+                .toList();
+    }
+
+    /**
+     * Joins the newest quiz of each session and, nested inside it, that quiz's state.
+     * Quiz and state reference their parents by the string form of the parent _id.
+     * Null projections return the full documents.
+     */
+    private Document latestQuizLookup(Document quizProjection, Document stateProjection) {
+        List<Document> statePipeline = new ArrayList<>(List.of(
+                new Document("$match", new Document("$expr",
+                        new Document("$eq", List.of("$quizId", "$$quizId")))),
+                new Document("$limit", 1)));
+        if (stateProjection != null) {
+            statePipeline.add(new Document("$project", stateProjection));
+        }
+        Document stateLookup = new Document("$lookup", new Document("from", QUIZ_STATES)
+                .append("let", new Document("quizId", new Document("$toString", "$_id")))
+                .append("pipeline", statePipeline)
+                .append("as", "quizState"));
+
+        List<Document> quizPipeline = new ArrayList<>(List.of(
+                new Document("$match", new Document("$expr",
+                        new Document("$eq", List.of("$chatSessionId", "$$sessionId")))),
+                new Document("$sort", new Document("createdAt", -1)),
+                new Document("$limit", 1)));
+        if (quizProjection != null) {
+            quizPipeline.add(new Document("$project", quizProjection));
+        }
+        quizPipeline.add(stateLookup);
+
+        return new Document("$lookup", new Document("from", QUIZZES)
+                .append("let", new Document("sessionId", new Document("$toString", "$_id")))
+                .append("pipeline", quizPipeline)
+                .append("as", "quiz"));
+    }
+
+    private ChatSessionSummary toSummary(Document row) {
+        Date createdAt = row.getDate("createdAt");
+        ChatSessionSummary summary = ChatSessionSummary.builder()
+                .id(row.get("_id").toString())
+                .title(row.getString("title"))
+                .createdAt(createdAt != null ? createdAt.toInstant() : null)
+                .build();
+
+        Document quiz = row.get("quiz", Document.class);
+        if (quiz == null) {
+            return summary;
+        }
+        summary.setQuizId(quiz.get("_id").toString());
+        summary.setQuizTopic(quiz.getString("topic"));
+        summary.setQuizQuestionCount(quiz.getInteger("questionCount"));
+
+        List<Document> states = quiz.getList("quizState", Document.class);
+        if (states != null && !states.isEmpty()) {
+            Document state = states.get(0);
+            int currentIndex = state.getInteger("currentQuestionIndex", 0);
+            Map<?, ?> submitted = state.get("isSubmitted", Map.class);
+            summary.setQuizCurrentQuestionIndex(currentIndex);
+            summary.setQuizScore(state.getInteger("score", 0));
+            summary.setQuizFinished(state.getBoolean("isFinished", false));
+            summary.setQuizCurrentQuestionSubmitted(submitted != null
+                    && Boolean.TRUE.equals(submitted.get(String.valueOf(currentIndex))));
+        }
+        return summary;
+    }
+
+    private ChatSession toSession(MongoConverter converter, Document row) {
+        Document quizDocument = row.get("quiz", Document.class);
+        ChatSession session = converter.read(ChatSession.class, row);
+        if (quizDocument == null) {
+            return session;
+        }
+
+        List<Document> states = quizDocument.getList("quizState", Document.class);
+        quizDocument.remove("quizState");
+        session.setQuiz(converter.read(Quiz.class, quizDocument));
+        if (states != null && !states.isEmpty()) {
+            session.setQuizState(converter.read(QuizState.class, states.get(0)));
+        }
+        return session;
+    }
+}
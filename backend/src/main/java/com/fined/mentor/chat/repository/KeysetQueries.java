@@ -0,0 +1,26 @@
+package com.fined.mentor.chat.repository;
+
+import com.fined.mentor.core.dto.KeysetCursor;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+final class KeysetQueries {
+
+    private KeysetQueries() {
+    }
+
+    /**
+     * Matches documents that come after the cursor in descending (field, _id) order.
+     */
+    static Criteria before(String field, KeysetCursor cursor) {
+        Object id = toId(cursor.id());
+        return new Criteria().orOperator(
+                Criteria.where(field).lt(cursor.position()),
+                Criteria.where(field).is(cursor.position()).and("_id").lt(id));
+    }
+
+    // Ids are stored as ObjectIds when they look like one, as Spring Data does on save
+    static Object toId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
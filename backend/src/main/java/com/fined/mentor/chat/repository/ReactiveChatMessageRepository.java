@@ -0,0 +1,15 @@
+package com.fined.mentor.chat.repository;
+
+import com.fined.mentor.chat.entity.ChatMessage;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking counterpart of {@link ChatMessageRepository} for the streaming endpoints.
+ */
+@Repository
+public interface ReactiveChatMessageRepository extends ReactiveMongoRepository<ChatMessage, String> {
+    Flux<ChatMessage> findByChatSessionIdOrderByTimestampDesc(String chatSessionId, Limit limit);
+}
@@ -0,0 +1,14 @@
+package com.fined.mentor.chat.repository;
+
+import com.fined.mentor.chat.entity.ChatSession;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link ChatSessionRepository} for the streaming endpoints.
+ */
+@Repository
+public interface ReactiveChatSessionRepository extends ReactiveMongoRepository<ChatSession, String> {
+    Mono<ChatSession> findByIdAndActiveTrue(String id);
+}
@@ -0,0 +1,130 @@
+package com.fined.mentor.chat.service;
+
+import com.fined.mentor.chat.entity.ChatMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Assembles the message list sent to the model for a chat turn.
+ * The system prompt is always kept; history is added newest-first until either
+ * the token budget or the message cap is reached, so prompt size stays bounded
+ * no matter how long the session grows.
+ */
+@Slf4j
+@Component
+public class ChatContextBuilder {
+
+    // Rough per-message framing cost (role markers, separators) on top of the text itself
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    private static final String SUMMARY_HEADER = """
+
+
+            CONVERSATION SO FAR (summary of earlier turns, use it as context):
+            """;
+
+    private final TokenCountEstimator tokenCountEstimator;
+    private final int maxHistoryTokens;
+    private final int maxHistoryMessages;
+
+    public ChatContextBuilder(TokenCountEstimator tokenCountEstimator,
+            @Value("${app.chat.context.max-history-tokens:4000}") int maxHistoryTokens,
+            @Value("${app.chat.context.max-history-messages:40}") int maxHistoryMessages) {
+        this.tokenCountEstimator = tokenCountEstimator;
+        this.maxHistoryTokens = maxHistoryTokens;
+        this.maxHistoryMessages = maxHistoryMessages;
+    }
+
+    /**
+     * Upper bound on how many stored messages a caller needs to fetch to fill the window.
+     */
+    public int getMaxHistoryMessages() {
+        return maxHistoryMessages;
+    }
+
+    /**
+     * Builds the prompt messages for a turn without a conversation summary.
+     *
+     * @see #build(String, String, List)
+     */
+    public List<Message> build(String systemPrompt, List<ChatMessage> history) {
+        return build(systemPrompt, null, history);
+    }
+
+    /**
+     * Builds the prompt messages for a turn.
+     *
+     * @param systemPrompt the system instructions, always placed first
+     * @param summary      rolling summary of turns older than {@code history}, may be null
+     * @param history      conversation in chronological order, newest message last
+     * @return system message followed by the newest turns that fit the budget
+     */
+    public List<Message> build(String systemPrompt, String summary, List<ChatMessage> history) {
+        Deque<Message> window = new ArrayDeque<>();
+        int usedTokens = 0;
+
+        if (history != null) {
+            for (int i = history.size() - 1; i >= 0 && window.size() < maxHistoryMessages; i--) {
+                ChatMessage msg = history.get(i);
+                if (msg.getRole() == null || msg.getText() == null || msg.getText().isBlank()) {
+                    continue;
+                }
+
+                int cost = estimateTokens(msg.getText());
+                // The newest turn is always sent, even if it alone exceeds the budget
+                if (!window.isEmpty() && usedTokens + cost > maxHistoryTokens) {
+                    break;
+                }
+
+                window.addFirst(toMessage(msg));
+                usedTokens += cost;
+            }
+        }
+
+        // Gemini expects the conversation to open with a user turn
+        while (window.size() > 1 && window.peekFirst() instanceof AssistantMessage) {
+            window.removeFirst();
+        }
+
+        List<Message> messages = new ArrayList<>(window.size() + 1);
+        messages.add(new SystemMessage(summary == null || summary.isBlank()
+                ? systemPrompt
+                : systemPrompt + SUMMARY_HEADER + summary));
+        messages.addAll(window);
+
+        log.debug("Built chat context with {} history messages (~{} tokens)", window.size(), usedTokens);
+        return messages;
+    }
+
+    /**
+     * Estimates the total prompt size of a message list, including framing overhead.
+     */
+    public int estimateTokens(List<Message> messages) {
+        int total = 0;
+        for (Message message : messages) {
+            total += estimateTokens(message.getText());
+        }
+        return total;
+    }
+
+    private int estimateTokens(String text) {
+        return tokenCountEstimator.estimate(text) + MESSAGE_OVERHEAD_TOKENS;
+    }
+
+    private Message toMessage(ChatMessage msg) {
+        return msg.getRole() == ChatMessage.Role.MODEL
+                ? new AssistantMessage(msg.getText())
+                : new UserMessage(msg.getText());
+    }
+}
@@ -0,0 +1,203 @@
+package com.fined.mentor.chat.service;
+
+import com.fined.mentor.chat.entity.ChatMessage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache of the most recent messages of each active chat session.
+ * <p>
+ * Entries are filled from Mongo on the first read and then kept current by
+ * {@link #append(ChatMessage)} on every write, so an ongoing conversation builds
+ * its prompt without reading history back. Anything that deactivates a session
+ * or edits its stored messages must {@link #invalidate(String)} it.
+ * <p>
+ * Entries expire after an idle period and the cache as a whole is bounded by an
+ * estimated byte size.
+ */
+@Slf4j
+@Component
+public class ChatHistoryCache {
+
+    // Rough fixed cost of a cached message besides its text (ids, timestamp, object headers)
+    private static final int MESSAGE_OVERHEAD_BYTES = 160;
+
+    private final Cache<String, SessionHistory> cache;
+    // When each session last had a message appended, so non-blocking loads can tell if they raced a write
+    private final Cache<String, Long> lastAppends = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .maximumSize(100_000)
+            .build();
+    private final int maxMessagesPerSession;
+    private final Counter hits;
+    private final Counter misses;
+
+    public ChatHistoryCache(MeterRegistry meterRegistry,
+            @Value("${app.chat.history-cache.max-bytes:67108864}") long maxBytes,
+            @Value("${app.chat.history-cache.idle-timeout:PT30M}") Duration idleTimeout,
+            @Value("${app.chat.context.max-history-messages:40}") int maxMessagesPerSession) {
+        this.maxMessagesPerSession = maxMessagesPerSession;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String sessionId, SessionHistory history) -> history.weight())
+                .expireAfterAccess(idleTimeout)
+                .removalListener((String sessionId, SessionHistory history, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        meterRegistry.counter("chat.history.cache.evictions", "cause", cause.name().toLowerCase())
+                                .increment();
+                    }
+                })
+                .build();
+
+        this.hits = Counter.builder("chat.history.cache.requests")
+                .tag("result", "hit")
+                .description("History reads served from the in-process cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("chat.history.cache.requests")
+                .tag("result", "miss")
+                .description("History reads that had to go to Mongo")
+                .register(meterRegistry);
+        Gauge.builder("chat.history.cache.sessions", cache, Cache::estimatedSize)
+                .description("Sessions currently cached")
+                .register(meterRegistry);
+        Gauge.builder("chat.history.cache.bytes", cache,
+                        c -> c.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L))
+                .description("Estimated size of cached history")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the newest {@code limit} messages of a session in chronological order,
+     * calling {@code loader} only when the cached entry cannot answer. The loader
+     * must return the newest {@code limit} messages in chronological order.
+     */
+    public List<ChatMessage> getRecent(String sessionId, int limit, Supplier<List<ChatMessage>> loader) {
+        SessionHistory cached = cache.getIfPresent(sessionId);
+        if (cached != null && cached.covers(limit)) {
+            hits.increment();
+            return cached.tail(limit);
+        }
+
+        misses.increment();
+        if (limit > maxMessagesPerSession) {
+            // Larger than what we keep per session; serve it but don't cache it
+            return loader.get();
+        }
+
+        // Loading under the key lock orders the read against concurrent appends
+        SessionHistory loaded = cache.asMap().compute(sessionId, (id, existing) -> existing != null
+                && existing.covers(limit)
+                        ? existing
+                        : SessionHistory.of(loader.get(), limit, maxMessagesPerSession));
+        return loaded.tail(limit);
+    }
+
+    /**
+     * Non-blocking variant of {@link #getRecent(String, int, Supplier)}. The loaded
+     * messages are cached only if the session was not appended to or invalidated
+     * while the load was in flight, since they may be missing that change.
+     */
+    public Mono<List<ChatMessage>> getRecentReactive(String sessionId, int limit,
+            Supplier<Mono<List<ChatMessage>>> loader) {
+        // Deferred so the lookup and the load start happen on subscription, not at assembly
+        return Mono.defer(() -> {
+            SessionHistory cached = cache.getIfPresent(sessionId);
+            if (cached != null && cached.covers(limit)) {
+                hits.increment();
+                return Mono.just(cached.tail(limit));
+            }
+
+            misses.increment();
+            long loadStarted = System.nanoTime();
+            return loader.get().map(messages -> {
+                Long lastAppend = lastAppends.getIfPresent(sessionId);
+                if (limit > maxMessagesPerSession || (lastAppend != null && lastAppend - loadStarted >= 0)) {
+                    return messages;
+                }
+                return cache.asMap().compute(sessionId, (id, existing) -> existing != null && existing.covers(limit)
+                        ? existing
+                        : SessionHistory.of(messages, limit, maxMessagesPerSession)).tail(limit);
+            });
+        });
+    }
+
+    /**
+     * Adds a freshly saved message to its session's entry, if the session is cached.
+     */
+    public void append(ChatMessage message) {
+        if (message.getChatSessionId() == null) {
+            return;
+        }
+        lastAppends.put(message.getChatSessionId(), System.nanoTime());
+        cache.asMap().computeIfPresent(message.getChatSessionId(),
+                (id, history) -> history.append(message, maxMessagesPerSession));
+    }
+
+    public void invalidate(String sessionId) {
+        if (sessionId != null) {
+            lastAppends.put(sessionId, System.nanoTime());
+            cache.invalidate(sessionId);
+        }
+    }
+
+    /**
+     * Immutable snapshot of a session's newest messages. {@code complete} is true
+     * while the list holds the whole session, so any limit can be answered from it.
+     */
+    private record SessionHistory(List<ChatMessage> messages, boolean complete, int weight) {
+
+        static SessionHistory of(List<ChatMessage> messages, int requested, int capacity) {
+            List<ChatMessage> kept = messages.size() > capacity
+                    ? messages.subList(messages.size() - capacity, messages.size())
+                    : messages;
+            return new SessionHistory(List.copyOf(kept), messages.size() < requested, weigh(kept));
+        }
+
+        boolean covers(int limit) {
+            return complete || messages.size() >= limit;
+        }
+
+        List<ChatMessage> tail(int limit) {
+            return messages.size() <= limit ? messages : messages.subList(messages.size() - limit, messages.size());
+        }
+
+        SessionHistory append(ChatMessage message, int capacity) {
+            // The load under the key lock may already have picked this message up
+            if (message.getId() != null
+                    && messages.stream().anyMatch(m -> Objects.equals(m.getId(), message.getId()))) {
+                return this;
+            }
+            List<ChatMessage> updated = new ArrayList<>(messages.size() + 1);
+            updated.addAll(messages);
+            updated.add(message);
+            boolean trimmed = updated.size() > capacity;
+            if (trimmed) {
+                updated = updated.subList(updated.size() - capacity, updated.size());
+            }
+            return new SessionHistory(List.copyOf(updated), complete && !trimmed, weigh(updated));
+        }
+
+        private static int weigh(List<ChatMessage> messages) {
+            long bytes = 0;
+            for (ChatMessage message : messages) {
+                bytes += MESSAGE_OVERHEAD_BYTES + (message.getText() != null ? 2L * message.getText().length() : 0);
+            }
+            return (int) Math.min(bytes, Integer.MAX_VALUE);
+        }
+    }
+}
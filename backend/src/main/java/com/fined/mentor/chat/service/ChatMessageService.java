@@ -1,13 +1,33 @@
 package com.fined.mentor.chat.service;
 
 import com.fined.mentor.chat.entity.ChatMessage;
+import com.fined.mentor.core.dto.CursorPage;
+
+import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface ChatMessageService {
     ChatMessage saveMessage(ChatMessage message);
+
+    /**
+     * Stores the message in the background; for callers that must not block, such
+     * as streaming pipelines. The session is assumed to have been validated already.
+     *
+     * @return completes with the message once it is stored
+     */
+    CompletableFuture<ChatMessage> queueMessage(ChatMessage message);
     ChatMessage getMessage(String messageId);
     List<ChatMessage> getMessagesBySessionId(String sessionId);
+    List<ChatMessage> getRecentMessages(String sessionId, int limit);
+
+    /**
+     * Non-blocking variant of {@link #getRecentMessages(String, int)}. The session
+     * is assumed to have been validated already.
+     */
+    Mono<List<ChatMessage>> getRecentMessagesReactive(String sessionId, int limit);
+    CursorPage<ChatMessage> getMessagePage(String sessionId, String cursor, Integer limit);
     void deleteMessage(String messageId);
     void deleteAllMessagesBySessionId(String sessionId);
     ChatMessage updateMessage(String messageId, String newText);
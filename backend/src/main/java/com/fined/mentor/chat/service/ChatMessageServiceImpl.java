@@ -6,13 +6,21 @@ import com.fined.mentor.chat.exception.ChatMessageNotFoundException;
 import com.fined.mentor.chat.exception.ChatSessionNotFoundException;
 import com.fined.mentor.chat.repository.ChatMessageRepository;
 import com.fined.mentor.chat.repository.ChatSessionRepository;
+import com.fined.mentor.chat.repository.ReactiveChatMessageRepository;
+import com.fined.mentor.core.dto.CursorPage;
+import com.fined.mentor.core.dto.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
@@ -20,7 +28,11 @@ import java.util.List;
 public class ChatMessageServiceImpl implements ChatMessageService {
 
     private final ChatMessageRepository chatMessageRepository;
+    private final ReactiveChatMessageRepository reactiveChatMessageRepository;
     private final ChatSessionRepository chatSessionRepository;
+    private final ChatHistoryCache chatHistoryCache;
+    private final ChatSessionCache chatSessionCache;
+    private final ChatMessageWriteQueue chatMessageWriteQueue;
 
     @Override
     @Transactional
@@ -29,7 +41,7 @@ public class ChatMessageServiceImpl implements ChatMessageService {
             log.debug("Saving chat message for session: {}", message.getChatSessionId());
 
             // Validate that the session exists and is active
-            chatSessionRepository.findByIdAndActiveTrue(message.getChatSessionId())
+            chatSessionCache.findActive(message.getChatSessionId())
                     .orElseThrow(() -> new ChatSessionNotFoundException(
                             "Chat session not found or inactive: " + message.getChatSessionId()));
 
@@ -38,7 +50,10 @@ public class ChatMessageServiceImpl implements ChatMessageService {
                 message.setTimestamp(Instant.now());
             }
 
+            // Anything still queued for this session goes first
+            chatMessageWriteQueue.awaitStored(message.getChatSessionId());
             ChatMessage savedMessage = chatMessageRepository.save(message);
+            chatHistoryCache.append(savedMessage);
             log.debug("Successfully saved chat message with id: {}", savedMessage.getId());
 
             return savedMessage;
@@ -49,6 +64,21 @@ public class ChatMessageServiceImpl implements ChatMessageService {
         }
     }
 
+    @Override
+    public CompletableFuture<ChatMessage> queueMessage(ChatMessage message) {
+        log.debug("Queueing chat message for session: {}", message.getChatSessionId());
+
+        CompletableFuture<ChatMessage> stored = chatMessageWriteQueue.enqueue(message);
+        // Visible to the next turn right away; dropped again if it never reaches Mongo
+        chatHistoryCache.append(message);
+        return stored.whenComplete((saved, e) -> {
+            if (e != null) {
+                log.error("Failed to store queued chat message for session: {}", message.getChatSessionId(), e);
+                chatHistoryCache.invalidate(message.getChatSessionId());
+            }
+        });
+    }
+
     @Override
     public ChatMessage getMessage(String messageId) {
         log.debug("Retrieving chat message: {}", messageId);
@@ -66,7 +96,7 @@ public class ChatMessageServiceImpl implements ChatMessageService {
             log.debug("Retrieving messages for session: {}", sessionId);
 
             // Validate session exists and is active
-            chatSessionRepository.findByIdAndActiveTrue(sessionId)
+            chatSessionCache.findActive(sessionId)
                     .orElseThrow(() -> new ChatSessionNotFoundException(
                             "Chat session not found or inactive: " + sessionId));
 
@@ -81,6 +111,86 @@ public class ChatMessageServiceImpl implements ChatMessageService {
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ChatMessage> getRecentMessages(String sessionId, int limit) {
+        try {
+            log.debug("Retrieving last {} messages for session: {}", limit, sessionId);
+
+            List<ChatMessage> messages = chatHistoryCache.getRecent(sessionId, limit,
+                    () -> loadRecentMessages(sessionId, limit));
+            log.debug("Retrieved {} recent messages for session: {}", messages.size(), sessionId);
+
+            return messages;
+
+        } catch (Exception e) {
+            log.error("Failed to retrieve recent messages for session: {}", sessionId, e);
+            throw new ChatMessageException("Failed to retrieve chat messages.", e);
+        }
+    }
+
+    @Override
+    public Mono<List<ChatMessage>> getRecentMessagesReactive(String sessionId, int limit) {
+        log.debug("Retrieving last {} messages for session: {}", limit, sessionId);
+
+        return chatHistoryCache.getRecentReactive(sessionId, limit,
+                        () -> reactiveChatMessageRepository
+                                .findByChatSessionIdOrderByTimestampDesc(sessionId, Limit.of(limit))
+                                .collectList()
+                                .map(messages -> {
+                                    // Newest first from the index, flipped back to chronological order
+                                    List<ChatMessage> chronological = new ArrayList<>(messages);
+                                    Collections.reverse(chronological);
+                                    return chronological;
+                                }))
+                .onErrorMap(e -> {
+                    log.error("Failed to retrieve recent messages for session: {}", sessionId, e);
+                    return new ChatMessageException("Failed to retrieve chat messages.", e);
+                });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ChatMessage> getMessagePage(String sessionId, String cursor, Integer limit) {
+        KeysetCursor before = KeysetCursor.decode(cursor);
+        int pageSize = CursorPage.clampLimit(limit);
+        try {
+            log.debug("Retrieving page of {} messages for session: {}", pageSize, sessionId);
+
+            // Validate session exists and is active
+            chatSessionCache.findActive(sessionId)
+                    .orElseThrow(() -> new ChatSessionNotFoundException(
+                            "Chat session not found or inactive: " + sessionId));
+
+            // Pages walk back from the newest message; one extra row tells us whether more exist
+            CursorPage<ChatMessage> page = CursorPage.of(
+                    chatMessageRepository.findPageBefore(sessionId, before, pageSize + 1), pageSize,
+                    oldest -> new KeysetCursor(oldest.getTimestamp(), oldest.getId()));
+
+            // Chronological order within the page, like the full history
+            List<ChatMessage> items = new ArrayList<>(page.items());
+            Collections.reverse(items);
+            return new CursorPage<>(items, page.nextCursor());
+
+        } catch (Exception e) {
+            log.error("Failed to retrieve message page for session: {}", sessionId, e);
+            throw new ChatMessageException("Failed to retrieve chat messages.", e);
+        }
+    }
+
+    private List<ChatMessage> loadRecentMessages(String sessionId, int limit) {
+        // Validate session exists and is active
+        chatSessionCache.findActive(sessionId)
+                .orElseThrow(() -> new ChatSessionNotFoundException(
+                        "Chat session not found or inactive: " + sessionId));
+
+        // Newest first from the index, then flipped back to chronological order
+        List<ChatMessage> messages = new ArrayList<>(
+                chatMessageRepository.findByChatSessionIdOrderByTimestampDesc(sessionId, Limit.of(limit)));
+        Collections.reverse(messages);
+        return messages;
+    }
+
     @Override
     @Transactional
     public void deleteMessage(String messageId) {
@@ -89,6 +199,7 @@ public class ChatMessageServiceImpl implements ChatMessageService {
 
             ChatMessage message = getMessage(messageId);
             chatMessageRepository.delete(message);
+            chatHistoryCache.invalidate(message.getChatSessionId());
 
             log.debug("Successfully deleted chat message: {}", messageId);
 
@@ -110,6 +221,7 @@ public class ChatMessageServiceImpl implements ChatMessageService {
                             "Chat session not found: " + sessionId));
 
             chatMessageRepository.deleteByChatSessionId(sessionId);
+            chatHistoryCache.invalidate(sessionId);
             log.debug("Successfully deleted all messages for session: {}", sessionId);
 
         } catch (Exception e) {
@@ -138,6 +250,7 @@ public class ChatMessageServiceImpl implements ChatMessageService {
             message.setText(newText.trim());
 
             ChatMessage updatedMessage = chatMessageRepository.save(message);
+            chatHistoryCache.invalidate(message.getChatSessionId());
             log.debug("Successfully updated chat message: {}", messageId);
 
             return updatedMessage;
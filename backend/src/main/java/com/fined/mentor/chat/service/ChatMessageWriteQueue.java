@@ -0,0 +1,249 @@
+package com.fined.mentor.chat.service;
+
+import com.fined.mentor.chat.entity.ChatMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-behind persistence for chat messages, so streaming threads hand a
+ * message off instead of waiting on Mongo.
+ * <p>
+ * A single writer drains a bounded FIFO queue and stores whatever has
+ * accumulated with one {@code insertMany}, which keeps messages of a session in
+ * the order they were queued. When the queue is full, messages wait in an
+ * overflow lane that feeds the queue in order; only when that is full too is a
+ * message rejected. The queue is flushed on shutdown.
+ */
+@Slf4j
+@Component
+public class ChatMessageWriteQueue {
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatch;
+    private final Duration shutdownTimeout;
+    private final ExecutorService writer;
+    private final ThreadPoolExecutor overflow;
+    private final AtomicInteger overflowing = new AtomicInteger();
+    private final Map<String, CompletableFuture<ChatMessage>> tails = new ConcurrentHashMap<>();
+    private final Object enqueueLock = new Object();
+    private volatile boolean closed;
+
+    private final DistributionSummary batchSizes;
+    private final Timer flushTimer;
+    private final Counter failures;
+    private final Counter overflows;
+
+    public ChatMessageWriteQueue(MongoTemplate mongoTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.chat.write-queue.capacity:10000}") int capacity,
+            @Value("${app.chat.write-queue.max-batch:100}") int maxBatch,
+            @Value("${app.chat.write-queue.shutdown-timeout:PT10S}") Duration shutdownTimeout) {
+        this.mongoTemplate = mongoTemplate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.shutdownTimeout = shutdownTimeout;
+        this.overflow = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(capacity),
+                runnable -> daemon(runnable, "chat-write-overflow"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.batchSizes = DistributionSummary.builder("chat.persistence.batch.size")
+                .description("Messages stored per insertMany")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("chat.persistence.flush")
+                .description("Time to store one batch of chat messages")
+                .register(meterRegistry);
+        this.failures = Counter.builder("chat.persistence.failures")
+                .description("Chat messages that could not be stored")
+                .register(meterRegistry);
+        this.overflows = Counter.builder("chat.persistence.overflows")
+                .description("Chat messages queued while the write queue was full")
+                .register(meterRegistry);
+        Gauge.builder("chat.persistence.queue.depth", this, ChatMessageWriteQueue::depth)
+                .description("Chat messages waiting to be stored")
+                .register(meterRegistry);
+
+        this.writer = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "chat-write-behind"));
+        this.writer.execute(this::drain);
+    }
+
+    /**
+     * Queues a message for storage without blocking. The id and timestamp are
+     * assigned here, so the message can be cached and shown before it is stored.
+     *
+     * @return completes with the message once it is stored
+     */
+    public CompletableFuture<ChatMessage> enqueue(ChatMessage message) {
+        if (message.getId() == null) {
+            message.setId(new ObjectId().toHexString());
+        }
+        if (message.getTimestamp() == null) {
+            message.setTimestamp(Instant.now());
+        }
+        Pending pending = new Pending(message, new CompletableFuture<>());
+        if (closed) {
+            pending.stored().completeExceptionally(new IllegalStateException("Chat message write queue is closed"));
+            return pending.stored();
+        }
+
+        String sessionId = message.getChatSessionId();
+        tails.put(sessionId, pending.stored());
+        pending.stored().whenComplete((stored, e) -> tails.remove(sessionId, pending.stored()));
+
+        synchronized (enqueueLock) {
+            // Once anything is in the overflow lane, later messages queue behind it to keep the order
+            if (overflowing.get() == 0 && queue.offer(pending)) {
+                return pending.stored();
+            }
+            overflowing.incrementAndGet();
+            overflows.increment();
+            try {
+                overflow.execute(() -> {
+                    try {
+                        queue.put(pending);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        pending.stored().completeExceptionally(e);
+                    } finally {
+                        overflowing.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                overflowing.decrementAndGet();
+                failures.increment();
+                log.error("Chat message write queue is full, dropping message for session: {}", sessionId);
+                pending.stored().completeExceptionally(e);
+            }
+        }
+        return pending.stored();
+    }
+
+    /**
+     * Waits until everything queued for the session so far is stored, so a
+     * synchronous write that follows lands after it.
+     */
+    public void awaitStored(String chatSessionId) {
+        CompletableFuture<ChatMessage> tail = tails.get(chatSessionId);
+        if (tail == null) {
+            return;
+        }
+        try {
+            tail.get(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // The failure has been logged by the writer; later writes go ahead regardless
+        } catch (TimeoutException e) {
+            log.warn("Timed out waiting for queued messages of session: {}", chatSessionId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    int depth() {
+        return queue.size() + overflowing.get();
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        overflow.shutdown();
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.error("Chat message write queue did not flush in {}, {} messages not stored",
+                        shutdownTimeout, depth());
+                overflow.shutdownNow();
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writer.shutdownNow();
+        }
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            Pending first;
+            try {
+                first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                if (closed && depth() == 0) {
+                    return;
+                }
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, maxBatch - 1);
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    void flush(List<Pending> batch) {
+        List<ChatMessage> messages = batch.stream().map(Pending::message).toList();
+        Timer.Sample sample = Timer.start();
+        try {
+            mongoTemplate.insert(messages, ChatMessage.class);
+        } catch (Exception e) {
+            log.warn("Batch insert of {} chat messages failed, storing them one by one", messages.size(), e);
+            // save() upserts by id, so messages the failed batch already wrote are not duplicated
+            for (Pending pending : batch) {
+                try {
+                    mongoTemplate.save(pending.message());
+                } catch (Exception saveError) {
+                    failures.increment();
+                    log.error("Failed to store chat message for session: {}",
+                            pending.message().getChatSessionId(), saveError);
+                    pending.stored().completeExceptionally(saveError);
+                }
+            }
+        }
+        sample.stop(flushTimer);
+        batchSizes.record(messages.size());
+        batch.forEach(pending -> pending.stored().complete(pending.message()));
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    record Pending(ChatMessage message, CompletableFuture<ChatMessage> stored) {
+    }
+}
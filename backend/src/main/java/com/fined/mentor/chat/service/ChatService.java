@@ -2,6 +2,7 @@ package com.fined.mentor.chat.service;
 
 import com.fined.mentor.chat.entity.ChatMessage;
 import com.fined.mentor.chat.entity.ChatSession;
+import com.fined.mentor.core.dto.CursorPage;
 
 import java.util.List;
 
@@ -10,12 +11,18 @@ import reactor.core.publisher.Flux;
 public interface ChatService {
     ChatMessage getChatResponse(String chatSessionId, String userMessage);
 
-    Flux<String> streamChatResponse(String chatSessionId, String userMessage);
+    /**
+     * Streams the model's reply to a message in a session owned by the user. Every
+     * lookup and write on the way is non-blocking.
+     */
+    Flux<String> streamChatResponse(String chatSessionId, String userId, String userMessage);
 
     Flux<String> streamGuestChatResponse(List<ChatMessage> history, String userMessage);
 
     List<ChatMessage> getChatHistory(String chatSessionId);
 
+    CursorPage<ChatMessage> getChatHistoryPage(String chatSessionId, String cursor, Integer limit);
+
     ChatSession createChatSession(String title, String userId);
 
     void deactivateChatSession(String chatSessionId);
@@ -1,21 +1,32 @@
 package com.fined.mentor.chat.service;
 
+import com.fined.mentor.chat.dto.ChatSessionMetadata;
 import com.fined.mentor.chat.entity.ChatMessage;
 import com.fined.mentor.chat.entity.ChatSession;
 import com.fined.mentor.chat.exception.ChatException;
+import com.fined.mentor.chat.exception.ChatSessionNotFoundException;
+import com.fined.mentor.core.admission.AdmissionAdvisor;
+import com.fined.mentor.core.dto.CursorPage;
+import com.fined.mentor.core.llm.ModelInvoker;
+import com.fined.mentor.core.llm.PromptPrefixCache;
+import com.fined.mentor.core.llm.PromptRegistry;
+import com.fined.mentor.core.llm.PromptVariant;
+import com.fined.mentor.core.usage.TokenUsageRecorder;
 import com.fined.mentor.tavily.TavilySearchTool;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.messages.Message;
-import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.ai.chat.prompt.SystemPromptTemplate;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.support.ToolCallbacks;
+import org.springframework.ai.tool.ToolCallback;
 import org.springframework.stereotype.Service;
 
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -24,18 +35,40 @@ public class ChatServiceImpl implements ChatService {
     private final ChatClient chatClient;
     private final ChatSessionService chatSessionService;
     private final ChatMessageService chatMessageService;
-    private final TavilySearchTool tavilySearchTool;
+    private final List<ToolCallback> searchTools;
+    private final ChatContextBuilder chatContextBuilder;
+    private final ChatSummaryService chatSummaryService;
+    private final GuestAnswerCache guestAnswerCache;
+    private final PromptRegistry promptRegistry;
+    private final PromptPrefixCache promptPrefixCache;
+    private final ModelInvoker modelInvoker;
 
     public ChatServiceImpl(ChatClient.Builder chatClientBuilder,
             ChatSessionService chatSessionService,
             ChatMessageService chatMessageService,
-            TavilySearchTool tavilySearchTool) {
+            TavilySearchTool tavilySearchTool,
+            ChatContextBuilder chatContextBuilder,
+            ChatSummaryService chatSummaryService,
+            GuestAnswerCache guestAnswerCache,
+            PromptRegistry promptRegistry,
+            PromptPrefixCache promptPrefixCache,
+            ModelInvoker modelInvoker) {
         this.chatClient = chatClientBuilder.build();
         this.chatSessionService = chatSessionService;
         this.chatMessageService = chatMessageService;
-        this.tavilySearchTool = tavilySearchTool;
+        this.searchTools = List.of(ToolCallbacks.from(tavilySearchTool));
+        this.chatContextBuilder = chatContextBuilder;
+        this.chatSummaryService = chatSummaryService;
+        this.guestAnswerCache = guestAnswerCache;
+        this.promptRegistry = promptRegistry;
+        this.promptPrefixCache = promptPrefixCache;
+        this.modelInvoker = modelInvoker;
+        promptRegistry.register(SYSTEM_PROMPT_NAME, SYSTEM_PROMPT, searchTools);
     }
 
+    private static final String SYSTEM_PROMPT_NAME = "chat-system-prompt";
+
+    // [[en]]/[[fr]]/[[de]] blocks are only sent to users writing in that language, see PromptRegistry
     private static final String SYSTEM_PROMPT = """
             IDENTITY & CHARACTER ROLE:
             You are **Fined Mentor**, a specialized AI financial advisor and expert in finance, investment, real estate, and immobilien (property/real estate).
@@ -50,9 +83,15 @@ public class ChatServiceImpl implements ChatService {
 
             ❌ If a user asks about ANY other topic (sports, cooking, general knowledge, technology unrelated to finance, etc.):
             Politely decline and redirect them to your expertise areas. Example responses:
+            [[en]]
             - English: "I'm Fined Mentor, specialized in finance, investment, and real estate. I can't help with that topic, but I'd be happy to answer questions about financial planning, investing, or property markets!"
+            [[/en]]
+            [[fr]]
             - French: "Je suis Fined Mentor, spécialisé en finance, investissement et immobilier. Je ne peux pas vous aider sur ce sujet, mais je serais ravi de répondre à vos questions sur la planification financière, l'investissement ou les marchés immobiliers !"
+            [[/fr]]
+            [[de]]
             - German: "Ich bin Fined Mentor, spezialisiert auf Finanzen, Investitionen und Immobilien. Ich kann bei diesem Thema nicht helfen, aber ich beantworte gerne Fragen zur Finanzplanung, zu Investitionen oder zu Immobilienmärkten!"
+            [[/de]]
 
             MULTILINGUAL RESPONSE RULE (CRITICAL):
             🌍 ALWAYS respond in the SAME language the user writes in:
@@ -82,6 +121,7 @@ public class ChatServiceImpl implements ChatService {
 
             RESPONSE STYLE (few-shot examples):
 
+            [[en]]
             Example 1 - Beginner Question (English):
             User: "What is a 401k?"
             Response: "A **401(k)** is a retirement savings account offered by employers. You contribute pre-tax money from your paycheck, which grows tax-free until retirement.
@@ -110,6 +150,8 @@ public class ChatServiceImpl implements ChatService {
 
             Source: [IRS REIT requirements](https://www.irs.gov/)"
 
+            [[/en]]
+            [[fr]]
             Example 3 - French Question:
             User: "Qu'est-ce qu'un ETF ?"
             Response: "Un **ETF (Exchange-Traded Fund)** ou fonds négocié en bourse est un fonds d'investissement qui se négocie comme une action.
@@ -121,6 +163,8 @@ public class ChatServiceImpl implements ChatService {
 
             **Prochaine étape :** Comparez les ETF indiciels (S&P 500, MSCI World) pour commencer avec une exposition diversifiée."
 
+            [[/fr]]
+            [[de]]
             Example 4 - German Question:
             User: "Was ist eine Immobilienfinanzierung?"
             Response: "Eine **Immobilienfinanzierung** ist ein Kredit zur Finanzierung von Wohneigentum oder Anlageimmobilien.
@@ -132,6 +176,7 @@ public class ChatServiceImpl implements ChatService {
 
             **Nächster Schritt:** Vergleichen Sie Angebote verschiedener Banken und achten Sie auf die Gesamtkosten (effektiver Jahreszins)."
 
+            [[/de]]
             FORMATTING RULES:
             - Use **bold** for key financial terms
             - Use bullet points for pros/cons/steps
@@ -162,7 +207,7 @@ public class ChatServiceImpl implements ChatService {
         try {
             log.debug("Getting chat response for session: {}", chatSessionId);
 
-            chatSessionService.findById(chatSessionId);
+            ChatSessionMetadata session = chatSessionService.findById(chatSessionId);
 
             chatMessageService.saveMessage(
                     ChatMessage.builder()
@@ -171,21 +216,15 @@ public class ChatServiceImpl implements ChatService {
                             .text(userMessage)
                             .build());
 
-            List<Message> history = chatMessageService.getMessagesBySessionId(chatSessionId)
-                    .stream()
-                    .map(msg -> (Message) new UserMessage(msg.getText()))
-                    .collect(Collectors.toList());
-
-            SystemPromptTemplate systemPromptTemplate = new SystemPromptTemplate(SYSTEM_PROMPT);
-            Message systemMessage = systemPromptTemplate.createMessage();
-            history.add(0, systemMessage);
-
-            Prompt prompt = new Prompt(history);
+            PromptVariant systemPrompt = promptRegistry.select(SYSTEM_PROMPT_NAME, userMessage);
+            Prompt prompt = buildSessionPrompt(session, systemPrompt);
 
-            String responseContent = chatClient.prompt(prompt)
-                    .tools(tavilySearchTool)
-                    .call()
-                    .content();
+            String responseContent = modelInvoker.call(ModelInvoker.UseCase.CHAT, prompt,
+                    attempt -> promptPrefixCache.call(systemPrompt.cacheName(), attempt,
+                            p -> chatClient.prompt(p)
+                                    .advisors(a -> a.param(TokenUsageRecorder.USE_CASE, "chat"))
+                                    .call()
+                                    .content()));
 
             ChatMessage aiResponse = chatMessageService.saveMessage(
                     ChatMessage.builder()
@@ -193,6 +232,7 @@ public class ChatServiceImpl implements ChatService {
                             .role(ChatMessage.Role.MODEL)
                             .text(responseContent)
                             .build());
+            chatSummaryService.requestSummary(chatSessionId);
 
             log.debug("Successfully generated and saved chat response");
             return aiResponse;
@@ -204,53 +244,52 @@ public class ChatServiceImpl implements ChatService {
     }
 
     @Override
-    public Flux<String> streamChatResponse(String chatSessionId, String userMessage) {
-        try {
-            log.debug("Streaming chat response for session: {}", chatSessionId);
-
-            chatSessionService.findById(chatSessionId);
-
-            // Save user message
-            chatMessageService.saveMessage(
-                    ChatMessage.builder()
-                            .chatSessionId(chatSessionId)
-                            .role(ChatMessage.Role.USER)
-                            .text(userMessage)
-                            .build());
-
-            List<Message> history = chatMessageService.getMessagesBySessionId(chatSessionId)
-                    .stream()
-                    .map(msg -> (Message) new UserMessage(msg.getText()))
-                    .collect(Collectors.toList());
-
-            SystemPromptTemplate systemPromptTemplate = new SystemPromptTemplate(SYSTEM_PROMPT);
-            Message systemMessage = systemPromptTemplate.createMessage();
-            history.add(0, systemMessage);
-
-            Prompt prompt = new Prompt(history);
-
+    public Flux<String> streamChatResponse(String chatSessionId, String userId, String userMessage) {
+        log.debug("Streaming chat response for session: {}", chatSessionId);
+
+        ChatMessage userChatMessage = ChatMessage.builder()
+                .chatSessionId(chatSessionId)
+                .role(ChatMessage.Role.USER)
+                .text(userMessage)
+                .build();
+
+        PromptVariant systemPrompt = promptRegistry.select(SYSTEM_PROMPT_NAME, userMessage);
+
+        // Session lookup, user message write and history read all complete on driver callbacks
+        Mono<Prompt> prompt = chatSessionService.findOwnedSession(chatSessionId, userId)
+                .flatMap(session -> Mono.fromFuture(() -> chatMessageService.queueMessage(userChatMessage))
+                        .then(Mono.defer(() -> chatMessageService.getRecentMessagesReactive(
+                                chatSessionId, chatContextBuilder.getMaxHistoryMessages())))
+                        .map(recentMessages -> buildSessionPrompt(session, recentMessages, systemPrompt)))
+                .onErrorMap(e -> !(e instanceof ChatSessionNotFoundException), e -> {
+                    log.error("Failed to start chat streaming for session: {}", chatSessionId, e);
+                    return new ChatException("Failed to start chat streaming. Please try again.", e);
+                });
+
+        return prompt.flatMapMany(sessionPrompt -> {
             StringBuilder fullResponse = new StringBuilder();
-
-            return chatClient.prompt(prompt)
-                    .tools(tavilySearchTool)
-                    .stream()
-                    .content()
+            return modelInvoker.stream(ModelInvoker.UseCase.CHAT, sessionPrompt,
+                            attempt -> promptPrefixCache.stream(systemPrompt.cacheName(), attempt,
+                                    p -> chatClient.prompt(p)
+                                            // Started from a database callback, which has no security context
+                                            .advisors(a -> a.param(AdmissionAdvisor.USER_ID, userId)
+                                                    .param(TokenUsageRecorder.USE_CASE, "chat"))
+                                            .stream()
+                                            .content()))
                     .doOnNext(fullResponse::append)
                     .doOnComplete(() -> {
-                        chatMessageService.saveMessage(
+                        // Handed to the write-behind queue; the thread delivering tokens never waits on Mongo
+                        chatMessageService.queueMessage(
                                 ChatMessage.builder()
                                         .chatSessionId(chatSessionId)
                                         .role(ChatMessage.Role.MODEL)
                                         .text(fullResponse.toString())
-                                        .build());
-                        log.debug("Successfully streamed and saved chat response");
+                                        .build())
+                                .thenRun(() -> chatSummaryService.requestSummary(chatSessionId));
+                        log.debug("Successfully streamed chat response, queued it for saving");
                     })
                     .doOnError(e -> log.error("Error during chat streaming", e));
-
-        } catch (Exception e) {
-            log.error("Failed to start chat streaming for session: {}", chatSessionId, e);
-            throw new ChatException("Failed to start chat streaming. Please try again.", e);
-        }
+        });
     }
 
     @Override
@@ -258,31 +297,11 @@ public class ChatServiceImpl implements ChatService {
         try {
             log.debug("Streaming guest chat response");
 
-            List<Message> history = new java.util.ArrayList<>();
-            if (historyMessages != null) {
-                for (ChatMessage msg : historyMessages) {
-                    if (msg.getRole() == ChatMessage.Role.USER) {
-                        history.add(new UserMessage(msg.getText()));
-                    } else if (msg.getRole() == ChatMessage.Role.MODEL) {
-                        history.add(new org.springframework.ai.chat.messages.AssistantMessage(msg.getText()));
-                    }
-                }
+            if (historyMessages == null || historyMessages.isEmpty()) {
+                // Opening questions repeat across guests; without history the answer only depends on the question
+                return guestAnswerCache.stream(userMessage, () -> streamGuestAnswer(List.of(), userMessage));
             }
-
-            // Add the current user message
-            history.add(new UserMessage(userMessage));
-
-            SystemPromptTemplate systemPromptTemplate = new SystemPromptTemplate(SYSTEM_PROMPT);
-            Message systemMessage = systemPromptTemplate.createMessage();
-            history.add(0, systemMessage);
-
-            Prompt prompt = new Prompt(history);
-
-            return chatClient.prompt(prompt)
-                    .tools(tavilySearchTool)
-                    .stream()
-                    .content()
-                    .doOnError(e -> log.error("Error during guest chat streaming", e));
+            return streamGuestAnswer(historyMessages, userMessage);
 
         } catch (Exception e) {
             log.error("Failed to start guest chat streaming", e);
@@ -290,11 +309,63 @@ public class ChatServiceImpl implements ChatService {
         }
     }
 
+    private Flux<String> streamGuestAnswer(List<ChatMessage> historyMessages, String userMessage) {
+        List<ChatMessage> history = new ArrayList<>(historyMessages);
+
+        // Add the current user message
+        history.add(ChatMessage.builder()
+                .role(ChatMessage.Role.USER)
+                .text(userMessage)
+                .build());
+
+        PromptVariant systemPrompt = promptRegistry.select(SYSTEM_PROMPT_NAME, userMessage);
+        Prompt prompt = new Prompt(chatContextBuilder.build(systemPrompt.text(), history), searchOptions());
+
+        return modelInvoker.stream(ModelInvoker.UseCase.CHAT, prompt,
+                        attempt -> promptPrefixCache.stream(systemPrompt.cacheName(), attempt,
+                                p -> chatClient.prompt(p)
+                                        .advisors(a -> a.param(TokenUsageRecorder.USE_CASE, "guest-chat"))
+                                        .stream()
+                                        .content()))
+                .doOnError(e -> log.error("Error during guest chat streaming", e));
+    }
+
+    private Prompt buildSessionPrompt(ChatSessionMetadata session, PromptVariant systemPrompt) {
+        return buildSessionPrompt(session, chatMessageService.getRecentMessages(
+                session.id(), chatContextBuilder.getMaxHistoryMessages()), systemPrompt);
+    }
+
+    private Prompt buildSessionPrompt(ChatSessionMetadata session, List<ChatMessage> recentMessages,
+            PromptVariant systemPrompt) {
+        // Turns up to the watermark are already covered by the summary
+        Instant summarizedUntil = session.summarizedUntil();
+        if (summarizedUntil != null) {
+            recentMessages = recentMessages.stream()
+                    .filter(msg -> msg.getTimestamp() == null || msg.getTimestamp().isAfter(summarizedUntil))
+                    .toList();
+        }
+
+        return new Prompt(chatContextBuilder.build(systemPrompt.text(), session.summary(), recentMessages),
+                searchOptions());
+    }
+
+    // Tools go in the prompt's options rather than the request spec, so the prefix cache can see them
+    private ToolCallingChatOptions searchOptions() {
+        return ToolCallingChatOptions.builder()
+                .toolCallbacks(searchTools)
+                .build();
+    }
+
     @Override
     public List<ChatMessage> getChatHistory(String chatSessionId) {
         return chatMessageService.getMessagesBySessionId(chatSessionId);
     }
 
+    @Override
+    public CursorPage<ChatMessage> getChatHistoryPage(String chatSessionId, String cursor, Integer limit) {
+        return chatMessageService.getMessagePage(chatSessionId, cursor, limit);
+    }
+
     @Override
     public ChatSession createChatSession(String title, String userId) {
         return chatSessionService.createSession(title, userId);
@@ -0,0 +1,106 @@
+package com.fined.mentor.chat.service;
+
+import com.fined.mentor.chat.dto.ChatSessionMetadata;
+import com.fined.mentor.chat.entity.ChatSession;
+import com.fined.mentor.chat.repository.ChatSessionRepository;
+import com.fined.mentor.chat.repository.ReactiveChatSessionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * In-process cache of {@link ChatSessionMetadata} for active sessions, in front of
+ * {@code findByIdAndActiveTrue}.
+ * <p>
+ * Only active sessions are cached. Writes on this instance invalidate their entry
+ * right away; the time-to-live bounds how long another instance may keep serving
+ * a session that was deactivated or renamed elsewhere.
+ */
+@Component
+public class ChatSessionCache {
+
+    private final ChatSessionRepository chatSessionRepository;
+    private final ReactiveChatSessionRepository reactiveChatSessionRepository;
+    private final Cache<String, ChatSessionMetadata> cache;
+    private final Counter hits;
+    private final Counter misses;
+
+    public ChatSessionCache(ChatSessionRepository chatSessionRepository,
+            ReactiveChatSessionRepository reactiveChatSessionRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.chat.session-cache.max-size:10000}") long maxSize,
+            @Value("${app.chat.session-cache.ttl:PT1M}") Duration ttl) {
+        this.chatSessionRepository = chatSessionRepository;
+        this.reactiveChatSessionRepository = reactiveChatSessionRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+
+        this.hits = Counter.builder("chat.session.cache.requests")
+                .tag("result", "hit")
+                .description("Session lookups served from the in-process cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("chat.session.cache.requests")
+                .tag("result", "miss")
+                .description("Session lookups that had to go to Mongo")
+                .register(meterRegistry);
+        Gauge.builder("chat.session.cache.sessions", cache, Cache::estimatedSize)
+                .description("Sessions currently cached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the metadata of the session if it exists and is active.
+     */
+    public Optional<ChatSessionMetadata> findActive(String sessionId) {
+        ChatSessionMetadata cached = cache.getIfPresent(sessionId);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+
+        misses.increment();
+        Optional<ChatSessionMetadata> loaded = chatSessionRepository.findByIdAndActiveTrue(sessionId)
+                .map(ChatSessionMetadata::from);
+        loaded.ifPresent(metadata -> cache.put(sessionId, metadata));
+        return loaded;
+    }
+
+    /**
+     * Non-blocking variant of {@link #findActive(String)}; empty if the session
+     * does not exist or is inactive.
+     */
+    public Mono<ChatSessionMetadata> findActiveReactive(String sessionId) {
+        ChatSessionMetadata cached = cache.getIfPresent(sessionId);
+        if (cached != null) {
+            hits.increment();
+            return Mono.just(cached);
+        }
+
+        misses.increment();
+        return reactiveChatSessionRepository.findByIdAndActiveTrue(sessionId)
+                .map(ChatSessionMetadata::from)
+                .doOnNext(metadata -> cache.put(sessionId, metadata));
+    }
+
+    public void put(ChatSession session) {
+        if (session.getId() != null && session.isActive()) {
+            cache.put(session.getId(), ChatSessionMetadata.from(session));
+        }
+    }
+
+    public void invalidate(String sessionId) {
+        if (sessionId != null) {
+            cache.invalidate(sessionId);
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.fined.mentor.chat.service;
 
+import com.fined.mentor.chat.dto.ChatSessionMetadata;
+import com.fined.mentor.chat.dto.ChatSessionSummary;
 import com.fined.mentor.chat.entity.ChatSession;
+import com.fined.mentor.core.dto.CursorPage;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 
@@ -11,6 +15,8 @@ public interface ChatSessionService {
 
     List<ChatSession> getActiveSessions(String userId);
 
+    CursorPage<ChatSessionSummary> getActiveSessionPage(String userId, String cursor, Integer limit);
+
     ChatSession updateSessionTitle(String sessionId, String newTitle);
 
     void deactivateSession(String sessionId);
@@ -19,5 +25,13 @@ public interface ChatSessionService {
 
     ChatSession getSessionWithDetails(String sessionId);
 
-    void findById(String chatSessionId);
+    ChatSessionMetadata findById(String chatSessionId);
+
+    void verifyOwnership(String chatSessionId, String userId);
+
+    /**
+     * Non-blocking lookup of an active session owned by the user; errors with
+     * {@link com.fined.mentor.chat.exception.ChatSessionNotFoundException} otherwise.
+     */
+    Mono<ChatSessionMetadata> findOwnedSession(String chatSessionId, String userId);
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.fined.mentor.chat.service;
 
+import com.fined.mentor.chat.dto.ChatSessionMetadata;
+import com.fined.mentor.chat.dto.ChatSessionSummary;
 import com.fined.mentor.chat.entity.ChatSession;
 import com.fined.mentor.chat.entity.ChatMessage;
 import com.fined.mentor.quiz.entity.Quiz;
@@ -8,15 +10,19 @@ import com.fined.mentor.chat.exception.ChatSessionException;
 import com.fined.mentor.chat.exception.ChatSessionNotFoundException;
 import com.fined.mentor.chat.repository.ChatMessageRepository;
 import com.fined.mentor.chat.repository.ChatSessionRepository;
+import com.fined.mentor.core.dto.CursorPage;
+import com.fined.mentor.core.dto.KeysetCursor;
 import com.fined.mentor.quiz.repository.QuizRepository;
 import com.fined.mentor.quiz.repository.QuizStateRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Slf4j
@@ -28,6 +34,8 @@ public class ChatSessionServiceImpl implements ChatSessionService {
     private final ChatMessageRepository chatMessageRepository;
     private final QuizRepository quizRepository;
     private final QuizStateRepository quizStateRepository;
+    private final ChatHistoryCache chatHistoryCache;
+    private final ChatSessionCache chatSessionCache;
 
     @Override
     @Transactional
@@ -43,6 +51,7 @@ public class ChatSessionServiceImpl implements ChatSessionService {
                     .build();
 
             ChatSession savedSession = chatSessionRepository.save(session);
+            chatSessionCache.put(savedSession);
             log.debug("Successfully created chat session with id: {}", savedSession.getId());
 
             return savedSession;
@@ -105,30 +114,19 @@ public class ChatSessionServiceImpl implements ChatSessionService {
     @Override
     public List<ChatSession> getActiveSessions(String userId) {
         log.debug("Retrieving all active chat sessions for user: {}", userId);
-        List<ChatSession> sessions = chatSessionRepository.findByUserIdAndActiveTrueOrderByCreatedAtDesc(userId);
-
-        // Populate quiz details for each session
-        sessions.forEach(this::populateQuizDetails);
-
-        return sessions;
+        // Sessions, latest quiz and quiz state in one round trip
+        return chatSessionRepository.findActiveSessionsWithLatestQuiz(userId);
     }
 
-    private void populateQuizDetails(ChatSession session) {
-        // Fetch and set quiz and quiz state
-        Optional<Quiz> quizOpt = quizRepository.findFirstByChatSessionIdOrderByCreatedAtDesc(session.getId());
-        if (quizOpt.isPresent()) {
-            Quiz quiz = quizOpt.get();
-            session.setQuiz(quiz);
-
-            Optional<QuizState> quizStateOpt = quizStateRepository.findByQuizId(quiz.getId());
-            if (quizStateOpt.isPresent()) {
-                QuizState qs = quizStateOpt.get();
-                // Only log at debug level for list view to avoid spam
-                log.debug("Populating quiz details for session {}: quizId={}, stateId={}, index={}",
-                        session.getId(), quiz.getId(), qs.getId(), qs.getCurrentQuestionIndex());
-                session.setQuizState(qs);
-            }
-        }
+    @Override
+    public CursorPage<ChatSessionSummary> getActiveSessionPage(String userId, String cursor, Integer limit) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = CursorPage.clampLimit(limit);
+        log.debug("Retrieving page of {} active chat sessions for user: {}", pageSize, userId);
+
+        // One extra row tells us whether another page exists
+        List<ChatSessionSummary> rows = chatSessionRepository.findActiveSessionSummaries(userId, after, pageSize + 1);
+        return CursorPage.of(rows, pageSize, last -> new KeysetCursor(last.getCreatedAt(), last.getId()));
     }
 
     @Override
@@ -141,6 +139,7 @@ public class ChatSessionServiceImpl implements ChatSessionService {
             session.setTitle(newTitle);
 
             ChatSession updatedSession = chatSessionRepository.save(session);
+            chatSessionCache.invalidate(sessionId);
             log.debug("Successfully updated session title for: {}", sessionId);
 
             return updatedSession;
@@ -161,6 +160,8 @@ public class ChatSessionServiceImpl implements ChatSessionService {
             session.setActive(false);
 
             chatSessionRepository.save(session);
+            chatSessionCache.invalidate(sessionId);
+            chatHistoryCache.invalidate(sessionId);
             log.debug("Successfully deactivated chat session: {}", sessionId);
 
         } catch (Exception e) {
@@ -189,7 +190,37 @@ public class ChatSessionServiceImpl implements ChatSessionService {
     }
 
     @Override
-    public void findById(String chatSessionId) {
+    public ChatSessionMetadata findById(String chatSessionId) {
+        return chatSessionCache.findActive(chatSessionId)
+                .orElseThrow(() -> {
+                    log.warn("Chat session not found or inactive: {}", chatSessionId);
+                    return new ChatSessionNotFoundException("Chat session not found: " + chatSessionId);
+                });
+    }
+
+    @Override
+    public void verifyOwnership(String chatSessionId, String userId) {
+        ChatSessionMetadata session = findById(chatSessionId);
+        if (!Objects.equals(session.userId(), userId)) {
+            // Reported as not found so session ids of other users cannot be probed
+            log.warn("User {} attempted to access chat session {} owned by another user", userId, chatSessionId);
+            throw new ChatSessionNotFoundException("Chat session not found: " + chatSessionId);
+        }
+    }
 
+    @Override
+    public Mono<ChatSessionMetadata> findOwnedSession(String chatSessionId, String userId) {
+        return chatSessionCache.findActiveReactive(chatSessionId)
+                .filter(session -> {
+                    if (Objects.equals(session.userId(), userId)) {
+                        return true;
+                    }
+                    // Reported as not found so session ids of other users cannot be probed
+                    log.warn("User {} attempted to access chat session {} owned by another user", userId,
+                            chatSessionId);
+                    return false;
+                })
+                .switchIfEmpty(Mono.error(() -> new ChatSessionNotFoundException(
+                        "Chat session not found: " + chatSessionId)));
     }
 }
\ No newline at end of file
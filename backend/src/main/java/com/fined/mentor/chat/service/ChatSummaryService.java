@@ -0,0 +1,250 @@
+package com.fined.mentor.chat.service;
+
+import com.fined.mentor.chat.entity.ChatMessage;
+import com.fined.mentor.chat.entity.ChatSession;
+import com.fined.mentor.chat.repository.ChatMessageRepository;
+import com.fined.mentor.chat.repository.ChatSessionRepository;
+import com.fined.mentor.core.usage.TokenUsageRecorder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compacts older turns of long chat sessions into a rolling summary stored on
+ * the session, so prompts can carry summary + recent tail instead of the whole
+ * history.
+ * <p>
+ * Work runs on a small bounded pool off the request path. Replicas coordinate
+ * through a short lease on the session document, and the summary is committed
+ * only if the watermark is still the one it was computed from, so a range of
+ * messages is folded into the summary exactly once.
+ */
+@Slf4j
+@Service
+public class ChatSummaryService {
+
+    private static final String SUMMARY_PROMPT = """
+            You maintain the running memory of a conversation between a user and Fined Mentor,
+            a financial education assistant.
+
+            Update the summary below with the new messages. Keep:
+            - the user's goals, constraints, experience level and stated preferences
+            - concrete figures, products and decisions that were discussed
+            - open questions the user still wants answered
+            Drop greetings and repeated explanations. Write in the language the user writes in.
+            Reply with the updated summary only, at most %d words.
+
+            CURRENT SUMMARY:
+            %s
+
+            NEW MESSAGES:
+            %s
+            """;
+
+    private final ChatClient chatClient;
+    private final ChatSessionRepository chatSessionRepository;
+    private final ChatMessageRepository chatMessageRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ChatSessionCache chatSessionCache;
+    private final ExecutorService executor;
+    private final Set<String> pendingSessions = ConcurrentHashMap.newKeySet();
+
+    private final boolean enabled;
+    private final int triggerThreshold;
+    private final int keepRecent;
+    private final int maxBatch;
+    private final int maxWords;
+    private final Duration leaseDuration;
+
+    @Autowired
+    public ChatSummaryService(ChatClient.Builder chatClientBuilder,
+            ChatSessionRepository chatSessionRepository,
+            ChatMessageRepository chatMessageRepository,
+            MongoTemplate mongoTemplate,
+            ChatSessionCache chatSessionCache,
+            @Value("${app.chat.summary.enabled:true}") boolean enabled,
+            @Value("${app.chat.summary.trigger-threshold:30}") int triggerThreshold,
+            @Value("${app.chat.summary.keep-recent:10}") int keepRecent,
+            @Value("${app.chat.summary.max-batch:200}") int maxBatch,
+            @Value("${app.chat.summary.max-words:250}") int maxWords,
+            @Value("${app.chat.summary.lease:PT2M}") Duration leaseDuration,
+            @Value("${app.chat.summary.executor.pool-size:2}") int poolSize,
+            @Value("${app.chat.summary.executor.queue-capacity:50}") int queueCapacity) {
+        this(chatClientBuilder, chatSessionRepository, chatMessageRepository, mongoTemplate, chatSessionCache,
+                enabled, triggerThreshold, keepRecent, maxBatch, maxWords, leaseDuration,
+                new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(queueCapacity),
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "chat-summary");
+                            thread.setDaemon(true);
+                            return thread;
+                        },
+                        new ThreadPoolExecutor.AbortPolicy()));
+    }
+
+    ChatSummaryService(ChatClient.Builder chatClientBuilder,
+            ChatSessionRepository chatSessionRepository,
+            ChatMessageRepository chatMessageRepository,
+            MongoTemplate mongoTemplate,
+            ChatSessionCache chatSessionCache,
+            boolean enabled, int triggerThreshold, int keepRecent, int maxBatch, int maxWords,
+            Duration leaseDuration, ExecutorService executor) {
+        this.chatClient = chatClientBuilder.build();
+        this.chatSessionRepository = chatSessionRepository;
+        this.chatMessageRepository = chatMessageRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.chatSessionCache = chatSessionCache;
+        this.enabled = enabled;
+        this.triggerThreshold = triggerThreshold;
+        this.keepRecent = keepRecent;
+        this.maxBatch = maxBatch;
+        this.maxWords = maxWords;
+        this.leaseDuration = leaseDuration;
+        this.executor = executor;
+    }
+
+    /**
+     * Schedules a background summary pass for the session. Returns immediately;
+     * requests for a session that is already queued are coalesced, and requests
+     * are dropped when the pool is saturated since the next turn asks again.
+     */
+    public void requestSummary(String chatSessionId) {
+        if (!enabled || chatSessionId == null || !pendingSessions.add(chatSessionId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    summarize(chatSessionId);
+                } finally {
+                    pendingSessions.remove(chatSessionId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingSessions.remove(chatSessionId);
+            log.debug("Summary queue full, skipping session: {}", chatSessionId);
+        }
+    }
+
+    /**
+     * Folds messages older than the recent tail into the session summary, if the
+     * session has grown past the trigger threshold since the last watermark.
+     */
+    void summarize(String chatSessionId) {
+        try {
+            ChatSession session = chatSessionRepository.findById(chatSessionId).orElse(null);
+            if (session == null || !session.isActive()) {
+                return;
+            }
+
+            Instant watermark = session.getSummarizedUntil() != null ? session.getSummarizedUntil() : Instant.EPOCH;
+            long unsummarized = chatMessageRepository.countByChatSessionIdAndTimestampAfter(chatSessionId, watermark);
+            if (unsummarized < triggerThreshold + keepRecent) {
+                return;
+            }
+
+            Instant leaseUntil = acquireLease(chatSessionId);
+            if (leaseUntil == null) {
+                log.debug("Summary for session {} is being computed elsewhere", chatSessionId);
+                return;
+            }
+
+            try {
+                int batchSize = (int) Math.min(unsummarized - keepRecent, maxBatch);
+                List<ChatMessage> batch = chatMessageRepository.findByChatSessionIdAndTimestampAfterOrderByTimestampAsc(
+                        chatSessionId, watermark, Limit.of(batchSize));
+                if (batch.isEmpty()) {
+                    return;
+                }
+
+                String updatedSummary = chatClient.prompt()
+                        .user(buildPrompt(session.getSummary(), batch))
+                        .advisors(a -> a.param(TokenUsageRecorder.USE_CASE, "chat-summary"))
+                        .call()
+                        .content();
+                if (updatedSummary == null || updatedSummary.isBlank()) {
+                    log.warn("Empty summary returned for session: {}", chatSessionId);
+                    return;
+                }
+
+                Instant newWatermark = batch.get(batch.size() - 1).getTimestamp();
+                boolean committed = commitSummary(chatSessionId, session.getSummarizedUntil(),
+                        updatedSummary.trim(), newWatermark);
+                if (committed) {
+                    chatSessionCache.invalidate(chatSessionId);
+                    log.info("Summarized {} messages for session: {}", batch.size(), chatSessionId);
+                } else {
+                    log.debug("Summary watermark moved for session {}, discarding result", chatSessionId);
+                }
+            } finally {
+                releaseLease(chatSessionId, leaseUntil);
+            }
+
+        } catch (Exception e) {
+            log.error("Failed to summarize chat session: {}", chatSessionId, e);
+        }
+    }
+
+    private Instant acquireLease(String chatSessionId) {
+        Instant now = Instant.now();
+        Instant leaseUntil = now.plus(leaseDuration);
+        Query query = Query.query(Criteria.where("_id").is(chatSessionId)
+                .orOperator(
+                        Criteria.where("summaryLockedUntil").is(null),
+                        Criteria.where("summaryLockedUntil").lt(now)));
+        long modified = mongoTemplate.updateFirst(query, Update.update("summaryLockedUntil", leaseUntil),
+                ChatSession.class).getModifiedCount();
+        return modified > 0 ? leaseUntil : null;
+    }
+
+    private boolean commitSummary(String chatSessionId, Instant expectedWatermark, String summary,
+            Instant newWatermark) {
+        Query query = Query.query(Criteria.where("_id").is(chatSessionId)
+                .and("summarizedUntil").is(expectedWatermark));
+        Update update = new Update()
+                .set("summary", summary)
+                .set("summarizedUntil", newWatermark);
+        return mongoTemplate.updateFirst(query, update, ChatSession.class).getModifiedCount() > 0;
+    }
+
+    private void releaseLease(String chatSessionId, Instant leaseUntil) {
+        Query query = Query.query(Criteria.where("_id").is(chatSessionId)
+                .and("summaryLockedUntil").is(leaseUntil));
+        mongoTemplate.updateFirst(query, new Update().unset("summaryLockedUntil"), ChatSession.class);
+    }
+
+    private String buildPrompt(String currentSummary, List<ChatMessage> messages) {
+        StringBuilder transcript = new StringBuilder();
+        for (ChatMessage message : messages) {
+            transcript.append(message.getRole() == ChatMessage.Role.MODEL ? "Fined Mentor: " : "User: ")
+                    .append(message.getText())
+                    .append('\n');
+        }
+        String summary = currentSummary != null && !currentSummary.isBlank() ? currentSummary : "(none yet)";
+        return SUMMARY_PROMPT.formatted(maxWords, summary, transcript);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
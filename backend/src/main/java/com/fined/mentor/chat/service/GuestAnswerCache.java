@@ -0,0 +1,208 @@
+package com.fined.mentor.chat.service;
+
+import com.fined.mentor.core.language.LanguageDetector;
+import com.fined.mentor.core.language.TextNormalizer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Cache of complete answers to first guest questions, the ones sent without any
+ * history, so a repeated "What is an ETF?" is answered without a model call.
+ * <p>
+ * Questions are keyed by their normalised text and detected language. Answers are
+ * stored only when the stream completes normally and are replayed as a stream of
+ * word-aligned chunks, so clients see the same SSE shape as a live answer.
+ * Entries live in a size- and time-bounded in-process cache and, when sharing is
+ * enabled, in Redis with the same time-to-live so other instances can serve them.
+ */
+@Slf4j
+@Component
+public class GuestAnswerCache {
+
+    private static final String KEY_PREFIX = "guest-answer:";
+
+    private final LanguageDetector languageDetector;
+    private final RedisAsyncCommands<String, String> redis;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final int maxQuestionLength;
+    private final int replayChunkChars;
+    private final Cache<String, String> cache;
+    private final Counter localHits;
+    private final Counter sharedHits;
+    private final Counter misses;
+
+    @Autowired
+    public GuestAnswerCache(MeterRegistry meterRegistry,
+            LanguageDetector languageDetector,
+            RedisClient redisClient,
+            @Value("${app.chat.guest-cache.enabled:true}") boolean enabled,
+            @Value("${app.chat.guest-cache.shared:false}") boolean shared,
+            @Value("${app.chat.guest-cache.max-size:1000}") long maxSize,
+            @Value("${app.chat.guest-cache.ttl:PT6H}") Duration ttl,
+            @Value("${app.chat.guest-cache.max-question-length:300}") int maxQuestionLength,
+            @Value("${app.chat.guest-cache.replay-chunk-chars:24}") int replayChunkChars) {
+        this(meterRegistry, languageDetector, enabled && shared ? redisClient.connect().async() : null,
+                enabled, maxSize, ttl, maxQuestionLength, replayChunkChars);
+    }
+
+    GuestAnswerCache(MeterRegistry meterRegistry,
+            LanguageDetector languageDetector,
+            RedisAsyncCommands<String, String> redis,
+            boolean enabled,
+            long maxSize,
+            Duration ttl,
+            int maxQuestionLength,
+            int replayChunkChars) {
+        this.languageDetector = languageDetector;
+        this.redis = redis;
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.maxQuestionLength = maxQuestionLength;
+        this.replayChunkChars = replayChunkChars;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+
+        this.localHits = Counter.builder("chat.guest.cache.requests")
+                .tag("result", "hit")
+                .description("Guest questions answered from the in-process cache")
+                .register(meterRegistry);
+        this.sharedHits = Counter.builder("chat.guest.cache.requests")
+                .tag("result", "shared_hit")
+                .description("Guest questions answered from the shared Redis cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("chat.guest.cache.requests")
+                .tag("result", "miss")
+                .description("Cacheable guest questions that needed a model call")
+                .register(meterRegistry);
+        Gauge.builder("chat.guest.cache.answers", cache, Cache::estimatedSize)
+                .description("Guest answers currently cached in-process")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Replays the cached answer to {@code question}, or streams the answer from
+     * {@code generator} and caches it once it completes. Questions too long to be
+     * worth caching go straight to the generator.
+     */
+    public Flux<String> stream(String question, Supplier<Flux<String>> generator) {
+        String key = keyFor(question);
+        if (key == null) {
+            return Flux.defer(generator);
+        }
+
+        return lookup(key)
+                .map(this::replay)
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    misses.increment();
+                    return record(key, generator.get());
+                }))
+                .flatMapMany(answer -> answer);
+    }
+
+    /**
+     * Cache key of a question, or null if it should not be cached. Case, spacing and
+     * surrounding punctuation are ignored.
+     */
+    String keyFor(String question) {
+        if (!enabled || question == null) {
+            return null;
+        }
+        String normalized = TextNormalizer.normalize(question);
+        if (normalized.isEmpty() || normalized.length() > maxQuestionLength) {
+            return null;
+        }
+        return KEY_PREFIX + languageDetector.detect(normalized).getCode() + ":" + TextNormalizer.digest(normalized);
+    }
+
+    /**
+     * Splits an answer into chunks of about {@code replayChunkChars}, cut after
+     * whitespace so words are never split.
+     */
+    List<String> chunks(String answer) {
+        List<String> chunks = new ArrayList<>();
+        int start = 0;
+        int i = 0;
+        while (i < answer.length()) {
+            if (i - start >= replayChunkChars && Character.isWhitespace(answer.charAt(i - 1))
+                    && !Character.isWhitespace(answer.charAt(i))) {
+                chunks.add(answer.substring(start, i));
+                start = i;
+            }
+            i++;
+        }
+        if (start < answer.length()) {
+            chunks.add(answer.substring(start));
+        }
+        return chunks;
+    }
+
+    private Mono<String> lookup(String key) {
+        return Mono.defer(() -> {
+            String cached = cache.getIfPresent(key);
+            if (cached != null) {
+                localHits.increment();
+                return Mono.just(cached);
+            }
+            if (redis == null) {
+                return Mono.empty();
+            }
+            return Mono.fromCompletionStage(redis.get(key))
+                    .doOnNext(shared -> {
+                        sharedHits.increment();
+                        cache.put(key, shared);
+                    })
+                    .onErrorResume(e -> {
+                        // Losing the shared cache only costs a model call
+                        log.warn("Failed to read guest answer from Redis, answering without cache", e);
+                        return Mono.empty();
+                    });
+        });
+    }
+
+    private Flux<String> replay(String answer) {
+        return Flux.fromIterable(chunks(answer));
+    }
+
+    private Flux<String> record(String key, Flux<String> answer) {
+        StringBuilder fullAnswer = new StringBuilder();
+        return answer
+                .doOnNext(fullAnswer::append)
+                // Only complete answers; errors and client disconnects leave nothing behind
+                .doOnComplete(() -> {
+                    if (!fullAnswer.isEmpty()) {
+                        store(key, fullAnswer.toString());
+                    }
+                });
+    }
+
+    private void store(String key, String answer) {
+        cache.put(key, answer);
+        if (redis != null) {
+            redis.set(key, answer, SetArgs.Builder.px(ttl.toMillis()))
+                    .exceptionally(e -> {
+                        log.warn("Failed to share guest answer through Redis", e);
+                        return null;
+                    });
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.fined.mentor.core.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ChatClientCustomizer;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Runs every model call made through a {@link ChatClient} under the
+ * {@link AdmissionScheduler}, so one busy user or a burst of guests cannot push
+ * everyone else into provider rate limits.
+ * <p>
+ * The caller is the user id passed as the {@value #USER_ID} advisor parameter,
+ * else the authenticated user of the calling thread. Calls with neither, such as
+ * guest chats and background work, go in the guest lane. Blocking calls wait for
+ * their permit on the calling thread; streams wait without holding a thread and
+ * release the permit when they end or are cancelled.
+ */
+@Slf4j
+@Component
+public class AdmissionAdvisor implements ChatClientCustomizer, CallAdvisor, StreamAdvisor {
+
+    public static final String USER_ID = "admission.userId";
+
+    private final AdmissionScheduler scheduler;
+
+    @Autowired
+    public AdmissionAdvisor(MeterRegistry meterRegistry,
+            @Value("${app.llm.admission.enabled:true}") boolean enabled,
+            @Value("${app.llm.admission.max-concurrent:8}") int maxConcurrent,
+            @Value("${app.llm.admission.max-per-user:2}") int maxPerUser,
+            @Value("${app.llm.admission.weight.authenticated:3}") int authenticatedWeight,
+            @Value("${app.llm.admission.weight.guest:1}") int guestWeight,
+            @Value("${app.llm.admission.max-queued:50}") int maxQueued,
+            @Value("${app.llm.admission.max-wait:PT5S}") Duration maxWait) {
+        this(enabled
+                ? new AdmissionScheduler(maxConcurrent, maxPerUser,
+                        Map.of(AdmissionScheduler.Lane.AUTHENTICATED, authenticatedWeight,
+                                AdmissionScheduler.Lane.GUEST, guestWeight),
+                        maxQueued, maxWait, meterRegistry)
+                : null);
+    }
+
+    AdmissionAdvisor(AdmissionScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void customize(ChatClient.Builder chatClientBuilder) {
+        if (scheduler != null) {
+            chatClientBuilder.defaultAdvisors(this);
+        }
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        AdmissionScheduler.Permit permit = await(scheduler.acquire(callerOf(request)));
+        try {
+            return chain.nextCall(request);
+        } finally {
+            permit.release();
+        }
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        String caller = callerOf(request);
+        return Flux.usingWhen(Mono.fromFuture(() -> scheduler.acquire(caller)),
+                permit -> chain.nextStream(request),
+                permit -> Mono.fromRunnable(permit::release));
+    }
+
+    /**
+     * The user {@code request} is made for, or null for a guest or background call.
+     * Resolve it before the call leaves the calling thread.
+     */
+    public static String callerOf(ChatClientRequest request) {
+        if (request.context().get(USER_ID) instanceof String userId) {
+            return userId;
+        }
+        return currentUser();
+    }
+
+    /**
+     * The authenticated user of the calling thread, or null. Calls that may run
+     * elsewhere, such as streams and their hedges, pass it as {@value #USER_ID}.
+     */
+    public static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private static AdmissionScheduler.Permit await(CompletableFuture<AdmissionScheduler.Permit> permit) {
+        try {
+            return permit.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtimeException
+                    ? runtimeException
+                    : new IllegalStateException("Model call admission failed", e.getCause());
+        } catch (InterruptedException e) {
+            permit.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new AdmissionRejectedException("Interrupted while waiting for model call capacity");
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "admission";
+    }
+
+    @Override
+    public int getOrder() {
+        // Outermost, so nothing else runs before the call is admitted
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,20 @@
+package com.fined.mentor.core.admission;
+
+public class AdmissionRejectedException extends RuntimeException {
+    public AdmissionRejectedException(String message) {
+        super(message);
+    }
+
+    /**
+     * Whether {@code e} or one of its causes is an admission rejection, which
+     * services wrap like any other failed model call.
+     */
+    public static boolean isCauseOf(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof AdmissionRejectedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
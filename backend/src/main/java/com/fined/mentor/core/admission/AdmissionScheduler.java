@@ -0,0 +1,277 @@
+package com.fined.mentor.core.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admits model calls under a global concurrency limit and a per-user cap, and
+ * queues the rest fairly.
+ * <p>
+ * Waiting calls queue in one lane per kind of caller. Whenever a permit frees up,
+ * the lanes with a call that may go take turns in proportion to their weight
+ * (smooth weighted round robin), so authenticated users keep most of the capacity
+ * under load without starving guests. Within a lane calls go in arrival order,
+ * skipping users already at their cap. A call that finds the queue full is
+ * rejected at once, and one still waiting after {@code maxWait} is rejected then.
+ */
+public class AdmissionScheduler {
+
+    public enum Lane {
+        AUTHENTICATED, GUEST
+    }
+
+    @Getter
+    private final int maxConcurrent;
+    private final int maxPerUser;
+    private final int maxQueued;
+    private final Duration maxWait;
+    private final Map<Lane, Integer> weights;
+    private final Map<Lane, Deque<Waiter>> queues = new EnumMap<>(Lane.class);
+    private final Map<Lane, Integer> credits = new EnumMap<>(Lane.class);
+    private final Map<String, Integer> activeByUser = new HashMap<>();
+    private final Map<Lane, Timer> waits = new EnumMap<>(Lane.class);
+    private final Map<Lane, Counter> queueFull = new EnumMap<>(Lane.class);
+    private final Map<Lane, Counter> timedOut = new EnumMap<>(Lane.class);
+    private int active;
+    private int queued;
+
+    public AdmissionScheduler(int maxConcurrent, int maxPerUser, Map<Lane, Integer> weights, int maxQueued,
+            Duration maxWait, MeterRegistry meterRegistry) {
+        if (maxConcurrent <= 0 || maxPerUser <= 0) {
+            throw new IllegalArgumentException("Model call admission needs at least one permit overall and per user");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.maxPerUser = maxPerUser;
+        this.maxQueued = maxQueued;
+        this.maxWait = maxWait;
+        this.weights = new EnumMap<>(weights);
+
+        Gauge.builder("llm.admission.active", this, AdmissionScheduler::getActive)
+                .description("Model calls currently holding an admission permit")
+                .register(meterRegistry);
+        Gauge.builder("llm.admission.max", this, AdmissionScheduler::getMaxConcurrent)
+                .register(meterRegistry);
+        for (Lane lane : Lane.values()) {
+            if (this.weights.getOrDefault(lane, 0) <= 0) {
+                throw new IllegalArgumentException("Admission lane " + lane + " needs a positive weight");
+            }
+            String tag = lane.name().toLowerCase();
+            queues.put(lane, new ArrayDeque<>());
+            credits.put(lane, 0);
+            Gauge.builder("llm.admission.queued", this, scheduler -> scheduler.getQueued(lane))
+                    .tag("lane", tag)
+                    .description("Model calls waiting for an admission permit")
+                    .register(meterRegistry);
+            waits.put(lane, Timer.builder("llm.admission.wait")
+                    .tag("lane", tag)
+                    .description("Time model calls waited for an admission permit")
+                    .register(meterRegistry));
+            queueFull.put(lane, rejected(meterRegistry, tag, "queue_full"));
+            timedOut.put(lane, rejected(meterRegistry, tag, "timeout"));
+        }
+    }
+
+    /**
+     * Asks for a permit on behalf of {@code userId}, or of a guest if it is null.
+     * Guests share the guest lane and have no per-user cap. The future completes
+     * with the permit, which must be {@link Permit#release() released}, or fails
+     * with {@link AdmissionRejectedException}. Cancelling it gives up the place in
+     * the queue.
+     */
+    public CompletableFuture<Permit> acquire(String userId) {
+        Waiter waiter = new Waiter(userId == null ? Lane.GUEST : Lane.AUTHENTICATED, userId);
+        List<Waiter> granted;
+        boolean full = false;
+        synchronized (this) {
+            queues.get(waiter.lane).addLast(waiter);
+            queued++;
+            granted = dispatch();
+            if (waiter.permit == null && (queued > maxQueued || maxWait.isZero() || maxWait.isNegative())) {
+                queues.get(waiter.lane).remove(waiter);
+                queued--;
+                full = true;
+            }
+        }
+        grant(granted);
+
+        if (full) {
+            queueFull.get(waiter.lane).increment();
+            waiter.future.completeExceptionally(
+                    new AdmissionRejectedException("Too many model calls are waiting, try again shortly"));
+        } else if (waiter.permit == null) {
+            CompletableFuture.runAsync(() -> expire(waiter),
+                    CompletableFuture.delayedExecutor(maxWait.toNanos(), TimeUnit.NANOSECONDS));
+        }
+        waiter.future.whenComplete((permit, error) -> {
+            if (error instanceof CancellationException) {
+                abandon(waiter);
+            }
+        });
+        return waiter.future;
+    }
+
+    public synchronized int getActive() {
+        return active;
+    }
+
+    public synchronized int getQueued(Lane lane) {
+        return queues.get(lane).size();
+    }
+
+    private void expire(Waiter waiter) {
+        synchronized (this) {
+            if (!queues.get(waiter.lane).remove(waiter)) {
+                return;
+            }
+            queued--;
+        }
+        timedOut.get(waiter.lane).increment();
+        waiter.future.completeExceptionally(new AdmissionRejectedException(
+                "No model call capacity became free within " + maxWait + ", try again shortly"));
+    }
+
+    private void abandon(Waiter waiter) {
+        synchronized (this) {
+            if (queues.get(waiter.lane).remove(waiter)) {
+                queued--;
+            }
+        }
+    }
+
+    private void release(Waiter holder) {
+        List<Waiter> granted;
+        synchronized (this) {
+            active--;
+            if (holder.userId != null) {
+                activeByUser.computeIfPresent(holder.userId, (user, count) -> count > 1 ? count - 1 : null);
+            }
+            granted = dispatch();
+        }
+        grant(granted);
+    }
+
+    /**
+     * Hands out free permits to waiting calls. Only called under the lock; the
+     * futures of the calls it picks are completed by {@link #grant} after it.
+     */
+    private List<Waiter> dispatch() {
+        List<Waiter> granted = new ArrayList<>();
+        while (active < maxConcurrent) {
+            Waiter next = next();
+            if (next == null) {
+                break;
+            }
+            queued--;
+            active++;
+            if (next.userId != null) {
+                activeByUser.merge(next.userId, 1, Integer::sum);
+            }
+            next.permit = new Permit(next);
+            granted.add(next);
+        }
+        return granted;
+    }
+
+    private Waiter next() {
+        Lane chosen = null;
+        Waiter chosenWaiter = null;
+        int totalWeight = 0;
+        for (Lane lane : Lane.values()) {
+            Waiter first = firstAdmissible(lane);
+            if (first == null) {
+                // A lane with nothing to run does not bank credit for later
+                credits.put(lane, 0);
+                continue;
+            }
+            int weight = weights.get(lane);
+            credits.merge(lane, weight, Integer::sum);
+            totalWeight += weight;
+            if (chosen == null || credits.get(lane) > credits.get(chosen)) {
+                chosen = lane;
+                chosenWaiter = first;
+            }
+        }
+        if (chosen == null) {
+            return null;
+        }
+        credits.merge(chosen, -totalWeight, Integer::sum);
+        queues.get(chosen).remove(chosenWaiter);
+        return chosenWaiter;
+    }
+
+    private Waiter firstAdmissible(Lane lane) {
+        for (Waiter waiter : queues.get(lane)) {
+            if (waiter.userId == null || activeByUser.getOrDefault(waiter.userId, 0) < maxPerUser) {
+                return waiter;
+            }
+        }
+        return null;
+    }
+
+    private void grant(List<Waiter> granted) {
+        for (Waiter waiter : granted) {
+            waits.get(waiter.lane).record(System.nanoTime() - waiter.enqueuedAt, TimeUnit.NANOSECONDS);
+            if (!waiter.future.complete(waiter.permit)) {
+                // Cancelled while being granted
+                waiter.permit.release();
+            }
+        }
+    }
+
+    private static Counter rejected(MeterRegistry meterRegistry, String lane, String reason) {
+        return Counter.builder("llm.admission.rejected")
+                .tag("lane", lane)
+                .tag("reason", reason)
+                .description("Model calls turned away by admission control")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Permission to run one model call. Releasing it more than once is harmless.
+     */
+    public final class Permit {
+
+        private final Waiter holder;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Waiter holder) {
+            this.holder = holder;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                AdmissionScheduler.this.release(holder);
+            }
+        }
+    }
+
+    private static final class Waiter {
+        private final Lane lane;
+        private final String userId;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<Permit> future = new CompletableFuture<>();
+        // Set under the scheduler lock once the call is admitted
+        private volatile Permit permit;
+
+        private Waiter(Lane lane, String userId) {
+            this.lane = lane;
+            this.userId = userId;
+        }
+    }
+}
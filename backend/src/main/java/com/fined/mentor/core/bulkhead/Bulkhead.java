@@ -0,0 +1,87 @@
+package com.fined.mentor.core.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps how many requests of one kind run at the same time. Callers that find it
+ * full wait up to {@code maxWait} for a permit and are rejected after that.
+ */
+public class Bulkhead {
+
+    @Getter
+    private final String name;
+    @Getter
+    private final int maxConcurrent;
+    private final Duration maxWait;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter rejected;
+
+    public Bulkhead(String name, int maxConcurrent, Duration maxWait, MeterRegistry meterRegistry) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("Bulkhead " + name + " needs at least one permit");
+        }
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWait = maxWait;
+        this.permits = new Semaphore(maxConcurrent, true);
+
+        Gauge.builder("http.bulkhead.active", this, Bulkhead::getActive)
+                .tag("bulkhead", name)
+                .description("Requests currently running inside the bulkhead")
+                .register(meterRegistry);
+        Gauge.builder("http.bulkhead.queued", this, Bulkhead::getQueued)
+                .tag("bulkhead", name)
+                .description("Requests waiting for a bulkhead permit")
+                .register(meterRegistry);
+        Gauge.builder("http.bulkhead.max", this, Bulkhead::getMaxConcurrent)
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("http.bulkhead.rejected")
+                .tag("bulkhead", name)
+                .description("Requests turned away because the bulkhead stayed full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a permit, waiting up to the configured time for one to free up.
+     * A caller that gets {@code true} must {@link #release()} when done.
+     */
+    public boolean tryAcquire() throws InterruptedException {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        if (!maxWait.isZero() && !maxWait.isNegative()) {
+            queued.incrementAndGet();
+            try {
+                if (permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                    return true;
+                }
+            } finally {
+                queued.decrementAndGet();
+            }
+        }
+        rejected.increment();
+        return false;
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+}
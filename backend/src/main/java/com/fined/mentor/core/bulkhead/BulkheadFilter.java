@@ -0,0 +1,146 @@
+package com.fined.mentor.core.bulkhead;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fined.mentor.core.dto.ApiResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs each API request inside a bulkhead so that slow, model-bound endpoints
+ * cannot take every request thread (or, with virtual threads, unbounded
+ * concurrency) away from the cheap CRUD endpoints. Requests answered
+ * asynchronously (Mono results) keep their permit until the response completes,
+ * not just until the first dispatch returns. Streaming endpoints are not limited
+ * here.
+ * <p>
+ * Registered as a plain servlet filter, so it runs after Spring Security and
+ * unauthenticated requests never take a permit.
+ */
+@Slf4j
+@Component
+public class BulkheadFilter extends OncePerRequestFilter {
+
+    public static final String LLM = "llm";
+    public static final String CRUD = "crud";
+
+    private static final Set<String> LLM_ENDPOINTS = Set.of("/api/chat/message", "/api/quiz/generate");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Getter
+    private final Bulkhead llmBulkhead;
+    @Getter
+    private final Bulkhead crudBulkhead;
+
+    public BulkheadFilter(MeterRegistry meterRegistry,
+            @Value("${app.bulkhead.llm.max-concurrent:16}") int llmMaxConcurrent,
+            @Value("${app.bulkhead.llm.max-wait:PT0S}") Duration llmMaxWait,
+            @Value("${app.bulkhead.crud.max-concurrent:150}") int crudMaxConcurrent,
+            @Value("${app.bulkhead.crud.max-wait:PT2S}") Duration crudMaxWait) {
+        this.llmBulkhead = new Bulkhead(LLM, llmMaxConcurrent, llmMaxWait, meterRegistry);
+        this.crudBulkhead = new Bulkhead(CRUD, crudMaxConcurrent, crudMaxWait, meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NotNull HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !uri.startsWith("/api/") || uri.endsWith("/stream");
+    }
+
+    @Override
+    protected void doFilterInternal(@NotNull HttpServletRequest request, @NotNull HttpServletResponse response,
+            @NotNull FilterChain filterChain) throws ServletException, IOException {
+
+        Bulkhead bulkhead = bulkheadFor(request.getRequestURI());
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            log.warn("Bulkhead {} is full ({} active, {} queued), rejecting {}",
+                    bulkhead.getName(), bulkhead.getActive(), bulkhead.getQueued(), request.getRequestURI());
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader("Retry-After", "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            MAPPER.writeValue(response.getWriter(),
+                    ApiResponse.error("The server is busy. Please try again shortly."));
+            return;
+        }
+
+        Permit permit = new Permit(bulkhead);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // Async dispatches skip this filter, so the listener is the only release point
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(permit);
+            } else {
+                permit.release();
+            }
+        }
+    }
+
+    Bulkhead bulkheadFor(String uri) {
+        return LLM_ENDPOINTS.contains(uri) ? llmBulkhead : crudBulkhead;
+    }
+
+    /**
+     * A held bulkhead permit, released once whichever way the request ends.
+     */
+    private static final class Permit implements AsyncListener {
+        private final Bulkhead bulkhead;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Bulkhead bulkhead) {
+            this.bulkhead = bulkhead;
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                bulkhead.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Starting async again drops the listeners, so stay registered
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.fined.mentor.core.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position in a list ordered by (time, id), handed to clients as an opaque string.
+ * The id breaks ties between documents written in the same millisecond.
+ */
+public record KeysetCursor(Instant position, String id) {
+
+    private static final char SEPARATOR = ':';
+
+    public String encode() {
+        String raw = position.toEpochMilli() + String.valueOf(SEPARATOR) + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a cursor previously returned by {@link #encode()}.
+     *
+     * @return the cursor, or null for a missing cursor (first page)
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            String id = raw.substring(separator + 1);
+            if (separator <= 0 || id.isEmpty()) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new KeysetCursor(Instant.ofEpochMilli(Long.parseLong(raw.substring(0, separator))), id);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.fined.mentor.core.language;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Aho-Corasick automaton over a fixed keyword list, built once and then matched
+ * against text in a single pass whatever the number of keywords.
+ * <p>
+ * Keywords and text are compared in their {@link TextNormalizer#fold(String) folded}
+ * form, so case and accents do not matter, and umlauts also match their
+ * "ae"/"oe"/"ue" spelling. A word keyword must start a word and end it, optionally
+ * followed by a plural or inflection ending, so "tax" matches "taxes" but not
+ * "taxi". A compound keyword may appear anywhere inside a word, for languages such
+ * as German that build compounds like "Immobilienmarkt".
+ */
+public final class KeywordMatcher {
+
+    private static final int ALPHABET = 128;
+    // Endings that keep a word keyword the same word: EN/FR plurals, DE plurals and inflections
+    private static final Set<String> INFLECTIONS = Set.of("s", "es", "x", "e", "en", "er", "ern");
+
+    private final int[][] transitions;
+    private final int[][] outputs;
+    private final String[] patterns;
+    private final String[] keywords;
+    private final boolean[] compound;
+
+    public KeywordMatcher(Collection<String> words, Collection<String> compoundWords) {
+        Map<String, Pattern> unique = new LinkedHashMap<>();
+        words.forEach(word -> addVariants(unique, word, false));
+        compoundWords.forEach(word -> addVariants(unique, word, true));
+
+        int size = unique.size();
+        this.patterns = new String[size];
+        this.keywords = new String[size];
+        this.compound = new boolean[size];
+        int index = 0;
+        for (Pattern pattern : unique.values()) {
+            patterns[index] = pattern.text();
+            keywords[index] = pattern.keyword();
+            compound[index] = pattern.compound();
+            index++;
+        }
+
+        // Trie first, then failure links turn it into a full transition table
+        List<int[]> trie = new ArrayList<>();
+        List<List<Integer>> output = new ArrayList<>();
+        trie.add(newState());
+        output.add(new ArrayList<>());
+        for (int k = 0; k < size; k++) {
+            int state = 0;
+            for (char c : patterns[k].toCharArray()) {
+                if (trie.get(state)[c] < 0) {
+                    trie.get(state)[c] = trie.size();
+                    trie.add(newState());
+                    output.add(new ArrayList<>());
+                }
+                state = trie.get(state)[c];
+            }
+            output.get(state).add(k);
+        }
+
+        int[] failure = new int[trie.size()];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = trie.get(0)[c];
+            if (next < 0) {
+                trie.get(0)[c] = 0;
+            } else {
+                failure[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            output.get(state).addAll(output.get(failure[state]));
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = trie.get(state)[c];
+                if (next < 0) {
+                    trie.get(state)[c] = trie.get(failure[state])[c];
+                } else {
+                    failure[next] = trie.get(failure[state])[c];
+                    queue.add(next);
+                }
+            }
+        }
+
+        this.transitions = trie.toArray(new int[0][]);
+        this.outputs = output.stream()
+                .map(list -> list.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+    }
+
+    /**
+     * Whether {@code text} contains any of the keywords.
+     */
+    public boolean matches(String text) {
+        return firstMatch(text).isPresent();
+    }
+
+    /**
+     * The first keyword found in {@code text}, as it was given to the matcher.
+     */
+    public Optional<String> firstMatch(String text) {
+        String folded = TextNormalizer.fold(text);
+        int state = 0;
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            // Keywords are ASCII once folded, so any other character restarts the scan
+            state = c < ALPHABET ? transitions[state][c] : 0;
+            for (int k : outputs[state]) {
+                if (accept(folded, i, k)) {
+                    return Optional.of(keywords[k]);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private boolean accept(String folded, int end, int k) {
+        if (compound[k]) {
+            return true;
+        }
+        int start = end - patterns[k].length() + 1;
+        if (start > 0 && folded.charAt(start - 1) != ' ') {
+            return false;
+        }
+        int wordEnd = folded.indexOf(' ', end + 1);
+        if (wordEnd < 0) {
+            wordEnd = folded.length();
+        }
+        return wordEnd == end + 1 || INFLECTIONS.contains(folded.substring(end + 1, wordEnd));
+    }
+
+    private static void addVariants(Map<String, Pattern> unique, String keyword, boolean compound) {
+        String lower = keyword.toLowerCase(Locale.ROOT);
+        String spelledOut = lower.replace("ä", "ae").replace("ö", "oe").replace("ü", "ue");
+        for (String variant : new String[] { lower, spelledOut }) {
+            String folded = TextNormalizer.fold(variant);
+            if (folded.isEmpty() || folded.chars().anyMatch(c -> c >= ALPHABET)) {
+                throw new IllegalArgumentException("Keyword must fold to ASCII: " + keyword);
+            }
+            unique.putIfAbsent(folded, new Pattern(folded, keyword, compound));
+        }
+    }
+
+    private static int[] newState() {
+        int[] state = new int[ALPHABET];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    private record Pattern(String text, String keyword, boolean compound) {
+    }
+}
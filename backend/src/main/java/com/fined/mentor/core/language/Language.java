@@ -0,0 +1,19 @@
+package com.fined.mentor.core.language;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Languages the mentor answers in. {@link #UNKNOWN} stands for text too short or
+ * too mixed to tell, where prompts fall back to their multilingual form.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum Language {
+    EN("en"),
+    FR("fr"),
+    DE("de"),
+    UNKNOWN("multi");
+
+    private final String code;
+}
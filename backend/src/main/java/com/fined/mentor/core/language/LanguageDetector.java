@@ -0,0 +1,168 @@
+package com.fined.mentor.core.language;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cheap local guess of the language of a user message or quiz topic, from how
+ * likely its character trigrams are in English, French and German.
+ * <p>
+ * Each language has a trigram profile built once from the sample text in
+ * {@code language-profiles/<code>.txt}. Text is lowercased and split into words
+ * padded with a space, so trigrams such as " le", "ie " or "für" capture both
+ * function words and language-specific letters, and "sample" no longer counts as
+ * French because it contains "le". Detection scans at most {@value #MAX_CHARS}
+ * characters and allocates nothing per character, so it is cheap enough for every
+ * chat turn. Text whose best and second-best languages are too close to call, such
+ * as a single word, is {@link Language#UNKNOWN}; prompts then use their
+ * multilingual form.
+ */
+@Component
+public class LanguageDetector {
+
+    static final int MAX_CHARS = 512;
+    private static final Language[] LANGUAGES = { Language.EN, Language.FR, Language.DE };
+    // Below this log-likelihood lead over the runner-up the text is too close to call
+    private static final double MIN_MARGIN = 5.0;
+    private static final Profiles PROFILES = Profiles.load();
+
+    public Language detect(String text) {
+        if (text == null) {
+            return Language.UNKNOWN;
+        }
+
+        double[] scores = new double[LANGUAGES.length];
+        int limit = Math.min(text.length(), MAX_CHARS);
+        // The last two folded characters; 0 until there are two of them
+        char first = 0;
+        char second = ' ';
+        for (int i = 0; i <= limit; i++) {
+            char c = i < limit ? fold(text.charAt(i)) : ' ';
+            if (c == ' ' && second == ' ') {
+                continue;
+            }
+            if (first != 0) {
+                PROFILES.score(first, second, c, scores);
+            }
+            first = second;
+            second = c;
+        }
+
+        int best = 0;
+        int runnerUp = 1;
+        if (scores[runnerUp] > scores[best]) {
+            best = 1;
+            runnerUp = 0;
+        }
+        for (int l = 2; l < scores.length; l++) {
+            if (scores[l] > scores[best]) {
+                runnerUp = best;
+                best = l;
+            } else if (scores[l] > scores[runnerUp]) {
+                runnerUp = l;
+            }
+        }
+        return scores[best] - scores[runnerUp] >= MIN_MARGIN ? LANGUAGES[best] : Language.UNKNOWN;
+    }
+
+    private static char fold(char c) {
+        // Digits and punctuation say nothing about the language; they separate words
+        return Character.isLetter(c) ? Character.toLowerCase(c) : ' ';
+    }
+
+    /**
+     * Log probabilities of every trigram seen in any profile, in an open-addressing
+     * table keyed by the three packed characters.
+     */
+    private static final class Profiles {
+
+        private final long[] keys;
+        private final float[] logProbabilities;
+        private final int mask;
+
+        private Profiles(Map<Long, int[]> counts, long[] totals) {
+            int capacity = Integer.highestOneBit(Math.max(counts.size(), 1) * 4);
+            this.keys = new long[capacity];
+            this.logProbabilities = new float[capacity * LANGUAGES.length];
+            this.mask = capacity - 1;
+            // Add-one smoothing, so a trigram one language has never seen only costs it
+            double vocabulary = counts.size();
+            for (Map.Entry<Long, int[]> entry : counts.entrySet()) {
+                int slot = slot(entry.getKey());
+                keys[slot] = entry.getKey();
+                for (int l = 0; l < LANGUAGES.length; l++) {
+                    logProbabilities[slot * LANGUAGES.length + l] =
+                            (float) Math.log((entry.getValue()[l] + 1.0) / (totals[l] + vocabulary));
+                }
+            }
+        }
+
+        static Profiles load() {
+            Map<Long, int[]> counts = new HashMap<>();
+            long[] totals = new long[LANGUAGES.length];
+            for (int l = 0; l < LANGUAGES.length; l++) {
+                String sample = " " + readSample(LANGUAGES[l]) + " ";
+                char first = 0;
+                char second = ' ';
+                for (int i = 0; i < sample.length(); i++) {
+                    char c = fold(sample.charAt(i));
+                    if (c == ' ' && second == ' ') {
+                        continue;
+                    }
+                    if (first != 0) {
+                        counts.computeIfAbsent(key(first, second, c), k -> new int[LANGUAGES.length])[l]++;
+                        totals[l]++;
+                    }
+                    first = second;
+                    second = c;
+                }
+            }
+            return new Profiles(counts, totals);
+        }
+
+        /**
+         * Adds the trigram's log probability in each language to {@code scores}.
+         * Trigrams none of the profiles contain are skipped, as they favour no language.
+         */
+        void score(char first, char second, char third, double[] scores) {
+            long key = key(first, second, third);
+            int slot = slot(key);
+            if (keys[slot] != key) {
+                return;
+            }
+            for (int l = 0; l < scores.length; l++) {
+                scores[l] += logProbabilities[slot * LANGUAGES.length + l];
+            }
+        }
+
+        private int slot(long key) {
+            int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private static long key(char first, char second, char third) {
+            return ((long) first << 32) | ((long) second << 16) | third;
+        }
+
+        private static String readSample(Language language) {
+            String path = "/language-profiles/" + language.getCode() + ".txt";
+            try (InputStream sample = LanguageDetector.class.getResourceAsStream(path)) {
+                if (sample == null) {
+                    throw new IllegalStateException("Missing language profile " + path);
+                }
+                return new String(sample.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
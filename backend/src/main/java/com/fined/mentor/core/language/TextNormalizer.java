@@ -0,0 +1,84 @@
+package com.fined.mentor.core.language;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normal form of short user text (questions, quiz topics) used as a cache key, so
+ * that variants differing only in case, spacing or surrounding punctuation match.
+ * {@link #digest(String)} turns it into a fixed-length key for external stores.
+ * {@link #fold(String)} is the looser form used for keyword matching.
+ */
+public final class TextNormalizer {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    // Punctuation and spacing around a question that does not change what is asked
+    private static final Pattern EDGE_PUNCTUATION = Pattern.compile("^[\\p{Punct}¿¡\\s]+|[\\p{Punct}¿¡\\s]+$");
+
+    private TextNormalizer() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFKC)
+                .toLowerCase(Locale.ROOT)).replaceAll(" ");
+        return EDGE_PUNCTUATION.matcher(normalized).replaceAll("");
+    }
+
+    /**
+     * Lowercases, strips accents ("Épargne" becomes "epargne", "Börse" becomes
+     * "borse"), spells out ß, and turns every run of non-letters and non-digits into
+     * a single space, so words are separated by exactly one space.
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        // Topics are mostly plain ASCII; only decompose the ones that are not
+        String source = isAscii(text) ? text : Normalizer.normalize(text, Normalizer.Form.NFKD);
+        StringBuilder folded = new StringBuilder(source.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && !folded.isEmpty()) {
+                    folded.append(' ');
+                }
+                pendingSpace = false;
+                if (c == 'ß') {
+                    folded.append("ss");
+                } else {
+                    folded.append(Character.toLowerCase(c));
+                }
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                pendingSpace = true;
+            }
+        }
+        return folded.toString();
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 128) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static String digest(String normalized) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.fined.mentor.core.llm;
+
+import java.time.Instant;
+
+/**
+ * A static prompt prefix stored on the model provider side, referenced by
+ * {@code handle} until {@code expiresAt}.
+ */
+public record CachedPrefix(String handle, Instant expiresAt) {
+}
@@ -0,0 +1,145 @@
+package com.fined.mentor.core.llm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Stops sending calls to a model that keeps failing.
+ * <p>
+ * The breaker remembers the outcome of the last {@code window} calls and opens once
+ * at least {@code failureRate} of a full window failed. While open, {@link #tryPass()}
+ * refuses calls for {@code openFor}; after that a single probe call is let through,
+ * and its outcome closes the breaker again or keeps it open for another period.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    @Getter
+    private final String name;
+    private final double failureRate;
+    private final Duration openFor;
+    private final Clock clock;
+    // Ring of recent outcomes, true for a failure
+    private final boolean[] outcomes;
+    private final Counter opened;
+    private int recorded;
+    private int next;
+    private int failures;
+    @Getter
+    private State state = State.CLOSED;
+    private Instant openUntil = Instant.MIN;
+
+    public CircuitBreaker(String name, int window, double failureRate, Duration openFor,
+            MeterRegistry meterRegistry, Clock clock) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Circuit breaker " + name + " needs a window of at least one call");
+        }
+        this.name = name;
+        this.failureRate = failureRate;
+        this.openFor = openFor;
+        this.clock = clock;
+        this.outcomes = new boolean[window];
+
+        Gauge.builder("llm.circuit.state", this, breaker -> breaker.getState().ordinal())
+                .tag("circuit", name)
+                .description("Circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+        this.opened = Counter.builder("llm.circuit.opened")
+                .tag("circuit", name)
+                .description("Times the circuit breaker opened")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether a call may go ahead. A caller that gets {@code true} must report the
+     * outcome with {@link #onSuccess()} or {@link #onFailure()}.
+     */
+    public synchronized boolean tryPass() {
+        return switch (state) {
+            case CLOSED -> true;
+            case HALF_OPEN -> false;
+            case OPEN -> {
+                if (clock.instant().isBefore(openUntil)) {
+                    yield false;
+                }
+                state = State.HALF_OPEN;
+                yield true;
+            }
+        };
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.OPEN) {
+            // A call that started before the breaker opened; the open period stands
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            log.info("Circuit {} closed after a successful probe", name);
+            state = State.CLOSED;
+            reset();
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.OPEN) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (recorded == outcomes.length && failures >= failureRate * outcomes.length) {
+            open();
+        }
+    }
+
+    /**
+     * Reports a call that {@link #tryPass() passed} but never reached the model, so
+     * says nothing about it. A probe that did not happen lets the next call probe.
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+        }
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length && outcomes[next]) {
+            failures--;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+        recorded = Math.min(recorded + 1, outcomes.length);
+    }
+
+    private void open() {
+        log.warn("Circuit {} opened, refusing calls for {}", name, openFor);
+        state = State.OPEN;
+        openUntil = clock.instant().plus(openFor);
+        opened.increment();
+        reset();
+    }
+
+    private void reset() {
+        recorded = 0;
+        next = 0;
+        failures = 0;
+    }
+}
@@ -0,0 +1,104 @@
+package com.fined.mentor.core.llm;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.genai.Caches;
+import com.google.genai.Client;
+import com.google.genai.types.CachedContent;
+import com.google.genai.types.Content;
+import com.google.genai.types.CreateCachedContentConfig;
+import com.google.genai.types.FunctionDeclaration;
+import com.google.genai.types.Part;
+import com.google.genai.types.Schema;
+import com.google.genai.types.Tool;
+import com.google.genai.types.UpdateCachedContentConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.model.ModelOptionsUtils;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Stores prompt prefixes as Gemini cached content, through the same client the
+ * chat model uses.
+ */
+@Slf4j
+@Component
+public class GeminiPromptCacheProvider implements PromptCacheProvider {
+
+    private final Supplier<Caches> caches;
+    private final String model;
+
+    @Autowired
+    public GeminiPromptCacheProvider(ObjectProvider<Client> genAiClient,
+            @Value("${spring.ai.google.genai.chat.options.model}") String model) {
+        this(() -> {
+            Client client = genAiClient.getIfAvailable();
+            if (client == null) {
+                throw new IllegalStateException("Gemini client is not configured");
+            }
+            return client.caches;
+        }, model);
+    }
+
+    GeminiPromptCacheProvider(Supplier<Caches> caches, String model) {
+        this.caches = caches;
+        this.model = model;
+    }
+
+    @Override
+    public CachedPrefix create(String name, String systemInstruction, List<ToolDefinition> tools, Duration ttl) {
+        // The conversation stays in the request. Tools are cached too, since Gemini
+        // does not accept them in a request that references cached content
+        CreateCachedContentConfig.Builder config = CreateCachedContentConfig.builder()
+                .displayName("fined-mentor-" + name)
+                .systemInstruction(Content.fromParts(Part.fromText(systemInstruction)))
+                .ttl(ttl);
+        if (!tools.isEmpty()) {
+            config.tools(List.of(Tool.builder()
+                    .functionDeclarations(tools.stream().map(GeminiPromptCacheProvider::declaration).toList())
+                    .build()));
+        }
+        CachedContent content = caches.get().create(model, config.build());
+        CachedPrefix prefix = toPrefix(content, ttl);
+        log.info("Created cached content {} for prompt prefix {}", prefix.handle(), name);
+        return prefix;
+    }
+
+    @Override
+    public CachedPrefix refresh(CachedPrefix prefix, Duration ttl) {
+        CachedContent content = caches.get().update(prefix.handle(),
+                UpdateCachedContentConfig.builder().ttl(ttl).build());
+        return new CachedPrefix(prefix.handle(), content.expireTime().orElse(Instant.now().plus(ttl)));
+    }
+
+    @Override
+    public void delete(CachedPrefix prefix) {
+        caches.get().delete(prefix.handle(), null);
+    }
+
+    // Declared as the chat model declares tools sent with a request
+    private static FunctionDeclaration declaration(ToolDefinition tool) {
+        try {
+            return FunctionDeclaration.builder()
+                    .name(tool.name())
+                    .description(tool.description())
+                    .parameters(ModelOptionsUtils.OBJECT_MAPPER.readValue(tool.inputSchema(), Schema.class))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid input schema for tool " + tool.name(), e);
+        }
+    }
+
+    private CachedPrefix toPrefix(CachedContent content, Duration ttl) {
+        String handle = content.name()
+                .orElseThrow(() -> new IllegalStateException("Gemini returned cached content without a name"));
+        return new CachedPrefix(handle, content.expireTime().orElse(Instant.now().plus(ttl)));
+    }
+}
@@ -0,0 +1,34 @@
+package com.fined.mentor.core.llm;
+
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.google.genai.GoogleGenAiChatOptions;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+
+import java.util.HashMap;
+
+/**
+ * Gemini options for prompts that are rewritten before they are sent.
+ */
+final class GenAiOptions {
+
+    private GenAiOptions() {
+    }
+
+    /**
+     * A copy of {@code options} as Gemini options. Of provider-neutral options only
+     * the tool settings are kept, so the model is not sent out without its tools.
+     */
+    static GoogleGenAiChatOptions copyOf(ChatOptions options) {
+        if (options instanceof GoogleGenAiChatOptions genAiOptions) {
+            return genAiOptions.copy();
+        }
+        GoogleGenAiChatOptions copy = GoogleGenAiChatOptions.builder().build();
+        if (options instanceof ToolCallingChatOptions toolOptions) {
+            copy.setToolCallbacks(toolOptions.getToolCallbacks());
+            copy.setToolNames(toolOptions.getToolNames());
+            copy.setToolContext(new HashMap<>(toolOptions.getToolContext()));
+            copy.setInternalToolExecutionEnabled(toolOptions.getInternalToolExecutionEnabled());
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,46 @@
+package com.fined.mentor.core.llm;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * The last {@code size} latencies of one kind of model call, for percentiles over
+ * recent traffic.
+ */
+final class LatencyWindow {
+
+    private final long[] nanos;
+    private int recorded;
+    private int next;
+
+    LatencyWindow(int size) {
+        this.nanos = new long[size];
+    }
+
+    synchronized void record(Duration latency) {
+        nanos[next] = latency.toNanos();
+        next = (next + 1) % nanos.length;
+        recorded = Math.min(recorded + 1, nanos.length);
+    }
+
+    synchronized int size() {
+        return recorded;
+    }
+
+    /**
+     * The latency {@code percentile} (0 to 1) of the recorded calls are at or below,
+     * or null before anything was recorded.
+     */
+    Duration percentile(double percentile) {
+        long[] sorted;
+        synchronized (this) {
+            if (recorded == 0) {
+                return null;
+            }
+            sorted = Arrays.copyOf(nanos, recorded);
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile * sorted.length) - 1;
+        return Duration.ofNanos(sorted[Math.max(0, Math.min(rank, sorted.length - 1))]);
+    }
+}
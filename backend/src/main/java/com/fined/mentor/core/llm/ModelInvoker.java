@@ -0,0 +1,427 @@
+package com.fined.mentor.core.llm;
+
+import com.fined.mentor.core.admission.AdmissionRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.google.genai.GoogleGenAiChatOptions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs model calls with a deadline, a circuit breaker and a hedged request to a
+ * fallback model, so a slow or failing primary model does not set the latency of
+ * the endpoints that wait on it.
+ * <p>
+ * Each {@link UseCase} has its own deadline, breaker and latency history. A call
+ * still unanswered after the hedge delay, the recent p95 latency of the primary
+ * model for that use case, is sent once more to the fallback model and the first
+ * answer wins. A primary call that fails goes to the fallback model right away,
+ * and while the breaker is open calls skip the primary model altogether. A primary
+ * call that lost to its hedge counts as a failure for the breaker, so a model that
+ * stays slow is taken out instead of every call being sent twice. Streams get the
+ * same treatment up to their first chunk; the deadline then bounds the wait for
+ * that chunk, not the whole answer.
+ * <p>
+ * Attempts that lose or time out are abandoned, not interrupted: they run to
+ * completion in the background and their answer is dropped.
+ */
+@Slf4j
+@Component
+public class ModelInvoker {
+
+    public enum UseCase {
+        CHAT("chat"), QUIZ("quiz"), TOPIC_VALIDATION("topic-validation");
+
+        private final String tag;
+
+        UseCase(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    enum Outcome {
+        PRIMARY, HEDGE, FALLBACK, TIMEOUT, FAILURE, REJECTED
+    }
+
+    private final boolean enabled;
+    private final String fallbackModel;
+    private final boolean hedging;
+    private final double percentile;
+    private final int minSamples;
+    private final Duration minHedgeDelay;
+    private final ExecutorService executor;
+    private final Map<UseCase, Route> routes = new EnumMap<>(UseCase.class);
+
+    @Autowired
+    public ModelInvoker(MeterRegistry meterRegistry,
+            @Value("${app.llm.resilience.enabled:true}") boolean enabled,
+            @Value("${app.llm.fallback-model:gemini-2.5-flash-lite}") String fallbackModel,
+            @Value("${app.llm.deadline.chat:PT30S}") Duration chatDeadline,
+            @Value("${app.llm.deadline.quiz:PT60S}") Duration quizDeadline,
+            @Value("${app.llm.deadline.topic-validation:PT5S}") Duration topicValidationDeadline,
+            @Value("${app.llm.hedging.enabled:true}") boolean hedging,
+            @Value("${app.llm.hedging.percentile:0.95}") double percentile,
+            @Value("${app.llm.hedging.min-samples:20}") int minSamples,
+            @Value("${app.llm.hedging.min-delay:PT1S}") Duration minHedgeDelay,
+            @Value("${app.llm.circuit-breaker.window:20}") int breakerWindow,
+            @Value("${app.llm.circuit-breaker.failure-rate:0.5}") double failureRate,
+            @Value("${app.llm.circuit-breaker.open-for:PT30S}") Duration openFor) {
+        this(meterRegistry, enabled, fallbackModel,
+                Map.of(UseCase.CHAT, chatDeadline, UseCase.QUIZ, quizDeadline,
+                        UseCase.TOPIC_VALIDATION, topicValidationDeadline),
+                hedging, percentile, minSamples, minHedgeDelay, breakerWindow, failureRate, openFor,
+                Clock.systemUTC(),
+                // Attempts run as the calling user, which admission control goes by
+                new DelegatingSecurityContextExecutorService(
+                        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("model-call-", 0).factory())));
+    }
+
+    ModelInvoker(MeterRegistry meterRegistry,
+            boolean enabled,
+            String fallbackModel,
+            Map<UseCase, Duration> deadlines,
+            boolean hedging,
+            double percentile,
+            int minSamples,
+            Duration minHedgeDelay,
+            int breakerWindow,
+            double failureRate,
+            Duration openFor,
+            Clock clock,
+            ExecutorService executor) {
+        this.enabled = enabled;
+        this.fallbackModel = fallbackModel;
+        this.hedging = hedging;
+        this.percentile = percentile;
+        this.minSamples = minSamples;
+        this.minHedgeDelay = minHedgeDelay;
+        this.executor = executor;
+        for (UseCase useCase : UseCase.values()) {
+            Duration deadline = deadlines.get(useCase);
+            if (deadline == null || deadline.isZero() || deadline.isNegative()) {
+                throw new IllegalArgumentException("Model calls for " + useCase.tag + " need a positive deadline");
+            }
+            routes.put(useCase, new Route(useCase, deadline,
+                    new CircuitBreaker(useCase.tag, breakerWindow, failureRate, openFor, meterRegistry, clock),
+                    meterRegistry));
+        }
+    }
+
+    /**
+     * Runs a blocking model call. {@code model} is applied to {@code prompt} for the
+     * primary model, and to a copy pinned to the fallback model for hedges and
+     * fallbacks, possibly on another thread. Throws {@link ModelTimeoutException}
+     * when no attempt answers before the deadline, or the error of the last attempt
+     * when all of them fail.
+     */
+    public <T> T call(UseCase useCase, Prompt prompt, Function<Prompt, T> model) {
+        if (!enabled) {
+            return model.apply(prompt);
+        }
+        Route route = routes.get(useCase);
+        long deadline = System.nanoTime() + route.deadline.toNanos();
+        if (!route.breaker.tryPass()) {
+            return route.answered(Outcome.FALLBACK, await(route, submit(model, fallbackPrompt(prompt)), deadline));
+        }
+
+        long started = System.nanoTime();
+        CompletableFuture<T> primary = submit(model, prompt);
+        // Latencies of slow primaries that lost to a hedge still count towards the p95
+        primary.thenRun(() -> route.callLatencies.record(Duration.ofNanos(System.nanoTime() - started)));
+        Duration hedgeDelay = route.hedgeDelay(route.callLatencies);
+        try {
+            long firstWait = hedgeDelay != null
+                    ? Math.min(hedgeDelay.toNanos(), remaining(deadline))
+                    : remaining(deadline);
+            T answer = primary.get(firstWait, TimeUnit.NANOSECONDS);
+            route.breaker.onSuccess();
+            return route.answered(Outcome.PRIMARY, answer);
+        } catch (TimeoutException e) {
+            if (hedgeDelay == null || remaining(deadline) <= 0) {
+                route.breaker.onFailure();
+                route.count(Outcome.TIMEOUT);
+                throw timeout(route);
+            }
+        } catch (ExecutionException e) {
+            if (cause(e) instanceof AdmissionRejectedException rejected) {
+                // Never reached the model; not a reason to try another one
+                route.breaker.onIgnored();
+                route.count(Outcome.REJECTED);
+                throw rejected;
+            }
+            route.breaker.onFailure();
+            log.warn("Primary model call for {} failed, asking the fallback model: {}",
+                    useCase.tag, cause(e).getMessage());
+            return route.answered(Outcome.FALLBACK, await(route, submit(model, fallbackPrompt(prompt)), deadline));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the model", e);
+        }
+
+        route.hedges.increment();
+        CompletableFuture<T> hedge = submit(model, fallbackPrompt(prompt));
+        CompletableFuture<T> winner;
+        try {
+            winner = await(route, firstSuccessful(primary, hedge), deadline);
+        } catch (AdmissionRejectedException e) {
+            route.breaker.onIgnored();
+            throw e;
+        } catch (RuntimeException e) {
+            route.breaker.onFailure();
+            throw e;
+        }
+        if (winner == primary) {
+            route.breaker.onSuccess();
+            return route.answered(Outcome.PRIMARY, winner.join());
+        }
+        route.breaker.onFailure();
+        return route.answered(Outcome.HEDGE, winner.join());
+    }
+
+    /**
+     * Streaming counterpart of {@link #call}. Hedging, fallback and the deadline
+     * only apply until the first chunk; once a model has started answering, the
+     * stream is its own.
+     */
+    public <T> Flux<T> stream(UseCase useCase, Prompt prompt, Function<Prompt, Flux<T>> model) {
+        if (!enabled) {
+            return model.apply(prompt);
+        }
+        Route route = routes.get(useCase);
+        return Flux.defer(() -> {
+            Flux<T> fallback = Flux.defer(() -> model.apply(fallbackPrompt(prompt)));
+            if (!route.breaker.tryPass()) {
+                route.count(Outcome.FALLBACK);
+                return firstChunkDeadline(route, fallback);
+            }
+
+            long started = System.nanoTime();
+            // Set once the primary attempt has been judged by the breaker
+            AtomicBoolean settled = new AtomicBoolean();
+            Flux<T> primary = Flux.defer(() -> model.apply(prompt))
+                    .doOnNext(chunk -> {
+                        if (settled.compareAndSet(false, true)) {
+                            route.firstChunkLatencies.record(Duration.ofNanos(System.nanoTime() - started));
+                            route.breaker.onSuccess();
+                            route.count(Outcome.PRIMARY);
+                        }
+                    })
+                    .doOnError(AdmissionRejectedException.class, e -> {
+                        if (settled.compareAndSet(false, true)) {
+                            route.breaker.onIgnored();
+                        }
+                    })
+                    .onErrorResume(e -> settled.compareAndSet(false, true), e -> {
+                        route.breaker.onFailure();
+                        log.warn("Primary model stream for {} failed, asking the fallback model: {}",
+                                useCase.tag, e.getMessage());
+                        route.count(Outcome.FALLBACK);
+                        return fallback;
+                    })
+                    .doOnCancel(() -> {
+                        // Lost to the hedge or ran into the deadline
+                        if (settled.compareAndSet(false, true)) {
+                            route.breaker.onFailure();
+                        }
+                    });
+
+            Duration hedgeDelay = route.hedgeDelay(route.firstChunkLatencies);
+            if (hedgeDelay == null || hedgeDelay.compareTo(route.deadline) >= 0) {
+                return firstChunkDeadline(route, primary);
+            }
+            AtomicBoolean hedgeAnswered = new AtomicBoolean();
+            Flux<T> hedge = Mono.delay(hedgeDelay)
+                    .doOnNext(tick -> route.hedges.increment())
+                    .thenMany(fallback)
+                    .doOnNext(chunk -> {
+                        if (hedgeAnswered.compareAndSet(false, true)) {
+                            route.count(Outcome.HEDGE);
+                        }
+                    });
+            return firstChunkDeadline(route, Flux.firstWithValue(primary, hedge)
+                    .onErrorMap(NoSuchElementException.class, ModelInvoker::raceError));
+        });
+    }
+
+    private <T> Flux<T> firstChunkDeadline(Route route, Flux<T> answer) {
+        return answer
+                .timeout(Mono.delay(route.deadline), chunk -> Mono.never())
+                .onErrorMap(TimeoutException.class, e -> {
+                    route.count(Outcome.TIMEOUT);
+                    return timeout(route);
+                })
+                .doOnError(AdmissionRejectedException.class, e -> route.count(Outcome.REJECTED));
+    }
+
+    /**
+     * The error to report when neither stream of a hedged pair answered: an
+     * admission rejection if there was one, else the error of the last to fail.
+     */
+    private static Throwable raceError(NoSuchElementException e) {
+        List<Throwable> errors = Exceptions.unwrapMultiple(e.getCause());
+        return errors.stream()
+                .filter(AdmissionRejectedException.class::isInstance)
+                .findFirst()
+                .orElse(errors.isEmpty() ? e : errors.get(errors.size() - 1));
+    }
+
+    /**
+     * A copy of {@code prompt} pinned to the fallback model, or the prompt itself if
+     * there is no fallback model, in which case hedges go to the primary model again.
+     */
+    Prompt fallbackPrompt(Prompt prompt) {
+        if (fallbackModel == null || fallbackModel.isBlank()) {
+            return prompt;
+        }
+        GoogleGenAiChatOptions options = GenAiOptions.copyOf(prompt.getOptions());
+        options.setModel(fallbackModel);
+        return new Prompt(prompt.getInstructions(), options);
+    }
+
+    private <T> CompletableFuture<T> submit(Function<Prompt, T> model, Prompt prompt) {
+        return CompletableFuture.supplyAsync(() -> model.apply(prompt), executor);
+    }
+
+    private <T> T await(Route route, CompletableFuture<T> attempt, long deadline) {
+        try {
+            return attempt.get(remaining(deadline), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            route.count(Outcome.TIMEOUT);
+            throw timeout(route);
+        } catch (ExecutionException e) {
+            Throwable cause = cause(e);
+            route.count(cause instanceof AdmissionRejectedException ? Outcome.REJECTED : Outcome.FAILURE);
+            throw cause instanceof RuntimeException runtimeException
+                    ? runtimeException
+                    : new IllegalStateException("Model call failed", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the model", e);
+        }
+    }
+
+    /**
+     * Completes with whichever of the two attempts answers first, or fails with the
+     * error of the last one to fail.
+     */
+    private static <T> CompletableFuture<CompletableFuture<T>> firstSuccessful(CompletableFuture<T> first,
+            CompletableFuture<T> second) {
+        CompletableFuture<CompletableFuture<T>> winner = new CompletableFuture<>();
+        AtomicInteger failed = new AtomicInteger();
+        for (CompletableFuture<T> attempt : List.of(first, second)) {
+            attempt.whenComplete((answer, error) -> {
+                if (error == null) {
+                    winner.complete(attempt);
+                } else if (failed.incrementAndGet() == 2) {
+                    winner.completeExceptionally(cause(error));
+                }
+            });
+        }
+        return winner;
+    }
+
+    private static Throwable cause(Throwable e) {
+        Throwable cause = e;
+        while ((cause instanceof ExecutionException || cause instanceof CompletionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    private static ModelTimeoutException timeout(Route route) {
+        return new ModelTimeoutException("Model did not answer the " + route.useCase.tag
+                + " call within " + route.deadline);
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private final class Route {
+        private final UseCase useCase;
+        private final Duration deadline;
+        private final CircuitBreaker breaker;
+        private final LatencyWindow callLatencies = new LatencyWindow(200);
+        private final LatencyWindow firstChunkLatencies = new LatencyWindow(200);
+        private final Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+        private final Counter hedges;
+
+        private Route(UseCase useCase, Duration deadline, CircuitBreaker breaker, MeterRegistry meterRegistry) {
+            this.useCase = useCase;
+            this.deadline = deadline;
+            this.breaker = breaker;
+            for (Outcome outcome : Outcome.values()) {
+                outcomes.put(outcome, Counter.builder("llm.calls")
+                        .tag("use_case", useCase.tag)
+                        .tag("outcome", outcome.name().toLowerCase())
+                        .description("Model calls by which attempt answered them, or how they failed")
+                        .register(meterRegistry));
+            }
+            this.hedges = Counter.builder("llm.hedges")
+                    .tag("use_case", useCase.tag)
+                    .description("Hedged requests sent to the fallback model for slow primary calls")
+                    .register(meterRegistry);
+            Gauge.builder("llm.hedge.delay", this, route -> {
+                        Duration delay = route.hedgeDelay(route.callLatencies);
+                        return delay != null ? delay.toNanos() / 1e9 : 0.0;
+                    })
+                    .tag("use_case", useCase.tag)
+                    .description("Seconds a blocking model call waits before it is hedged")
+                    .register(meterRegistry);
+        }
+
+        /**
+         * The p95 (or configured percentile) of {@code latencies}, not below the
+         * minimum hedge delay. Half the deadline until there are enough samples, and
+         * null when hedging is off.
+         */
+        private Duration hedgeDelay(LatencyWindow latencies) {
+            if (!hedging) {
+                return null;
+            }
+            Duration delay = latencies.size() < minSamples ? deadline.dividedBy(2) : latencies.percentile(percentile);
+            return delay.compareTo(minHedgeDelay) < 0 ? minHedgeDelay : delay;
+        }
+
+        private void count(Outcome outcome) {
+            outcomes.get(outcome).increment();
+        }
+
+        private <T> T answered(Outcome outcome, T answer) {
+            count(outcome);
+            return answer;
+        }
+    }
+}
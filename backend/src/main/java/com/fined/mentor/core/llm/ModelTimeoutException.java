@@ -0,0 +1,7 @@
+package com.fined.mentor.core.llm;
+
+public class ModelTimeoutException extends RuntimeException {
+    public ModelTimeoutException(String message) {
+        super(message);
+    }
+}
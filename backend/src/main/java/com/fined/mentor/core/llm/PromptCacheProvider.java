@@ -0,0 +1,26 @@
+package com.fined.mentor.core.llm;
+
+import org.springframework.ai.tool.definition.ToolDefinition;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Model-provider side storage for static prompt prefixes. Kept behind an
+ * interface so the cache manager can be exercised without a provider account.
+ */
+public interface PromptCacheProvider {
+
+    /**
+     * Stores {@code systemInstruction} and the declarations of {@code tools} as
+     * cached content that expires after {@code ttl}.
+     */
+    CachedPrefix create(String name, String systemInstruction, List<ToolDefinition> tools, Duration ttl);
+
+    /**
+     * Pushes the expiry of an existing entry to {@code ttl} from now.
+     */
+    CachedPrefix refresh(CachedPrefix prefix, Duration ttl);
+
+    void delete(CachedPrefix prefix);
+}
@@ -0,0 +1,312 @@
+package com.fined.mentor.core.llm;
+
+import com.google.genai.errors.ClientException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.google.genai.GoogleGenAiChatOptions;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps static system prompts stored as cached content on the model provider, so
+ * each turn only sends and pays full price for what follows them.
+ * <p>
+ * Prefixes are registered once by the services that own them, together with the
+ * tools their prompts are sent with, since Gemini only takes tools from the cached
+ * content once a request references it. Entries are created and refreshed in the
+ * background ahead of their expiry. Until an entry is live, or when the provider
+ * rejects it, prompts are sent unchanged.
+ */
+@Slf4j
+@Component
+public class PromptPrefixCache {
+
+    /**
+     * Tool context key listing the tools a rewritten prompt offers through its
+     * cached content rather than its options.
+     */
+    public static final String CACHED_TOOLS = "promptCache.tools";
+
+    private final PromptCacheProvider provider;
+    private final TokenCountEstimator tokenCountEstimator;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final Duration refreshBefore;
+    private final Duration retryAfter;
+    private final int minTokens;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService refresher;
+    private final Counter fallbacks;
+
+    public PromptPrefixCache(PromptCacheProvider provider,
+            TokenCountEstimator tokenCountEstimator,
+            MeterRegistry meterRegistry,
+            @Value("${app.llm.prompt-cache.enabled:true}") boolean enabled,
+            @Value("${app.llm.prompt-cache.ttl:PT1H}") Duration ttl,
+            @Value("${app.llm.prompt-cache.refresh-before:PT5M}") Duration refreshBefore,
+            @Value("${app.llm.prompt-cache.retry-after:PT5M}") Duration retryAfter,
+            @Value("${app.llm.prompt-cache.min-tokens:1024}") int minTokens) {
+        this.provider = provider;
+        this.tokenCountEstimator = tokenCountEstimator;
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.refreshBefore = refreshBefore;
+        this.retryAfter = retryAfter;
+        this.minTokens = minTokens;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "prompt-cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("llm.prompt.cache.live", entries, map -> map.values().stream().filter(Entry::isLive).count())
+                .description("Static prompt prefixes currently served from provider-side cache")
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("llm.prompt.cache.fallbacks")
+                .description("Requests resent without cached content after the provider rejected it")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers a static system prompt under {@code name}, sent with {@code tools},
+     * and starts caching both. Prompts too short for provider-side caching are left
+     * alone.
+     */
+    public void register(String name, String systemInstruction, List<ToolCallback> tools) {
+        if (!enabled) {
+            return;
+        }
+        if (tokenCountEstimator.estimate(systemInstruction) < minTokens) {
+            log.info("Prompt prefix {} is below {} tokens, not caching it", name, minTokens);
+            return;
+        }
+        Entry entry = new Entry(name, systemInstruction, tools.stream().map(ToolCallback::getToolDefinition).toList());
+        if (entries.putIfAbsent(name, entry) == null) {
+            schedule(entry, Duration.ZERO);
+        }
+    }
+
+    /**
+     * Runs a blocking model call with the cached prefix when it is live, and once
+     * more with the original prompt if the provider rejects the cached content.
+     */
+    public <T> T call(String name, Prompt prompt, Function<Prompt, T> model) {
+        Prompt cached = cachedPrompt(name, prompt);
+        if (cached == null) {
+            return model.apply(prompt);
+        }
+        try {
+            return model.apply(cached);
+        } catch (RuntimeException e) {
+            if (!isRejection(e)) {
+                throw e;
+            }
+            fallBack(name, e);
+            return model.apply(prompt);
+        }
+    }
+
+    /**
+     * Streaming counterpart of {@link #call}. The uncached retry only happens while
+     * nothing has been emitted yet.
+     */
+    public <T> Flux<T> stream(String name, Prompt prompt, Function<Prompt, Flux<T>> model) {
+        Prompt cached = cachedPrompt(name, prompt);
+        if (cached == null) {
+            return model.apply(prompt);
+        }
+        AtomicBoolean emitted = new AtomicBoolean();
+        return Flux.defer(() -> model.apply(cached))
+                .doOnNext(item -> emitted.set(true))
+                .onErrorResume(e -> !emitted.get() && isRejection(e), e -> {
+                    fallBack(name, e);
+                    return model.apply(prompt);
+                });
+    }
+
+    /**
+     * Rewrites a prompt whose system message starts with the registered prefix to
+     * reference the cached content instead. Gemini accepts neither a system
+     * instruction nor tools next to cached content: anything the caller appended
+     * after the prefix moves into a leading user message, and the tools are left to
+     * the cached declarations, while the model still runs them by name. Returns null
+     * when no live entry applies, when the prompt offers other tools than were
+     * cached, or when it is pinned to a model, as cached content only works with the
+     * model it was created for.
+     */
+    Prompt cachedPrompt(String name, Prompt prompt) {
+        if (prompt.getOptions() != null && prompt.getOptions().getModel() != null) {
+            return null;
+        }
+        Entry entry = entries.get(name);
+        CachedPrefix live = entry != null ? entry.livePrefix() : null;
+        if (live == null || !toolNames(prompt).equals(entry.toolNames)) {
+            return null;
+        }
+        List<Message> instructions = prompt.getInstructions();
+        if (instructions.isEmpty() || !(instructions.get(0) instanceof SystemMessage system)
+                || !system.getText().startsWith(entry.systemInstruction)) {
+            return null;
+        }
+
+        List<Message> messages = new ArrayList<>(instructions.size());
+        String rest = system.getText().substring(entry.systemInstruction.length()).strip();
+        if (!rest.isEmpty()) {
+            messages.add(new UserMessage(rest));
+        }
+        messages.addAll(instructions.subList(1, instructions.size()));
+
+        GoogleGenAiChatOptions options = GenAiOptions.copyOf(prompt.getOptions());
+        options.setCachedContentName(live.handle());
+        options.setUseCachedContent(true);
+        if (!entry.tools.isEmpty()) {
+            options.setToolCallbacks(List.of());
+            options.setToolNames(Set.of());
+            Map<String, Object> toolContext = new HashMap<>(options.getToolContext());
+            toolContext.put(CACHED_TOOLS, List.copyOf(entry.toolNames));
+            options.setToolContext(toolContext);
+        }
+        return new Prompt(messages, options);
+    }
+
+    private static Set<String> toolNames(Prompt prompt) {
+        if (!(prompt.getOptions() instanceof ToolCallingChatOptions toolOptions)) {
+            return Set.of();
+        }
+        Set<String> names = new HashSet<>(toolOptions.getToolNames());
+        toolOptions.getToolCallbacks().forEach(tool -> names.add(tool.getToolDefinition().name()));
+        return names;
+    }
+
+    private void maintain(Entry entry) {
+        if (entry.disabled) {
+            return;
+        }
+        CachedPrefix current = entry.prefix.get();
+        try {
+            CachedPrefix next = current == null
+                    ? provider.create(entry.name, entry.systemInstruction, entry.tools, ttl)
+                    : provider.refresh(current, ttl);
+            entry.prefix.set(next);
+            Duration untilRefresh = Duration.between(Instant.now(), next.expiresAt().minus(refreshBefore));
+            schedule(entry, untilRefresh.isNegative() ? Duration.ZERO : untilRefresh);
+        } catch (RuntimeException e) {
+            log.warn("Could not {} cached prompt prefix {}, sending it uncached until the next attempt: {}",
+                    current == null ? "create" : "refresh", entry.name, e.getMessage());
+            entry.prefix.set(null);
+            schedule(entry, retryAfter);
+        }
+    }
+
+    private void fallBack(String name, Throwable e) {
+        fallbacks.increment();
+        Entry entry = entries.get(name);
+        CachedPrefix rejected = entry.prefix.get();
+        if (rejected == null || !entry.prefix.compareAndSet(rejected, null)) {
+            return;
+        }
+        ClientException clientError = clientError(e);
+        if (clientError != null && clientError.code() == 404) {
+            // Expired or deleted on the provider side, create it again
+            log.info("Cached prompt prefix {} is gone, recreating it", name);
+            schedule(entry, Duration.ZERO);
+        } else {
+            entry.disabled = true;
+            log.warn("Provider rejected cached prompt prefix {}, sending it uncached from now on: {}",
+                    name, e.getMessage());
+        }
+    }
+
+    private void schedule(Entry entry, Duration delay) {
+        try {
+            refresher.schedule(() -> maintain(entry), delay.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Prompt cache is shut down, not scheduling prefix {}", entry.name);
+        }
+    }
+
+    private static boolean isRejection(Throwable e) {
+        ClientException clientError = clientError(e);
+        return clientError != null && clientError.code() >= 400 && clientError.code() < 500;
+    }
+
+    private static ClientException clientError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ClientException clientException) {
+                return clientException;
+            }
+        }
+        return null;
+    }
+
+    @PreDestroy
+    public void close() {
+        refresher.shutdownNow();
+        // Cached content is billed while it exists; don't leave it behind
+        for (Entry entry : entries.values()) {
+            CachedPrefix prefix = entry.prefix.getAndSet(null);
+            if (prefix != null) {
+                try {
+                    provider.delete(prefix);
+                } catch (RuntimeException e) {
+                    log.warn("Could not delete cached prompt prefix {}: {}", entry.name, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final String name;
+        private final String systemInstruction;
+        private final List<ToolDefinition> tools;
+        private final Set<String> toolNames;
+        private final AtomicReference<CachedPrefix> prefix = new AtomicReference<>();
+        private volatile boolean disabled;
+
+        private Entry(String name, String systemInstruction, List<ToolDefinition> tools) {
+            this.name = name;
+            this.systemInstruction = systemInstruction;
+            this.tools = tools;
+            this.toolNames = tools.stream().map(ToolDefinition::name).collect(Collectors.toSet());
+        }
+
+        private CachedPrefix livePrefix() {
+            CachedPrefix current = prefix.get();
+            return !disabled && current != null && current.expiresAt().isAfter(Instant.now()) ? current : null;
+        }
+
+        private boolean isLive() {
+            return livePrefix() != null;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.fined.mentor.core.llm;
+
+import com.fined.mentor.core.language.Language;
+import com.fined.mentor.core.language.LanguageDetector;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Static prompts split into one variant per language, so a request only carries
+ * the few-shot examples and reply templates of the language it is written in.
+ * <p>
+ * Templates mark language-specific lines with {@code [[en]]} ... {@code [[/en]]}
+ * blocks (likewise {@code fr}, {@code de}); everything outside a block is shared.
+ * The fallback variant keeps all blocks and is used when the language is unclear.
+ */
+@Slf4j
+@Component
+public class PromptRegistry {
+
+    private static final Pattern BLOCK_MARKER = Pattern.compile("^\\s*\\[\\[(/?)([a-z]+)]]\\s*$");
+
+    private final LanguageDetector languageDetector;
+    private final PromptPrefixCache promptPrefixCache;
+    private final TokenCountEstimator tokenCountEstimator;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Map<Language, Selection>> prompts = new ConcurrentHashMap<>();
+
+    public PromptRegistry(LanguageDetector languageDetector, PromptPrefixCache promptPrefixCache,
+            TokenCountEstimator tokenCountEstimator, MeterRegistry meterRegistry) {
+        this.languageDetector = languageDetector;
+        this.promptPrefixCache = promptPrefixCache;
+        this.tokenCountEstimator = tokenCountEstimator;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Builds the language variants of a template and registers each of them for
+     * provider-side caching, along with the tools the prompt is always sent with
+     * (empty for none).
+     */
+    public void register(String name, String template, List<ToolCallback> tools) {
+        String multilingual = render(template, Language.UNKNOWN);
+        int multilingualTokens = tokenCountEstimator.estimate(multilingual);
+        Map<Language, Selection> selections = new EnumMap<>(Language.class);
+        for (Language language : Language.values()) {
+            String text = language == Language.UNKNOWN ? multilingual : render(template, language);
+            PromptVariant variant = new PromptVariant(name, language, text);
+            promptPrefixCache.register(variant.cacheName(), variant.text(), tools);
+            int saved = multilingualTokens - tokenCountEstimator.estimate(text);
+            DistributionSummary savings = DistributionSummary.builder("llm.prompt.tokens.saved")
+                    .tag("prompt", name)
+                    .tag("language", language.getCode())
+                    .description("Input tokens saved per request by sending a single-language prompt variant")
+                    .register(meterRegistry);
+            selections.put(language, new Selection(variant, saved, savings));
+        }
+        prompts.put(name, selections);
+        log.info("Registered prompt {} ({} tokens multilingual, {} tokens English)", name,
+                multilingualTokens, multilingualTokens - selections.get(Language.EN).savedTokens());
+    }
+
+    /**
+     * Picks the variant matching the language of {@code sample}, the user message
+     * or topic the prompt is built for, and records how many input tokens that
+     * saves over the multilingual form.
+     */
+    public PromptVariant select(String name, String sample) {
+        Map<Language, Selection> selections = prompts.get(name);
+        if (selections == null) {
+            throw new IllegalArgumentException("Unknown prompt: " + name);
+        }
+        Selection selection = selections.get(languageDetector.detect(sample));
+        selection.savings().record(selection.savedTokens());
+        return selection.variant();
+    }
+
+    /**
+     * Keeps shared lines and the lines of {@code language}'s blocks; the fallback
+     * keeps every block.
+     */
+    static String render(String template, Language language) {
+        StringBuilder out = new StringBuilder(template.length());
+        String openBlock = null;
+        for (String line : template.split("\n", -1)) {
+            Matcher marker = BLOCK_MARKER.matcher(line);
+            if (marker.matches()) {
+                openBlock = marker.group(1).isEmpty() ? marker.group(2) : null;
+                continue;
+            }
+            if (openBlock == null || language == Language.UNKNOWN || openBlock.equals(language.getCode())) {
+                out.append(line).append('\n');
+            }
+        }
+        // split keeps the text after the last newline as a final element
+        out.setLength(out.length() - 1);
+        return out.toString();
+    }
+
+    /**
+     * A variant with its token saving over the multilingual form, both fixed when
+     * the prompt is registered.
+     */
+    private record Selection(PromptVariant variant, int savedTokens, DistributionSummary savings) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.fined.mentor.core.llm;
+
+import com.fined.mentor.core.language.Language;
+
+/**
+ * One language's form of a registered prompt. {@link Language#UNKNOWN} marks the
+ * multilingual fallback that keeps every language's examples.
+ */
+public record PromptVariant(String name, Language language, String text) {
+
+    /**
+     * Name under which this variant is kept in the {@link PromptPrefixCache}.
+     */
+    public String cacheName() {
+        return name + "-" + language.getCode();
+    }
+}
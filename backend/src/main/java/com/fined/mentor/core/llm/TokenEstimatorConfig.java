@@ -0,0 +1,19 @@
+package com.fined.mentor.core.llm;
+
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TokenEstimatorConfig {
+
+    /**
+     * The one tokenizer behind token budgets, thresholds and metrics, so they all
+     * count the same tokens.
+     */
+    @Bean
+    public TokenCountEstimator tokenCountEstimator() {
+        return new JTokkitTokenCountEstimator();
+    }
+}
@@ -0,0 +1,77 @@
+package com.fined.mentor.core.mongo;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An index the application relies on, identified by its collection and ordered key.
+ */
+public record ManagedIndex(String collection, String name, List<Key> keys) {
+
+    public record Key(String field, Sort.Direction direction) {
+    }
+
+    public static Builder on(String collection, String name) {
+        return new Builder(collection, name);
+    }
+
+    public Index toIndex() {
+        Index index = new Index().named(name);
+        keys.forEach(key -> index.on(key.field(), key.direction()));
+        return index;
+    }
+
+    /**
+     * True when {@code info} has the same key, field for field and in order.
+     * Names are not compared so an equivalent index created by hand still counts.
+     */
+    public boolean matches(IndexInfo info) {
+        List<IndexField> fields = info.getIndexFields();
+        if (fields.size() != keys.size()) {
+            return false;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            Key key = keys.get(i);
+            IndexField field = fields.get(i);
+            if (!key.field().equals(field.getKey()) || key.direction() != field.getDirection()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return collection + "." + name;
+    }
+
+    public static final class Builder {
+        private final String collection;
+        private final String name;
+        private final List<Key> keys = new ArrayList<>();
+
+        private Builder(String collection, String name) {
+            this.collection = collection;
+            this.name = name;
+        }
+
+        public Builder asc(String field) {
+            keys.add(new Key(field, Sort.Direction.ASC));
+            return this;
+        }
+
+        public Builder desc(String field) {
+            keys.add(new Key(field, Sort.Direction.DESC));
+            return this;
+        }
+
+        public ManagedIndex build() {
+            return new ManagedIndex(collection, name, List.copyOf(keys));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.fined.mentor.core.mongo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Reports DOWN while any managed index is missing. Part of the readiness group,
+ * so an instance does not take traffic that would fall back to collection scans.
+ */
+@Component("mongoIndexes")
+@RequiredArgsConstructor
+public class MongoIndexHealthIndicator implements HealthIndicator {
+
+    private final MongoIndexManager mongoIndexManager;
+
+    @Override
+    public Health health() {
+        List<String> missing = mongoIndexManager.findMissing().stream()
+                .map(ManagedIndex::toString)
+                .toList();
+        Health.Builder builder = missing.isEmpty() ? Health.up() : Health.down().withDetail("missing", missing);
+        return builder.withDetail("managed", mongoIndexManager.getIndexes().size()).build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.fined.mentor.core.mongo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Owns the indexes behind the repository queries. They are created at startup,
+ * before the application reports ready, and {@link MongoIndexHealthIndicator}
+ * keeps readiness down while any of them is missing.
+ */
+@Slf4j
+@Component
+public class MongoIndexManager implements ApplicationRunner {
+
+    /**
+     * Trailing _id keys let the keyset-paginated queries sort on the index too.
+     */
+    static final List<ManagedIndex> INDEXES = List.of(
+            ManagedIndex.on("chat_messages", "chatSessionId_timestamp_id")
+                    .asc("chatSessionId").desc("timestamp").desc("_id").build(),
+            ManagedIndex.on("chat_sessions", "userId_active_createdAt_id")
+                    .asc("userId").asc("active").desc("createdAt").desc("_id").build(),
+            ManagedIndex.on("quizzes", "chatSessionId_createdAt")
+                    .asc("chatSessionId").desc("createdAt").build(),
+            ManagedIndex.on("quiz_states", "quizId")
+                    .asc("quizId").build(),
+            ManagedIndex.on("quiz_states", "chatSessionId_id")
+                    .asc("chatSessionId").desc("_id").build(),
+            ManagedIndex.on("tokens", "token_type")
+                    .asc("token").asc("type").build(),
+            ManagedIndex.on("tokens", "user_type")
+                    .asc("user").asc("type").build(),
+            ManagedIndex.on("token_usage", "userId_day")
+                    .asc("userId").desc("day").build());
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean createOnStartup;
+
+    public MongoIndexManager(MongoTemplate mongoTemplate,
+            @Value("${app.mongo.indexes.create-on-startup:true}") boolean createOnStartup) {
+        this.mongoTemplate = mongoTemplate;
+        this.createOnStartup = createOnStartup;
+    }
+
+    public List<ManagedIndex> getIndexes() {
+        return INDEXES;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (createOnStartup) {
+            ensureIndexes();
+        }
+    }
+
+    /**
+     * Creates every managed index that does not exist yet. Creating an existing
+     * index is a no-op in MongoDB, so this is safe to run on every start.
+     *
+     * @return the indexes that could not be created
+     */
+    public List<ManagedIndex> ensureIndexes() {
+        List<ManagedIndex> failed = new ArrayList<>();
+        for (ManagedIndex index : INDEXES) {
+            try {
+                mongoTemplate.indexOps(index.collection()).createIndex(index.toIndex());
+            } catch (Exception e) {
+                log.error("Failed to create index {}: {}", index, e.getMessage());
+                failed.add(index);
+            }
+        }
+        if (failed.isEmpty()) {
+            log.info("Verified {} managed MongoDB indexes", INDEXES.size());
+        }
+        return failed;
+    }
+
+    /**
+     * Managed indexes that are not present in the database, compared by key.
+     */
+    public List<ManagedIndex> findMissing() {
+        Map<String, List<IndexInfo>> existing = new LinkedHashMap<>();
+        List<ManagedIndex> missing = new ArrayList<>();
+        for (ManagedIndex index : INDEXES) {
+            List<IndexInfo> infos = existing.computeIfAbsent(index.collection(),
+                    collection -> mongoTemplate.indexOps(collection).getIndexInfo());
+            if (infos.stream().noneMatch(index::matches)) {
+                missing.add(index);
+            }
+        }
+        return missing;
+    }
+}
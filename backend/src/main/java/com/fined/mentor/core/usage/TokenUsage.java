@@ -0,0 +1,8 @@
+package com.fined.mentor.core.usage;
+
+/**
+ * Tokens one model call used, as reported by the provider. Cached tokens are the
+ * part of the prompt tokens served from the provider's prompt cache.
+ */
+public record TokenUsage(long promptTokens, long completionTokens, long cachedTokens, boolean tools) {
+}
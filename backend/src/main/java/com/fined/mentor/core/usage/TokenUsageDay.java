@@ -0,0 +1,39 @@
+package com.fined.mentor.core.usage;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Tokens a user spent on one use case in one day (UTC). The id is derived from
+ * the three, so totals are added to with an upsert.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "token_usage")
+public class TokenUsageDay {
+    @Id
+    private String id;
+    private String userId;
+    // ISO date, so days sort and compare as strings
+    private String day;
+    private String useCase;
+    private long calls;
+    // Calls that offered the model tools
+    private long callsWithTools;
+    private long promptTokens;
+    private long completionTokens;
+    private long cachedTokens;
+    private Instant updatedAt;
+
+    public static String idOf(String userId, String day, String useCase) {
+        return userId + ":" + day + ":" + useCase;
+    }
+}
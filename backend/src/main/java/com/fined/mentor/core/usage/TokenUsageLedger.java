@@ -0,0 +1,185 @@
+package com.fined.mentor.core.usage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user daily token totals, kept in {@code token_usage}.
+ * <p>
+ * Calls only add to in-memory totals per user, day and use case. A background
+ * flush adds those to the stored documents with one unordered bulk of upserts,
+ * so the cost of the ledger does not grow with the number of model calls. The
+ * totals are flushed on shutdown too. A failed flush is dropped rather than
+ * retried, since part of its increments may already have been applied.
+ */
+@Slf4j
+@Component
+public class TokenUsageLedger {
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final Clock clock;
+    private final Map<Key, Totals> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private final Object flushLock = new Object();
+
+    private final Timer flushTimer;
+    private final Counter failures;
+
+    @Autowired
+    public TokenUsageLedger(MongoTemplate mongoTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.llm.usage.ledger.enabled:true}") boolean enabled,
+            @Value("${app.llm.usage.ledger.flush-interval:PT30S}") Duration flushInterval) {
+        this(mongoTemplate, meterRegistry, enabled, flushInterval, Clock.systemUTC());
+    }
+
+    TokenUsageLedger(MongoTemplate mongoTemplate, MeterRegistry meterRegistry, boolean enabled,
+            Duration flushInterval, Clock clock) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.clock = clock;
+
+        this.flushTimer = Timer.builder("llm.usage.ledger.flush")
+                .description("Time to add one batch of token totals to the usage ledger")
+                .register(meterRegistry);
+        this.failures = Counter.builder("llm.usage.ledger.failures")
+                .description("Daily token totals that could not be added to the usage ledger")
+                .register(meterRegistry);
+        Gauge.builder("llm.usage.ledger.pending", pending, Map::size)
+                .description("Daily token totals waiting to be added to the usage ledger")
+                .register(meterRegistry);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-usage-ledger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            long intervalMillis = flushInterval.toMillis();
+            flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Adds one call's usage to today's totals of {@code userId}. Never blocks on Mongo.
+     */
+    public void record(String userId, String useCase, TokenUsage usage) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        Key key = new Key(userId, LocalDate.now(clock).toString(), useCase);
+        // compute() runs under the entry's lock, which flush() takes too when it removes the entry
+        pending.compute(key, (k, totals) -> (totals == null ? new Totals() : totals).add(usage));
+    }
+
+    /**
+     * Adds everything recorded so far to the ledger.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<Map.Entry<Key, Totals>> batch = new ArrayList<>();
+            for (Key key : pending.keySet()) {
+                Totals totals = pending.remove(key);
+                if (totals != null) {
+                    batch.add(Map.entry(key, totals));
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            Instant now = clock.instant();
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TokenUsageDay.class);
+            for (Map.Entry<Key, Totals> entry : batch) {
+                Key key = entry.getKey();
+                Totals totals = entry.getValue();
+                String id = TokenUsageDay.idOf(key.userId(), key.day(), key.useCase());
+                bulk.upsert(Query.query(Criteria.where("_id").is(id)),
+                        new Update()
+                                .setOnInsert("userId", key.userId())
+                                .setOnInsert("day", key.day())
+                                .setOnInsert("useCase", key.useCase())
+                                .inc("calls", totals.calls)
+                                .inc("callsWithTools", totals.callsWithTools)
+                                .inc("promptTokens", totals.promptTokens)
+                                .inc("completionTokens", totals.completionTokens)
+                                .inc("cachedTokens", totals.cachedTokens)
+                                .set("updatedAt", now));
+            }
+            Timer.Sample sample = Timer.start();
+            try {
+                bulk.execute();
+            } catch (RuntimeException e) {
+                failures.increment(batch.size());
+                log.error("Failed to add {} daily token totals to the usage ledger", batch.size(), e);
+            } finally {
+                sample.stop(flushTimer);
+            }
+        }
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        flusher.shutdownNow();
+        if (enabled) {
+            flushQuietly();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Token usage ledger flush failed", e);
+        }
+    }
+
+    private record Key(String userId, String day, String useCase) {
+    }
+
+    private static final class Totals {
+        private long calls;
+        private long callsWithTools;
+        private long promptTokens;
+        private long completionTokens;
+        private long cachedTokens;
+
+        private Totals add(TokenUsage usage) {
+            calls++;
+            callsWithTools += usage.tools() ? 1 : 0;
+            promptTokens += usage.promptTokens();
+            completionTokens += usage.completionTokens();
+            cachedTokens += usage.cachedTokens();
+            return this;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.fined.mentor.core.usage;
+
+import com.fined.mentor.core.admission.AdmissionAdvisor;
+import com.fined.mentor.core.llm.PromptPrefixCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ChatClientCustomizer;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.google.genai.metadata.GoogleGenAiUsage;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Records the tokens of every model call made through a {@link ChatClient}: as
+ * counters tagged by use case and whether the model was offered tools, and in
+ * the caller's daily {@link TokenUsageLedger} totals.
+ * <p>
+ * The use case is the {@value #USE_CASE} advisor parameter, and the caller is
+ * resolved as for admission control; calls without one, such as guest chats and
+ * summaries, only show in the counters. Input tokens are also counted split into
+ * tokens the provider served from cache and tokens it processed in full, which
+ * covers both explicitly cached prefixes and the provider's implicit caching.
+ */
+@Component
+public class TokenUsageRecorder implements ChatClientCustomizer, CallAdvisor, StreamAdvisor {
+
+    public static final String USE_CASE = "usage.useCase";
+
+    private static final String UNKNOWN_USE_CASE = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final TokenUsageLedger ledger;
+    private final Counter cachedTokens;
+    private final Counter uncachedTokens;
+
+    public TokenUsageRecorder(MeterRegistry meterRegistry, TokenUsageLedger ledger) {
+        this.meterRegistry = meterRegistry;
+        this.ledger = ledger;
+        this.cachedTokens = Counter.builder("llm.input.tokens")
+                .tag("cache", "cached")
+                .description("Input tokens the model provider served from its prompt cache")
+                .register(meterRegistry);
+        this.uncachedTokens = Counter.builder("llm.input.tokens")
+                .tag("cache", "uncached")
+                .description("Input tokens the model provider processed without its prompt cache")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void customize(ChatClient.Builder chatClientBuilder) {
+        chatClientBuilder.defaultAdvisors(this);
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        String caller = AdmissionAdvisor.callerOf(request);
+        ChatClientResponse response = chain.nextCall(request);
+        record(caller, useCaseOf(request), offersTools(request), response.chatResponse());
+        return response;
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        String caller = AdmissionAdvisor.callerOf(request);
+        String useCase = useCaseOf(request);
+        boolean tools = offersTools(request);
+        // Every chunk repeats the usage so far; count it once, from the last chunk. A
+        // cancelled stream is counted too, since its tokens were spent all the same.
+        AtomicReference<ChatResponse> last = new AtomicReference<>();
+        return chain.nextStream(request)
+                .doOnNext(response -> {
+                    if (response.chatResponse() != null) {
+                        last.set(response.chatResponse());
+                    }
+                })
+                .doOnComplete(() -> record(caller, useCase, tools, last.getAndSet(null)))
+                .doOnCancel(() -> record(caller, useCase, tools, last.getAndSet(null)));
+    }
+
+    void record(String caller, String useCase, boolean tools, ChatResponse response) {
+        if (response == null || response.getMetadata() == null) {
+            return;
+        }
+        Usage usage = response.getMetadata().getUsage();
+        if (usage == null) {
+            return;
+        }
+        int promptTokens = positive(usage.getPromptTokens());
+        int completionTokens = positive(usage.getCompletionTokens());
+        if (promptTokens == 0 && completionTokens == 0) {
+            return;
+        }
+        int cached = usage instanceof GoogleGenAiUsage genAiUsage
+                ? Math.min(positive(genAiUsage.getCachedContentTokenCount()), promptTokens)
+                : 0;
+
+        cachedTokens.increment(cached);
+        uncachedTokens.increment(promptTokens - cached);
+        tokens(useCase, tools, "prompt").increment(promptTokens);
+        tokens(useCase, tools, "completion").increment(completionTokens);
+        tokens(useCase, tools, "cached").increment(cached);
+        ledger.record(caller, useCase, new TokenUsage(promptTokens, completionTokens, cached, tools));
+    }
+
+    private Counter tokens(String useCase, boolean tools, String type) {
+        return Counter.builder("llm.tokens")
+                .tag("use_case", useCase)
+                .tag("tools", String.valueOf(tools))
+                .tag("type", type)
+                .description("Tokens used by model calls; cached tokens are part of the prompt tokens")
+                .register(meterRegistry);
+    }
+
+    private static String useCaseOf(ChatClientRequest request) {
+        return request.context().get(USE_CASE) instanceof String useCase ? useCase : UNKNOWN_USE_CASE;
+    }
+
+    private static boolean offersTools(ChatClientRequest request) {
+        return request.prompt().getOptions() instanceof ToolCallingChatOptions options
+                && (!options.getToolCallbacks().isEmpty() || !options.getToolNames().isEmpty()
+                        || options.getToolContext().containsKey(PromptPrefixCache.CACHED_TOOLS));
+    }
+
+    private static int positive(Integer tokens) {
+        return tokens != null && tokens > 0 ? tokens : 0;
+    }
+
+    @Override
+    public String getName() {
+        return "tokenUsageRecorder";
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+}
@@ -1,10 +1,12 @@
 package com.fined.mentor.quiz.controller;
 
 import com.fined.mentor.quiz.dto.GuestQuizRequest;
+import com.fined.mentor.quiz.dto.QuizStreamEvent;
 import com.fined.mentor.quiz.service.QuizService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -22,10 +24,11 @@ public class PublicQuizController {
     private final QuizService quizService;
 
     @PostMapping(value = "/stream", produces = TEXT_EVENT_STREAM_VALUE)
-    public Flux<String> streamQuizGeneration(@Valid @RequestBody GuestQuizRequest request) {
+    public Flux<ServerSentEvent<QuizStreamEvent>> streamQuizGeneration(@Valid @RequestBody GuestQuizRequest request) {
         try {
             log.info("Streaming guest quiz for topic: {}", request.getTopic());
-            return quizService.streamQuizGeneration(request.getTopic());
+            return quizService.streamQuizGeneration(request.getTopic())
+                    .map(QuizStreamEvent::toServerSentEvent);
         } catch (Exception e) {
             log.error("Error starting guest quiz stream", e);
             return Flux.error(e);
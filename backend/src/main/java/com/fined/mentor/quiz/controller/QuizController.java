@@ -1,5 +1,6 @@
 package com.fined.mentor.quiz.controller;
 
+import com.fined.mentor.core.admission.AdmissionRejectedException;
 import com.fined.mentor.core.dto.ApiResponse;
 import com.fined.mentor.quiz.dto.*;
 import com.fined.mentor.quiz.entity.Quiz;
@@ -9,9 +10,13 @@ import com.fined.mentor.quiz.service.QuizService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
 
@@ -42,6 +47,12 @@ public class QuizController {
             log.warn("Quiz generation failed - invalid topic: {}", request.getTopic());
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
+            if (AdmissionRejectedException.isCauseOf(e)) {
+                log.warn("No model capacity to generate a quiz for topic: {}", request.getTopic());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body(ApiResponse.error("The server is busy. Please try again shortly."));
+            }
             log.error("Error generating quiz for topic: {}", request.getTopic(), e);
             return ResponseEntity.internalServerError()
                     .body(ApiResponse.error("Failed to generate quiz. Please try again later."));
@@ -49,63 +60,41 @@ public class QuizController {
     }
 
     @PostMapping(value = "/stream", produces = TEXT_EVENT_STREAM_VALUE)
-    public Flux<String> streamQuizGeneration(@Valid @RequestBody QuizRequest request) {
+    public Flux<ServerSentEvent<QuizStreamEvent>> streamQuizGeneration(@Valid @RequestBody QuizRequest request) {
         try {
             log.info("Streaming quiz for topic: {}", request.getTopic());
-            return quizService.streamQuizGeneration(request.getTopic());
+            return quizService.streamQuizGeneration(request.getTopic(), request.getChatSessionId())
+                    .map(QuizStreamEvent::toServerSentEvent);
         } catch (Exception e) {
             log.error("Error starting quiz stream", e);
             return Flux.error(e);
         }
     }
 
-    @PostMapping("/save")
-    public ResponseEntity<ApiResponse<QuizResponse>> saveStreamedQuiz(
-            @Valid @RequestBody SaveQuizRequest request) {
-        try {
-            log.info("Saving streamed quiz for topic: {}", request.getTopic());
-            Quiz quiz = quizService.saveStreamedQuiz(request.getTopic(), request.getChatSessionId(),
-                    request.getQuizJson());
-
-            QuizResponse response = QuizResponse.builder()
-                    .id(quiz.getId())
-                    .topic(quiz.getTopic())
-                    .questions(quiz.getQuestions())
-                    .createdAt(quiz.getCreatedAt())
-                    .build();
-
-            return ResponseEntity.ok(ApiResponse.success(response));
-        } catch (Exception e) {
-            log.error("Error saving streamed quiz for topic: {}", request.getTopic(), e);
-            return ResponseEntity.internalServerError()
-                    .body(ApiResponse.error("Failed to save quiz. Please try again later."));
-        }
-    }
-
     @PostMapping("/{quizId}/start")
-    public ResponseEntity<ApiResponse<QuizStateResponse>> startQuiz(
+    public Mono<ResponseEntity<ApiResponse<QuizStateResponse>>> startQuiz(
             @PathVariable String quizId,
             @RequestParam String chatSessionId) {
-        try {
-            log.info("Starting quiz: {} for session: {}", quizId, chatSessionId);
-            QuizState quizState = quizService.startQuiz(quizId, chatSessionId);
-
-            QuizStateResponse response = QuizStateResponse.builder()
-                    .id(quizState.getId())
-                    .quizId(quizState.getQuizId())
-                    .chatSessionId(quizState.getChatSessionId())
-                    .currentQuestionIndex(quizState.getCurrentQuestionIndex())
-                    .userAnswers(quizState.getUserAnswers())
-                    .isSubmitted(quizState.getIsSubmitted())
-                    .score(quizState.getScore())
-                    .isFinished(quizState.isFinished())
-                    .build();
-
-            return ResponseEntity.ok(ApiResponse.success(response));
-        } catch (Exception e) {
-            log.error("Error starting quiz: {} for session: {}", quizId, chatSessionId, e);
-            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
-        }
+        log.info("Starting quiz: {} for session: {}", quizId, chatSessionId);
+        return quizService.startQuiz(quizId, chatSessionId)
+                .map(quizState -> {
+                    QuizStateResponse response = QuizStateResponse.builder()
+                            .id(quizState.getId())
+                            .quizId(quizState.getQuizId())
+                            .chatSessionId(quizState.getChatSessionId())
+                            .currentQuestionIndex(quizState.getCurrentQuestionIndex())
+                            .userAnswers(quizState.getUserAnswers())
+                            .isSubmitted(quizState.getIsSubmitted())
+                            .score(quizState.getScore())
+                            .isFinished(quizState.isFinished())
+                            .build();
+
+                    return ResponseEntity.ok(ApiResponse.success(response));
+                })
+                .onErrorResume(e -> {
+                    log.error("Error starting quiz: {} for session: {}", quizId, chatSessionId, e);
+                    return Mono.just(ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage())));
+                });
     }
 
     @PostMapping("/answer")
@@ -0,0 +1,52 @@
+package com.fined.mentor.quiz.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fined.mentor.quiz.entity.QuizQuestion;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.http.codec.ServerSentEvent;
+
+/**
+ * One typed event of a streamed quiz: a {@code question} as soon as the model has
+ * finished it, a final {@code done} once the whole quiz is through (with the id of
+ * the saved quiz for signed-in users), or an {@code error} that ends the stream.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class QuizStreamEvent {
+
+    public static final String QUESTION = "question";
+    public static final String DONE = "done";
+    public static final String ERROR = "error";
+
+    @JsonIgnore
+    private String event;
+    private Integer index;
+    private String quizId;
+    private QuizQuestion question;
+    private String topic;
+    private Integer questionCount;
+    private String message;
+
+    public static QuizStreamEvent question(int index, QuizQuestion question) {
+        return QuizStreamEvent.builder().event(QUESTION).index(index).question(question).build();
+    }
+
+    public static QuizStreamEvent done(String quizId, String topic, int questionCount) {
+        return QuizStreamEvent.builder().event(DONE).quizId(quizId).topic(topic).questionCount(questionCount).build();
+    }
+
+    public static QuizStreamEvent error(String message) {
+        return QuizStreamEvent.builder().event(ERROR).message(message).build();
+    }
+
+    public ServerSentEvent<QuizStreamEvent> toServerSentEvent() {
+        return ServerSentEvent.builder(this).event(event).build();
+    }
+}
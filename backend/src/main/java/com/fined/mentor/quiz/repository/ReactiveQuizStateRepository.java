@@ -0,0 +1,12 @@
+package com.fined.mentor.quiz.repository;
+
+import com.fined.mentor.quiz.entity.QuizState;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Non-blocking counterpart of {@link QuizStateRepository} for the quiz streaming flow.
+ */
+@Repository
+public interface ReactiveQuizStateRepository extends ReactiveMongoRepository<QuizState, String> {
+}
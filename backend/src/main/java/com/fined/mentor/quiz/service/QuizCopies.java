@@ -0,0 +1,30 @@
+package com.fined.mentor.quiz.service;
+
+import com.fined.mentor.quiz.entity.Quiz;
+import com.fined.mentor.quiz.entity.QuizQuestion;
+
+final class QuizCopies {
+
+    private QuizCopies() {
+    }
+
+    /**
+     * Unsaved copy of a quiz's topic and questions, for handing one generated quiz to
+     * several callers. Questions are copied since validating and saving mutate them.
+     */
+    static Quiz copyOf(Quiz quiz) {
+        return Quiz.builder()
+                .topic(quiz.getTopic())
+                .questions(quiz.getQuestions() == null ? null : quiz.getQuestions().stream()
+                        .map(q -> QuizQuestion.builder()
+                                .question(q.getQuestion())
+                                .type(q.getType())
+                                .options(q.getOptions() != null ? q.getOptions().clone() : null)
+                                .correctAnswer(q.getCorrectAnswer())
+                                .explanation(q.getExplanation())
+                                .build())
+                        .toList())
+                .createdAt(quiz.getCreatedAt())
+                .build();
+    }
+}
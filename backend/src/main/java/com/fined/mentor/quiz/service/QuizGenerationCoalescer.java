@@ -0,0 +1,230 @@
+package com.fined.mentor.quiz.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fined.mentor.core.language.LanguageDetector;
+import com.fined.mentor.core.language.TextNormalizer;
+import com.fined.mentor.quiz.dto.GeneratedQuizDTO;
+import com.fined.mentor.quiz.entity.Quiz;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight quiz generation: concurrent requests for the same topic share one
+ * model call instead of each starting their own.
+ * <p>
+ * Within an instance, the first caller for a normalised topic generates and the
+ * others wait for its result. Across instances, the generating caller holds a
+ * short Redis lease for the topic and publishes the quiz under a result key when
+ * done; callers on other instances that find the lease taken poll for that result
+ * and only generate themselves if the holder finishes without one or takes longer
+ * than the lease. Every caller gets its own copy of the quiz to bind and save.
+ */
+@Slf4j
+@Component
+public class QuizGenerationCoalescer {
+
+    private static final String LEASE_PREFIX = "quiz-generation:lease:";
+    private static final String RESULT_PREFIX = "quiz-generation:result:";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    // Deletes the lease only while it still holds our token, so an expired lease taken over by another caller survives
+    private static final String RELEASE_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
+
+    private final LanguageDetector languageDetector;
+    private final RedisCommands<String, String> redis;
+    private final Duration lease;
+    private final Duration resultTtl;
+    private final Duration pollInterval;
+    private final Map<String, CompletableFuture<Quiz>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter coalesced;
+    private final Counter coalescedRemote;
+
+    @Autowired
+    public QuizGenerationCoalescer(MeterRegistry meterRegistry,
+            LanguageDetector languageDetector,
+            RedisClient redisClient,
+            @Value("${app.quiz.coalescing.shared:true}") boolean shared,
+            @Value("${app.quiz.coalescing.lease:PT60S}") Duration lease,
+            @Value("${app.quiz.coalescing.result-ttl:PT30S}") Duration resultTtl,
+            @Value("${app.quiz.coalescing.poll-interval:PT0.25S}") Duration pollInterval) {
+        this(meterRegistry, languageDetector, shared ? redisClient.connect().sync() : null,
+                lease, resultTtl, pollInterval);
+    }
+
+    QuizGenerationCoalescer(MeterRegistry meterRegistry,
+            LanguageDetector languageDetector,
+            RedisCommands<String, String> redis,
+            Duration lease,
+            Duration resultTtl,
+            Duration pollInterval) {
+        this.languageDetector = languageDetector;
+        this.redis = redis;
+        this.lease = lease;
+        this.resultTtl = resultTtl;
+        this.pollInterval = pollInterval;
+
+        this.leaders = Counter.builder("quiz.generation.requests")
+                .tag("role", "leader")
+                .description("Quiz requests that ran the model call themselves")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("quiz.generation.requests")
+                .tag("role", "coalesced")
+                .description("Quiz requests that joined a generation in flight on this instance")
+                .register(meterRegistry);
+        this.coalescedRemote = Counter.builder("quiz.generation.requests")
+                .tag("role", "coalesced_remote")
+                .description("Quiz requests served by a generation that ran on another instance")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns a quiz for {@code topic}, from a generation already in flight for the
+     * same topic if there is one, otherwise by calling {@code generator}. Failures
+     * of the shared generation are rethrown to every caller that waited on it.
+     */
+    public Quiz generate(String topic, Supplier<Quiz> generator) {
+        String normalized = TextNormalizer.normalize(topic);
+        if (normalized.isEmpty()) {
+            return generator.get();
+        }
+        String key = languageDetector.detect(normalized).getCode() + ":" + TextNormalizer.digest(normalized);
+
+        CompletableFuture<Quiz> flight = new CompletableFuture<>();
+        CompletableFuture<Quiz> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            log.debug("Joining quiz generation in flight for topic: {}", topic);
+            return QuizCopies.copyOf(await(existing));
+        }
+
+        try {
+            Quiz quiz = generateOnce(key, generator);
+            // Followers copy from a snapshot the leader's caller never mutates
+            flight.complete(QuizCopies.copyOf(quiz));
+            return quiz;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private Quiz generateOnce(String key, Supplier<Quiz> generator) {
+        if (redis == null) {
+            leaders.increment();
+            return generator.get();
+        }
+
+        String token = UUID.randomUUID().toString();
+        boolean leased = tryLease(key, token);
+        if (!leased) {
+            Optional<Quiz> remote = awaitRemote(key);
+            if (remote.isPresent()) {
+                coalescedRemote.increment();
+                return remote.get();
+            }
+            // The holder gave up or is too slow; generate without waiting any longer
+            leased = tryLease(key, token);
+        }
+
+        leaders.increment();
+        try {
+            Quiz quiz = generator.get();
+            publish(key, quiz);
+            return quiz;
+        } finally {
+            if (leased) {
+                release(key, token);
+            }
+        }
+    }
+
+    private boolean tryLease(String key, String token) {
+        try {
+            return "OK".equals(redis.set(LEASE_PREFIX + key, token, SetArgs.Builder.nx().px(lease.toMillis())));
+        } catch (RuntimeException e) {
+            // Without Redis every instance generates for itself, as before
+            log.warn("Failed to take quiz generation lease, generating without it", e);
+            return false;
+        }
+    }
+
+    private Optional<Quiz> awaitRemote(String key) {
+        long deadline = System.nanoTime() + lease.toNanos();
+        try {
+            while (System.nanoTime() < deadline) {
+                String published = redis.get(RESULT_PREFIX + key);
+                if (published != null) {
+                    return Optional.of(fromJson(published));
+                }
+                if (redis.exists(LEASE_PREFIX + key) == 0) {
+                    // Released between the two reads, or gone without a result
+                    return Optional.ofNullable(redis.get(RESULT_PREFIX + key)).map(this::fromJson);
+                }
+                Thread.sleep(pollInterval.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Failed to read shared quiz generation, generating without it", e);
+        }
+        return Optional.empty();
+    }
+
+    private void publish(String key, Quiz quiz) {
+        try {
+            String json = MAPPER.writeValueAsString(new GeneratedQuizDTO(quiz.getTopic(), quiz.getQuestions()));
+            redis.set(RESULT_PREFIX + key, json, SetArgs.Builder.px(resultTtl.toMillis()));
+        } catch (Exception e) {
+            log.warn("Failed to publish generated quiz to waiting instances", e);
+        }
+    }
+
+    private void release(String key, String token) {
+        try {
+            redis.eval(RELEASE_SCRIPT, ScriptOutputType.INTEGER, new String[] { LEASE_PREFIX + key }, token);
+        } catch (RuntimeException e) {
+            // Expires on its own
+            log.warn("Failed to release quiz generation lease", e);
+        }
+    }
+
+    private Quiz fromJson(String json) {
+        try {
+            GeneratedQuizDTO dto = MAPPER.readValue(json, GeneratedQuizDTO.class);
+            return Quiz.builder().topic(dto.getTopic()).questions(dto.getQuestions()).build();
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable shared quiz", e);
+        }
+    }
+
+    private static Quiz await(CompletableFuture<Quiz> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
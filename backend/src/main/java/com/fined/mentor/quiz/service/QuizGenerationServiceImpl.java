@@ -1,51 +1,137 @@
 package com.fined.mentor.quiz.service;
 
+import com.fined.mentor.core.admission.AdmissionAdvisor;
+import com.fined.mentor.core.llm.ModelInvoker;
+import com.fined.mentor.core.llm.PromptPrefixCache;
+import com.fined.mentor.core.llm.PromptRegistry;
+import com.fined.mentor.core.llm.PromptVariant;
+import com.fined.mentor.core.usage.TokenUsageRecorder;
 import com.fined.mentor.quiz.dto.GeneratedQuizDTO;
 import com.fined.mentor.quiz.entity.Quiz;
 import com.fined.mentor.quiz.exception.QuizGenerationException;
 import com.fined.mentor.quiz.exception.QuizValidationException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import com.fined.mentor.tavily.TavilySearchTool;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.support.ToolCallbacks;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
-
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Generates quizzes with the model after validating their topic.
+ * <p>
+ * With speculative generation enabled, a topic that needs the AI to be validated
+ * no longer waits for it: generation starts right away, its output is held back
+ * until the AI says YES, and it is cancelled, web searches included, as soon as
+ * the AI says NO.
+ */
 @Slf4j
 @Service
 class QuizGenerationServiceImpl implements QuizGenerationService {
 
   private final ChatClient chatClient;
   private final TavilySearchTool tavilySearchTool;
+  private final List<ToolCallback> searchTools;
   private final TopicValidatorService topicValidatorService;
+  private final PromptRegistry promptRegistry;
+  private final PromptPrefixCache promptPrefixCache;
+  private final ModelInvoker modelInvoker;
+  private final TokenCountEstimator tokenCountEstimator;
+  private final boolean speculative;
+  private final Counter speculationsConfirmed;
+  private final Counter speculationsAborted;
+  private final Counter wastedTokens;
+  private final Timer latencySaved;
 
   public QuizGenerationServiceImpl(ChatClient.Builder builder,
       TavilySearchTool tavilySearchTool,
-      TopicValidatorService topicValidatorService) {
+      TopicValidatorService topicValidatorService,
+      PromptRegistry promptRegistry,
+      PromptPrefixCache promptPrefixCache,
+      ModelInvoker modelInvoker,
+      MeterRegistry meterRegistry,
+      @Value("${app.quiz.speculative-generation.enabled:false}") boolean speculative) {
     this.chatClient = builder.build();
     this.tavilySearchTool = tavilySearchTool;
+    this.searchTools = List.of(ToolCallbacks.from(tavilySearchTool));
     this.topicValidatorService = topicValidatorService;
+    this.promptRegistry = promptRegistry;
+    this.promptPrefixCache = promptPrefixCache;
+    this.modelInvoker = modelInvoker;
+    this.tokenCountEstimator = new JTokkitTokenCountEstimator();
+    this.speculative = speculative;
+    this.speculationsConfirmed = Counter.builder("quiz.generation.speculations")
+        .tag("outcome", "confirmed")
+        .description("Speculative quiz generations whose topic the AI accepted")
+        .register(meterRegistry);
+    this.speculationsAborted = Counter.builder("quiz.generation.speculations")
+        .tag("outcome", "aborted")
+        .description("Speculative quiz generations cancelled because the AI rejected the topic")
+        .register(meterRegistry);
+    this.wastedTokens = Counter.builder("quiz.generation.speculative.wasted.tokens")
+        .description("Estimated output tokens generated for topics the AI then rejected")
+        .register(meterRegistry);
+    this.latencySaved = Timer.builder("quiz.generation.speculative.latency.saved")
+        .description("Generation time overlapped with AI topic validation instead of waiting for it")
+        .register(meterRegistry);
+    promptRegistry.register(SYSTEM_PROMPT_NAME, SYSTEM_PROMPT, searchTools);
   }
 
   @Override
   public Quiz generateQuiz(String topic) {
     try {
       log.info("Generating quiz for topic: {}", topic);
+      String userId = AdmissionAdvisor.currentUser();
 
-      validateTopic(topic);
+      boolean speculate = validateOrSpeculate(topic);
 
       BeanOutputConverter<GeneratedQuizDTO> outputConverter = new BeanOutputConverter<>(GeneratedQuizDTO.class);
-      Prompt prompt = createPrompt(topic, outputConverter.getFormat());
-
-      String content = chatClient.prompt(prompt)
-          .tools(tavilySearchTool)
-          .call()
-          .content();
+      PromptVariant systemPrompt = promptRegistry.select(SYSTEM_PROMPT_NAME, topic);
+      Prompt prompt = createPrompt(systemPrompt, topic, outputConverter.getFormat());
+
+      String content;
+      if (speculate) {
+        // Streamed and joined, so a rejected topic can stop the generation half-way
+        content = speculate(topic, userId, systemPrompt, prompt).collect(Collectors.joining()).block();
+      } else {
+        content = modelInvoker.call(ModelInvoker.UseCase.QUIZ, prompt,
+            attempt -> promptPrefixCache.call(systemPrompt.cacheName(), attempt,
+                p -> chatClient.prompt(p)
+                    .advisors(advisorParams(userId))
+                    .call()
+                    .content()));
+      }
 
       GeneratedQuizDTO generatedQuiz = outputConverter.convert(content);
 
@@ -71,16 +157,26 @@ class QuizGenerationServiceImpl implements QuizGenerationService {
   public Flux<String> streamQuizGeneration(String topic) {
     try {
       log.info("Streaming quiz generation for topic: {}", topic);
+      // Resolved here, as hedged attempts start on threads without a security context
+      String userId = AdmissionAdvisor.currentUser();
 
-      validateTopic(topic);
+      boolean speculate = validateOrSpeculate(topic);
 
       BeanOutputConverter<GeneratedQuizDTO> outputConverter = new BeanOutputConverter<>(GeneratedQuizDTO.class);
-      Prompt prompt = createPrompt(topic, outputConverter.getFormat());
-
-      return chatClient.prompt(prompt)
-          .tools(tavilySearchTool)
-          .stream()
-          .content();
+      PromptVariant systemPrompt = promptRegistry.select(SYSTEM_PROMPT_NAME, topic);
+      Prompt prompt = createPrompt(systemPrompt, topic, outputConverter.getFormat());
+
+      if (speculate) {
+        return speculate(topic, userId, systemPrompt, prompt)
+            .doOnError(QuizValidationException.class,
+                e -> log.warn("Topic validation failed for streaming: {}", e.getMessage()));
+      }
+      return modelInvoker.stream(ModelInvoker.UseCase.QUIZ, prompt,
+          attempt -> promptPrefixCache.stream(systemPrompt.cacheName(), attempt,
+              p -> chatClient.prompt(p)
+                  .advisors(advisorParams(userId))
+                  .stream()
+                  .content()));
 
     } catch (QuizValidationException e) {
       log.warn("Topic validation failed for streaming: {}", e.getMessage());
@@ -91,6 +187,100 @@ class QuizGenerationServiceImpl implements QuizGenerationService {
     }
   }
 
+  /**
+   * Validates the topic up front and throws if it is invalid, unless speculative
+   * generation is on and only the AI can tell. Then returns true, and the topic is
+   * validated by {@link #speculate} while the quiz is already being generated.
+   */
+  private boolean validateOrSpeculate(String topic) {
+    if (!speculative) {
+      validateTopic(topic);
+      return false;
+    }
+    Optional<Boolean> quickVerdict = topicValidatorService.quickVerdict(topic);
+    if (quickVerdict.isEmpty()) {
+      return true;
+    }
+    if (!quickVerdict.get()) {
+      throw new QuizValidationException(topicValidatorService.getInvalidTopicMessage(topic));
+    }
+    return false;
+  }
+
+  /**
+   * Streams the generation for {@code prompt} while the AI validates
+   * {@code topic}. Chunks are buffered until the topic is accepted, then replayed
+   * and passed on as they come. A rejected topic cancels the generation and ends
+   * the stream with a {@link QuizValidationException}; so does a validation that
+   * fails, with its own error.
+   */
+  private Flux<String> speculate(String topic, String userId, PromptVariant systemPrompt, Prompt prompt) {
+    // Validation runs on another thread, which would otherwise see no caller
+    SecurityContext securityContext = SecurityContextHolder.getContext();
+    return Flux.defer(() -> {
+      long started = System.nanoTime();
+      String generationId = UUID.randomUUID().toString();
+      AtomicLong generationDone = new AtomicLong();
+      AtomicReference<Disposable> generation = new AtomicReference<>();
+      AtomicBoolean confirmed = new AtomicBoolean();
+      StringBuffer generated = new StringBuffer();
+
+      Flux<String> speculation = modelInvoker.stream(ModelInvoker.UseCase.QUIZ, prompt,
+              attempt -> promptPrefixCache.stream(systemPrompt.cacheName(), attempt,
+                  p -> chatClient.prompt(p)
+                      .toolContext(Map.of(TavilySearchTool.GENERATION_ID, generationId))
+                      .advisors(advisorParams(userId))
+                      .stream()
+                      .content()))
+          .doOnNext(generated::append)
+          .doOnComplete(() -> generationDone.set(System.nanoTime()))
+          .replay()
+          .autoConnect(0, generation::set);
+
+      return Mono.fromCallable(new DelegatingSecurityContextCallable<>(
+              () -> topicValidatorService.verifyWithAI(topic), securityContext))
+          .subscribeOn(Schedulers.boundedElastic())
+          .flatMapMany(valid -> {
+            if (!valid) {
+              speculationsAborted.increment();
+              wastedTokens.increment(tokenCountEstimator.estimate(generated.toString()));
+              return Flux.error(new QuizValidationException(topicValidatorService.getInvalidTopicMessage(topic)));
+            }
+            confirmed.set(true);
+            speculationsConfirmed.increment();
+            // Without speculation generation would only have started now
+            long overlapEnd = generationDone.get() != 0 ? generationDone.get() : System.nanoTime();
+            latencySaved.record(overlapEnd - started, TimeUnit.NANOSECONDS);
+            return speculation;
+          })
+          // Runs before the error reaches the client, be it a rejection or a failed validation
+          .doOnTerminate(() -> {
+            if (!confirmed.get()) {
+              cancel(generationId, generation);
+            }
+          })
+          // The client went away, possibly before the topic was even validated
+          .doOnCancel(() -> cancel(generationId, generation));
+    });
+  }
+
+  private static Consumer<ChatClient.AdvisorSpec> advisorParams(String userId) {
+    return advisors -> {
+      advisors.param(TokenUsageRecorder.USE_CASE, "quiz");
+      if (userId != null) {
+        advisors.param(AdmissionAdvisor.USER_ID, userId);
+      }
+    };
+  }
+
+  private void cancel(String generationId, AtomicReference<Disposable> generation) {
+    tavilySearchTool.cancel(generationId);
+    Disposable disposable = generation.get();
+    if (disposable != null) {
+      disposable.dispose();
+    }
+  }
+
   private void validateTopic(String topic) {
     if (!topicValidatorService.isValidTopic(topic)) {
       String errorMessage = topicValidatorService.getInvalidTopicMessage(topic);
@@ -98,12 +288,21 @@ class QuizGenerationServiceImpl implements QuizGenerationService {
     }
   }
 
-  private Prompt createPrompt(String topic, String format) {
-    PromptTemplate promptTemplate = new PromptTemplate(PROMPT_TEMPLATE_STRING);
-    return promptTemplate.create(Map.of("topic", topic, "format", format));
+  private Prompt createPrompt(PromptVariant systemPrompt, String topic, String format) {
+    Message userMessage = new PromptTemplate(USER_PROMPT_TEMPLATE)
+        .createMessage(Map.of("topic", topic, "format", format));
+    // Tools go in the prompt's options rather than the request spec, so the prefix cache can see them
+    ToolCallingChatOptions options = ToolCallingChatOptions.builder()
+        .toolCallbacks(searchTools)
+        .build();
+    return new Prompt(List.of(new SystemMessage(systemPrompt.text()), userMessage), options);
   }
 
-  private static final String PROMPT_TEMPLATE_STRING = """
+  private static final String SYSTEM_PROMPT_NAME = "quiz-system-prompt";
+
+  // Static instructions first and byte-identical on every call, so the provider can cache them.
+  // [[en]]/[[fr]]/[[de]] blocks are only sent for topics in that language, see PromptRegistry
+  static final String SYSTEM_PROMPT = """
       IDENTITY: You are **Fined Mentor**, a specialized financial education assistant.
 
       TOPIC VALIDATION (CRITICAL):
@@ -113,16 +312,16 @@ class QuizGenerationServiceImpl implements QuizGenerationService {
       - Real Estate (property investment, real estate markets, rental properties, mortgages)
       - Immobilien (German real estate, property management, German market specifics)
 
-      ❌ If the topic "{topic}" is NOT related to finance/investment/real estate/immobilien:
+      ❌ If the requested topic is NOT related to finance/investment/real estate/immobilien:
       You MUST throw an error or return an empty quiz. DO NOT generate quizzes for unrelated topics.
 
       LANGUAGE DETECTION (CRITICAL):
-      🌍 Detect the language of the topic "{topic}" and generate the ENTIRE quiz in that language:
+      🌍 Detect the language of the requested topic and generate the ENTIRE quiz in that language:
       - If topic is in French → Generate all questions, options, and explanations in French
       - If topic is in English → Generate all questions, options, and explanations in English
       - If topic is in German → Generate all questions, options, and explanations in German
 
-      TASK: Generate a 5-question beginner quiz on "{topic}" (finance/real estate/investment domain).
+      TASK: Generate a 5-question beginner quiz on the requested topic (finance/real estate/investment domain).
       You have access to a web search tool. Use it to find current information if the topic relates to recent events or trends.
 
       CRITICAL OUTPUT FORMAT REQUIREMENTS:
@@ -132,15 +331,21 @@ class QuizGenerationServiceImpl implements QuizGenerationService {
       - NEVER leave the "options" array empty or null
       - For MULTIPLE_CHOICE: provide exactly 4 options as strings in an array
       - For TRUE_FALSE: provide exactly 2 options as strings in the detected language
+        [[en]]
         * English: ["True", "False"]
+        [[/en]]
+        [[fr]]
         * French: ["Vrai", "Faux"]
+        [[/fr]]
+        [[de]]
         * German: ["Wahr", "Falsch"]
+        [[/de]]
       - The "correctAnswer" MUST be one of the strings from the "options" array
 
       REASONING STEPS:
       1. VERIFY the topic is about finance/investment/real estate/immobilien
       2. DETECT the language of the topic
-      3. Identify 5 core concepts beginners should know about "{topic}"
+      3. Identify 5 core concepts beginners should know about the requested topic
       4. For each concept, determine if multiple-choice or true/false fits best
       5. Ensure balanced difficulty progression (easiest to moderate)
       6. Write 1-2 sentence explanations using simple terms IN THE DETECTED LANGUAGE
@@ -148,42 +353,48 @@ class QuizGenerationServiceImpl implements QuizGenerationService {
 
       EXAMPLES (DO NOT COPY CONTENT, FOLLOW STRUCTURE):
 
+      [[en]]
       English Multiple Choice Example:
-      {{
+      {
         "question": "What is compound interest?",
         "type": "MULTIPLE_CHOICE",
         "options": ["Interest on interest earned", "Simple interest rate", "Bank fee structure", "Investment loss"],
         "correctAnswer": "Interest on interest earned",
         "explanation": "Compound interest grows your money faster because you earn interest on both your initial deposit and previously earned interest."
-      }}
+      }
 
       English True/False Example:
-      {{
+      {
         "question": "Diversification means putting all your money in one investment.",
         "type": "TRUE_FALSE",
         "options": ["True", "False"],
         "correctAnswer": "False",
         "explanation": "Diversification means spreading your investments across different assets to reduce risk, not concentrating them in one place."
-      }}
+      }
 
+      [[/en]]
+      [[fr]]
       French Multiple Choice Example:
-      {{
+      {
         "question": "Qu'est-ce que l'intérêt composé ?",
         "type": "MULTIPLE_CHOICE",
         "options": ["Intérêt sur intérêt gagné", "Taux d'intérêt simple", "Structure de frais bancaires", "Perte d'investissement"],
         "correctAnswer": "Intérêt sur intérêt gagné",
         "explanation": "L'intérêt composé fait croître votre argent plus rapidement car vous gagnez des intérêts sur votre dépôt initial et sur les intérêts précédemment gagnés."
-      }}
+      }
 
+      [[/fr]]
+      [[de]]
       German Multiple Choice Example:
-      {{
+      {
         "question": "Was ist Zinseszins?",
         "type": "MULTIPLE_CHOICE",
         "options": ["Zinsen auf erwirtschaftete Zinsen", "Einfacher Zinssatz", "Bankgebührenstruktur", "Anlageverlust"],
         "correctAnswer": "Zinsen auf erwirtschaftete Zinsen",
         "explanation": "Zinseszins lässt Ihr Geld schneller wachsen, weil Sie Zinsen sowohl auf Ihre ursprüngliche Einlage als auch auf zuvor verdierte Zinsen erhalten."
-      }}
+      }
 
+      [[/de]]
       REQUIREMENTS:
       - Question mix: 3 MULTIPLE_CHOICE + 2 TRUE_FALSE
       - Each MULTIPLE_CHOICE: exactly 4 distinct options IN THE DETECTED LANGUAGE
@@ -211,6 +422,10 @@ class QuizGenerationServiceImpl implements QuizGenerationService {
       ✓ TRUE_FALSE questions have exactly 2 options in the correct language
       ✓ correctAnswer exists in the options array for each question
       ✓ All fields (question, type, options, correctAnswer, explanation) are present
+      """;
+
+  private static final String USER_PROMPT_TEMPLATE = """
+      Requested topic: "{topic}"
 
       {format}
       """;
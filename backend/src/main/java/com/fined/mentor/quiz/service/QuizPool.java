@@ -0,0 +1,233 @@
+package com.fined.mentor.quiz.service;
+
+import com.fined.mentor.core.language.LanguageDetector;
+import com.fined.mentor.core.language.TextNormalizer;
+import com.fined.mentor.quiz.entity.Quiz;
+import com.fined.mentor.quiz.exception.QuizValidationException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pre-generated quizzes for popular topics, so a request for "ETF basics" can be
+ * served without waiting for the model.
+ * <p>
+ * Topics are keyed by their normalised text and detected language. Each request
+ * counts towards the topic's popularity; once a topic has been asked for
+ * {@code min-requests} times, the pool keeps up to {@code size} validated quizzes
+ * for it and refills them in the background whenever it is down to
+ * {@code low-watermark}. Every pooled quiz is served once, and quizzes older than
+ * {@code max-age} are dropped instead of served.
+ */
+@Slf4j
+@Component
+public class QuizPool {
+
+    private final QuizGenerationService quizGenerationService;
+    private final LanguageDetector languageDetector;
+    private final ExecutorService executor;
+    private final Clock clock;
+    private final boolean enabled;
+    private final int size;
+    private final int lowWatermark;
+    private final long minRequests;
+    private final Duration maxAge;
+    private final int maxTopicLength;
+    private final Cache<String, TopicPool> topics;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter generated;
+
+    @Autowired
+    public QuizPool(QuizGenerationService quizGenerationService,
+            LanguageDetector languageDetector,
+            MeterRegistry meterRegistry,
+            @Value("${app.quiz.pool.enabled:true}") boolean enabled,
+            @Value("${app.quiz.pool.size:3}") int size,
+            @Value("${app.quiz.pool.low-watermark:1}") int lowWatermark,
+            @Value("${app.quiz.pool.min-requests:3}") long minRequests,
+            @Value("${app.quiz.pool.max-age:PT24H}") Duration maxAge,
+            @Value("${app.quiz.pool.max-topics:500}") long maxTopics,
+            @Value("${app.quiz.pool.max-topic-length:120}") int maxTopicLength,
+            @Value("${app.quiz.pool.executor.queue-capacity:20}") int queueCapacity) {
+        this(quizGenerationService, languageDetector, meterRegistry, enabled, size, lowWatermark, minRequests,
+                maxAge, maxTopics, maxTopicLength,
+                new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(queueCapacity),
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "quiz-pool-refill");
+                            thread.setDaemon(true);
+                            return thread;
+                        },
+                        new ThreadPoolExecutor.AbortPolicy()),
+                Clock.systemUTC());
+    }
+
+    QuizPool(QuizGenerationService quizGenerationService,
+            LanguageDetector languageDetector,
+            MeterRegistry meterRegistry,
+            boolean enabled, int size, int lowWatermark, long minRequests, Duration maxAge,
+            long maxTopics, int maxTopicLength, ExecutorService executor, Clock clock) {
+        this.quizGenerationService = quizGenerationService;
+        this.languageDetector = languageDetector;
+        this.executor = executor;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.size = size;
+        this.lowWatermark = lowWatermark;
+        this.minRequests = minRequests;
+        this.maxAge = maxAge;
+        this.maxTopicLength = maxTopicLength;
+        // Topics nobody asked for within max-age have nothing fresh left to serve
+        this.topics = Caffeine.newBuilder()
+                .maximumSize(maxTopics)
+                .expireAfterAccess(maxAge)
+                .build();
+
+        this.hits = Counter.builder("quiz.pool.requests")
+                .tag("result", "hit")
+                .description("Quiz requests served from the pre-generated pool")
+                .register(meterRegistry);
+        this.misses = Counter.builder("quiz.pool.requests")
+                .tag("result", "miss")
+                .description("Quiz requests that had to be generated on the spot")
+                .register(meterRegistry);
+        this.generated = Counter.builder("quiz.pool.generated")
+                .description("Quizzes generated in the background to refill the pool")
+                .register(meterRegistry);
+        Gauge.builder("quiz.pool.quizzes", topics,
+                        t -> t.asMap().values().stream().mapToInt(pool -> pool.quizzes.size()).sum())
+                .description("Pre-generated quizzes currently pooled")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a fresh pooled quiz for {@code topic}, if there is one, and counts the
+     * request towards the topic's popularity. The returned quiz is a copy that the
+     * caller may bind to a session and save.
+     */
+    public Optional<Quiz> take(String topic) {
+        String key = keyFor(topic);
+        if (key == null) {
+            return Optional.empty();
+        }
+
+        TopicPool pool = topics.get(key, k -> new TopicPool(topic.trim()));
+        long requests = pool.requests.incrementAndGet();
+        PooledQuiz quiz = pool.pollFresh(clock.instant().minus(maxAge));
+        if (requests >= minRequests) {
+            refillIfLow(key, pool);
+        }
+
+        if (quiz == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        log.debug("Served quiz for topic '{}' from the pool", topic);
+        return Optional.of(quiz.toQuiz(clock.instant()));
+    }
+
+    /**
+     * Pool key of a topic, or null if the topic is not pooled.
+     */
+    String keyFor(String topic) {
+        if (!enabled) {
+            return null;
+        }
+        String normalized = TextNormalizer.normalize(topic);
+        if (normalized.isEmpty() || normalized.length() > maxTopicLength) {
+            return null;
+        }
+        return languageDetector.detect(normalized).getCode() + ":" + normalized;
+    }
+
+    private void refillIfLow(String key, TopicPool pool) {
+        if (pool.rejected || pool.quizzes.size() > lowWatermark || !pool.refilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> refill(key, pool));
+        } catch (RejectedExecutionException e) {
+            // Saturated; the next request for the topic asks again
+            pool.refilling.set(false);
+            log.debug("Quiz pool refill queue full, skipping topic {}", key);
+        }
+    }
+
+    private void refill(String key, TopicPool pool) {
+        try {
+            while (pool.quizzes.size() < size) {
+                Quiz quiz = quizGenerationService.generateQuiz(pool.topic);
+                QuizValidation.validate(quiz);
+                pool.quizzes.add(new PooledQuiz(quiz, clock.instant()));
+                generated.increment();
+            }
+            log.debug("Refilled quiz pool for {} to {} quizzes", key, pool.quizzes.size());
+        } catch (QuizValidationException e) {
+            // Not a finance topic, or the model keeps producing broken quizzes for it
+            pool.rejected = true;
+            log.info("Stopped pooling quizzes for {}: {}", key, e.getMessage());
+        } catch (Exception e) {
+            log.warn("Failed to refill quiz pool for {}", key, e);
+        } finally {
+            pool.refilling.set(false);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class TopicPool {
+        private final String topic;
+        private final ConcurrentLinkedDeque<PooledQuiz> quizzes = new ConcurrentLinkedDeque<>();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicBoolean refilling = new AtomicBoolean();
+        private volatile boolean rejected;
+
+        private TopicPool(String topic) {
+            this.topic = topic;
+        }
+
+        private PooledQuiz pollFresh(Instant notBefore) {
+            PooledQuiz quiz;
+            while ((quiz = quizzes.pollFirst()) != null) {
+                if (!quiz.createdAt().isBefore(notBefore)) {
+                    return quiz;
+                }
+            }
+            return null;
+        }
+    }
+
+    private record PooledQuiz(Quiz quiz, Instant createdAt) {
+
+        private Quiz toQuiz(Instant now) {
+            Quiz copy = QuizCopies.copyOf(quiz);
+            copy.setCreatedAt(now);
+            return copy;
+        }
+    }
+}
@@ -1,23 +1,33 @@
 package com.fined.mentor.quiz.service;
 
+import com.fined.mentor.quiz.dto.QuizStreamEvent;
 import com.fined.mentor.quiz.entity.Quiz;
 import com.fined.mentor.quiz.entity.QuizState;
 
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.transaction.annotation.Transactional;
 
 public interface QuizService {
     Quiz generateQuiz(String topic, String chatSessionId);
 
-    Flux<String> streamQuizGeneration(String topic);
+    /**
+     * Streams a quiz for {@code topic} as typed events: each validated question as
+     * soon as it is complete, then a final {@code done} event.
+     */
+    Flux<QuizStreamEvent> streamQuizGeneration(String topic);
 
-    Quiz saveStreamedQuiz(String topic, String chatSessionId, String quizJson);
+    /**
+     * Streams a quiz like {@link #streamQuizGeneration(String)} and saves it for
+     * {@code chatSessionId} once complete; the {@code done} event carries its id.
+     */
+    Flux<QuizStreamEvent> streamQuizGeneration(String topic, String chatSessionId);
 
     @Transactional
     QuizState finishQuiz(String quizStateId);
 
-    QuizState startQuiz(String quizId, String chatSessionId);
+    Mono<QuizState> startQuiz(String quizId, String chatSessionId);
 
     QuizState submitAnswer(String quizStateId, int questionIndex, String answer);
 
@@ -1,21 +1,24 @@
 package com.fined.mentor.quiz.service;
 
 import com.fined.mentor.chat.service.ChatSessionService;
-import com.fined.mentor.quiz.dto.GeneratedQuizDTO;
+import com.fined.mentor.quiz.dto.QuizStreamEvent;
 import com.fined.mentor.quiz.entity.Quiz;
 import com.fined.mentor.quiz.entity.QuizQuestion;
 import com.fined.mentor.quiz.entity.QuizState;
 import com.fined.mentor.quiz.exception.*;
 import com.fined.mentor.quiz.repository.QuizRepository;
 import com.fined.mentor.quiz.repository.QuizStateRepository;
+import com.fined.mentor.quiz.repository.ReactiveQuizRepository;
+import com.fined.mentor.quiz.repository.ReactiveQuizStateRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.converter.BeanOutputConverter;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
@@ -26,8 +29,12 @@ public class QuizServiceImpl implements QuizService {
 
     private final QuizRepository quizRepository;
     private final QuizStateRepository quizStateRepository;
+    private final ReactiveQuizRepository reactiveQuizRepository;
+    private final ReactiveQuizStateRepository reactiveQuizStateRepository;
     private final QuizGenerationService quizGenerationService;
     private final ChatSessionService chatSessionService;
+    private final QuizPool quizPool;
+    private final QuizGenerationCoalescer quizGenerationCoalescer;
 
     @Override
     @Transactional
@@ -35,12 +42,15 @@ public class QuizServiceImpl implements QuizService {
         try {
             log.info("Generating quiz for topic: {} and session: {}", topic, chatSessionId);
 
-            Quiz quiz = quizGenerationService.generateQuiz(topic);
+            // Concurrent requests for the same topic share one generation; each saves its own copy
+            Quiz quiz = quizPool.take(topic)
+                    .orElseGet(() -> quizGenerationCoalescer.generate(topic,
+                            () -> quizGenerationService.generateQuiz(topic)));
             quiz.setChatSessionId(chatSessionId);
             quiz.setCreatedAt(Instant.now());
 
             // Validate quiz structure
-            validateQuiz(quiz);
+            QuizValidation.validate(quiz);
 
             Quiz savedQuiz = quizRepository.save(quiz);
             log.debug("Successfully saved quiz with id: {} and {} questions",
@@ -60,60 +70,89 @@ public class QuizServiceImpl implements QuizService {
     }
 
     @Override
-    public Flux<String> streamQuizGeneration(String topic) {
-        return quizGenerationService.streamQuizGeneration(topic);
+    public Flux<QuizStreamEvent> streamQuizGeneration(String topic) {
+        return streamQuiz(topic, null);
     }
 
     @Override
-    @Transactional
-    public Quiz saveStreamedQuiz(String topic, String chatSessionId, String quizJson) {
-        try {
-            log.info("Saving streamed quiz for topic: {} and session: {}", topic, chatSessionId);
-
-            // Extract raw JSON if it's wrapped in markdown or has "json" prefix
-            String cleanedJson = extractJson(quizJson);
-
-            // Parse JSON using BeanOutputConverter or similar
-            BeanOutputConverter<GeneratedQuizDTO> outputConverter = new BeanOutputConverter<>(
-                    GeneratedQuizDTO.class);
-            GeneratedQuizDTO generatedQuiz = outputConverter.convert(cleanedJson);
-
-            Quiz quiz = Quiz.builder()
-                    .topic(generatedQuiz.getTopic())
-                    .questions(generatedQuiz.getQuestions())
-                    .chatSessionId(chatSessionId)
-                    .createdAt(Instant.now())
-                    .build();
-
-            // Validate quiz structure
-            validateQuiz(quiz);
-
-            Quiz savedQuiz = quizRepository.save(quiz);
-            log.debug("Successfully saved streamed quiz with id: {} and {} questions",
-                    savedQuiz.getId(), savedQuiz.getQuestions().size());
+    public Flux<QuizStreamEvent> streamQuizGeneration(String topic, String chatSessionId) {
+        return streamQuiz(topic, chatSessionId);
+    }
 
-            return savedQuiz;
+    // Each question is validated and sent as soon as the model closes it, so the first
+    // can be answered while the rest are still being generated. The parsed questions
+    // are kept as they go, so the finished quiz is saved without reading the stream again
+    private Flux<QuizStreamEvent> streamQuiz(String topic, String chatSessionId) {
+        return Flux.defer(() -> {
+                    Quiz quiz = Quiz.builder()
+                            .topic(topic)
+                            .questions(new ArrayList<>())
+                            .chatSessionId(chatSessionId)
+                            .build();
+                    Flux<QuizQuestion> questions = quizPool.take(topic)
+                            .map(pooled -> {
+                                quiz.setTopic(pooled.getTopic());
+                                return Flux.fromIterable(pooled.getQuestions());
+                            })
+                            .orElseGet(() -> parseQuestions(quiz, quizGenerationService.streamQuizGeneration(topic)));
+
+                    return questions
+                            .map(question -> {
+                                int index = quiz.getQuestions().size();
+                                QuizValidation.validateQuestion(question, index);
+                                quiz.getQuestions().add(question);
+                                return QuizStreamEvent.question(index, question);
+                            })
+                            .concatWith(Mono.defer(() -> complete(quiz)));
+                })
+                .onErrorResume(e -> {
+                    log.warn("Quiz stream for topic: {} ended with an error: {}", topic, e.getMessage());
+                    return Flux.just(QuizStreamEvent.error(streamErrorMessage(e)));
+                });
+    }
 
-        } catch (Exception e) {
-            log.error("Failed to save streamed quiz for topic: {} and session: {}. Content: {}",
-                    topic, chatSessionId, quizJson, e);
-            throw new QuizGenerationException("Failed to save streamed quiz. Please try again.", e);
-        }
+    private Flux<QuizQuestion> parseQuestions(Quiz quiz, Flux<String> chunks) {
+        return Flux.defer(() -> {
+            QuizStreamParser parser = new QuizStreamParser();
+            return chunks
+                    .concatMapIterable(parser::feed)
+                    .concatWith(Mono.fromRunnable(() -> {
+                        if (!parser.isComplete()) {
+                            throw new QuizGenerationException("Could not generate a valid quiz. Please try again.",
+                                    new IllegalStateException("Quiz stream ended before the quiz was complete"));
+                        }
+                        if (parser.topic() != null) {
+                            quiz.setTopic(parser.topic());
+                        }
+                    }));
+        });
     }
 
-    private String extractJson(String text) {
-        if (text == null || text.isBlank())
-            return text;
-        String trimmed = text.trim();
+    // Guest quizzes only live in the browser; signed-in users get the id of the saved quiz
+    private Mono<QuizStreamEvent> complete(Quiz quiz) {
+        QuizValidation.validate(quiz);
+        int questionCount = quiz.getQuestions().size();
+        if (quiz.getChatSessionId() == null) {
+            return Mono.just(QuizStreamEvent.done(null, quiz.getTopic(), questionCount));
+        }
 
-        // Find the first '{' and last '}'
-        int firstOpen = trimmed.indexOf('{');
-        int lastClose = trimmed.lastIndexOf('}');
+        quiz.setCreatedAt(Instant.now());
+        return reactiveQuizRepository.save(quiz)
+                .doOnNext(savedQuiz -> log.debug("Successfully saved streamed quiz with id: {} and {} questions",
+                        savedQuiz.getId(), questionCount))
+                .map(savedQuiz -> QuizStreamEvent.done(savedQuiz.getId(), savedQuiz.getTopic(), questionCount))
+                .onErrorMap(e -> {
+                    log.error("Failed to save streamed quiz for topic: {} and session: {}",
+                            quiz.getTopic(), quiz.getChatSessionId(), e);
+                    return new QuizGenerationException("Failed to save streamed quiz. Please try again.", e);
+                });
+    }
 
-        if (firstOpen != -1 && lastClose != -1 && lastClose > firstOpen) {
-            return trimmed.substring(firstOpen, lastClose + 1);
+    private static String streamErrorMessage(Throwable e) {
+        if (e instanceof QuizValidationException || e instanceof QuizGenerationException) {
+            return e.getMessage();
         }
-        return trimmed;
+        return "Could not generate a valid quiz. Please try again.";
     }
 
     @Override
@@ -289,95 +328,6 @@ public class QuizServiceImpl implements QuizService {
 
     // ========== VALIDATION METHODS ==========
 
-    private void validateQuiz(Quiz quiz) {
-        if (quiz.getQuestions() == null || quiz.getQuestions().isEmpty()) {
-            throw new QuizValidationException("Quiz must have at least one question");
-        }
-
-        for (int i = 0; i < quiz.getQuestions().size(); i++) {
-            QuizQuestion question = quiz.getQuestions().get(i);
-            validateQuestion(question, i);
-        }
-    }
-
-    private void validateQuestion(QuizQuestion question, int index) {
-        try {
-            if (question.getQuestion() == null || question.getQuestion().trim().isEmpty()) {
-                throw new QuizValidationException("Question text is required for question " + (index + 1));
-            }
-
-            if (question.getCorrectAnswer() == null || question.getCorrectAnswer().trim().isEmpty()) {
-                throw new QuizValidationException("Correct answer is required for question " + (index + 1));
-            }
-
-            // Normalize correctAnswer for comparison (remove all whitespace and lowercase)
-            String normalizedCorrect = normalizeForComparison(question.getCorrectAnswer());
-
-            if (question.getType() == QuizQuestion.QuestionType.MULTIPLE_CHOICE) {
-                if (question.getOptions() == null || question.getOptions().length < 2) {
-                    throw new QuizValidationException(
-                            "Multiple choice questions must have at least 2 options for question " + (index + 1));
-                }
-
-                // Verify correct answer is among options (whitespace-insensitive)
-                boolean correctAnswerFound = false;
-                for (int i = 0; i < question.getOptions().length; i++) {
-                    String option = question.getOptions()[i];
-                    if (option != null && normalizeForComparison(option).equals(normalizedCorrect)) {
-                        // Update correct answer to match the EXACT string in options for later
-                        // consistency
-                        question.setCorrectAnswer(option);
-                        correctAnswerFound = true;
-                        break;
-                    }
-                }
-
-                if (!correctAnswerFound) {
-                    log.warn("Validation failed for question {}. Normalized Correct: '{}', Options: {}",
-                            index + 1, normalizedCorrect, java.util.Arrays.toString(question.getOptions()));
-                    throw new QuizValidationException(
-                            "Correct answer must be one of the provided options for question " + (index + 1));
-                }
-            } else if (question.getType() == QuizQuestion.QuestionType.TRUE_FALSE) {
-                String lowercaseCorrect = question.getCorrectAnswer().trim().toLowerCase();
-                if (!"true".equals(lowercaseCorrect) && !"false".equals(lowercaseCorrect) &&
-                        !"vrai".equals(lowercaseCorrect) && !"faux".equals(lowercaseCorrect) &&
-                        !"wahr".equals(lowercaseCorrect) && !"falsch".equals(lowercaseCorrect)) {
-                    throw new QuizValidationException(
-                            "Correct answer for TRUE_FALSE question must be either 'true' or 'false' for question "
-                                    + (index + 1));
-                }
-
-                // Verify correct answer matches one of the options (whitespace-insensitive)
-                boolean correctAnswerFound = false;
-                for (int i = 0; i < question.getOptions().length; i++) {
-                    String option = question.getOptions()[i];
-                    if (option != null && normalizeForComparison(option).equals(normalizedCorrect)) {
-                        question.setCorrectAnswer(option);
-                        correctAnswerFound = true;
-                        break;
-                    }
-                }
-
-                if (!correctAnswerFound) {
-                    throw new QuizValidationException(
-                            "Correct answer must match one of the TRUE_FALSE options for question " + (index + 1));
-                }
-            }
-        } catch (QuizValidationException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Unexpected error validating question {}: {}", index + 1, e.getMessage());
-            throw new QuizException("Failed to validate quiz question. Please try again.");
-        }
-    }
-
-    private String normalizeForComparison(String s) {
-        if (s == null)
-            return "";
-        return s.toLowerCase().replaceAll("\\s+", "");
-    }
-
     private void validateAnswerSubmission(QuizState quizState, int questionIndex, String answer) {
         if (quizState.isFinished()) {
             throw new QuizException("Cannot submit answer - quiz is already finished");
@@ -409,19 +359,21 @@ public class QuizServiceImpl implements QuizService {
     }
 
     @Override
-    public QuizState startQuiz(String quizId, String chatSessionId) {
-        Quiz quiz = quizRepository.findById(quizId)
-                .orElseThrow(() -> new RuntimeException("Quiz not found"));
-        QuizState quizState = new QuizState();
-        quizState.setQuizId(quiz.getId());
-        quizState.setChatSessionId(chatSessionId);
-        quizState.setCurrentQuestionIndex(0);
-        // Use maps for answers and submission flags (keys are question indices)
-        quizState.setUserAnswers(new HashMap<>());
-        quizState.setIsSubmitted(new HashMap<>());
-        quizState.setScore(0);
-        quizState.setFinished(false);
-        return quizStateRepository.save(quizState);
+    public Mono<QuizState> startQuiz(String quizId, String chatSessionId) {
+        return reactiveQuizRepository.findById(quizId)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Quiz not found")))
+                .flatMap(quiz -> {
+                    QuizState quizState = new QuizState();
+                    quizState.setQuizId(quiz.getId());
+                    quizState.setChatSessionId(chatSessionId);
+                    quizState.setCurrentQuestionIndex(0);
+                    // Use maps for answers and submission flags (keys are question indices)
+                    quizState.setUserAnswers(new HashMap<>());
+                    quizState.setIsSubmitted(new HashMap<>());
+                    quizState.setScore(0);
+                    quizState.setFinished(false);
+                    return reactiveQuizStateRepository.save(quizState);
+                });
     }
 
     @Override
@@ -0,0 +1,170 @@
+package com.fined.mentor.quiz.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fined.mentor.quiz.entity.QuizQuestion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental scanner over the streamed JSON of a generated quiz. Fed chunk by
+ * chunk, it hands back each element of {@code questions[]} as soon as its closing
+ * brace arrives, without re-reading what came before.
+ * <p>
+ * Anything before the root object, such as a markdown fence, is skipped. Only the
+ * question being read is buffered; the root-level {@code topic} is kept once read.
+ * One parser per stream, not thread-safe.
+ */
+final class QuizStreamParser {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final StringBuilder element = new StringBuilder();
+    private final StringBuilder token = new StringBuilder();
+    private int depth;
+    private boolean started;
+    private boolean inString;
+    private boolean escaped;
+    private boolean afterColon;
+    private boolean inQuestions;
+    private boolean capturing;
+    private String key;
+    private String topic;
+    private int questionCount;
+
+    /**
+     * Consumes the next chunk of model output and returns the questions it completed,
+     * in order.
+     */
+    List<QuizQuestion> feed(String chunk) {
+        List<QuizQuestion> completed = new ArrayList<>(1);
+        for (int i = 0; i < chunk.length(); i++) {
+            char c = chunk.charAt(i);
+            if (!started) {
+                if (c == '{') {
+                    started = true;
+                    depth = 1;
+                }
+                continue;
+            }
+            if (depth == 0) {
+                // Closing fence or trailing text
+                continue;
+            }
+            if (capturing) {
+                element.append(c);
+            }
+            if (inString) {
+                readString(c);
+                continue;
+            }
+
+            switch (c) {
+                case '"' -> {
+                    inString = true;
+                    token.setLength(0);
+                }
+                case ':' -> {
+                    if (depth == 1) {
+                        key = token.toString();
+                        afterColon = true;
+                    }
+                }
+                case ',' -> {
+                    if (depth == 1) {
+                        afterColon = false;
+                    }
+                }
+                case '[' -> {
+                    depth++;
+                    if (depth == 2 && afterColon && "questions".equals(key)) {
+                        inQuestions = true;
+                    }
+                }
+                case '{' -> {
+                    depth++;
+                    if (inQuestions && depth == 3) {
+                        capturing = true;
+                        element.setLength(0);
+                        element.append(c);
+                    }
+                }
+                case ']', '}' -> {
+                    depth--;
+                    if (capturing && depth == 2) {
+                        capturing = false;
+                        completed.add(toQuestion(element));
+                    } else if (inQuestions && depth == 1) {
+                        inQuestions = false;
+                    }
+                }
+                default -> {
+                    // Whitespace, numbers and literals carry no structure
+                }
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * Whether the root object has been closed.
+     */
+    boolean isComplete() {
+        return started && depth == 0;
+    }
+
+    /**
+     * The quiz topic, once the model has written it.
+     */
+    String topic() {
+        return topic;
+    }
+
+    /**
+     * Questions completed so far.
+     */
+    int questionCount() {
+        return questionCount;
+    }
+
+    private void readString(char c) {
+        if (escaped) {
+            escaped = false;
+        } else if (c == '\\') {
+            escaped = true;
+        } else if (c == '"') {
+            inString = false;
+            if (depth == 1 && afterColon && "topic".equals(key)) {
+                topic = unescape(token);
+            }
+            return;
+        }
+        // Root-level keys and values only; question text is read from the element buffer
+        if (depth == 1) {
+            token.append(c);
+        }
+    }
+
+    private QuizQuestion toQuestion(StringBuilder json) {
+        try {
+            QuizQuestion question = MAPPER.readValue(json.toString(), QuizQuestion.class);
+            questionCount++;
+            return question;
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable quiz question " + (questionCount + 1), e);
+        }
+    }
+
+    private static String unescape(StringBuilder raw) {
+        if (raw.indexOf("\\") < 0) {
+            return raw.toString();
+        }
+        try {
+            return MAPPER.readValue('"' + raw.toString() + '"', String.class);
+        } catch (Exception e) {
+            return raw.toString();
+        }
+    }
+}
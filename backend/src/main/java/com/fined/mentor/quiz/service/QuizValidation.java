@@ -0,0 +1,114 @@
+package com.fined.mentor.quiz.service;
+
+import com.fined.mentor.quiz.entity.Quiz;
+import com.fined.mentor.quiz.entity.QuizQuestion;
+import com.fined.mentor.quiz.exception.QuizException;
+import com.fined.mentor.quiz.exception.QuizValidationException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+
+/**
+ * Structural checks on a generated quiz, shared by quizzes generated on request,
+ * the ones kept in the {@link QuizPool} and questions checked one by one as they
+ * are streamed. Aligns each correct answer with the
+ * exact text of its option.
+ */
+@Slf4j
+final class QuizValidation {
+
+    private QuizValidation() {
+    }
+
+    static void validate(Quiz quiz) {
+        if (quiz.getQuestions() == null || quiz.getQuestions().isEmpty()) {
+            throw new QuizValidationException("Quiz must have at least one question");
+        }
+
+        for (int i = 0; i < quiz.getQuestions().size(); i++) {
+            QuizQuestion question = quiz.getQuestions().get(i);
+            validateQuestion(question, i);
+        }
+    }
+
+    /**
+     * Checks a single question, {@code index} being its zero-based position in the quiz.
+     */
+    static void validateQuestion(QuizQuestion question, int index) {
+        try {
+            if (question.getQuestion() == null || question.getQuestion().trim().isEmpty()) {
+                throw new QuizValidationException("Question text is required for question " + (index + 1));
+            }
+
+            if (question.getCorrectAnswer() == null || question.getCorrectAnswer().trim().isEmpty()) {
+                throw new QuizValidationException("Correct answer is required for question " + (index + 1));
+            }
+
+            // Normalize correctAnswer for comparison (remove all whitespace and lowercase)
+            String normalizedCorrect = normalizeForComparison(question.getCorrectAnswer());
+
+            if (question.getType() == QuizQuestion.QuestionType.MULTIPLE_CHOICE) {
+                if (question.getOptions() == null || question.getOptions().length < 2) {
+                    throw new QuizValidationException(
+                            "Multiple choice questions must have at least 2 options for question " + (index + 1));
+                }
+
+                // Verify correct answer is among options (whitespace-insensitive)
+                boolean correctAnswerFound = false;
+                for (int i = 0; i < question.getOptions().length; i++) {
+                    String option = question.getOptions()[i];
+                    if (option != null && normalizeForComparison(option).equals(normalizedCorrect)) {
+                        // Update correct answer to match the EXACT string in options for later
+                        // consistency
+                        question.setCorrectAnswer(option);
+                        correctAnswerFound = true;
+                        break;
+                    }
+                }
+
+                if (!correctAnswerFound) {
+                    log.warn("Validation failed for question {}. Normalized Correct: '{}', Options: {}",
+                            index + 1, normalizedCorrect, Arrays.toString(question.getOptions()));
+                    throw new QuizValidationException(
+                            "Correct answer must be one of the provided options for question " + (index + 1));
+                }
+            } else if (question.getType() == QuizQuestion.QuestionType.TRUE_FALSE) {
+                String lowercaseCorrect = question.getCorrectAnswer().trim().toLowerCase();
+                if (!"true".equals(lowercaseCorrect) && !"false".equals(lowercaseCorrect) &&
+                        !"vrai".equals(lowercaseCorrect) && !"faux".equals(lowercaseCorrect) &&
+                        !"wahr".equals(lowercaseCorrect) && !"falsch".equals(lowercaseCorrect)) {
+                    throw new QuizValidationException(
+                            "Correct answer for TRUE_FALSE question must be either 'true' or 'false' for question "
+                                    + (index + 1));
+                }
+
+                // Verify correct answer matches one of the options (whitespace-insensitive)
+                boolean correctAnswerFound = false;
+                for (int i = 0; i < question.getOptions().length; i++) {
+                    String option = question.getOptions()[i];
+                    if (option != null && normalizeForComparison(option).equals(normalizedCorrect)) {
+                        question.setCorrectAnswer(option);
+                        correctAnswerFound = true;
+                        break;
+                    }
+                }
+
+                if (!correctAnswerFound) {
+                    throw new QuizValidationException(
+                            "Correct answer must match one of the TRUE_FALSE options for question " + (index + 1));
+                }
+            }
+        } catch (QuizValidationException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Unexpected error validating question {}: {}", index + 1, e.getMessage());
+            throw new QuizException("Failed to validate quiz question. Please try again.");
+        }
+    }
+
+    private static String normalizeForComparison(String s) {
+        if (s == null)
+            return "";
+        return s.toLowerCase().replaceAll("\\s+", "");
+    }
+}
@@ -0,0 +1,102 @@
+package com.fined.mentor.quiz.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Local classifier asked about topics that miss the keyword list, before the AI.
+ * <p>
+ * It scores a topic with the {@link TopicClassifierModel} loaded at startup and only
+ * answers when it is confident: topics scoring at least {@code accept-above} are
+ * finance, those below {@code reject-below} are not, and everything in between is
+ * left to the AI. The bundled model is trained from
+ * {@code topic-classifier/seed.tsv}; see {@link TopicClassifierTrainer} to retrain
+ * it with logged AI verdicts.
+ */
+@Slf4j
+@Component
+public class TopicClassifier {
+
+    public enum Verdict {
+        FINANCE, OTHER, UNCERTAIN
+    }
+
+    private final TopicClassifierModel model;
+    private final double rejectBelow;
+    private final double acceptAbove;
+    private final Counter finance;
+    private final Counter other;
+    private final Counter uncertain;
+
+    @Autowired
+    public TopicClassifier(MeterRegistry meterRegistry,
+            @Value("${app.quiz.topic-classifier.enabled:true}") boolean enabled,
+            @Value("${app.quiz.topic-classifier.model:classpath:topic-classifier/model.tsv}") Resource model,
+            @Value("${app.quiz.topic-classifier.reject-below:0.2}") double rejectBelow,
+            @Value("${app.quiz.topic-classifier.accept-above:0.8}") double acceptAbove) {
+        this(meterRegistry, enabled ? load(model) : null, rejectBelow, acceptAbove);
+    }
+
+    TopicClassifier(MeterRegistry meterRegistry,
+            TopicClassifierModel model,
+            double rejectBelow,
+            double acceptAbove) {
+        if (rejectBelow > acceptAbove) {
+            throw new IllegalArgumentException("Topic classifier reject-below must not exceed accept-above");
+        }
+        this.model = model;
+        this.rejectBelow = rejectBelow;
+        this.acceptAbove = acceptAbove;
+        this.finance = counter(meterRegistry, "finance", "Topics the local classifier accepted without the AI");
+        this.other = counter(meterRegistry, "other", "Topics the local classifier rejected without the AI");
+        this.uncertain = counter(meterRegistry, "uncertain", "Topics the local classifier left to the AI");
+    }
+
+    /**
+     * Classifies {@code topic}, or returns {@link Verdict#UNCERTAIN} if the AI should
+     * decide, which is always the case when the classifier is disabled.
+     */
+    public Verdict classify(String topic) {
+        if (model == null) {
+            return Verdict.UNCERTAIN;
+        }
+        double probability = model.probability(topic);
+        Verdict verdict = probability >= acceptAbove ? Verdict.FINANCE
+                : probability < rejectBelow ? Verdict.OTHER
+                : Verdict.UNCERTAIN;
+        log.debug("Topic '{}' classified locally as {} ({})", topic, verdict, probability);
+        switch (verdict) {
+            case FINANCE -> finance.increment();
+            case OTHER -> other.increment();
+            default -> uncertain.increment();
+        }
+        return verdict;
+    }
+
+    private static TopicClassifierModel load(Resource resource) {
+        try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+            TopicClassifierModel model = TopicClassifierModel.read(reader);
+            log.info("Loaded topic classifier model with {} grams from {}", model.size(), resource);
+            return model;
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Failed to load topic classifier model from " + resource, e);
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result, String description) {
+        return Counter.builder("quiz.topic.classifier.verdicts")
+                .tag("result", result)
+                .description(description)
+                .register(meterRegistry);
+    }
+}
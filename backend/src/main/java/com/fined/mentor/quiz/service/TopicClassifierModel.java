@@ -0,0 +1,181 @@
+package com.fined.mentor.quiz.service;
+
+import com.fined.mentor.core.language.TextNormalizer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Character n-gram naive Bayes model of whether a topic is about finance.
+ * <p>
+ * Topics are {@link TextNormalizer#fold(String) folded} and split into their
+ * distinct 3- to 5-character grams, so related spellings and word forms
+ * ("invest", "investing", "Investition") share most of their features. The model
+ * only keeps per-class gram counts, which makes the file small, and lets a model be
+ * retrained by adding topics to the corpus without any other state.
+ */
+final class TopicClassifierModel {
+
+    static final String FINANCE = "finance";
+    static final String OTHER = "other";
+
+    private static final int MIN_GRAM = 3;
+    private static final int MAX_GRAM = 5;
+    private static final String HEADER = "# Topic classifier model: gram<TAB>finance count<TAB>other count";
+    private static final String TOPICS = "@topics";
+    private static final int[] NO_COUNTS = new int[2];
+    // Scale from the mean per-gram log likelihood ratio to log odds
+    private static final double SHARPNESS = 10.0;
+
+    // gram -> {finance count, other count}
+    private final Map<String, int[]> grams;
+    private final int[] topics;
+    private final long[] totals;
+
+    private TopicClassifierModel(Map<String, int[]> grams, int[] topics) {
+        this.grams = grams;
+        this.topics = topics;
+        this.totals = new long[2];
+        for (int[] counts : grams.values()) {
+            totals[0] += counts[0];
+            totals[1] += counts[1];
+        }
+    }
+
+    static TopicClassifierModel train(List<LabelledTopic> corpus) {
+        Map<String, int[]> grams = new HashMap<>();
+        int[] topics = new int[2];
+        for (LabelledTopic labelled : corpus) {
+            int label = labelled.finance() ? 0 : 1;
+            topics[label]++;
+            for (String gram : grams(labelled.topic())) {
+                grams.computeIfAbsent(gram, g -> new int[2])[label]++;
+            }
+        }
+        return new TopicClassifierModel(grams, topics);
+    }
+
+    /**
+     * Confidence from 0 to 1 that {@code topic} is about finance.
+     * <p>
+     * Summed naive Bayes evidence grows with the length of the topic and is far too
+     * sure of itself, so the evidence is averaged over the topic's grams and scaled
+     * instead. That keeps the score comparable between short and long topics, which
+     * is what the uncertain band of {@link TopicClassifier} relies on.
+     */
+    double probability(String topic) {
+        Set<String> topicGrams = grams(topic);
+        if (topicGrams.isEmpty()) {
+            return 0.5;
+        }
+        // Laplace-smoothed log likelihood ratio of finance over other, per gram
+        double vocabulary = grams.size() + 1;
+        double evidence = 0;
+        for (String gram : topicGrams) {
+            int[] counts = grams.getOrDefault(gram, NO_COUNTS);
+            evidence += Math.log((counts[0] + 1.0) / (totals[0] + vocabulary))
+                    - Math.log((counts[1] + 1.0) / (totals[1] + vocabulary));
+        }
+        double prior = Math.log((topics[0] + 1.0) / (topics[1] + 1.0));
+        double logOdds = prior + SHARPNESS * evidence / topicGrams.size();
+        return 1.0 / (1.0 + Math.exp(-logOdds));
+    }
+
+    int size() {
+        return grams.size();
+    }
+
+    /**
+     * Reads a model written by {@link #write(Writer)}.
+     */
+    static TopicClassifierModel read(Reader reader) throws IOException {
+        Map<String, int[]> grams = new HashMap<>();
+        int[] topics = null;
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] columns = line.split("\t");
+            if (columns.length != 3) {
+                throw new IllegalArgumentException("Malformed topic classifier model line: " + line);
+            }
+            int[] counts = { Integer.parseInt(columns[1]), Integer.parseInt(columns[2]) };
+            if (TOPICS.equals(columns[0])) {
+                topics = counts;
+            } else {
+                grams.put(columns[0], counts);
+            }
+        }
+        if (topics == null) {
+            throw new IllegalArgumentException("Topic classifier model has no " + TOPICS + " line");
+        }
+        return new TopicClassifierModel(grams, topics);
+    }
+
+    /**
+     * Writes the model with grams in sorted order, so retraining on the same corpus
+     * gives the same file.
+     */
+    void write(Writer writer) throws IOException {
+        writer.write(HEADER + "\n");
+        writer.write(TOPICS + "\t" + topics[0] + "\t" + topics[1] + "\n");
+        for (Map.Entry<String, int[]> entry : new TreeMap<>(grams).entrySet()) {
+            writer.write(entry.getKey() + "\t" + entry.getValue()[0] + "\t" + entry.getValue()[1] + "\n");
+        }
+    }
+
+    /**
+     * Reads a corpus of {@code label<TAB>topic} lines, label being {@value #FINANCE}
+     * or {@value #OTHER}. Lines without a known label, such as comments or other
+     * lines of a log file, are skipped, and anything before the label on its line
+     * (a log prefix) is ignored.
+     */
+    static List<LabelledTopic> readCorpus(Reader reader) {
+        List<LabelledTopic> corpus = new ArrayList<>();
+        try {
+            BufferedReader lines = new BufferedReader(reader);
+            String line;
+            while ((line = lines.readLine()) != null) {
+                int tab = line.lastIndexOf('\t');
+                if (tab < 0 || line.startsWith("#")) {
+                    continue;
+                }
+                String prefix = line.substring(0, tab).strip();
+                String label = prefix.substring(prefix.lastIndexOf(' ') + 1);
+                String topic = line.substring(tab + 1).strip();
+                if (!topic.isEmpty() && (FINANCE.equals(label) || OTHER.equals(label))) {
+                    corpus.add(new LabelledTopic(topic, FINANCE.equals(label)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return corpus;
+    }
+
+    private static Set<String> grams(String topic) {
+        String padded = " " + TextNormalizer.fold(topic) + " ";
+        Set<String> grams = new LinkedHashSet<>();
+        for (int n = MIN_GRAM; n <= MAX_GRAM; n++) {
+            for (int i = 0; i + n <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + n));
+            }
+        }
+        return grams;
+    }
+
+    record LabelledTopic(String topic, boolean finance) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.fined.mentor.quiz.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Offline trainer for the {@link TopicClassifier} model.
+ * <p>
+ * Usage, from {@code backend} after {@code mvn compile}:
+ * <pre>
+ * java -cp target/classes com.fined.mentor.quiz.service.TopicClassifierTrainer \
+ *     src/main/resources/topic-classifier/model.tsv \
+ *     src/main/resources/topic-classifier/seed.tsv [verdicts.log ...]
+ * </pre>
+ * Every corpus file after the model path is read as {@code label<TAB>topic} lines.
+ * The AI verdicts {@link TopicValidatorService} logs under the
+ * {@code topic-verdicts} logger are in that form, so application logs can be passed
+ * as they are.
+ */
+public final class TopicClassifierTrainer {
+
+    private TopicClassifierTrainer() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: TopicClassifierTrainer <model output> <corpus file>...");
+        }
+        List<TopicClassifierModel.LabelledTopic> corpus = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            try (Reader reader = Files.newBufferedReader(Path.of(args[i]), StandardCharsets.UTF_8)) {
+                corpus.addAll(TopicClassifierModel.readCorpus(reader));
+            }
+        }
+        TopicClassifierModel model = TopicClassifierModel.train(corpus);
+        try (Writer writer = Files.newBufferedWriter(Path.of(args[0]), StandardCharsets.UTF_8)) {
+            model.write(writer);
+        }
+        System.out.printf("Trained topic classifier on %d topics into %s (%d grams)%n",
+                corpus.size(), args[0], model.size());
+    }
+}
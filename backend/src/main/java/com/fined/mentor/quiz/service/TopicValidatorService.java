@@ -1,106 +1,166 @@
 package com.fined.mentor.quiz.service;
 
+import com.fined.mentor.core.admission.AdmissionRejectedException;
+import com.fined.mentor.core.language.KeywordMatcher;
+import com.fined.mentor.core.language.LanguageDetector;
+import com.fined.mentor.core.llm.ModelInvoker;
+import com.fined.mentor.core.usage.TokenUsageRecorder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TopicValidatorService {
 
-    private final ChatClient.Builder chatClientBuilder;
+    // AI verdicts as "label<TAB>topic" lines, the corpus format of TopicClassifierTrainer
+    private static final Logger VERDICTS = LoggerFactory.getLogger("topic-verdicts");
 
-    // Keywords that indicate finance-related topics
-    private static final List<String> FINANCE_KEYWORDS = Arrays.asList(
-            // English
-            "finance", "investment", "stock", "bond", "portfolio", "trading", "dividend",
-            "interest", "loan", "mortgage", "credit", "debt", "budget", "savings", "retirement",
-            "401k", "ira", "roth", "pension", "etf", "mutual fund", "asset", "liability",
-            "equity", "capital", "revenue", "profit", "loss", "tax", "banking", "insurance",
-            "real estate", "property", "reit", "cryptocurrency", "forex", "commodity",
-            // French
-            "investissement", "actions", "obligations", "portefeuille", "épargne", "retraite",
-            "crédit", "prêt", "hypothèque", "intérêt", "impôt", "banque", "assurance",
-            "immobilier", "propriété", "bourse",
-            // German
-            "investition", "aktien", "anleihen", "sparplan", "rente", "kredit", "darlehen",
-            "hypothek", "zinsen", "steuer", "versicherung", "immobilien", "eigentum", "börse");
+    private final ChatClient.Builder chatClientBuilder;
+    private final LanguageDetector languageDetector;
+    private final TopicClassifier topicClassifier;
+    private final TopicVerdictCache topicVerdictCache;
+    private final ModelInvoker modelInvoker;
+    // Built on first use and reused for every validation
+    private volatile ChatClient chatClient;
+
+    // Keywords that indicate finance-related topics, compiled once into a single automaton.
+    // English and French keywords match whole words (plus plural endings); German ones also
+    // match inside compounds such as "Immobilienmarkt"
+    static final KeywordMatcher FINANCE_KEYWORDS = new KeywordMatcher(
+            List.of(
+                    // English
+                    "finance", "financial", "investment", "investing", "stock", "bond", "portfolio", "trading",
+                    "dividend", "interest", "loan", "mortgage", "credit", "debt", "budget", "savings",
+                    "retirement", "401k", "ira", "roth", "pension", "etf", "mutual fund", "asset",
+                    "liability", "liabilities", "equity", "equities", "capital", "revenue", "profit", "loss",
+                    "tax", "banking", "insurance", "real estate", "property", "properties", "reit",
+                    "cryptocurrency", "forex", "commodity", "commodities",
+                    // French
+                    "investissement", "actions", "obligations", "portefeuille", "épargne", "retraite",
+                    "crédit", "prêt", "hypothèque", "intérêt", "impôt", "banque", "assurance",
+                    "immobilier", "propriété", "bourse"),
+            List.of(
+                    // German
+                    "finanz", "investition", "aktie", "anleihe", "sparplan", "rente", "kredit", "darlehen",
+                    "hypothek", "zins", "steuer", "versicherung", "immobilie", "eigentum", "börse"));
 
     /**
      * Validates if a topic is related to finance, investment, or real estate.
-     * Uses both keyword matching and AI validation for comprehensive checking.
+     * Uses keyword matching, then the local classifier, and AI validation only for
+     * topics the classifier is unsure about.
      *
      * @param topic The topic to validate
      * @return true if the topic is valid (finance-related), false otherwise
      */
     public boolean isValidTopic(String topic) {
+        return quickVerdict(topic).orElseGet(() -> verifyWithAI(topic));
+    }
+
+    /**
+     * Verdict from the local checks alone: the keyword list and the local classifier.
+     *
+     * @param topic The topic to validate
+     * @return the verdict, or empty if the topic needs {@link #verifyWithAI(String)}
+     */
+    public Optional<Boolean> quickVerdict(String topic) {
         if (topic == null || topic.trim().isEmpty()) {
-            return false;
+            return Optional.of(false);
         }
 
-        String normalizedTopic = topic.toLowerCase().trim();
-
         // First, do a quick keyword check
-        boolean hasFinanceKeyword = FINANCE_KEYWORDS.stream()
-                .anyMatch(normalizedTopic::contains);
+        Optional<String> keyword = FINANCE_KEYWORDS.firstMatch(topic);
+        if (keyword.isPresent()) {
+            log.debug("Topic '{}' validated via keyword '{}'", topic, keyword.get());
+            return Optional.of(true);
+        }
 
-        if (hasFinanceKeyword) {
-            log.debug("Topic '{}' validated via keyword matching", topic);
-            return true;
+        // Then the local classifier, which settles most of the remaining topics
+        TopicClassifier.Verdict verdict = topicClassifier.classify(topic);
+        if (verdict != TopicClassifier.Verdict.UNCERTAIN) {
+            log.debug("Topic '{}' validated by the local classifier: {}", topic, verdict);
+            return Optional.of(verdict == TopicClassifier.Verdict.FINANCE);
         }
+        return Optional.empty();
+    }
 
-        // If no keyword match, use AI to validate
-        return validateWithAI(topic);
+    /**
+     * Asks the AI about a topic the local checks could not settle, once per topic
+     * while its verdict is cached.
+     *
+     * @param topic The topic to validate
+     * @return true if the AI considers the topic finance-related, false if not or if
+     *         the AI could not be reached
+     * @throws AdmissionRejectedException if there was no capacity to ask the AI
+     */
+    public boolean verifyWithAI(String topic) {
+        try {
+            return topicVerdictCache.isValid(topic, this::validateWithAI);
+        } catch (AdmissionRejectedException e) {
+            // Says nothing about the topic
+            throw e;
+        } catch (Exception e) {
+            log.error("Error validating topic with AI: {}", topic, e);
+            // In case of error, be conservative and reject the topic
+            return false;
+        }
     }
 
     /**
      * Uses AI to validate if a topic is related to finance, investment, or real
      * estate.
      * This is a fallback for topics that don't match keywords but might still be
-     * valid.
+     * valid. Model failures propagate, so they are never cached as a verdict.
      *
      * @param topic The topic to validate
      * @return true if AI determines the topic is finance-related, false otherwise
      */
     private boolean validateWithAI(String topic) {
-        try {
-            ChatClient chatClient = chatClientBuilder.build();
-
-            String validationPrompt = String.format("""
-                    You are a topic classifier. Determine if the following topic is related to:
-                    - Finance (personal finance, corporate finance, financial planning, banking)
-                    - Investment (stocks, bonds, ETFs, mutual funds, portfolio management, trading)
-                    - Real Estate (property investment, real estate markets, rental properties, mortgages)
-                    - Immobilien (German real estate, property management)
-
-                    Topic: "%s"
-
-                    Respond with ONLY "YES" if the topic is related to any of the above domains.
-                    Respond with ONLY "NO" if the topic is NOT related to any of the above domains.
-
-                    Do not provide any explanation, just YES or NO.
-                    """, topic);
-
-            String response = chatClient.prompt(validationPrompt)
-                    .call()
-                    .content()
-                    .trim()
-                    .toUpperCase();
-
-            boolean isValid = response.contains("YES");
-            log.debug("Topic '{}' AI validation result: {}", topic, isValid ? "VALID" : "INVALID");
-            return isValid;
+        String validationPrompt = String.format("""
+                You are a topic classifier. Determine if the following topic is related to:
+                - Finance (personal finance, corporate finance, financial planning, banking)
+                - Investment (stocks, bonds, ETFs, mutual funds, portfolio management, trading)
+                - Real Estate (property investment, real estate markets, rental properties, mortgages)
+                - Immobilien (German real estate, property management)
+
+                Topic: "%s"
+
+                Respond with ONLY "YES" if the topic is related to any of the above domains.
+                Respond with ONLY "NO" if the topic is NOT related to any of the above domains.
+
+                Do not provide any explanation, just YES or NO.
+                """, topic);
+
+        String response = modelInvoker.call(ModelInvoker.UseCase.TOPIC_VALIDATION, new Prompt(validationPrompt),
+                        p -> chatClient().prompt(p)
+                                .advisors(a -> a.param(TokenUsageRecorder.USE_CASE, "topic-validation"))
+                                .call()
+                                .content())
+                .trim()
+                .toUpperCase();
+
+        boolean isValid = response.contains("YES");
+        log.debug("Topic '{}' AI validation result: {}", topic, isValid ? "VALID" : "INVALID");
+        VERDICTS.info("{}\t{}", isValid ? TopicClassifierModel.FINANCE : TopicClassifierModel.OTHER,
+                topic.replaceAll("\\s+", " ").strip());
+        return isValid;
+    }
 
-        } catch (Exception e) {
-            log.error("Error validating topic with AI: {}", topic, e);
-            // In case of error, be conservative and reject the topic
-            return false;
+    private ChatClient chatClient() {
+        ChatClient client = chatClient;
+        if (client == null) {
+            client = chatClientBuilder.build();
+            chatClient = client;
         }
+        return client;
     }
 
     /**
@@ -111,33 +171,14 @@ public class TopicValidatorService {
      * @return Localized error message
      */
     public String getInvalidTopicMessage(String topic) {
-        // Detect language based on common words
-        String lowerTopic = topic.toLowerCase();
-
-        // French detection
-        if (containsFrenchWords(lowerTopic)) {
-            return "Le sujet '" + topic + "' n'est pas lié à la finance, l'investissement ou l'immobilier. " +
+        return switch (languageDetector.detect(topic)) {
+            case FR -> "Le sujet '" + topic + "' n'est pas lié à la finance, l'investissement ou l'immobilier. " +
                     "Veuillez choisir un sujet dans ces domaines.";
-        }
-
-        // German detection
-        if (containsGermanWords(lowerTopic)) {
-            return "Das Thema '" + topic + "' bezieht sich nicht auf Finanzen, Investitionen oder Immobilien. " +
+            case DE -> "Das Thema '" + topic + "' bezieht sich nicht auf Finanzen, Investitionen oder Immobilien. " +
                     "Bitte wählen Sie ein Thema aus diesen Bereichen.";
-        }
-
-        // Default to English
-        return "The topic '" + topic + "' is not related to finance, investment, or real estate. " +
-                "Please choose a topic within these domains.";
-    }
-
-    private boolean containsFrenchWords(String text) {
-        String[] frenchIndicators = { "le", "la", "les", "un", "une", "des", "est", "sont", "dans", "sur", "avec" };
-        return Arrays.stream(frenchIndicators).anyMatch(text::contains);
-    }
-
-    private boolean containsGermanWords(String text) {
-        String[] germanIndicators = { "der", "die", "das", "ein", "eine", "ist", "sind", "und", "über", "für" };
-        return Arrays.stream(germanIndicators).anyMatch(text::contains);
+            // Default to English
+            default -> "The topic '" + topic + "' is not related to finance, investment, or real estate. " +
+                    "Please choose a topic within these domains.";
+        };
     }
 }
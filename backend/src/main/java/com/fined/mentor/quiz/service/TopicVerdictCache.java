@@ -0,0 +1,177 @@
+package com.fined.mentor.quiz.service;
+
+import com.fined.mentor.core.language.TextNormalizer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+
+/**
+ * Cache of AI verdicts on whether a topic is finance-related, so a topic that
+ * missed the keyword list is only sent to the model once.
+ * <p>
+ * Topics are keyed by their normalised text. Verdicts live in a size-bounded
+ * in-process LRU and, when sharing is enabled, in Redis so every instance benefits
+ * from one classification. Accepted and rejected topics expire separately, so a
+ * wrongly rejected topic gets another chance sooner than an accepted one is
+ * re-checked. Only actual verdicts are cached, never a failed model call.
+ */
+@Slf4j
+@Component
+public class TopicVerdictCache {
+
+    private static final String KEY_PREFIX = "topic-verdict:";
+    private static final String VALID = "1";
+    private static final String INVALID = "0";
+
+    private final RedisCommands<String, String> redis;
+    private final boolean enabled;
+    private final Duration positiveTtl;
+    private final Duration negativeTtl;
+    private final int maxTopicLength;
+    private final Cache<String, Boolean> cache;
+    private final Counter localHits;
+    private final Counter sharedHits;
+    private final Counter misses;
+
+    @Autowired
+    public TopicVerdictCache(MeterRegistry meterRegistry,
+            RedisClient redisClient,
+            @Value("${app.quiz.topic-verdicts.enabled:true}") boolean enabled,
+            @Value("${app.quiz.topic-verdicts.shared:true}") boolean shared,
+            @Value("${app.quiz.topic-verdicts.max-size:10000}") long maxSize,
+            @Value("${app.quiz.topic-verdicts.positive-ttl:P7D}") Duration positiveTtl,
+            @Value("${app.quiz.topic-verdicts.negative-ttl:PT6H}") Duration negativeTtl,
+            @Value("${app.quiz.topic-verdicts.max-topic-length:200}") int maxTopicLength) {
+        this(meterRegistry, enabled && shared ? redisClient.connect().sync() : null,
+                enabled, maxSize, positiveTtl, negativeTtl, maxTopicLength);
+    }
+
+    TopicVerdictCache(MeterRegistry meterRegistry,
+            RedisCommands<String, String> redis,
+            boolean enabled,
+            long maxSize,
+            Duration positiveTtl,
+            Duration negativeTtl,
+            int maxTopicLength) {
+        this.redis = redis;
+        this.enabled = enabled;
+        this.positiveTtl = positiveTtl;
+        this.negativeTtl = negativeTtl;
+        this.maxTopicLength = maxTopicLength;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.creating((String key, Boolean valid) -> ttlFor(valid)))
+                .build();
+
+        this.localHits = Counter.builder("quiz.topic.verdicts.requests")
+                .tag("result", "hit")
+                .description("Topic validations answered from the in-process verdict cache")
+                .register(meterRegistry);
+        this.sharedHits = Counter.builder("quiz.topic.verdicts.requests")
+                .tag("result", "shared_hit")
+                .description("Topic validations answered from the shared Redis verdict cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("quiz.topic.verdicts.requests")
+                .tag("result", "miss")
+                .description("Topic validations that needed a model call")
+                .register(meterRegistry);
+        Gauge.builder("quiz.topic.verdicts.hit.ratio", this, TopicVerdictCache::hitRatio)
+                .description("Share of cacheable topic validations answered without a model call")
+                .register(meterRegistry);
+        Gauge.builder("quiz.topic.verdicts.entries", cache, Cache::estimatedSize)
+                .description("Topic verdicts currently cached in-process")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached verdict for {@code topic}, or asks {@code classifier} and
+     * caches its answer. Exceptions from the classifier propagate and leave nothing
+     * cached.
+     */
+    public boolean isValid(String topic, Predicate<String> classifier) {
+        String key = keyFor(topic);
+        if (key == null) {
+            return classifier.test(topic);
+        }
+
+        Boolean cached = cache.getIfPresent(key);
+        if (cached != null) {
+            localHits.increment();
+            return cached;
+        }
+        Boolean shared = readShared(key);
+        if (shared != null) {
+            sharedHits.increment();
+            cache.put(key, shared);
+            return shared;
+        }
+
+        misses.increment();
+        boolean valid = classifier.test(topic);
+        cache.put(key, valid);
+        writeShared(key, valid);
+        return valid;
+    }
+
+    /**
+     * Cache key of a topic, or null if its verdict should not be cached.
+     */
+    String keyFor(String topic) {
+        if (!enabled) {
+            return null;
+        }
+        String normalized = TextNormalizer.normalize(topic);
+        if (normalized.isEmpty() || normalized.length() > maxTopicLength) {
+            return null;
+        }
+        return KEY_PREFIX + TextNormalizer.digest(normalized);
+    }
+
+    private Boolean readShared(String key) {
+        if (redis == null) {
+            return null;
+        }
+        try {
+            String verdict = redis.get(key);
+            return verdict == null ? null : VALID.equals(verdict);
+        } catch (RuntimeException e) {
+            // Losing the shared cache only costs a model call
+            log.warn("Failed to read topic verdict from Redis, validating without it", e);
+            return null;
+        }
+    }
+
+    private void writeShared(String key, boolean valid) {
+        if (redis == null) {
+            return;
+        }
+        try {
+            redis.set(key, valid ? VALID : INVALID, SetArgs.Builder.px(ttlFor(valid).toMillis()));
+        } catch (RuntimeException e) {
+            log.warn("Failed to share topic verdict through Redis", e);
+        }
+    }
+
+    private Duration ttlFor(boolean valid) {
+        return valid ? positiveTtl : negativeTtl;
+    }
+
+    private double hitRatio() {
+        double hits = localHits.count() + sharedHits.count();
+        double total = hits + misses.count();
+        return total == 0 ? 0.0 : hits / total;
+    }
+}
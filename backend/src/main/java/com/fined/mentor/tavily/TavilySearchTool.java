@@ -1,19 +1,42 @@
 package com.fined.mentor.tavily;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.model.ToolContext;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
+@Slf4j
 @Component
 public class TavilySearchTool {
 
+    /**
+     * Tool context key of the id of the generation a search is made for. Once that
+     * generation is {@link #cancel(String) cancelled}, its searches are skipped.
+     */
+    public static final String GENERATION_ID = "generationId";
+
     private final TavilyApiClient tavilyApiClient;
+    // Only needs to outlive the tool calls a cancelled generation still has in flight
+    private final Cache<String, Boolean> cancelledGenerations = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .maximumSize(10_000)
+            .build();
 
     public TavilySearchTool(TavilyApiClient tavilyApiClient) {
         this.tavilyApiClient = tavilyApiClient;
     }
 
     @Tool(description = "Search the web for information using Tavily API. Use this tool when you need current information, market trends, or specific data points.")
-    public String searchWeb(String query) {
+    public String searchWeb(String query, ToolContext toolContext) {
+        if (isCancelled(toolContext)) {
+            log.debug("Skipping web search for a cancelled generation: {}", query);
+            return "Search cancelled.";
+        }
+
         TavilyApiClient.TavilyRequest request = TavilyApiClient.TavilyRequest.builder()
                 .query(query)
                 .searchDepth("basic")
@@ -40,4 +63,18 @@ public class TavilySearchTool {
 
         return result.toString();
     }
+
+    /**
+     * Makes later searches of the generation with this {@link #GENERATION_ID} return
+     * without calling Tavily. A search already in flight still completes.
+     */
+    public void cancel(String generationId) {
+        cancelledGenerations.put(generationId, Boolean.TRUE);
+    }
+
+    private boolean isCancelled(ToolContext toolContext) {
+        return toolContext != null
+                && toolContext.getContext().get(GENERATION_ID) instanceof String generationId
+                && cancelledGenerations.getIfPresent(generationId) != null;
+    }
 }
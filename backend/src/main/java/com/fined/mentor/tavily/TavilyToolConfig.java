@@ -0,0 +1,21 @@
+package com.fined.mentor.tavily;
+
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.ai.tool.method.MethodToolCallbackProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TavilyToolConfig {
+
+    /**
+     * Lets the chat model run the search tool by name when a prompt declares it
+     * through cached content instead of its own options.
+     */
+    @Bean
+    public ToolCallbackProvider tavilyToolCallbacks(TavilySearchTool tavilySearchTool) {
+        return MethodToolCallbackProvider.builder()
+                .toolObjects(tavilySearchTool)
+                .build();
+    }
+}
@@ -4,11 +4,15 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fined.mentor.auth.entity.Role;
 import com.fined.mentor.auth.entity.User;
 import com.fined.mentor.chat.dto.ChatMessageRequest;
+import com.fined.mentor.chat.dto.ChatSessionSummary;
 import com.fined.mentor.chat.dto.UpdateSessionTitleRequest;
 import com.fined.mentor.chat.entity.ChatMessage;
 import com.fined.mentor.chat.entity.ChatSession;
+import com.fined.mentor.chat.exception.ChatSessionNotFoundException;
 import com.fined.mentor.chat.service.ChatService;
 import com.fined.mentor.chat.service.ChatSessionService;
+import com.fined.mentor.core.admission.AdmissionRejectedException;
+import com.fined.mentor.core.dto.CursorPage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -24,6 +28,7 @@ import reactor.core.publisher.Flux;
 
 import java.time.Instant;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -169,6 +174,55 @@ class ChatControllerTest {
                                 .andExpect(jsonPath("$.success").value(true));
         }
 
+        @Test
+        void getActiveSessionPage_Success() throws Exception {
+                ChatSessionSummary summary = ChatSessionSummary.builder().id("session1").title("New Chat")
+                                .quizTopic("ETFs").quizQuestionCount(5).build();
+                when(chatSessionService.getActiveSessionPage("user1", "abc", 10))
+                                .thenReturn(new CursorPage<>(List.of(summary), "next"));
+
+                mockMvc.perform(get("/api/chat/sessions/page").param("cursor", "abc").param("limit", "10"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.data.items[0].id").value("session1"))
+                                .andExpect(jsonPath("$.data.items[0].quizQuestionCount").value(5))
+                                .andExpect(jsonPath("$.data.nextCursor").value("next"));
+        }
+
+        @Test
+        void getChatHistoryPage_Success() throws Exception {
+                when(chatService.getChatHistoryPage("session1", null, null))
+                                .thenReturn(new CursorPage<>(List.of(sampleMessage), null));
+
+                mockMvc.perform(get("/api/chat/sessions/session1/history/page"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.data.items[0].id").value("message1"));
+
+                verify(chatSessionService).verifyOwnership("session1", "user1");
+        }
+
+        @Test
+        void getChatHistoryPage_InvalidCursor_BadRequest() throws Exception {
+                when(chatService.getChatHistoryPage("session1", "bad", null))
+                                .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+                mockMvc.perform(get("/api/chat/sessions/session1/history/page").param("cursor", "bad"))
+                                .andExpect(status().isBadRequest())
+                                .andExpect(jsonPath("$.error").value("Invalid cursor"));
+        }
+
+        @Test
+        void getChatHistory_NotOwner_Rejected() throws Exception {
+                doThrow(new ChatSessionNotFoundException("Chat session not found: session1"))
+                                .when(chatSessionService).verifyOwnership("session1", "user1");
+
+                mockMvc.perform(get("/api/chat/sessions/session1/history"))
+                                .andExpect(status().isBadRequest())
+                                .andExpect(jsonPath("$.success").value(false))
+                                .andExpect(jsonPath("$.error").value("Chat session not found: session1"));
+
+                verify(chatService, never()).getChatHistory(anyString());
+        }
+
         @Test
         void createChatSession_Error() throws Exception {
                 when(chatSessionService.createSession(anyString(), anyString()))
@@ -209,6 +263,23 @@ class ChatControllerTest {
                                 .andExpect(jsonPath("$.error").value("Chat error"));
         }
 
+        @Test
+        void sendMessage_NoModelCapacity_ReturnsServiceUnavailable() throws Exception {
+                ChatMessageRequest request = new ChatMessageRequest();
+                request.setChatSessionId("session1");
+                request.setMessage("Hello");
+
+                when(chatService.getChatResponse(anyString(), anyString()))
+                                .thenThrow(new AdmissionRejectedException("busy"));
+
+                mockMvc.perform(post("/api/chat/message")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isServiceUnavailable())
+                                .andExpect(header().string("Retry-After", "1"))
+                                .andExpect(jsonPath("$.success").value(false));
+        }
+
         @Test
         void getChatSession_Error() throws Exception {
                 when(chatSessionService.getSessionWithDetails(anyString()))
@@ -262,11 +333,28 @@ class ChatControllerTest {
                 request.setChatSessionId("session1");
                 request.setMessage("Hello");
 
-                when(chatService.streamChatResponse(anyString(), anyString())).thenThrow(new RuntimeException("Stream error"));
+                when(chatService.streamChatResponse(anyString(), anyString(), anyString())).thenThrow(new RuntimeException("Stream error"));
+
+                mockMvc.perform(post("/api/chat/stream")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isOk());
+        }
+
+        @Test
+        void streamMessage_StreamsForCurrentUser() throws Exception {
+                com.fined.mentor.chat.dto.ChatMessageRequest request = new com.fined.mentor.chat.dto.ChatMessageRequest();
+                request.setChatSessionId("session1");
+                request.setMessage("Hello");
+
+                when(chatService.streamChatResponse("session1", "user1", "Hello")).thenReturn(Flux.just("Hi"));
 
                 mockMvc.perform(post("/api/chat/stream")
                                 .contentType(MediaType.APPLICATION_JSON)
                                 .content(objectMapper.writeValueAsString(request)))
                                 .andExpect(status().isOk());
+
+                verify(chatService).streamChatResponse("session1", "user1", "Hello");
+                verify(chatSessionService, never()).verifyOwnership(anyString(), anyString());
         }
 }
@@ -0,0 +1,63 @@
+package com.fined.mentor.chat.repository;
+
+import com.fined.mentor.chat.entity.ChatMessage;
+import com.fined.mentor.core.dto.KeysetCursor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChatMessageRepositoryCustomImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private ChatMessageRepositoryCustomImpl repository;
+
+    @Test
+    void findPageBefore_FirstPage_SortsNewestFirstWithLimit() {
+        when(mongoTemplate.find(any(Query.class), eq(ChatMessage.class))).thenReturn(List.of());
+
+        repository.findPageBefore("session1", null, 21);
+
+        Query query = captureQuery();
+        assertEquals(new Document("chatSessionId", "session1"), query.getQueryObject());
+        assertEquals(new Document("timestamp", -1).append("_id", -1), query.getSortObject());
+        assertEquals(21, query.getLimit());
+    }
+
+    @Test
+    void findPageBefore_WithCursor_MatchesOnlyOlderMessages() {
+        when(mongoTemplate.find(any(Query.class), eq(ChatMessage.class))).thenReturn(List.of());
+        ObjectId lastId = new ObjectId();
+        Instant position = Instant.parse("2026-02-01T09:00:00Z");
+
+        repository.findPageBefore("session1", new KeysetCursor(position, lastId.toHexString()), 10);
+
+        String filter = captureQuery().getQueryObject().toString();
+        assertTrue(filter.contains("$or"));
+        assertTrue(filter.contains("$lt=" + position));
+        assertTrue(filter.contains(lastId.toHexString()));
+    }
+
+    private Query captureQuery() {
+        ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(captor.capture(), eq(ChatMessage.class));
+        return captor.getValue();
+    }
+}
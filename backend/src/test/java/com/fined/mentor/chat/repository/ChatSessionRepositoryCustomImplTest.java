@@ -0,0 +1,178 @@
+package com.fined.mentor.chat.repository;
+
+import com.fined.mentor.chat.dto.ChatSessionSummary;
+import com.fined.mentor.chat.entity.ChatSession;
+import com.fined.mentor.core.dto.KeysetCursor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ChatSessionRepositoryCustomImplTest {
+
+    private MongoTemplate mongoTemplate;
+    private ChatSessionRepositoryCustomImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        mongoTemplate = mock(MongoTemplate.class);
+        doReturn(converter).when(mongoTemplate).getConverter();
+        repository = new ChatSessionRepositoryCustomImpl(mongoTemplate);
+    }
+
+    @Test
+    void findActiveSessionsWithLatestQuiz_QueryCountIsConstantInNumberOfSessions() {
+        for (int sessions : new int[] { 1, 10, 200 }) {
+            stubAggregation(rows(sessions));
+            clearInvocations(mongoTemplate);
+
+            List<ChatSession> result = repository.findActiveSessionsWithLatestQuiz("user1");
+
+            assertEquals(sessions, result.size());
+            assertEquals(1, countQueries(), "queries for " + sessions + " sessions");
+        }
+    }
+
+    @Test
+    void findActiveSessionsWithLatestQuiz_MapsQuizAndState() {
+        stubAggregation(rows(2));
+
+        List<ChatSession> result = repository.findActiveSessionsWithLatestQuiz("user1");
+
+        ChatSession withQuiz = result.get(0);
+        assertEquals("Session 0", withQuiz.getTitle());
+        assertEquals("ETF basics", withQuiz.getQuiz().getTopic());
+        assertEquals(withQuiz.getQuiz().getId(), withQuiz.getQuizState().getQuizId());
+        assertEquals(3, withQuiz.getQuizState().getCurrentQuestionIndex());
+        assertTrue(withQuiz.getQuizState().isFinished());
+
+        ChatSession withoutQuiz = result.get(1);
+        assertNull(withoutQuiz.getQuiz());
+        assertNull(withoutQuiz.getQuizState());
+    }
+
+    @Test
+    void findActiveSessionsWithLatestQuiz_BuildsSingleFilteredPipeline() {
+        stubAggregation(List.of());
+
+        repository.findActiveSessionsWithLatestQuiz("user1");
+
+        verify(mongoTemplate).aggregate(argThat((Aggregation aggregation) -> {
+            String pipeline = aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT).toString();
+            return pipeline.contains("userId=user1")
+                    && pipeline.contains("from=quizzes")
+                    && pipeline.contains("from=quiz_states");
+        }), eq("chat_sessions"), eq(Document.class));
+    }
+
+    @Test
+    void findActiveSessionSummaries_MapsProgressWithoutQuizBodies() {
+        ObjectId sessionId = new ObjectId();
+        ObjectId quizId = new ObjectId();
+        Document row = new Document("_id", sessionId)
+                .append("title", "Budgeting")
+                .append("createdAt", new Date())
+                .append("quiz", new Document("_id", quizId)
+                        .append("topic", "Budgeting")
+                        .append("questionCount", 5)
+                        .append("quizState", List.of(new Document("currentQuestionIndex", 2)
+                                .append("score", 1)
+                                .append("isFinished", false)
+                                .append("isSubmitted", new Document("2", true)))));
+        doReturn(new AggregationResults<>(List.of(row, new Document("_id", new ObjectId())),
+                new Document()))
+                .when(mongoTemplate).aggregate(any(Aggregation.class), eq("chat_sessions"), eq(Document.class));
+
+        List<ChatSessionSummary> result = repository.findActiveSessionSummaries("user1", null, 21);
+
+        ChatSessionSummary summary = result.get(0);
+        assertEquals(sessionId.toHexString(), summary.getId());
+        assertEquals(quizId.toHexString(), summary.getQuizId());
+        assertEquals(5, summary.getQuizQuestionCount());
+        assertEquals(2, summary.getQuizCurrentQuestionIndex());
+        assertFalse(summary.getQuizFinished());
+        assertTrue(summary.getQuizCurrentQuestionSubmitted());
+        assertNull(result.get(1).getQuizId());
+    }
+
+    @Test
+    void findActiveSessionSummaries_CursorAddsKeysetConditionAndLimit() {
+        stubAggregation(List.of());
+        ObjectId lastId = new ObjectId();
+        KeysetCursor cursor = new KeysetCursor(Instant.parse("2026-02-01T09:00:00Z"), lastId.toHexString());
+
+        repository.findActiveSessionSummaries("user1", cursor, 21);
+
+        verify(mongoTemplate).aggregate(argThat((Aggregation aggregation) -> {
+            String pipeline = aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT).toString();
+            return pipeline.contains("$or")
+                    && pipeline.contains(lastId.toHexString())
+                    && pipeline.contains("$limit=21")
+                    && pipeline.contains("questionCount")
+                    && !pipeline.contains("questions=1");
+        }), eq("chat_sessions"), eq(Document.class));
+    }
+
+    // Every call on the template that reaches the database, whatever the method
+    private long countQueries() {
+        return mockingDetails(mongoTemplate).getInvocations().stream()
+                .filter(inv -> !inv.getMethod().getName().equals("getConverter"))
+                .count();
+    }
+
+    private void stubAggregation(List<Document> rows) {
+        doReturn(new AggregationResults<>(rows, new Document()))
+                .when(mongoTemplate).aggregate(any(Aggregation.class), eq("chat_sessions"), eq(Document.class));
+    }
+
+    // Even-numbered sessions have a quiz with a state, odd-numbered ones have none
+    private List<Document> rows(int count) {
+        List<Document> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ObjectId sessionId = new ObjectId();
+            Document row = new Document("_id", sessionId)
+                    .append("title", "Session " + i)
+                    .append("userId", "user1")
+                    .append("active", true)
+                    .append("createdAt", new Date());
+            if (i % 2 == 0) {
+                ObjectId quizId = new ObjectId();
+                row.append("quiz", new Document("_id", quizId)
+                        .append("topic", "ETF basics")
+                        .append("chatSessionId", sessionId.toHexString())
+                        .append("quizState", List.of(new Document("_id", new ObjectId())
+                                .append("quizId", quizId.toHexString())
+                                .append("chatSessionId", sessionId.toHexString())
+                                .append("currentQuestionIndex", 3)
+                                .append("isFinished", true))));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,107 @@
+package com.fined.mentor.chat.service;
+
+import com.fined.mentor.chat.entity.ChatMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatContextBuilderTest {
+
+    private static final String SYSTEM_PROMPT = "You are Fined Mentor.";
+
+    private ChatContextBuilder contextBuilder;
+
+    @BeforeEach
+    void setUp() {
+        contextBuilder = new ChatContextBuilder(new JTokkitTokenCountEstimator(), 200, 10);
+    }
+
+    @Test
+    void build_MapsRolesAndKeepsSystemPromptFirst() {
+        List<ChatMessage> history = List.of(
+                message(ChatMessage.Role.USER, "What is an ETF?"),
+                message(ChatMessage.Role.MODEL, "An ETF is an exchange-traded fund."),
+                message(ChatMessage.Role.USER, "And a REIT?"));
+
+        List<Message> messages = contextBuilder.build(SYSTEM_PROMPT, history);
+
+        assertEquals(4, messages.size());
+        assertInstanceOf(SystemMessage.class, messages.get(0));
+        assertEquals(SYSTEM_PROMPT, messages.get(0).getText());
+        assertInstanceOf(UserMessage.class, messages.get(1));
+        assertInstanceOf(AssistantMessage.class, messages.get(2));
+        assertInstanceOf(UserMessage.class, messages.get(3));
+        assertEquals("And a REIT?", messages.get(3).getText());
+    }
+
+    @Test
+    void build_DropsOldestTurnsWhenOverTokenBudget() {
+        List<ChatMessage> history = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            history.add(message(i % 2 == 0 ? ChatMessage.Role.USER : ChatMessage.Role.MODEL,
+                    "Message " + i + " " + "about compound interest and diversification ".repeat(5)));
+        }
+
+        List<Message> messages = contextBuilder.build(SYSTEM_PROMPT, history);
+
+        assertTrue(messages.size() < 11);
+        assertTrue(messages.get(messages.size() - 1).getText().startsWith("Message 9"));
+        assertTrue(contextBuilder.estimateTokens(messages.subList(1, messages.size())) <= 200);
+    }
+
+    @Test
+    void build_CapsNumberOfHistoryMessages() {
+        List<ChatMessage> history = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            history.add(message(i % 2 == 0 ? ChatMessage.Role.USER : ChatMessage.Role.MODEL, "Hi " + i));
+        }
+
+        List<Message> messages = contextBuilder.build(SYSTEM_PROMPT, history);
+
+        assertTrue(messages.size() <= 11);
+        assertEquals("Hi 29", messages.get(messages.size() - 1).getText());
+    }
+
+    @Test
+    void build_StartsConversationWithUserTurn() {
+        List<ChatMessage> history = List.of(
+                message(ChatMessage.Role.MODEL, "Welcome back!"),
+                message(ChatMessage.Role.USER, "What is a bond?"));
+
+        List<Message> messages = contextBuilder.build(SYSTEM_PROMPT, history);
+
+        assertEquals(2, messages.size());
+        assertInstanceOf(UserMessage.class, messages.get(1));
+    }
+
+    @Test
+    void build_AlwaysKeepsNewestMessageEvenIfOverBudget() {
+        String longQuestion = "Explain mortgages in detail. ".repeat(100);
+
+        List<Message> messages = contextBuilder.build(SYSTEM_PROMPT,
+                List.of(message(ChatMessage.Role.USER, "older"), message(ChatMessage.Role.USER, longQuestion)));
+
+        assertEquals(2, messages.size());
+        assertEquals(longQuestion, messages.get(1).getText());
+    }
+
+    @Test
+    void build_NullOrEmptyHistory_ReturnsOnlySystemPrompt() {
+        assertEquals(1, contextBuilder.build(SYSTEM_PROMPT, null).size());
+        assertEquals(1, contextBuilder.build(SYSTEM_PROMPT, Collections.emptyList()).size());
+    }
+
+    private ChatMessage message(ChatMessage.Role role, String text) {
+        return ChatMessage.builder().role(role).text(text).build();
+    }
+}
@@ -0,0 +1,167 @@
+package com.fined.mentor.chat.service;
+
+import com.fined.mentor.chat.dto.ChatSessionMetadata;
+import com.fined.mentor.chat.entity.ChatMessage;
+import com.fined.mentor.chat.entity.ChatSession;
+import com.fined.mentor.chat.repository.ChatMessageRepository;
+import com.fined.mentor.chat.repository.ChatSessionRepository;
+import com.fined.mentor.chat.repository.ReactiveChatMessageRepository;
+import com.fined.mentor.chat.repository.ReactiveChatSessionRepository;
+import com.fined.mentor.core.language.LanguageDetector;
+import com.fined.mentor.core.llm.ModelInvoker;
+import com.fined.mentor.core.llm.PromptCacheProvider;
+import com.fined.mentor.core.llm.PromptPrefixCache;
+import com.fined.mentor.core.llm.PromptRegistry;
+import com.fined.mentor.tavily.TavilySearchTool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.data.domain.Limit;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Measures prompt size and time-to-first-token for a streamed chat turn as the
+ * session grows from 10 to 1,000 stored messages. The model is a stub, so the
+ * timing reflects only the history loading and context assembly on our side.
+ */
+class ChatContextWindowBenchmarkTest {
+
+    private static final String SESSION_ID = "bench-session";
+    private static final int[] SESSION_SIZES = { 10, 100, 1_000 };
+    private static final int ITERATIONS = 20;
+
+    @Test
+    void promptSizeAndTimeToFirstTokenStayFlatAsSessionGrows() {
+        ChatContextBuilder contextBuilder = new ChatContextBuilder(new JTokkitTokenCountEstimator(), 4000, 40);
+        Map<Integer, Integer> promptTokens = new LinkedHashMap<>();
+        Map<Integer, Integer> rowsFetched = new LinkedHashMap<>();
+        Map<Integer, Double> ttftMicros = new LinkedHashMap<>();
+
+        for (int size : SESSION_SIZES) {
+            List<ChatMessage> stored = seedSession(size);
+            AtomicInteger fetched = new AtomicInteger();
+            AtomicReference<Prompt> lastPrompt = new AtomicReference<>();
+
+            ChatServiceImpl chatService = newChatService(stored, fetched, lastPrompt, contextBuilder);
+
+            // Warm up before timing
+            for (int i = 0; i < ITERATIONS; i++) {
+                chatService.streamChatResponse(SESSION_ID, "user1", "What is an ETF?").blockFirst();
+            }
+
+            fetched.set(0);
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                chatService.streamChatResponse(SESSION_ID, "user1", "What is an ETF?").blockFirst();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            promptTokens.put(size, contextBuilder.estimateTokens(lastPrompt.get().getInstructions()));
+            rowsFetched.put(size, fetched.get() / ITERATIONS);
+            ttftMicros.put(size, elapsed / 1_000.0 / ITERATIONS);
+        }
+
+        System.out.println("messages | prompt tokens | rows fetched | ttft (us)");
+        for (int size : SESSION_SIZES) {
+            System.out.printf("%8d | %13d | %12d | %9.1f%n",
+                    size, promptTokens.get(size), rowsFetched.get(size), ttftMicros.get(size));
+        }
+
+        // Once the window is full, prompt size and rows read no longer depend on session length;
+        // with the history cache warm, an ongoing conversation reads no history rows at all
+        assertEquals(promptTokens.get(100), promptTokens.get(1_000));
+        assertTrue(rowsFetched.get(1_000) <= contextBuilder.getMaxHistoryMessages());
+        assertEquals(rowsFetched.get(100), rowsFetched.get(1_000));
+        assertEquals(0, rowsFetched.get(1_000));
+    }
+
+    private ChatServiceImpl newChatService(List<ChatMessage> stored, AtomicInteger fetched,
+            AtomicReference<Prompt> lastPrompt, ChatContextBuilder contextBuilder) {
+        ChatSessionRepository chatSessionRepository = mock(ChatSessionRepository.class);
+        ChatMessageRepository chatMessageRepository = mock(ChatMessageRepository.class);
+        ReactiveChatMessageRepository reactiveChatMessageRepository = mock(ReactiveChatMessageRepository.class);
+        ChatMessageWriteQueue chatMessageWriteQueue = mock(ChatMessageWriteQueue.class);
+        ChatModel chatModel = mock(ChatModel.class);
+
+        when(chatSessionRepository.findByIdAndActiveTrue(anyString()))
+                .thenReturn(Optional.of(ChatSession.builder().id(SESSION_ID).active(true).build()));
+        when(chatMessageWriteQueue.enqueue(any(ChatMessage.class)))
+                .thenAnswer(inv -> CompletableFuture.completedFuture(inv.getArgument(0)));
+        when(reactiveChatMessageRepository.findByChatSessionIdOrderByTimestampDesc(anyString(), any(Limit.class)))
+                .thenAnswer(inv -> {
+                    Limit limit = inv.getArgument(1);
+                    List<ChatMessage> tail = new ArrayList<>(stored.subList(
+                            Math.max(0, stored.size() - limit.max()), stored.size()));
+                    Collections.reverse(tail);
+                    fetched.addAndGet(tail.size());
+                    return Flux.fromIterable(tail);
+                });
+        when(chatModel.stream(any(Prompt.class))).thenAnswer(inv -> {
+            lastPrompt.set(inv.getArgument(0));
+            return Flux.just(new ChatResponse(List.of(new Generation(new AssistantMessage("An ETF")))));
+        });
+
+        ChatMessageServiceImpl chatMessageService = new ChatMessageServiceImpl(chatMessageRepository,
+                reactiveChatMessageRepository, chatSessionRepository,
+                new ChatHistoryCache(new SimpleMeterRegistry(), 64 * 1024 * 1024,
+                        Duration.ofMinutes(30), contextBuilder.getMaxHistoryMessages()),
+                new ChatSessionCache(chatSessionRepository, mock(ReactiveChatSessionRepository.class),
+                        new SimpleMeterRegistry(), 1_000, Duration.ofMinutes(1)),
+                chatMessageWriteQueue);
+        ChatSessionService chatSessionService = mock(ChatSessionService.class);
+        when(chatSessionService.findOwnedSession(anyString(), anyString()))
+                .thenReturn(Mono.just(ChatSessionMetadata.from(ChatSession.builder().id(SESSION_ID).active(true).build())));
+
+        PromptPrefixCache promptPrefixCache = new PromptPrefixCache(mock(PromptCacheProvider.class),
+                new JTokkitTokenCountEstimator(), new SimpleMeterRegistry(), false, Duration.ofHours(1),
+                Duration.ofMinutes(5), Duration.ofMinutes(5), 1024);
+        return new ChatServiceImpl(ChatClient.builder(chatModel), chatSessionService,
+                chatMessageService, mock(TavilySearchTool.class), contextBuilder, mock(ChatSummaryService.class),
+                new GuestAnswerCache(new SimpleMeterRegistry(), new LanguageDetector(), null, true, 100,
+                        Duration.ofHours(1), 300, 24),
+                new PromptRegistry(new LanguageDetector(), promptPrefixCache,
+                        new JTokkitTokenCountEstimator(), new SimpleMeterRegistry()),
+                promptPrefixCache, new ModelInvoker(new SimpleMeterRegistry(), false, "", Duration.ofSeconds(30),
+                        Duration.ofSeconds(60), Duration.ofSeconds(5), false, 0.95, 20, Duration.ofSeconds(1), 20, 0.5,
+                        Duration.ofSeconds(30)));
+    }
+
+    private List<ChatMessage> seedSession(int size) {
+        List<ChatMessage> messages = new ArrayList<>(size);
+        Instant start = Instant.parse("2026-01-01T00:00:00Z");
+        for (int i = 0; i < size; i++) {
+            messages.add(ChatMessage.builder()
+                    .id("m" + i)
+                    .chatSessionId(SESSION_ID)
+                    .role(i % 2 == 0 ? ChatMessage.Role.USER : ChatMessage.Role.MODEL)
+                    .text("Turn " + i + ": how do index funds, bonds and savings plans fit a long-term portfolio?")
+                    .timestamp(start.plusSeconds(i))
+                    .build());
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,149 @@
+package com.fined.mentor.chat.service;
+
+import com.fined.mentor.chat.entity.ChatMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatHistoryCacheTest {
+
+    private static final String SESSION_ID = "session1";
+
+    private SimpleMeterRegistry meterRegistry;
+    private ChatHistoryCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ChatHistoryCache(meterRegistry, 1_000_000, Duration.ofMinutes(30), 4);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void getRecent_SecondReadIsServedFromCache() {
+        List<ChatMessage> stored = messages(3);
+
+        cache.getRecent(SESSION_ID, 4, loader(stored));
+        List<ChatMessage> result = cache.getRecent(SESSION_ID, 4, loader(stored));
+
+        assertEquals(stored, result);
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("chat.history.cache.requests").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("chat.history.cache.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void getRecentReactive_CachesLoadedMessages() {
+        List<ChatMessage> stored = messages(3);
+
+        assertEquals(stored, cache.getRecentReactive(SESSION_ID, 4, reactiveLoader(stored)).block());
+        assertEquals(stored, cache.getRecentReactive(SESSION_ID, 4, reactiveLoader(stored)).block());
+
+        assertEquals(1, loads.get());
+        assertEquals(stored, cache.getRecent(SESSION_ID, 4, loader(List.of())));
+    }
+
+    @Test
+    void getRecentReactive_AppendDuringLoad_DoesNotCacheStaleResult() {
+        List<ChatMessage> stored = messages(3);
+        Sinks.One<List<ChatMessage>> pending = Sinks.one();
+        Mono<List<ChatMessage>> result = cache.getRecentReactive(SESSION_ID, 4, () -> {
+            loads.incrementAndGet();
+            return pending.asMono();
+        });
+
+        List<ChatMessage> loaded = new ArrayList<>();
+        result.subscribe(loaded::addAll);
+        cache.append(message("m3"));
+        pending.tryEmitValue(stored);
+
+        assertEquals(stored, loaded);
+        assertEquals(List.of("m0", "m1", "m2", "m3"), cache.getRecent(SESSION_ID, 4, loader(messages(4)))
+                .stream().map(ChatMessage::getId).toList());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void append_KeepsNewestMessagesWithinCapacity() {
+        cache.getRecent(SESSION_ID, 4, loader(messages(4)));
+
+        cache.append(message("m4"));
+        cache.append(message("m4"));
+        List<ChatMessage> result = cache.getRecent(SESSION_ID, 4, loader(List.of()));
+
+        assertEquals(List.of("m1", "m2", "m3", "m4"), result.stream().map(ChatMessage::getId).toList());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void append_UncachedSession_IsIgnored() {
+        cache.append(message("m0"));
+
+        assertEquals(List.of(), cache.getRecent(SESSION_ID, 4, loader(List.of())));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void getRecent_LargerLimitThanCachedReloads() {
+        cache.getRecent(SESSION_ID, 2, loader(messages(2)));
+        cache.getRecent(SESSION_ID, 4, loader(messages(4)));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void getRecent_WholeSessionCached_AnswersAnyLimit() {
+        cache.getRecent(SESSION_ID, 4, loader(messages(1)));
+        cache.append(message("m1"));
+
+        assertEquals(2, cache.getRecent(SESSION_ID, 4, loader(List.of())).size());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidate_ForcesReload() {
+        cache.getRecent(SESSION_ID, 4, loader(messages(2)));
+
+        cache.invalidate(SESSION_ID);
+        cache.getRecent(SESSION_ID, 4, loader(messages(2)));
+
+        assertEquals(2, loads.get());
+    }
+
+    private Supplier<Mono<List<ChatMessage>>> reactiveLoader(List<ChatMessage> stored) {
+        return () -> {
+            loads.incrementAndGet();
+            return Mono.just(stored);
+        };
+    }
+
+    private Supplier<List<ChatMessage>> loader(List<ChatMessage> result) {
+        return () -> {
+            loads.incrementAndGet();
+            return result;
+        };
+    }
+
+    private List<ChatMessage> messages(int count) {
+        List<ChatMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(message("m" + i));
+        }
+        return messages;
+    }
+
+    private ChatMessage message(String id) {
+        return ChatMessage.builder().id(id).chatSessionId(SESSION_ID).role(ChatMessage.Role.USER).text(id).build();
+    }
+}
@@ -7,17 +7,27 @@ import com.fined.mentor.chat.exception.ChatMessageNotFoundException;
 import com.fined.mentor.chat.exception.ChatSessionNotFoundException;
 import com.fined.mentor.chat.repository.ChatMessageRepository;
 import com.fined.mentor.chat.repository.ChatSessionRepository;
+import com.fined.mentor.chat.repository.ReactiveChatMessageRepository;
+import com.fined.mentor.chat.repository.ReactiveChatSessionRepository;
+import com.fined.mentor.core.dto.CursorPage;
+import com.fined.mentor.core.dto.KeysetCursor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -29,10 +39,18 @@ class ChatMessageServiceImplTest {
     @Mock
     private ChatMessageRepository chatMessageRepository;
 
+    @Mock
+    private ReactiveChatMessageRepository reactiveChatMessageRepository;
+
     @Mock
     private ChatSessionRepository chatSessionRepository;
 
-    @InjectMocks
+    @Mock
+    private ReactiveChatSessionRepository reactiveChatSessionRepository;
+
+    @Mock
+    private ChatMessageWriteQueue chatMessageWriteQueue;
+
     private ChatMessageServiceImpl chatMessageService;
 
     private ChatSession sampleSession;
@@ -40,6 +58,13 @@ class ChatMessageServiceImplTest {
 
     @BeforeEach
     void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        chatMessageService = new ChatMessageServiceImpl(chatMessageRepository, reactiveChatMessageRepository,
+                chatSessionRepository, new ChatHistoryCache(meterRegistry, 1_000_000, Duration.ofMinutes(30), 40),
+                new ChatSessionCache(chatSessionRepository, reactiveChatSessionRepository, meterRegistry, 1_000,
+                        Duration.ofMinutes(1)),
+                chatMessageWriteQueue);
+
         sampleSession = ChatSession.builder()
                 .id("session1")
                 .active(true)
@@ -63,7 +88,76 @@ class ChatMessageServiceImplTest {
 
         assertNotNull(savedMessage);
         assertEquals("message1", savedMessage.getId());
-        verify(chatMessageRepository).save(any(ChatMessage.class));
+        InOrder inOrder = inOrder(chatMessageWriteQueue, chatMessageRepository);
+        inOrder.verify(chatMessageWriteQueue).awaitStored("session1");
+        inOrder.verify(chatMessageRepository).save(any(ChatMessage.class));
+    }
+
+    @Test
+    void getRecentMessagesReactive_LoadsOnceThenServesFromCache() {
+        ChatMessage older = ChatMessage.builder().id("message0").chatSessionId("session1").text("Earlier")
+                .timestamp(Instant.now().minusSeconds(60)).build();
+        when(reactiveChatMessageRepository.findByChatSessionIdOrderByTimestampDesc("session1", Limit.of(10)))
+                .thenReturn(Flux.just(sampleMessage, older));
+
+        StepVerifier.create(chatMessageService.getRecentMessagesReactive("session1", 10))
+                .assertNext(messages -> assertEquals(List.of("message0", "message1"),
+                        messages.stream().map(ChatMessage::getId).toList()))
+                .verifyComplete();
+        StepVerifier.create(chatMessageService.getRecentMessagesReactive("session1", 10))
+                .assertNext(messages -> assertEquals(2, messages.size()))
+                .verifyComplete();
+
+        verify(reactiveChatMessageRepository, times(1)).findByChatSessionIdOrderByTimestampDesc("session1",
+                Limit.of(10));
+        verifyNoInteractions(chatMessageRepository);
+    }
+
+    @Test
+    void getRecentMessagesReactive_RepositoryError_MapsToChatMessageException() {
+        when(reactiveChatMessageRepository.findByChatSessionIdOrderByTimestampDesc("session1", Limit.of(10)))
+                .thenReturn(Flux.error(new RuntimeException("DB error")));
+
+        StepVerifier.create(chatMessageService.getRecentMessagesReactive("session1", 10))
+                .expectError(ChatMessageException.class)
+                .verify();
+    }
+
+    @Test
+    void queueMessage_VisibleInHistoryBeforeStored() {
+        when(chatSessionRepository.findByIdAndActiveTrue("session1")).thenReturn(Optional.of(sampleSession));
+        when(chatMessageRepository.findByChatSessionIdOrderByTimestampDesc("session1", Limit.of(10)))
+                .thenReturn(List.of(sampleMessage));
+        chatMessageService.getRecentMessages("session1", 10);
+        ChatMessage reply = ChatMessage.builder().id("message2").chatSessionId("session1")
+                .role(ChatMessage.Role.MODEL).text("Hi").timestamp(Instant.now()).build();
+        CompletableFuture<ChatMessage> stored = new CompletableFuture<>();
+        when(chatMessageWriteQueue.enqueue(reply)).thenReturn(stored);
+
+        CompletableFuture<ChatMessage> result = chatMessageService.queueMessage(reply);
+
+        assertFalse(result.isDone());
+        assertEquals(List.of("message1", "message2"), chatMessageService.getRecentMessages("session1", 10)
+                .stream().map(ChatMessage::getId).toList());
+        verify(chatMessageRepository, never()).save(any(ChatMessage.class));
+        verify(chatMessageRepository, times(1)).findByChatSessionIdOrderByTimestampDesc("session1", Limit.of(10));
+    }
+
+    @Test
+    void queueMessage_StoreFails_DropsCachedHistory() {
+        when(chatSessionRepository.findByIdAndActiveTrue("session1")).thenReturn(Optional.of(sampleSession));
+        when(chatMessageRepository.findByChatSessionIdOrderByTimestampDesc("session1", Limit.of(10)))
+                .thenReturn(List.of(sampleMessage));
+        chatMessageService.getRecentMessages("session1", 10);
+        when(chatMessageWriteQueue.enqueue(any(ChatMessage.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("closed")));
+
+        CompletableFuture<ChatMessage> result = chatMessageService.queueMessage(ChatMessage.builder()
+                .id("message2").chatSessionId("session1").text("Hi").timestamp(Instant.now()).build());
+
+        assertTrue(result.isCompletedExceptionally());
+        chatMessageService.getRecentMessages("session1", 10);
+        verify(chatMessageRepository, times(2)).findByChatSessionIdOrderByTimestampDesc("session1", Limit.of(10));
     }
 
     @Test
@@ -109,6 +203,81 @@ class ChatMessageServiceImplTest {
         assertThrows(ChatMessageException.class, () -> chatMessageService.getMessagesBySessionId("session1"));
     }
 
+    @Test
+    void getRecentMessages_ReturnsChronologicalOrder() {
+        ChatMessage older = ChatMessage.builder().id("m1").chatSessionId("session1").text("first").build();
+        ChatMessage newer = ChatMessage.builder().id("m2").chatSessionId("session1").text("second").build();
+        when(chatSessionRepository.findByIdAndActiveTrue("session1")).thenReturn(Optional.of(sampleSession));
+        when(chatMessageRepository.findByChatSessionIdOrderByTimestampDesc("session1", Limit.of(2)))
+                .thenReturn(List.of(newer, older));
+
+        List<ChatMessage> messages = chatMessageService.getRecentMessages("session1", 2);
+
+        assertEquals(List.of(older, newer), messages);
+        verify(chatMessageRepository, never()).findByChatSessionIdOrderByTimestampAsc(anyString());
+    }
+
+    @Test
+    void getRecentMessages_SessionNotFound() {
+        when(chatSessionRepository.findByIdAndActiveTrue("session1")).thenReturn(Optional.empty());
+
+        assertThrows(ChatMessageException.class, () -> chatMessageService.getRecentMessages("session1", 10));
+    }
+
+    @Test
+    void getRecentMessages_CachedSession_ServesReadsAndWritesWithoutQueries() {
+        ChatMessage older = ChatMessage.builder().id("m1").chatSessionId("session1").text("first").build();
+        when(chatSessionRepository.findByIdAndActiveTrue("session1")).thenReturn(Optional.of(sampleSession));
+        when(chatMessageRepository.findByChatSessionIdOrderByTimestampDesc("session1", Limit.of(10)))
+                .thenReturn(List.of(older));
+        when(chatMessageRepository.save(any(ChatMessage.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        chatMessageService.getRecentMessages("session1", 10);
+        chatMessageService.saveMessage(sampleMessage);
+        List<ChatMessage> messages = chatMessageService.getRecentMessages("session1", 10);
+
+        assertEquals(List.of(older, sampleMessage), messages);
+        verify(chatSessionRepository, times(1)).findByIdAndActiveTrue("session1");
+        verify(chatMessageRepository, times(1)).findByChatSessionIdOrderByTimestampDesc(anyString(), any(Limit.class));
+    }
+
+    @Test
+    void updateMessage_InvalidatesCachedHistory() {
+        when(chatSessionRepository.findByIdAndActiveTrue("session1")).thenReturn(Optional.of(sampleSession));
+        when(chatMessageRepository.findByChatSessionIdOrderByTimestampDesc("session1", Limit.of(10)))
+                .thenReturn(List.of(sampleMessage));
+        when(chatMessageRepository.findById("message1")).thenReturn(Optional.of(sampleMessage));
+        when(chatMessageRepository.save(any(ChatMessage.class))).thenReturn(sampleMessage);
+
+        chatMessageService.getRecentMessages("session1", 10);
+        chatMessageService.updateMessage("message1", "Edited");
+        chatMessageService.getRecentMessages("session1", 10);
+
+        verify(chatMessageRepository, times(2)).findByChatSessionIdOrderByTimestampDesc("session1", Limit.of(10));
+    }
+
+    @Test
+    void getMessagePage_ReturnsChronologicalPageAndCursorToOlderMessages() {
+        Instant t = Instant.parse("2026-02-01T09:00:00Z");
+        ChatMessage m3 = ChatMessage.builder().id("m3").chatSessionId("session1").timestamp(t.plusSeconds(3)).build();
+        ChatMessage m2 = ChatMessage.builder().id("m2").chatSessionId("session1").timestamp(t.plusSeconds(2)).build();
+        ChatMessage m1 = ChatMessage.builder().id("m1").chatSessionId("session1").timestamp(t.plusSeconds(1)).build();
+        when(chatSessionRepository.findByIdAndActiveTrue("session1")).thenReturn(Optional.of(sampleSession));
+        when(chatMessageRepository.findPageBefore("session1", null, 3)).thenReturn(List.of(m3, m2, m1));
+
+        CursorPage<ChatMessage> page = chatMessageService.getMessagePage("session1", null, 2);
+
+        assertEquals(List.of(m2, m3), page.items());
+        assertEquals(new KeysetCursor(m2.getTimestamp(), "m2"), KeysetCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    void getMessagePage_InvalidCursor_ThrowsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class,
+                () -> chatMessageService.getMessagePage("session1", "%%%", 10));
+        verifyNoInteractions(chatMessageRepository);
+    }
+
     @Test
     void deleteMessage_Success() {
         when(chatMessageRepository.findById("message1")).thenReturn(Optional.of(sampleMessage));
@@ -0,0 +1,173 @@
+package com.fined.mentor.chat.service;
+
+import com.fined.mentor.chat.entity.ChatMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ChatMessageWriteQueueTest {
+
+    private MongoTemplate mongoTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private ChatMessageWriteQueue writeQueue;
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private final CountDownLatch insertStarted = new CountDownLatch(1);
+    private CountDownLatch releaseInserts = new CountDownLatch(0);
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        doAnswer(inv -> {
+            insertStarted.countDown();
+            releaseInserts.await(5, TimeUnit.SECONDS);
+            Collection<ChatMessage> batch = inv.getArgument(0);
+            batches.add(batch.stream().map(ChatMessage::getText).toList());
+            return batch;
+        }).when(mongoTemplate).insert(anyCollection(), eq(ChatMessage.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseInserts.countDown();
+        writeQueue.close();
+    }
+
+    @Test
+    void enqueue_AssignsIdAndTimestampAndStoresWithInsertMany() throws Exception {
+        writeQueue = newQueue(100);
+
+        ChatMessage stored = writeQueue.enqueue(message("session1", "hello")).get(5, TimeUnit.SECONDS);
+
+        assertNotNull(stored.getId());
+        assertNotNull(stored.getTimestamp());
+        assertEquals(List.of(List.of("hello")), batches);
+        assertEquals(1, meterRegistry.get("chat.persistence.flush").timer().count());
+        assertEquals(1.0, meterRegistry.get("chat.persistence.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    void enqueue_WhileWriterBusy_StoresBacklogAsOneOrderedBatch() throws Exception {
+        releaseInserts = new CountDownLatch(1);
+        writeQueue = newQueue(100);
+        writeQueue.enqueue(message("session1", "first"));
+        assertTrue(insertStarted.await(5, TimeUnit.SECONDS));
+
+        List<CompletableFuture<ChatMessage>> backlog = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            backlog.add(writeQueue.enqueue(message(i % 2 == 0 ? "session1" : "session2", "m" + i)));
+        }
+        assertEquals(5.0, meterRegistry.get("chat.persistence.queue.depth").gauge().value());
+        releaseInserts.countDown();
+        CompletableFuture.allOf(backlog.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(List.of("first"), List.of("m0", "m1", "m2", "m3", "m4")), batches);
+    }
+
+    @Test
+    void enqueue_QueueFull_OverflowKeepsOrder() throws Exception {
+        releaseInserts = new CountDownLatch(1);
+        writeQueue = newQueue(2);
+        writeQueue.enqueue(message("session1", "first"));
+        assertTrue(insertStarted.await(5, TimeUnit.SECONDS));
+
+        List<CompletableFuture<ChatMessage>> backlog = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            backlog.add(writeQueue.enqueue(message("session1", "m" + i)));
+        }
+        assertEquals(2.0, meterRegistry.get("chat.persistence.overflows").counter().count());
+        releaseInserts.countDown();
+        CompletableFuture.allOf(backlog.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        List<String> storedOrder = batches.stream().flatMap(List::stream).toList();
+        assertEquals(List.of("first", "m0", "m1", "m2", "m3"), storedOrder);
+    }
+
+    @Test
+    void flush_BatchInsertFails_StoresOneByOneAndFailsOnlyTheBadMessage() {
+        writeQueue = newQueue(100);
+        reset(mongoTemplate);
+        doThrow(new IllegalStateException("bulk write failed")).when(mongoTemplate)
+                .insert(anyCollection(), eq(ChatMessage.class));
+        ChatMessage good = message("session1", "good");
+        ChatMessage bad = message("session1", "bad");
+        when(mongoTemplate.save(any(ChatMessage.class))).thenAnswer(inv -> {
+            if (inv.getArgument(0) == bad) {
+                throw new IllegalStateException("write failed");
+            }
+            return inv.getArgument(0);
+        });
+        CompletableFuture<ChatMessage> goodStored = new CompletableFuture<>();
+        CompletableFuture<ChatMessage> badStored = new CompletableFuture<>();
+
+        writeQueue.flush(List.of(new ChatMessageWriteQueue.Pending(good, goodStored),
+                new ChatMessageWriteQueue.Pending(bad, badStored)));
+
+        assertSame(good, goodStored.join());
+        assertTrue(badStored.isCompletedExceptionally());
+        assertEquals(1.0, meterRegistry.get("chat.persistence.failures").counter().count());
+        var inOrder = inOrder(mongoTemplate);
+        inOrder.verify(mongoTemplate).save(good);
+        inOrder.verify(mongoTemplate).save(bad);
+    }
+
+    @Test
+    void close_FlushesQueuedMessagesAndRejectsNewOnes() throws Exception {
+        releaseInserts = new CountDownLatch(1);
+        writeQueue = newQueue(100);
+        writeQueue.enqueue(message("session1", "first"));
+        assertTrue(insertStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<ChatMessage> queued = writeQueue.enqueue(message("session1", "second"));
+
+        CompletableFuture<Void> closing = CompletableFuture.runAsync(writeQueue::close);
+        releaseInserts.countDown();
+        closing.get(5, TimeUnit.SECONDS);
+
+        assertTrue(queued.isDone());
+        assertEquals(List.of(List.of("first"), List.of("second")), batches);
+        ExecutionException rejected = assertThrows(ExecutionException.class,
+                () -> writeQueue.enqueue(message("session1", "late")).get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, rejected.getCause());
+    }
+
+    @Test
+    void awaitStored_WaitsForTheSessionsQueuedMessages() throws Exception {
+        releaseInserts = new CountDownLatch(1);
+        writeQueue = newQueue(100);
+        CompletableFuture<ChatMessage> queued = writeQueue.enqueue(message("session1", "first"));
+        assertTrue(insertStarted.await(5, TimeUnit.SECONDS));
+
+        writeQueue.awaitStored("other-session");
+        assertFalse(queued.isDone());
+
+        CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS).execute(releaseInserts::countDown);
+        writeQueue.awaitStored("session1");
+        assertTrue(queued.isDone());
+    }
+
+    private ChatMessageWriteQueue newQueue(int capacity) {
+        return new ChatMessageWriteQueue(mongoTemplate, meterRegistry, capacity, 100, Duration.ofSeconds(5));
+    }
+
+    private static ChatMessage message(String sessionId, String text) {
+        return ChatMessage.builder().chatSessionId(sessionId).role(ChatMessage.Role.MODEL).text(text).build();
+    }
+}
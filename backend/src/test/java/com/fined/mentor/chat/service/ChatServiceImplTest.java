@@ -1,25 +1,40 @@
 package com.fined.mentor.chat.service;
 
 import com.fined.mentor.chat.entity.ChatMessage;
+import com.fined.mentor.chat.dto.ChatSessionMetadata;
 import com.fined.mentor.chat.entity.ChatSession;
 import com.fined.mentor.chat.exception.ChatException;
+import com.fined.mentor.chat.exception.ChatSessionNotFoundException;
+import com.fined.mentor.core.language.LanguageDetector;
+import com.fined.mentor.core.llm.ModelInvoker;
+import com.fined.mentor.core.llm.PromptCacheProvider;
+import com.fined.mentor.core.llm.PromptPrefixCache;
+import com.fined.mentor.core.llm.PromptRegistry;
 import com.fined.mentor.tavily.TavilySearchTool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.model.Generation;
 import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -40,12 +55,26 @@ class ChatServiceImplTest {
     @Mock
     private TavilySearchTool tavilySearchTool;
 
+    @Mock
+    private ChatSummaryService chatSummaryService;
+
     private ChatServiceImpl chatService;
 
     @BeforeEach
     void setUp() {
         ChatClient.Builder builder = ChatClient.builder(chatModel);
-        chatService = new ChatServiceImpl(builder, chatSessionService, chatMessageService, tavilySearchTool);
+        PromptPrefixCache promptPrefixCache = new PromptPrefixCache(mock(PromptCacheProvider.class),
+                new JTokkitTokenCountEstimator(), new SimpleMeterRegistry(), false, Duration.ofHours(1),
+                Duration.ofMinutes(5), Duration.ofMinutes(5), 1024);
+        chatService = new ChatServiceImpl(builder, chatSessionService, chatMessageService, tavilySearchTool,
+                new ChatContextBuilder(new JTokkitTokenCountEstimator(), 4000, 40), chatSummaryService,
+                new GuestAnswerCache(new SimpleMeterRegistry(), new LanguageDetector(), null, true, 100,
+                        Duration.ofHours(1), 300, 24),
+                new PromptRegistry(new LanguageDetector(), promptPrefixCache,
+                        new JTokkitTokenCountEstimator(), new SimpleMeterRegistry()),
+                promptPrefixCache, new ModelInvoker(new SimpleMeterRegistry(), false, "", Duration.ofSeconds(30),
+                        Duration.ofSeconds(60), Duration.ofSeconds(5), false, 0.95, 20, Duration.ofSeconds(1), 20, 0.5,
+                        Duration.ofSeconds(30)));
     }
 
     @Test
@@ -66,9 +95,10 @@ class ChatServiceImplTest {
                 .text(aiResponseText)
                 .build();
 
-        doNothing().when(chatSessionService).findById(sessionId);
+        when(chatSessionService.findById(sessionId))
+                .thenReturn(ChatSessionMetadata.from(ChatSession.builder().id(sessionId).active(true).build()));
         when(chatMessageService.saveMessage(any(ChatMessage.class))).thenReturn(userMessage).thenReturn(aiMessage);
-        when(chatMessageService.getMessagesBySessionId(sessionId)).thenReturn(Collections.singletonList(userMessage));
+        when(chatMessageService.getRecentMessages(sessionId, 40)).thenReturn(Collections.singletonList(userMessage));
 
         ChatResponse mockResponse = new ChatResponse(List.of(new Generation(new AssistantMessage(aiResponseText))));
         when(chatModel.call(any(Prompt.class))).thenReturn(mockResponse);
@@ -80,12 +110,43 @@ class ChatServiceImplTest {
         assertEquals(ChatMessage.Role.MODEL, response.getRole());
         
         verify(chatMessageService, times(2)).saveMessage(any(ChatMessage.class));
+        verify(chatSummaryService).requestSummary(sessionId);
+    }
+
+    @Test
+    void getChatResponse_SendsSummaryAndOnlyTurnsAfterWatermark() {
+        String sessionId = "session1";
+        Instant watermark = Instant.parse("2026-01-01T10:00:00Z");
+        ChatSession session = ChatSession.builder()
+                .id(sessionId)
+                .summary("User is saving for a flat in Berlin.")
+                .summarizedUntil(watermark)
+                .build();
+        ChatMessage summarized = ChatMessage.builder().role(ChatMessage.Role.USER)
+                .text("Old question").timestamp(watermark).build();
+        ChatMessage recent = ChatMessage.builder().role(ChatMessage.Role.USER)
+                .text("How much equity do I need?").timestamp(watermark.plusSeconds(60)).build();
+
+        when(chatSessionService.findById(sessionId)).thenReturn(ChatSessionMetadata.from(session));
+        when(chatMessageService.saveMessage(any(ChatMessage.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(chatMessageService.getRecentMessages(sessionId, 40)).thenReturn(List.of(summarized, recent));
+        when(chatModel.call(any(Prompt.class)))
+                .thenReturn(new ChatResponse(List.of(new Generation(new AssistantMessage("About 20%.")))));
+
+        chatService.getChatResponse(sessionId, "How much equity do I need?");
+
+        ArgumentCaptor<Prompt> promptCaptor = ArgumentCaptor.forClass(Prompt.class);
+        verify(chatModel).call(promptCaptor.capture());
+        List<Message> instructions = promptCaptor.getValue().getInstructions();
+        assertEquals(2, instructions.size());
+        assertTrue(instructions.get(0).getText().contains("User is saving for a flat in Berlin."));
+        assertEquals("How much equity do I need?", instructions.get(1).getText());
     }
 
     @Test
     void getChatResponse_Exception() {
         String sessionId = "session1";
-        doThrow(new RuntimeException("DB Error")).when(chatSessionService).findById(sessionId);
+        when(chatSessionService.findById(sessionId)).thenThrow(new RuntimeException("DB Error"));
 
         assertThrows(ChatException.class, () -> chatService.getChatResponse(sessionId, "Hello"));
     }
@@ -101,23 +162,79 @@ class ChatServiceImplTest {
                 .text(userMessageText)
                 .build();
 
-        doNothing().when(chatSessionService).findById(sessionId);
-        when(chatMessageService.saveMessage(any(ChatMessage.class))).thenReturn(userMessage);
-        when(chatMessageService.getMessagesBySessionId(sessionId)).thenReturn(Collections.singletonList(userMessage));
+        when(chatSessionService.findOwnedSession(sessionId, "user1"))
+                .thenReturn(Mono.just(ChatSessionMetadata.from(ChatSession.builder().id(sessionId).active(true).build())));
+        when(chatMessageService.queueMessage(any(ChatMessage.class)))
+                .thenAnswer(inv -> CompletableFuture.completedFuture(inv.getArgument(0)));
+        when(chatMessageService.getRecentMessagesReactive(sessionId, 40))
+                .thenReturn(Mono.just(Collections.singletonList(userMessage)));
 
         ChatResponse mockResponse1 = new ChatResponse(List.of(new Generation(new AssistantMessage("Hello"))));
         ChatResponse mockResponse2 = new ChatResponse(List.of(new Generation(new AssistantMessage(" there!"))));
         
         when(chatModel.stream(any(Prompt.class))).thenReturn(Flux.just(mockResponse1, mockResponse2));
 
-        Flux<String> responseFlux = chatService.streamChatResponse(sessionId, userMessageText);
+        Flux<String> responseFlux = chatService.streamChatResponse(sessionId, "user1", userMessageText);
 
         StepVerifier.create(responseFlux)
                 .expectNext("Hello")
                 .expectNext(" there!")
                 .verifyComplete();
                 
-        verify(chatMessageService, times(2)).saveMessage(any(ChatMessage.class));
+        ArgumentCaptor<ChatMessage> queued = ArgumentCaptor.forClass(ChatMessage.class);
+        verify(chatMessageService, times(2)).queueMessage(queued.capture());
+        assertEquals(ChatMessage.Role.USER, queued.getAllValues().get(0).getRole());
+        assertEquals(ChatMessage.Role.MODEL, queued.getAllValues().get(1).getRole());
+        assertEquals("Hello there!", queued.getAllValues().get(1).getText());
+        verify(chatMessageService, never()).saveMessage(any(ChatMessage.class));
+        verify(chatMessageService, never()).getRecentMessages(anyString(), anyInt());
+        verify(chatSummaryService).requestSummary(sessionId);
+    }
+
+    @Test
+    void streamChatResponse_NotOwner_ErrorsBeforeCallingModel() {
+        when(chatSessionService.findOwnedSession("session1", "intruder"))
+                .thenReturn(Mono.error(new ChatSessionNotFoundException("Chat session not found: session1")));
+
+        StepVerifier.create(chatService.streamChatResponse("session1", "intruder", "Hello"))
+                .expectError(ChatSessionNotFoundException.class)
+                .verify();
+
+        verify(chatMessageService, never()).queueMessage(any(ChatMessage.class));
+        verify(chatModel, never()).stream(any(Prompt.class));
+    }
+
+    @Test
+    void streamChatResponse_UserMessageNotStored_FailsWithChatException() {
+        when(chatSessionService.findOwnedSession("session1", "user1"))
+                .thenReturn(Mono.just(ChatSessionMetadata.from(ChatSession.builder().id("session1").active(true).build())));
+        when(chatMessageService.queueMessage(any(ChatMessage.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("closed")));
+
+        StepVerifier.create(chatService.streamChatResponse("session1", "user1", "Hello"))
+                .expectError(ChatException.class)
+                .verify();
+
+        verify(chatModel, never()).stream(any(Prompt.class));
+    }
+
+    @Test
+    void streamChatResponse_QueuedReplyNotStored_DoesNotRequestSummary() {
+        String sessionId = "session1";
+        when(chatSessionService.findOwnedSession(sessionId, "user1"))
+                .thenReturn(Mono.just(ChatSessionMetadata.from(ChatSession.builder().id(sessionId).active(true).build())));
+        when(chatMessageService.queueMessage(any(ChatMessage.class)))
+                .thenAnswer(inv -> CompletableFuture.completedFuture(inv.getArgument(0)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("closed")));
+        when(chatMessageService.getRecentMessagesReactive(sessionId, 40)).thenReturn(Mono.just(List.of()));
+        when(chatModel.stream(any(Prompt.class)))
+                .thenReturn(Flux.just(new ChatResponse(List.of(new Generation(new AssistantMessage("Hi"))))));
+
+        StepVerifier.create(chatService.streamChatResponse(sessionId, "user1", "Hello"))
+                .expectNext("Hi")
+                .verifyComplete();
+
+        verify(chatSummaryService, never()).requestSummary(anyString());
     }
 
     @Test
@@ -143,6 +260,22 @@ class ChatServiceImplTest {
                 .verifyComplete();
     }
 
+    @Test
+    void streamGuestChatResponse_NoHistory_RepeatedQuestionReplayedFromCache() {
+        when(chatModel.stream(any(Prompt.class))).thenReturn(Flux.just(
+                new ChatResponse(List.of(new Generation(new AssistantMessage("An ETF is")))),
+                new ChatResponse(List.of(new Generation(new AssistantMessage(" a fund traded on exchanges."))))));
+
+        StepVerifier.create(chatService.streamGuestChatResponse(List.of(), "What is an ETF?"))
+                .expectNext("An ETF is", " a fund traded on exchanges.")
+                .verifyComplete();
+        StepVerifier.create(chatService.streamGuestChatResponse(null, "what is an ETF").collectList())
+                .assertNext(chunks -> assertEquals("An ETF is a fund traded on exchanges.", String.join("", chunks)))
+                .verifyComplete();
+
+        verify(chatModel, times(1)).stream(any(Prompt.class));
+    }
+
     @Test
     void getChatHistory_Success() {
         String sessionId = "session1";
@@ -1,11 +1,15 @@
 package com.fined.mentor.chat.service;
 
+import com.fined.mentor.chat.dto.ChatSessionMetadata;
+import com.fined.mentor.chat.dto.ChatSessionSummary;
 import com.fined.mentor.chat.entity.ChatMessage;
 import com.fined.mentor.chat.entity.ChatSession;
 import com.fined.mentor.chat.exception.ChatSessionException;
 import com.fined.mentor.chat.exception.ChatSessionNotFoundException;
 import com.fined.mentor.chat.repository.ChatMessageRepository;
 import com.fined.mentor.chat.repository.ChatSessionRepository;
+import com.fined.mentor.core.dto.CursorPage;
+import com.fined.mentor.core.dto.KeysetCursor;
 import com.fined.mentor.quiz.entity.Quiz;
 import com.fined.mentor.quiz.entity.QuizState;
 import com.fined.mentor.quiz.repository.QuizRepository;
@@ -16,6 +20,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 import java.time.Instant;
 import java.util.Collections;
@@ -41,6 +47,12 @@ class ChatSessionServiceImplTest {
         @Mock
         private QuizStateRepository quizStateRepository;
 
+        @Mock
+        private ChatHistoryCache chatHistoryCache;
+
+        @Mock
+        private ChatSessionCache chatSessionCache;
+
         @InjectMocks
         private ChatSessionServiceImpl chatSessionService;
 
@@ -90,6 +102,7 @@ class ChatSessionServiceImplTest {
                 assertTrue(session.isActive());
 
                 verify(chatSessionRepository).save(any(ChatSession.class));
+                verify(chatSessionCache).put(sampleSession);
         }
 
         @Test
@@ -153,12 +166,10 @@ class ChatSessionServiceImplTest {
 
         @Test
         void getActiveSessions_Success() {
-                when(chatSessionRepository.findByUserIdAndActiveTrueOrderByCreatedAtDesc("user1"))
+                sampleSession.setQuiz(sampleQuiz);
+                sampleSession.setQuizState(sampleQuizState);
+                when(chatSessionRepository.findActiveSessionsWithLatestQuiz("user1"))
                                 .thenReturn(Collections.singletonList(sampleSession));
-                when(quizRepository.findFirstByChatSessionIdOrderByCreatedAtDesc("session1"))
-                                .thenReturn(Optional.of(sampleQuiz));
-                when(quizStateRepository.findByQuizId("quiz1"))
-                                .thenReturn(Optional.of(sampleQuizState));
 
                 List<ChatSession> sessions = chatSessionService.getActiveSessions("user1");
 
@@ -166,6 +177,7 @@ class ChatSessionServiceImplTest {
                 assertEquals(1, sessions.size());
                 assertNotNull(sessions.get(0).getQuiz());
                 assertNotNull(sessions.get(0).getQuizState());
+                verifyNoInteractions(quizRepository, quizStateRepository);
         }
 
         @Test
@@ -177,6 +189,7 @@ class ChatSessionServiceImplTest {
 
                 assertNotNull(updatedSession);
                 assertEquals("New Title", sampleSession.getTitle());
+                verify(chatSessionCache).invalidate("session1");
         }
 
         @Test
@@ -188,6 +201,8 @@ class ChatSessionServiceImplTest {
 
                 assertFalse(sampleSession.isActive());
                 verify(chatSessionRepository).save(sampleSession);
+                verify(chatSessionCache).invalidate("session1");
+                verify(chatHistoryCache).invalidate("session1");
         }
 
         @Test
@@ -234,4 +249,91 @@ class ChatSessionServiceImplTest {
 
                 assertThrows(ChatSessionException.class, () -> chatSessionService.getSessionWithMessages("session1"));
         }
+
+        @Test
+        void findById_ReturnsCachedMetadata() {
+                when(chatSessionCache.findActive("session1"))
+                                .thenReturn(Optional.of(ChatSessionMetadata.from(sampleSession)));
+
+                ChatSessionMetadata metadata = chatSessionService.findById("session1");
+
+                assertEquals("session1", metadata.id());
+                verifyNoInteractions(chatSessionRepository);
+        }
+
+        @Test
+        void findById_NotFound() {
+                when(chatSessionCache.findActive("session1")).thenReturn(Optional.empty());
+
+                assertThrows(ChatSessionNotFoundException.class, () -> chatSessionService.findById("session1"));
+        }
+
+        @Test
+        void verifyOwnership_Owner_Passes() {
+                when(chatSessionCache.findActive("session1"))
+                                .thenReturn(Optional.of(ChatSessionMetadata.from(sampleSession)));
+
+                assertDoesNotThrow(() -> chatSessionService.verifyOwnership("session1", sampleSession.getUserId()));
+        }
+
+        @Test
+        void verifyOwnership_OtherUser_ReportedAsNotFound() {
+                when(chatSessionCache.findActive("session1"))
+                                .thenReturn(Optional.of(ChatSessionMetadata.from(sampleSession)));
+
+                assertThrows(ChatSessionNotFoundException.class,
+                                () -> chatSessionService.verifyOwnership("session1", "intruder"));
+        }
+
+        @Test
+        void findOwnedSession_Owner_EmitsSession() {
+                when(chatSessionCache.findActiveReactive("session1"))
+                                .thenReturn(Mono.just(ChatSessionMetadata.from(sampleSession)));
+
+                StepVerifier.create(chatSessionService.findOwnedSession("session1", sampleSession.getUserId()))
+                                .assertNext(session -> assertEquals("session1", session.id()))
+                                .verifyComplete();
+        }
+
+        @Test
+        void findOwnedSession_OtherUserOrMissing_ReportedAsNotFound() {
+                when(chatSessionCache.findActiveReactive("session1"))
+                                .thenReturn(Mono.just(ChatSessionMetadata.from(sampleSession)));
+                when(chatSessionCache.findActiveReactive("unknown")).thenReturn(Mono.empty());
+
+                StepVerifier.create(chatSessionService.findOwnedSession("session1", "intruder"))
+                                .expectError(ChatSessionNotFoundException.class)
+                                .verify();
+                StepVerifier.create(chatSessionService.findOwnedSession("unknown", "user1"))
+                                .expectError(ChatSessionNotFoundException.class)
+                                .verify();
+        }
+
+        @Test
+        void getActiveSessionPage_FullPageReturnsCursorOfLastItem() {
+                Instant createdAt = Instant.parse("2026-02-01T09:00:00Z");
+                List<ChatSessionSummary> rows = List.of(
+                                ChatSessionSummary.builder().id("s3").createdAt(createdAt.plusSeconds(2)).build(),
+                                ChatSessionSummary.builder().id("s2").createdAt(createdAt.plusSeconds(1)).build(),
+                                ChatSessionSummary.builder().id("s1").createdAt(createdAt).build());
+                when(chatSessionRepository.findActiveSessionSummaries("user1", null, 3)).thenReturn(rows);
+
+                CursorPage<ChatSessionSummary> page = chatSessionService.getActiveSessionPage("user1", null, 2);
+
+                assertEquals(2, page.items().size());
+                assertEquals(new KeysetCursor(createdAt.plusSeconds(1), "s2"), KeysetCursor.decode(page.nextCursor()));
+        }
+
+        @Test
+        void getActiveSessionPage_PassesDecodedCursorAndClampsLimit() {
+                KeysetCursor cursor = new KeysetCursor(Instant.parse("2026-02-01T09:00:00Z"), "s2");
+                when(chatSessionRepository.findActiveSessionSummaries("user1", cursor, CursorPage.MAX_LIMIT + 1))
+                                .thenReturn(List.of());
+
+                CursorPage<ChatSessionSummary> page = chatSessionService.getActiveSessionPage("user1",
+                                cursor.encode(), 5_000);
+
+                assertTrue(page.items().isEmpty());
+                assertNull(page.nextCursor());
+        }
 }
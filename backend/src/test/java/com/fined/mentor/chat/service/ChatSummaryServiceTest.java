@@ -0,0 +1,180 @@
+package com.fined.mentor.chat.service;
+
+import com.fined.mentor.chat.entity.ChatMessage;
+import com.fined.mentor.chat.entity.ChatSession;
+import com.fined.mentor.chat.repository.ChatMessageRepository;
+import com.fined.mentor.chat.repository.ChatSessionRepository;
+import com.mongodb.client.result.UpdateResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChatSummaryServiceTest {
+
+    private static final String SESSION_ID = "session1";
+
+    @Mock
+    private ChatModel chatModel;
+
+    @Mock
+    private ChatSessionRepository chatSessionRepository;
+
+    @Mock
+    private ChatMessageRepository chatMessageRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ChatSessionCache chatSessionCache;
+
+    @Mock
+    private ExecutorService executor;
+
+    private ChatSummaryService chatSummaryService;
+
+    @BeforeEach
+    void setUp() {
+        chatSummaryService = new ChatSummaryService(ChatClient.builder(chatModel), chatSessionRepository,
+                chatMessageRepository, mongoTemplate, chatSessionCache, true, 4, 2, 50, 100, Duration.ofMinutes(2), executor);
+    }
+
+    @Test
+    void requestSummary_CoalescesPendingRequestsPerSession() {
+        chatSummaryService.requestSummary(SESSION_ID);
+        chatSummaryService.requestSummary(SESSION_ID);
+        chatSummaryService.requestSummary("session2");
+
+        verify(executor, times(2)).execute(any(Runnable.class));
+    }
+
+    @Test
+    void summarize_BelowThreshold_DoesNothing() {
+        when(chatSessionRepository.findById(SESSION_ID)).thenReturn(Optional.of(activeSession(null, null)));
+        when(chatMessageRepository.countByChatSessionIdAndTimestampAfter(SESSION_ID, Instant.EPOCH)).thenReturn(5L);
+
+        chatSummaryService.summarize(SESSION_ID);
+
+        verifyNoInteractions(mongoTemplate);
+        verify(chatModel, never()).call(any(Prompt.class));
+    }
+
+    @Test
+    void summarize_LeaseHeldByAnotherReplica_SkipsModelCall() {
+        when(chatSessionRepository.findById(SESSION_ID)).thenReturn(Optional.of(activeSession(null, null)));
+        when(chatMessageRepository.countByChatSessionIdAndTimestampAfter(SESSION_ID, Instant.EPOCH)).thenReturn(10L);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(ChatSession.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        chatSummaryService.summarize(SESSION_ID);
+
+        verify(chatModel, never()).call(any(Prompt.class));
+        verify(chatMessageRepository, never()).findByChatSessionIdAndTimestampAfterOrderByTimestampAsc(any(), any(),
+                any());
+    }
+
+    @Test
+    void summarize_CompactsOlderMessagesAndAdvancesWatermark() {
+        Instant watermark = Instant.parse("2026-01-01T10:00:00Z");
+        List<ChatMessage> batch = List.of(
+                message(ChatMessage.Role.USER, "I earn 4000 EUR a month", watermark.plusSeconds(1)),
+                message(ChatMessage.Role.MODEL, "Consider a savings plan", watermark.plusSeconds(2)));
+
+        when(chatSessionRepository.findById(SESSION_ID))
+                .thenReturn(Optional.of(activeSession("Wants to invest.", watermark)));
+        when(chatMessageRepository.countByChatSessionIdAndTimestampAfter(SESSION_ID, watermark)).thenReturn(8L);
+        when(chatMessageRepository.findByChatSessionIdAndTimestampAfterOrderByTimestampAsc(SESSION_ID, watermark,
+                Limit.of(6))).thenReturn(batch);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(ChatSession.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(chatModel.call(any(Prompt.class))).thenReturn(
+                new ChatResponse(List.of(new Generation(new AssistantMessage("Earns 4000 EUR, wants a savings plan.")))));
+
+        chatSummaryService.summarize(SESSION_ID);
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(3)).updateFirst(queries.capture(), updates.capture(), eq(ChatSession.class));
+
+        // lease, commit guarded by the old watermark, release
+        assertEquals(watermark, queries.getAllValues().get(1).getQueryObject().get("summarizedUntil"));
+        assertEquals("Earns 4000 EUR, wants a savings plan.",
+                updates.getAllValues().get(1).getUpdateObject().get("$set", org.bson.Document.class).get("summary"));
+        assertEquals(watermark.plusSeconds(2),
+                updates.getAllValues().get(1).getUpdateObject().get("$set", org.bson.Document.class)
+                        .get("summarizedUntil"));
+
+        verify(chatSessionCache).invalidate(SESSION_ID);
+
+        ArgumentCaptor<Prompt> prompt = ArgumentCaptor.forClass(Prompt.class);
+        verify(chatModel).call(prompt.capture());
+        String promptText = prompt.getValue().getContents();
+        assertTrue(promptText.contains("Wants to invest."));
+        assertTrue(promptText.contains("User: I earn 4000 EUR a month"));
+        assertTrue(promptText.contains("Fined Mentor: Consider a savings plan"));
+    }
+
+    @Test
+    void summarize_ModelFailure_ReleasesLease() {
+        when(chatSessionRepository.findById(SESSION_ID)).thenReturn(Optional.of(activeSession(null, null)));
+        when(chatMessageRepository.countByChatSessionIdAndTimestampAfter(SESSION_ID, Instant.EPOCH)).thenReturn(10L);
+        when(chatMessageRepository.findByChatSessionIdAndTimestampAfterOrderByTimestampAsc(any(), any(), any()))
+                .thenReturn(List.of(message(ChatMessage.Role.USER, "Hi", Instant.now())));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(ChatSession.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(chatModel.call(any(Prompt.class))).thenThrow(new RuntimeException("Model unavailable"));
+
+        assertDoesNotThrow(() -> chatSummaryService.summarize(SESSION_ID));
+
+        // lease acquired and released, nothing committed in between
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), any(Update.class), eq(ChatSession.class));
+    }
+
+    @Test
+    void requestSummary_Disabled_DoesNothing() {
+        ChatSummaryService disabled = new ChatSummaryService(ChatClient.builder(chatModel), chatSessionRepository,
+                chatMessageRepository, mongoTemplate, chatSessionCache, false, 4, 2, 50, 100, Duration.ofMinutes(2), executor);
+
+        disabled.requestSummary(SESSION_ID);
+
+        verifyNoInteractions(executor);
+    }
+
+    private ChatSession activeSession(String summary, Instant summarizedUntil) {
+        return ChatSession.builder()
+                .id(SESSION_ID)
+                .active(true)
+                .summary(summary)
+                .summarizedUntil(summarizedUntil)
+                .build();
+    }
+
+    private ChatMessage message(ChatMessage.Role role, String text, Instant timestamp) {
+        return ChatMessage.builder().chatSessionId(SESSION_ID).role(role).text(text).timestamp(timestamp).build();
+    }
+}
@@ -0,0 +1,167 @@
+package com.fined.mentor.chat.service;
+
+import com.fined.mentor.core.language.LanguageDetector;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class GuestAnswerCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger generations = new AtomicInteger();
+
+    @Test
+    void stream_RepeatedQuestion_ReplaysWithoutGenerating() {
+        GuestAnswerCache cache = cache(null, true);
+
+        StepVerifier.create(cache.stream("What is an ETF?", () -> answer("An ETF is ", "a basket of assets.")))
+                .expectNext("An ETF is ", "a basket of assets.")
+                .verifyComplete();
+        StepVerifier.create(cache.stream("  what IS an   etf ", () -> answer("never used")).collectList())
+                .assertNext(chunks -> assertEquals("An ETF is a basket of assets.", String.join("", chunks)))
+                .verifyComplete();
+
+        assertEquals(1, generations.get());
+        assertEquals(1.0, requests("hit"));
+        assertEquals(1.0, requests("miss"));
+    }
+
+    @Test
+    void stream_FailedOrCancelledAnswer_IsNotCached() {
+        GuestAnswerCache cache = cache(null, true);
+
+        StepVerifier.create(cache.stream("What is a bond?", () -> answer("A bond")
+                        .concatWith(Flux.error(new IllegalStateException("model down")))))
+                .expectNext("A bond")
+                .verifyError(IllegalStateException.class);
+        StepVerifier.create(cache.stream("What is a bond?", () -> answer("A bond ", "is a loan.")), 1)
+                .expectNext("A bond ")
+                .thenCancel()
+                .verify();
+        StepVerifier.create(cache.stream("What is a bond?", () -> answer("A bond is a loan.")))
+                .expectNext("A bond is a loan.")
+                .verifyComplete();
+
+        assertEquals(3, generations.get());
+    }
+
+    @Test
+    void stream_SameTextInAnotherLanguage_UsesSeparateEntry() {
+        GuestAnswerCache cache = cache(null, true);
+
+        assertNotEquals(cache.keyFor("Was ist ein ETF?"), cache.keyFor("What is an ETF?"));
+        assertEquals(cache.keyFor("Qu'est-ce qu'un ETF ?"), cache.keyFor("qu'est-ce qu'un etf"));
+    }
+
+    @Test
+    void stream_LongQuestionOrDisabled_AlwaysGenerates() {
+        GuestAnswerCache cache = cache(null, true);
+        String longQuestion = "How should I invest? ".repeat(20);
+
+        cache.stream(longQuestion, () -> answer("Diversify.")).blockLast();
+        cache.stream(longQuestion, () -> answer("Diversify.")).blockLast();
+        assertNull(cache.keyFor(longQuestion));
+
+        GuestAnswerCache disabled = cache(null, false);
+        disabled.stream("What is an ETF?", () -> answer("A fund.")).blockLast();
+        disabled.stream("What is an ETF?", () -> answer("A fund.")).blockLast();
+
+        assertEquals(4, generations.get());
+    }
+
+    @Test
+    void chunks_AreWordAlignedAndRebuildTheAnswer() {
+        GuestAnswerCache cache = cache(null, true);
+        String answer = "A **401(k)** is a retirement savings account offered by employers.\n\n**Key benefits:**";
+
+        var chunks = cache.chunks(answer);
+
+        assertTrue(chunks.size() > 1);
+        assertEquals(answer, String.join("", chunks));
+        chunks.subList(0, chunks.size() - 1)
+                .forEach(chunk -> assertTrue(Character.isWhitespace(chunk.charAt(chunk.length() - 1))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stream_Shared_ServesAnswerStoredByAnotherInstance() {
+        RedisAsyncCommands<String, String> redis = mock(RedisAsyncCommands.class);
+        when(redis.get(anyString())).thenReturn(new CompletedRedisFuture<>("An ETF is a fund."));
+        GuestAnswerCache cache = cache(redis, true);
+
+        StepVerifier.create(cache.stream("What is an ETF?", () -> answer("never used")).collectList())
+                .assertNext(chunks -> assertEquals("An ETF is a fund.", String.join("", chunks)))
+                .verifyComplete();
+        // Now held locally as well
+        cache.stream("What is an ETF?", () -> answer("never used")).blockLast();
+
+        verify(redis, times(1)).get(anyString());
+        assertEquals(0, generations.get());
+        assertEquals(1.0, requests("shared_hit"));
+        assertEquals(1.0, requests("hit"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stream_Shared_StoresAnswerWithTtlAndSurvivesRedisFailure() {
+        RedisAsyncCommands<String, String> redis = mock(RedisAsyncCommands.class);
+        CompletedRedisFuture<String> failed = new CompletedRedisFuture<>(null);
+        failed.obtrudeException(new IllegalStateException("redis down"));
+        when(redis.get(anyString())).thenReturn(failed);
+        when(redis.set(anyString(), anyString(), any(SetArgs.class))).thenReturn(new CompletedRedisFuture<>("OK"));
+        GuestAnswerCache cache = cache(redis, true);
+
+        StepVerifier.create(cache.stream("What is an ETF?", () -> answer("A fund.")))
+                .expectNext("A fund.")
+                .verifyComplete();
+
+        verify(redis).set(eq(cache.keyFor("What is an ETF?")), eq("A fund."), any(SetArgs.class));
+        assertEquals(1, generations.get());
+    }
+
+    private GuestAnswerCache cache(RedisAsyncCommands<String, String> redis, boolean enabled) {
+        return new GuestAnswerCache(meterRegistry, new LanguageDetector(), redis, enabled, 100,
+                Duration.ofHours(1), 120, 8);
+    }
+
+    private Flux<String> answer(String... chunks) {
+        generations.incrementAndGet();
+        return Flux.just(chunks);
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("chat.guest.cache.requests").tag("result", result).counter().count();
+    }
+
+    private static class CompletedRedisFuture<T> extends CompletableFuture<T> implements RedisFuture<T> {
+
+        CompletedRedisFuture(T value) {
+            complete(value);
+        }
+
+        @Override
+        public String getError() {
+            return null;
+        }
+
+        @Override
+        public boolean await(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
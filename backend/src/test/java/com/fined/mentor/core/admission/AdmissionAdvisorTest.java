@@ -0,0 +1,176 @@
+package com.fined.mentor.core.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AdmissionAdvisorTest {
+
+    private final AdmissionScheduler scheduler = new AdmissionScheduler(1, 1,
+            Map.of(AdmissionScheduler.Lane.AUTHENTICATED, 3, AdmissionScheduler.Lane.GUEST, 1),
+            10, Duration.ofMillis(100), new SimpleMeterRegistry());
+    private final CountingChatModel chatModel = new CountingChatModel();
+    private final ChatClient chatClient = ChatClient.builder(chatModel)
+            .defaultAdvisors(new AdmissionAdvisor(scheduler))
+            .build();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void call_HoldsPermitForTheCallAndReleasesIt() {
+        assertEquals("answer", chatClient.prompt("Hi").call().content());
+
+        assertEquals(1, chatModel.activeDuringCall.get());
+        assertEquals(0, scheduler.getActive());
+    }
+
+    @Test
+    void call_ModelFails_StillReleasesPermit() {
+        chatModel.failing = true;
+
+        assertThrows(IllegalStateException.class, () -> chatClient.prompt("Hi").call().content());
+
+        assertEquals(0, scheduler.getActive());
+    }
+
+    @Test
+    void call_NoCapacity_IsRejected() throws Exception {
+        AdmissionScheduler.Permit held = scheduler.acquire(null).get();
+
+        assertThrows(AdmissionRejectedException.class, () -> chatClient.prompt("Hi").call().content());
+
+        assertEquals(0, chatModel.calls.get());
+        held.release();
+    }
+
+    @Test
+    void stream_HoldsPermitUntilComplete() {
+        StepVerifier.create(chatClient.prompt("Hi").stream().content())
+                .expectNext("an", "swer")
+                .verifyComplete();
+
+        assertEquals(1, chatModel.activeDuringCall.get());
+        assertEquals(0, scheduler.getActive());
+    }
+
+    @Test
+    void stream_Cancelled_ReleasesPermit() {
+        StepVerifier.create(chatClient.prompt("Hi").stream().content(), 1)
+                .expectNext("an")
+                .thenCancel()
+                .verify();
+
+        assertEquals(0, scheduler.getActive());
+    }
+
+    @Test
+    void stream_UserAtCap_WaitsForTheirEarlierCall() throws Exception {
+        AdmissionScheduler.Permit held = scheduler.acquire("alice").get();
+        Flux<String> stream = chatClient.prompt("Hi")
+                .advisors(a -> a.param(AdmissionAdvisor.USER_ID, "alice"))
+                .stream()
+                .content();
+
+        CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS).execute(held::release);
+
+        StepVerifier.create(stream)
+                .expectNext("an", "swer")
+                .verifyComplete();
+    }
+
+    @Test
+    void callerOf_PrefersUserIdParamThenAuthenticatedUser() {
+        assertNull(AdmissionAdvisor.callerOf(request(Map.of())));
+
+        SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken("key", "anonymous",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+        assertNull(AdmissionAdvisor.callerOf(request(Map.of())));
+
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                "bob", null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+        assertEquals("bob", AdmissionAdvisor.callerOf(request(Map.of())));
+        assertEquals("alice", AdmissionAdvisor.callerOf(request(Map.of(AdmissionAdvisor.USER_ID, "alice"))));
+    }
+
+    @Test
+    void customize_Disabled_AddsNoAdvisor() {
+        ChatClient.Builder builder = mock(ChatClient.Builder.class);
+
+        new AdmissionAdvisor(null).customize(builder);
+        new AdmissionAdvisor(scheduler).customize(builder);
+
+        verify(builder, times(1)).defaultAdvisors(any(AdmissionAdvisor.class));
+    }
+
+    @Test
+    void isCauseOf_FindsRejectionInCauseChain() {
+        assertTrue(AdmissionRejectedException.isCauseOf(
+                new IllegalStateException(new RuntimeException(new AdmissionRejectedException("busy")))));
+        assertFalse(AdmissionRejectedException.isCauseOf(new IllegalStateException("other")));
+    }
+
+    private static ChatClientRequest request(Map<String, Object> context) {
+        return ChatClientRequest.builder()
+                .prompt(new Prompt("Hi"))
+                .context(context)
+                .build();
+    }
+
+    /**
+     * Model stand-in that notes how many permits were out while it ran.
+     */
+    private class CountingChatModel implements ChatModel {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger activeDuringCall = new AtomicInteger();
+        private volatile boolean failing;
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            calls.incrementAndGet();
+            activeDuringCall.set(scheduler.getActive());
+            if (failing) {
+                throw new IllegalStateException("model down");
+            }
+            return chunk("answer");
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            return Flux.defer(() -> {
+                calls.incrementAndGet();
+                activeDuringCall.set(scheduler.getActive());
+                return Flux.just("an", "swer").map(CountingChatModel::chunk);
+            });
+        }
+
+        private static ChatResponse chunk(String text) {
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.fined.mentor.core.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void acquire_UnderLimit_GrantsAtOnce() throws Exception {
+        AdmissionScheduler scheduler = newScheduler(2, 2, 10, Duration.ofSeconds(5));
+
+        CompletableFuture<AdmissionScheduler.Permit> first = scheduler.acquire("alice");
+        CompletableFuture<AdmissionScheduler.Permit> second = scheduler.acquire(null);
+        CompletableFuture<AdmissionScheduler.Permit> third = scheduler.acquire("bob");
+
+        assertTrue(first.isDone());
+        assertTrue(second.isDone());
+        assertFalse(third.isDone());
+        assertEquals(2.0, meterRegistry.get("llm.admission.active").gauge().value());
+        assertEquals(1.0, meterRegistry.get("llm.admission.queued").tag("lane", "authenticated").gauge().value());
+
+        first.get().release();
+        first.get().release();
+
+        assertTrue(third.isDone());
+        assertEquals(2, scheduler.getActive());
+    }
+
+    @Test
+    void acquire_UserAtCap_WaitsWhileOthersGo() throws Exception {
+        AdmissionScheduler scheduler = newScheduler(4, 1, 10, Duration.ofSeconds(5));
+
+        CompletableFuture<AdmissionScheduler.Permit> first = scheduler.acquire("alice");
+        CompletableFuture<AdmissionScheduler.Permit> second = scheduler.acquire("alice");
+        CompletableFuture<AdmissionScheduler.Permit> other = scheduler.acquire("bob");
+
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+        // Bob is not held up behind alice's queued call
+        assertTrue(other.isDone());
+
+        first.get().release();
+
+        assertTrue(second.isDone());
+    }
+
+    @Test
+    void release_BothLanesWaiting_GrantsInProportionToWeight() throws Exception {
+        AdmissionScheduler scheduler = newScheduler(1, 10, 20, Duration.ofSeconds(5));
+        CompletableFuture<AdmissionScheduler.Permit> holder = scheduler.acquire("holder");
+        List<String> order = new ArrayList<>();
+        List<CompletableFuture<AdmissionScheduler.Permit>> waiting = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            waiting.add(track(scheduler.acquire(null), "guest", order));
+        }
+        for (int i = 0; i < 4; i++) {
+            waiting.add(track(scheduler.acquire("user" + i), "user", order));
+        }
+
+        holder.get().release();
+        for (int i = 0; i < 8; i++) {
+            CompletableFuture<AdmissionScheduler.Permit> next = waiting.stream()
+                    .filter(CompletableFuture::isDone)
+                    .findFirst()
+                    .orElseThrow();
+            waiting.remove(next);
+            next.get().release();
+        }
+
+        // Weights 3:1 give three authenticated grants for each guest one while both lanes wait
+        assertEquals(List.of("user", "user", "guest", "user", "user", "guest", "guest", "guest"), order);
+    }
+
+    @Test
+    void acquire_QueueFull_RejectsAtOnce() {
+        AdmissionScheduler scheduler = newScheduler(1, 1, 1, Duration.ofSeconds(5));
+        scheduler.acquire("alice");
+        CompletableFuture<AdmissionScheduler.Permit> queued = scheduler.acquire("bob");
+
+        CompletableFuture<AdmissionScheduler.Permit> rejected = scheduler.acquire(null);
+
+        assertFalse(queued.isDone());
+        ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(AdmissionRejectedException.class, e.getCause());
+        assertEquals(1.0, meterRegistry.get("llm.admission.rejected")
+                .tags("lane", "guest", "reason", "queue_full").counter().count());
+    }
+
+    @Test
+    void acquire_NoPermitFreesUp_RejectsAfterMaxWait() {
+        AdmissionScheduler scheduler = newScheduler(1, 1, 10, Duration.ofMillis(50));
+        scheduler.acquire("alice");
+
+        CompletableFuture<AdmissionScheduler.Permit> waiting = scheduler.acquire("bob");
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(AdmissionRejectedException.class, e.getCause());
+        assertEquals(0, scheduler.getQueued(AdmissionScheduler.Lane.AUTHENTICATED));
+        assertEquals(1.0, meterRegistry.get("llm.admission.rejected")
+                .tags("lane", "authenticated", "reason", "timeout").counter().count());
+    }
+
+    @Test
+    void acquire_Cancelled_LeavesQueueAndKeepsPermitFree() throws Exception {
+        AdmissionScheduler scheduler = newScheduler(1, 1, 10, Duration.ofSeconds(5));
+        CompletableFuture<AdmissionScheduler.Permit> holder = scheduler.acquire("alice");
+        CompletableFuture<AdmissionScheduler.Permit> waiting = scheduler.acquire("bob");
+
+        waiting.cancel(false);
+
+        assertEquals(0, scheduler.getQueued(AdmissionScheduler.Lane.AUTHENTICATED));
+        holder.get().release();
+        assertEquals(0, scheduler.getActive());
+        assertTrue(scheduler.acquire("carol").isDone());
+    }
+
+    @Test
+    void release_RecordsWaitTime() throws Exception {
+        AdmissionScheduler scheduler = newScheduler(1, 1, 10, Duration.ofSeconds(5));
+        CompletableFuture<AdmissionScheduler.Permit> holder = scheduler.acquire(null);
+        scheduler.acquire(null);
+
+        holder.get().release();
+
+        assertEquals(2, meterRegistry.get("llm.admission.wait").tag("lane", "guest").timer().count());
+    }
+
+    @Test
+    void constructor_InvalidLimits_Throw() {
+        assertThrows(IllegalArgumentException.class, () -> newScheduler(0, 1, 10, Duration.ofSeconds(5)));
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionScheduler(1, 1,
+                Map.of(AdmissionScheduler.Lane.AUTHENTICATED, 1), 10, Duration.ofSeconds(5), meterRegistry));
+    }
+
+    private AdmissionScheduler newScheduler(int maxConcurrent, int maxPerUser, int maxQueued, Duration maxWait) {
+        return new AdmissionScheduler(maxConcurrent, maxPerUser,
+                Map.of(AdmissionScheduler.Lane.AUTHENTICATED, 3, AdmissionScheduler.Lane.GUEST, 1),
+                maxQueued, maxWait, meterRegistry);
+    }
+
+    private static CompletableFuture<AdmissionScheduler.Permit> track(
+            CompletableFuture<AdmissionScheduler.Permit> permit, String lane, List<String> order) {
+        permit.thenRun(() -> order.add(lane));
+        return permit;
+    }
+}
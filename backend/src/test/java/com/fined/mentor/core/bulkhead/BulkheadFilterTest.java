@@ -0,0 +1,117 @@
+package com.fined.mentor.core.bulkhead;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadFilterTest {
+
+    private BulkheadFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new BulkheadFilter(new SimpleMeterRegistry(), 1, Duration.ZERO, 2, Duration.ZERO);
+    }
+
+    @Test
+    void bulkheadFor_ModelBoundEndpoints_UseLlmBulkhead() {
+        assertSame(filter.getLlmBulkhead(), filter.bulkheadFor("/api/chat/message"));
+        assertSame(filter.getLlmBulkhead(), filter.bulkheadFor("/api/quiz/generate"));
+        assertSame(filter.getCrudBulkhead(), filter.bulkheadFor("/api/quiz/answer"));
+    }
+
+    @Test
+    void doFilter_HoldsPermitWhileHandlerRunsAndReleasesAfter() throws Exception {
+        AtomicInteger activeDuringHandler = new AtomicInteger(-1);
+        FilterChain chain = (req, res) -> activeDuringHandler.set(filter.getLlmBulkhead().getActive());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/chat/message"), response, chain);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(1, activeDuringHandler.get());
+        assertEquals(0, filter.getLlmBulkhead().getActive());
+    }
+
+    @Test
+    void doFilter_AsyncHandler_HoldsPermitUntilResponseCompletes() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/quiz/generate");
+        request.setAsyncSupported(true);
+        FilterChain chain = (req, res) -> req.startAsync();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertEquals(1, filter.getLlmBulkhead().getActive());
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+        assertEquals(0, filter.getLlmBulkhead().getActive());
+    }
+
+    @Test
+    void doFilter_AsyncHandlerTimesOut_ReleasesPermitOnce() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/chat/message");
+        request.setAsyncSupported(true);
+        FilterChain chain = (req, res) -> req.startAsync();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        MockAsyncContext asyncContext = (MockAsyncContext) request.getAsyncContext();
+        for (var listener : asyncContext.getListeners()) {
+            listener.onTimeout(null);
+        }
+        asyncContext.complete();
+
+        assertEquals(0, filter.getLlmBulkhead().getActive());
+        assertTrue(filter.getLlmBulkhead().tryAcquire());
+        assertFalse(filter.getLlmBulkhead().tryAcquire());
+    }
+
+    @Test
+    void doFilter_HandlerThrows_StillReleasesPermit() {
+        FilterChain chain = (req, res) -> {
+            throw new IllegalStateException("boom");
+        };
+
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(
+                new MockHttpServletRequest("POST", "/api/quiz/generate"), new MockHttpServletResponse(), chain));
+        assertEquals(0, filter.getLlmBulkhead().getActive());
+    }
+
+    @Test
+    void doFilter_LlmBulkheadFull_RejectsWith503ButCrudStillServed() throws Exception {
+        assertTrue(filter.getLlmBulkhead().tryAcquire());
+        AtomicInteger handled = new AtomicInteger();
+        FilterChain chain = (req, res) -> handled.incrementAndGet();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/chat/message"), rejected, chain);
+        MockHttpServletResponse served = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/quiz/answer"), served, chain);
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("The server is busy"));
+        assertEquals(200, served.getStatus());
+        assertEquals(1, handled.get());
+    }
+
+    @Test
+    void doFilter_StreamsAndNonApiPaths_AreNotLimited() throws Exception {
+        assertTrue(filter.getCrudBulkhead().tryAcquire());
+        assertTrue(filter.getCrudBulkhead().tryAcquire());
+        AtomicInteger handled = new AtomicInteger();
+        FilterChain chain = (req, res) -> handled.incrementAndGet();
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/chat/stream"), new MockHttpServletResponse(), chain);
+        filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), new MockHttpServletResponse(), chain);
+
+        assertEquals(2, handled.get());
+    }
+}
@@ -0,0 +1,82 @@
+package com.fined.mentor.core.bulkhead;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void tryAcquire_WithinLimit_TracksActiveRequests() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("llm", 2, Duration.ZERO, meterRegistry);
+
+        assertTrue(bulkhead.tryAcquire());
+        assertTrue(bulkhead.tryAcquire());
+
+        assertEquals(2, bulkhead.getActive());
+        assertEquals(2.0, meterRegistry.get("http.bulkhead.active").tag("bulkhead", "llm").gauge().value());
+        assertEquals(2.0, meterRegistry.get("http.bulkhead.max").tag("bulkhead", "llm").gauge().value());
+
+        bulkhead.release();
+        assertEquals(1, bulkhead.getActive());
+    }
+
+    @Test
+    void tryAcquire_FullWithoutWait_RejectsImmediately() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("llm", 1, Duration.ZERO, meterRegistry);
+        assertTrue(bulkhead.tryAcquire());
+
+        assertFalse(bulkhead.tryAcquire());
+
+        assertEquals(0, bulkhead.getQueued());
+        assertEquals(1.0, meterRegistry.get("http.bulkhead.rejected").tag("bulkhead", "llm").counter().count());
+    }
+
+    @Test
+    void tryAcquire_Full_WaitsForReleasedPermit() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("crud", 1, Duration.ofSeconds(5), meterRegistry);
+        assertTrue(bulkhead.tryAcquire());
+
+        CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return bulkhead.tryAcquire();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkhead.getQueued() == 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(1.0, meterRegistry.get("http.bulkhead.queued").tag("bulkhead", "crud").gauge().value());
+
+        bulkhead.release();
+
+        assertTrue(waiting.get(5, TimeUnit.SECONDS));
+        assertEquals(0, bulkhead.getQueued());
+        assertEquals(1, bulkhead.getActive());
+    }
+
+    @Test
+    void tryAcquire_WaitExpires_Rejects() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("crud", 1, Duration.ofMillis(20), meterRegistry);
+        assertTrue(bulkhead.tryAcquire());
+
+        assertFalse(bulkhead.tryAcquire());
+
+        assertEquals(0, bulkhead.getQueued());
+        assertEquals(1.0, meterRegistry.get("http.bulkhead.rejected").tag("bulkhead", "crud").counter().count());
+    }
+
+    @Test
+    void constructor_WithoutPermits_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new Bulkhead("llm", 0, Duration.ZERO, meterRegistry));
+    }
+}
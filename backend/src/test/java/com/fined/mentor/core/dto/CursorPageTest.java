@@ -0,0 +1,56 @@
+package com.fined.mentor.core.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorPageTest {
+
+    @Test
+    void cursor_RoundTrips() {
+        KeysetCursor cursor = new KeysetCursor(Instant.parse("2026-03-01T12:00:00.123Z"), "65f1c0ffee");
+
+        assertEquals(cursor, KeysetCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void cursor_MissingMeansFirstPage() {
+        assertNull(KeysetCursor.decode(null));
+        assertNull(KeysetCursor.decode(" "));
+    }
+
+    @Test
+    void cursor_MalformedIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not a cursor!"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("YWJjOmRlZg"));
+    }
+
+    @Test
+    void clampLimit_AppliesDefaultAndMaximum() {
+        assertEquals(CursorPage.DEFAULT_LIMIT, CursorPage.clampLimit(null));
+        assertEquals(CursorPage.DEFAULT_LIMIT, CursorPage.clampLimit(0));
+        assertEquals(5, CursorPage.clampLimit(5));
+        assertEquals(CursorPage.MAX_LIMIT, CursorPage.clampLimit(10_000));
+    }
+
+    @Test
+    void of_ExtraRowProducesNextCursor() {
+        Instant now = Instant.parse("2026-03-01T12:00:00Z");
+
+        CursorPage<String> page = CursorPage.of(List.of("a", "b", "c"), 2, item -> new KeysetCursor(now, item));
+
+        assertEquals(List.of("a", "b"), page.items());
+        assertEquals(new KeysetCursor(now, "b"), KeysetCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    void of_LastPageHasNoCursor() {
+        CursorPage<String> page = CursorPage.of(List.of("a"), 2, item -> new KeysetCursor(Instant.now(), item));
+
+        assertEquals(List.of("a"), page.items());
+        assertNull(page.nextCursor());
+    }
+}
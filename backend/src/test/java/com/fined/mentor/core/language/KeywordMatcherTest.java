@@ -0,0 +1,66 @@
+package com.fined.mentor.core.language;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeywordMatcherTest {
+
+    private final KeywordMatcher matcher = new KeywordMatcher(
+            List.of("tax", "ira", "real estate", "épargne", "stock", "stockholder"),
+            List.of("börse", "immobilie"));
+
+    @Test
+    void firstMatch_WholeWordsAndPlurals() {
+        assertEquals(Optional.of("tax"), matcher.firstMatch("Tax brackets"));
+        assertEquals(Optional.of("tax"), matcher.firstMatch("How taxes work"));
+        assertEquals(Optional.of("ira"), matcher.firstMatch("Roth IRAs"));
+        assertEquals(Optional.of("stockholder"), matcher.firstMatch("stockholders' rights"));
+    }
+
+    @Test
+    void firstMatch_InsideOtherWords_NoMatch() {
+        assertFalse(matcher.matches("Taxi fares in Paris"));
+        assertFalse(matcher.matches("Iran travel guide"));
+        assertFalse(matcher.matches("A trip to Stockholm"));
+        assertFalse(matcher.matches("Syntax errors"));
+    }
+
+    @Test
+    void firstMatch_FoldsCaseAccentsAndSeparators() {
+        assertEquals(Optional.of("épargne"), matcher.firstMatch("EPARGNE salariale"));
+        assertEquals(Optional.of("épargne"), matcher.firstMatch("l'Épargne"));
+        assertEquals(Optional.of("real estate"), matcher.firstMatch("Real-Estate  basics"));
+    }
+
+    @Test
+    void firstMatch_CompoundKeywords_MatchInsideWordsAndSpelledOutUmlauts() {
+        assertEquals(Optional.of("immobilie"), matcher.firstMatch("Immobilienmarkt"));
+        assertEquals(Optional.of("börse"), matcher.firstMatch("Boersengang"));
+        assertEquals(Optional.of("börse"), matcher.firstMatch("Aktienbörse"));
+    }
+
+    @Test
+    void firstMatch_OverlappingKeywords_FoundInOnePass() {
+        KeywordMatcher overlapping = new KeywordMatcher(List.of("he", "she", "hers"), List.of());
+
+        assertEquals(Optional.of("hers"), overlapping.firstMatch("ushers hers"));
+        assertEquals(Optional.of("she"), overlapping.firstMatch("she sells"));
+    }
+
+    @Test
+    void firstMatch_NothingToMatch() {
+        assertTrue(matcher.firstMatch(null).isEmpty());
+        assertTrue(matcher.firstMatch("").isEmpty());
+        assertTrue(matcher.firstMatch("日本の料理").isEmpty());
+    }
+
+    @Test
+    void constructor_KeywordNotAscii_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new KeywordMatcher(List.of("株式"), List.of()));
+        assertThrows(IllegalArgumentException.class, () -> new KeywordMatcher(List.of("  "), List.of()));
+    }
+}
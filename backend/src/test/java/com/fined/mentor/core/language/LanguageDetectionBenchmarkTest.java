@@ -0,0 +1,150 @@
+package com.fined.mentor.core.language;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the trigram {@link LanguageDetector} with the function-word detector it
+ * replaced on chat messages and quiz topics in English, French and German: how
+ * many each gets right, gets wrong or leaves undecided, and the time per call.
+ */
+class LanguageDetectionBenchmarkTest {
+
+    private static final int ITERATIONS = 20_000;
+
+    private record Sample(String text, Language language) {
+    }
+
+    private static final List<Sample> SAMPLES = List.of(
+            new Sample("What is the difference between an ETF and a mutual fund?", Language.EN),
+            new Sample("Should I pay off my student loans before investing?", Language.EN),
+            new Sample("Explain compound interest like I'm five", Language.EN),
+            new Sample("Mortgage refinancing", Language.EN),
+            new Sample("Index funds for beginners", Language.EN),
+            new Sample("Simple sample budget", Language.EN),
+            new Sample("Dividend growth investing", Language.EN),
+            new Sample("Rental property cash flow", Language.EN),
+            new Sample("Thanks, that makes sense. Can you give me an example with numbers?", Language.EN),
+            new Sample("Is gold a good hedge against inflation?", Language.EN),
+            new Sample("Quelle est la différence entre un ETF et un fonds commun ?", Language.FR),
+            new Sample("Faut-il rembourser son prêt étudiant avant d'investir ?", Language.FR),
+            new Sample("Explique-moi les intérêts composés simplement", Language.FR),
+            new Sample("Renégocier son crédit immobilier", Language.FR),
+            new Sample("Les fonds indiciels pour débutants", Language.FR),
+            new Sample("Intérêts composés", Language.FR),
+            new Sample("Investir en bourse", Language.FR),
+            new Sample("Rendement locatif net", Language.FR),
+            new Sample("Merci, c'est plus clair. Tu peux me donner un exemple chiffré ?", Language.FR),
+            new Sample("L'or protège-t-il contre l'inflation ?", Language.FR),
+            new Sample("Was ist der Unterschied zwischen einem ETF und einem Investmentfonds?", Language.DE),
+            new Sample("Sollte ich zuerst meinen Studienkredit tilgen oder investieren?", Language.DE),
+            new Sample("Erklär mir den Zinseszins ganz einfach", Language.DE),
+            new Sample("Anschlussfinanzierung Baukredit", Language.DE),
+            new Sample("Indexfonds für Einsteiger", Language.DE),
+            new Sample("Aktien kaufen", Language.DE),
+            new Sample("Dividendenstrategie langfristig", Language.DE),
+            new Sample("Mietrendite berechnen", Language.DE),
+            new Sample("Danke, das ist klarer. Kannst du mir ein Beispiel mit Zahlen geben?", Language.DE),
+            new Sample("Schützt Gold vor Inflation?", Language.DE));
+
+    @Test
+    void trigramsGetMoreRightAndNoMoreWrongAtMicrosecondCost() {
+        LanguageDetector trigrams = new LanguageDetector();
+        Function<String, Language> legacy = LanguageDetectionBenchmarkTest::legacyDetect;
+
+        int[] trigramResults = evaluate(trigrams::detect);
+        int[] legacyResults = evaluate(legacy);
+        double trigramMicros = microsPerCall(trigrams::detect);
+        double legacyMicros = microsPerCall(legacy);
+
+        System.out.println("detector       | right | wrong | unknown | detect (us)");
+        System.out.printf("function words | %5d | %5d | %7d | %11.2f%n",
+                legacyResults[0], legacyResults[1], legacyResults[2], legacyMicros);
+        System.out.printf("trigrams       | %5d | %5d | %7d | %11.2f%n",
+                trigramResults[0], trigramResults[1], trigramResults[2], trigramMicros);
+
+        assertTrue(trigramResults[0] > legacyResults[0]);
+        assertTrue(trigramResults[1] <= legacyResults[1]);
+    }
+
+    // {right, wrong, unknown}
+    private static int[] evaluate(Function<String, Language> detector) {
+        int[] results = new int[3];
+        for (Sample sample : SAMPLES) {
+            Language detected = detector.apply(sample.text());
+            results[detected == sample.language() ? 0 : detected == Language.UNKNOWN ? 2 : 1]++;
+        }
+        return results;
+    }
+
+    private static double microsPerCall(Function<String, Language> detector) {
+        int detected = 0;
+        // Warm up before timing
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (Sample sample : SAMPLES) {
+                detected += detector.apply(sample.text()) == Language.UNKNOWN ? 0 : 1;
+            }
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (Sample sample : SAMPLES) {
+                detected += detector.apply(sample.text()) == Language.UNKNOWN ? 0 : 1;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(detected > 0);
+        return elapsed / 1_000.0 / ITERATIONS / SAMPLES.size();
+    }
+
+    // The function-word detector used before the trigram profiles
+    private static final Map<Language, Set<String>> FUNCTION_WORDS = Map.of(
+            Language.EN, Set.of("the", "a", "an", "is", "are", "what", "how", "why", "when", "which", "of", "to",
+                    "in", "and", "for", "my", "i", "should", "can", "do", "does", "with", "on", "it", "about"),
+            Language.FR, Set.of("le", "la", "les", "un", "une", "des", "du", "de", "est", "sont", "dans", "sur",
+                    "avec", "et", "pour", "que", "qu", "qui", "quoi", "comment", "je", "mon", "ma", "mes", "ce",
+                    "cette", "pas", "au", "aux", "quel", "quelle", "pourquoi", "faut", "il"),
+            Language.DE, Set.of("der", "die", "das", "ein", "eine", "einen", "ist", "sind", "und", "über", "für",
+                    "mit", "wie", "was", "ich", "mein", "meine", "nicht", "zu", "auf", "den", "dem", "im", "warum",
+                    "soll", "sollte", "kann", "welche", "es", "bei"));
+
+    private static Language legacyDetect(String text) {
+        Map<Language, Integer> scores = new EnumMap<>(Language.class);
+        for (String word : text.toLowerCase().split("[^\\p{L}0-9]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            FUNCTION_WORDS.forEach((language, words) -> {
+                if (words.contains(word)) {
+                    scores.merge(language, 2, Integer::sum);
+                }
+            });
+            for (char c : word.toCharArray()) {
+                if ("éèêëàâçœîïôûù".indexOf(c) >= 0) {
+                    scores.merge(Language.FR, 1, Integer::sum);
+                } else if ("äöüß".indexOf(c) >= 0) {
+                    scores.merge(Language.DE, 1, Integer::sum);
+                }
+            }
+        }
+        Language best = Language.UNKNOWN;
+        int bestScore = 0;
+        boolean tie = false;
+        for (Map.Entry<Language, Integer> score : scores.entrySet()) {
+            if (score.getValue() > bestScore) {
+                best = score.getKey();
+                bestScore = score.getValue();
+                tie = false;
+            } else if (score.getValue() == bestScore) {
+                tie = true;
+            }
+        }
+        return tie ? Language.UNKNOWN : best;
+    }
+}
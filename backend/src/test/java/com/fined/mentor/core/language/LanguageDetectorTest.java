@@ -0,0 +1,68 @@
+package com.fined.mentor.core.language;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LanguageDetectorTest {
+
+    private final LanguageDetector detector = new LanguageDetector();
+
+    @Test
+    void detect_English() {
+        assertEquals(Language.EN, detector.detect("What is the difference between a stock and a bond?"));
+        assertEquals(Language.EN, detector.detect("How should I invest my savings"));
+    }
+
+    @Test
+    void detect_French() {
+        assertEquals(Language.FR, detector.detect("Qu'est-ce qu'un ETF ?"));
+        assertEquals(Language.FR, detector.detect("Comment investir dans l'immobilier"));
+        assertEquals(Language.FR, detector.detect("Épargne retraite"));
+    }
+
+    @Test
+    void detect_German() {
+        assertEquals(Language.DE, detector.detect("Was ist eine Immobilienfinanzierung?"));
+        assertEquals(Language.DE, detector.detect("Börse für Anfänger"));
+    }
+
+    @Test
+    void detect_NoSignal_ReturnsUnknown() {
+        assertEquals(Language.UNKNOWN, detector.detect("Investment"));
+        assertEquals(Language.UNKNOWN, detector.detect("401k"));
+        assertEquals(Language.UNKNOWN, detector.detect("   "));
+        assertEquals(Language.UNKNOWN, detector.detect(null));
+    }
+
+    @Test
+    void detect_Tie_ReturnsUnknown() {
+        // "die" is German, "the" is English
+        assertEquals(Language.UNKNOWN, detector.detect("die the"));
+    }
+
+    @Test
+    void detect_MatchesWholeWordsOnly() {
+        // Contains "la", "est" and "die" as substrings only
+        assertEquals(Language.EN, detector.detect("The best salary for studies"));
+        // "le" inside a word is no hint of French
+        assertEquals(Language.UNKNOWN, detector.detect("sample"));
+        assertEquals(Language.EN, detector.detect("A simple sample budget for students"));
+    }
+
+    @Test
+    void detect_ShortPhrasesWithoutFunctionWords() {
+        assertEquals(Language.DE, detector.detect("Aktien kaufen"));
+        assertEquals(Language.FR, detector.detect("Intérêts composés"));
+        assertEquals(Language.EN, detector.detect("Mortgage refinancing"));
+    }
+
+    @Test
+    void detect_LongText_OnlyReadsTheStart() {
+        String german = "Wie funktioniert ein Sparplan für Anfänger? ";
+        String english = "How does a savings plan work for beginners? ".repeat(50);
+
+        assertEquals(Language.DE, detector.detect(german.repeat(LanguageDetector.MAX_CHARS / german.length() + 1)
+                + english));
+    }
+}
@@ -0,0 +1,115 @@
+package com.fined.mentor.core.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MutableClock clock = new MutableClock();
+    private final CircuitBreaker breaker = new CircuitBreaker("chat", 4, 0.5, Duration.ofSeconds(30),
+            meterRegistry, clock);
+
+    @Test
+    void onFailure_BelowRateOrWindow_StaysClosed() {
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryPass());
+
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        // The two early failures have left the window
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void onFailure_RateReached_OpensAndRefusesCalls() {
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryPass());
+        assertEquals(1.0, meterRegistry.get("llm.circuit.opened").tag("circuit", "chat").counter().count());
+        assertEquals(1.0, meterRegistry.get("llm.circuit.state").tag("circuit", "chat").gauge().value());
+    }
+
+    @Test
+    void tryPass_AfterOpenPeriod_LetsOneProbeThrough() {
+        open();
+        clock.now = clock.now.plusSeconds(30);
+
+        assertTrue(breaker.tryPass());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryPass());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryPass());
+    }
+
+    @Test
+    void onFailure_FailedProbe_OpensAgain() {
+        open();
+        clock.now = clock.now.plusSeconds(30);
+        assertTrue(breaker.tryPass());
+
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryPass());
+        assertEquals(2.0, meterRegistry.get("llm.circuit.opened").tag("circuit", "chat").counter().count());
+    }
+
+    @Test
+    void onSuccess_CallStartedBeforeOpening_KeepsBreakerOpen() {
+        open();
+
+        breaker.onSuccess();
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        clock.now = clock.now.plusSeconds(29);
+        assertFalse(breaker.tryPass());
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
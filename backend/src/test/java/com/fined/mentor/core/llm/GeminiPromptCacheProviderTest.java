@@ -0,0 +1,114 @@
+package com.fined.mentor.core.llm;
+
+import com.google.genai.Caches;
+import com.google.genai.Client;
+import com.google.genai.types.CachedContent;
+import com.google.genai.types.CreateCachedContentConfig;
+import com.google.genai.types.FunctionDeclaration;
+import com.google.genai.types.UpdateCachedContentConfig;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class GeminiPromptCacheProviderTest {
+
+    private final Caches caches = mock(Caches.class);
+    private final GeminiPromptCacheProvider provider = new GeminiPromptCacheProvider(() -> caches, "gemini-2.5-flash");
+
+    @Test
+    void create_StoresSystemInstructionForConfiguredModel() {
+        Instant expiry = Instant.parse("2026-01-01T01:00:00Z");
+        when(caches.create(eq("gemini-2.5-flash"), any(CreateCachedContentConfig.class)))
+                .thenReturn(CachedContent.builder().name("cachedContents/abc").expireTime(expiry).build());
+
+        CachedPrefix prefix = provider.create("chat", "You are a mentor.", List.of(), Duration.ofHours(1));
+
+        assertEquals(new CachedPrefix("cachedContents/abc", expiry), prefix);
+        ArgumentCaptor<CreateCachedContentConfig> config = ArgumentCaptor.forClass(CreateCachedContentConfig.class);
+        verify(caches).create(eq("gemini-2.5-flash"), config.capture());
+        assertEquals("fined-mentor-chat", config.getValue().displayName().orElseThrow());
+        assertEquals(Duration.ofHours(1), config.getValue().ttl().orElseThrow());
+        assertEquals("You are a mentor.",
+                config.getValue().systemInstruction().orElseThrow().parts().orElseThrow().get(0).text().orElseThrow());
+        assertTrue(config.getValue().contents().isEmpty());
+        assertTrue(config.getValue().tools().isEmpty());
+    }
+
+    @Test
+    void create_WithTools_DeclaresThemInCachedContent() {
+        when(caches.create(eq("gemini-2.5-flash"), any(CreateCachedContentConfig.class)))
+                .thenReturn(CachedContent.builder().name("cachedContents/abc").build());
+        ToolDefinition search = ToolDefinition.builder()
+                .name("searchWeb")
+                .description("Search the web")
+                .inputSchema("""
+                        {"type": "object", "properties": {"query": {"type": "string"}}, "required": ["query"]}
+                        """)
+                .build();
+
+        provider.create("chat", "You are a mentor.", List.of(search), Duration.ofHours(1));
+
+        ArgumentCaptor<CreateCachedContentConfig> config = ArgumentCaptor.forClass(CreateCachedContentConfig.class);
+        verify(caches).create(eq("gemini-2.5-flash"), config.capture());
+        FunctionDeclaration declaration = config.getValue().tools().orElseThrow().get(0)
+                .functionDeclarations().orElseThrow().get(0);
+        assertEquals("searchWeb", declaration.name().orElseThrow());
+        assertEquals("Search the web", declaration.description().orElseThrow());
+        assertEquals(List.of("query"), declaration.parameters().orElseThrow().required().orElseThrow());
+    }
+
+    @Test
+    void create_ToolWithInvalidSchema_Throws() {
+        ToolDefinition broken = ToolDefinition.builder().name("broken").description("Broken").inputSchema("{").build();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> provider.create("chat", "text", List.of(broken), Duration.ofHours(1)));
+        verifyNoInteractions(caches);
+    }
+
+    @Test
+    void create_ResponseWithoutName_Throws() {
+        when(caches.create(any(), any())).thenReturn(CachedContent.builder().build());
+
+        assertThrows(IllegalStateException.class, () -> provider.create("chat", "text", List.of(), Duration.ofHours(1)));
+    }
+
+    @Test
+    void refresh_UpdatesTtlAndFallsBackToLocalExpiry() {
+        when(caches.update(eq("cachedContents/abc"), any(UpdateCachedContentConfig.class)))
+                .thenReturn(CachedContent.builder().name("cachedContents/abc").build());
+
+        Instant before = Instant.now();
+        CachedPrefix prefix = provider.refresh(new CachedPrefix("cachedContents/abc", before), Duration.ofMinutes(30));
+
+        assertEquals("cachedContents/abc", prefix.handle());
+        assertFalse(prefix.expiresAt().isBefore(before.plus(Duration.ofMinutes(30))));
+    }
+
+    @Test
+    void delete_RemovesCachedContent() {
+        provider.delete(new CachedPrefix("cachedContents/abc", Instant.now()));
+
+        verify(caches).delete(eq("cachedContents/abc"), isNull());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void create_WithoutGeminiClient_Throws() {
+        ObjectProvider<Client> noClient = mock(ObjectProvider.class);
+        GeminiPromptCacheProvider unconfigured = new GeminiPromptCacheProvider(noClient, "gemini-2.5-flash");
+
+        assertThrows(IllegalStateException.class, () -> unconfigured.create("chat", "text", List.of(), Duration.ofHours(1)));
+    }
+}
@@ -0,0 +1,391 @@
+package com.fined.mentor.core.llm;
+
+import com.fined.mentor.core.admission.AdmissionRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.google.genai.GoogleGenAiChatOptions;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.tool.ToolCallback;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ModelInvokerTest {
+
+    private static final String PRIMARY = "primary";
+    private static final String FALLBACK = "gemini-2.5-flash-lite";
+    private static final Duration DEADLINE = Duration.ofSeconds(2);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LatencyInjectingChatModel chatModel = new LatencyInjectingChatModel();
+    private final ChatClient chatClient = ChatClient.builder(chatModel).build();
+    private ModelInvoker invoker;
+
+    @AfterEach
+    void tearDown() {
+        if (invoker != null) {
+            invoker.close();
+        }
+    }
+
+    @Test
+    void call_FastPrimary_AnswersWithoutHedge() {
+        invoker = newInvoker(true);
+        chatModel.latency(PRIMARY, Duration.ofMillis(10));
+
+        assertEquals("answer from primary", call());
+
+        assertEquals(0, chatModel.calls(FALLBACK));
+        assertEquals(1.0, outcome("primary"));
+        assertEquals(0.0, meterRegistry.get("llm.hedges").tag("use_case", "chat").counter().count());
+    }
+
+    @Test
+    void call_SlowPrimary_HedgesAfterRecentP95AndTakesFallbackAnswer() {
+        invoker = newInvoker(true);
+        chatModel.latency(PRIMARY, Duration.ofMillis(5));
+        for (int i = 0; i < 20; i++) {
+            call();
+        }
+        // Recent p95 is a few milliseconds, so the hedge goes out after the 100ms floor
+        assertEquals(0.1, meterRegistry.get("llm.hedge.delay").tag("use_case", "chat").gauge().value(), 0.05);
+        chatModel.latency(PRIMARY, Duration.ofSeconds(5));
+        chatModel.latency(FALLBACK, Duration.ofMillis(10));
+
+        long started = System.nanoTime();
+        String answer = call();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        assertEquals("answer from " + FALLBACK, answer);
+        assertTrue(elapsed.compareTo(Duration.ofSeconds(1)) < 0, "answered after " + elapsed);
+        assertEquals(1.0, meterRegistry.get("llm.hedges").tag("use_case", "chat").counter().count());
+        assertEquals(1.0, outcome("hedge"));
+    }
+
+    @Test
+    void call_PrimaryAnswersBeforeHedge_WinsTheRace() {
+        invoker = newInvoker(true);
+        // No latency history yet: the hedge waits half the deadline
+        chatModel.latency(PRIMARY, Duration.ofMillis(300));
+        chatModel.latency(FALLBACK, Duration.ofMillis(10));
+
+        assertEquals("answer from primary", call());
+
+        assertEquals(0, chatModel.calls(FALLBACK));
+    }
+
+    @Test
+    void call_HedgedPrimaryAnswersFirst_WinsTheRace() {
+        invoker = newInvoker(true);
+        chatModel.latency(PRIMARY, Duration.ofMillis(1200));
+        chatModel.latency(FALLBACK, Duration.ofSeconds(5));
+
+        assertEquals("answer from primary", call());
+
+        assertEquals(1, chatModel.calls(FALLBACK));
+        assertEquals(1.0, outcome("primary"));
+    }
+
+    @Test
+    void call_PrimaryFails_AsksFallbackRightAway() {
+        invoker = newInvoker(true);
+        chatModel.failing(PRIMARY);
+
+        assertEquals("answer from " + FALLBACK, call());
+
+        assertEquals(1.0, outcome("fallback"));
+    }
+
+    @Test
+    void call_EveryAttemptFails_ThrowsLastError() {
+        invoker = newInvoker(true);
+        chatModel.failing(PRIMARY);
+        chatModel.failing(FALLBACK);
+
+        RuntimeException e = assertThrows(RuntimeException.class, this::call);
+
+        assertTrue(e.getMessage().contains(FALLBACK));
+        assertEquals(1.0, outcome("failure"));
+    }
+
+    @Test
+    void call_NoAnswerBeforeDeadline_TimesOut() {
+        invoker = newInvoker(false);
+        chatModel.latency(PRIMARY, Duration.ofSeconds(5));
+
+        long started = System.nanoTime();
+        assertThrows(ModelTimeoutException.class, this::call);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        assertTrue(elapsed.compareTo(Duration.ofSeconds(4)) < 0, "gave up after " + elapsed);
+        assertEquals(1.0, outcome("timeout"));
+    }
+
+    @Test
+    void call_HedgeAlsoTooSlow_TimesOut() {
+        invoker = newInvoker(true);
+        chatModel.latency(PRIMARY, Duration.ofSeconds(5));
+        chatModel.latency(FALLBACK, Duration.ofSeconds(5));
+
+        assertThrows(ModelTimeoutException.class, this::call);
+
+        assertEquals(1.0, outcome("timeout"));
+    }
+
+    @Test
+    void call_BreakerOpen_SkipsPrimaryModel() {
+        invoker = newInvoker(true);
+        chatModel.failing(PRIMARY);
+        for (int i = 0; i < 4; i++) {
+            call();
+        }
+        assertEquals(4, chatModel.calls(PRIMARY));
+
+        assertEquals("answer from " + FALLBACK, call());
+
+        assertEquals(4, chatModel.calls(PRIMARY));
+        assertEquals(1.0, meterRegistry.get("llm.circuit.opened").tag("circuit", "chat").counter().count());
+    }
+
+    @Test
+    void call_AdmissionRejected_RethrowsWithoutFallback() {
+        invoker = newInvoker(true);
+        chatModel.rejecting(PRIMARY);
+
+        assertThrows(AdmissionRejectedException.class, this::call);
+
+        assertEquals(0, chatModel.calls(FALLBACK));
+        assertEquals(1.0, outcome("rejected"));
+        assertEquals(0.0, outcome("failure"));
+    }
+
+    @Test
+    void call_Disabled_RunsModelOnCallerThread() {
+        invoker = new ModelInvoker(meterRegistry, false, FALLBACK, deadlines(), true, 0.95, 20,
+                Duration.ofMillis(100), 4, 0.5, Duration.ofSeconds(30), Clock.systemUTC(),
+                Executors.newCachedThreadPool());
+        Thread caller = Thread.currentThread();
+
+        assertSame(caller, invoker.call(ModelInvoker.UseCase.CHAT, new Prompt("Hi"), p -> Thread.currentThread()));
+    }
+
+    @Test
+    void fallbackPrompt_PinsFallbackModelAndKeepsOptions() {
+        invoker = newInvoker(true);
+        Prompt prompt = new Prompt(List.of(new UserMessage("Hi")),
+                GoogleGenAiChatOptions.builder().temperature(0.2).build());
+
+        Prompt pinned = invoker.fallbackPrompt(prompt);
+
+        assertEquals(prompt.getInstructions(), pinned.getInstructions());
+        assertEquals(FALLBACK, pinned.getOptions().getModel());
+        assertEquals(0.2, pinned.getOptions().getTemperature());
+        assertNull(prompt.getOptions().getModel());
+    }
+
+    @Test
+    void fallbackPrompt_ToolCallingOptions_KeepsTools() {
+        invoker = newInvoker(true);
+        ToolCallback tool = mock(ToolCallback.class);
+        Prompt prompt = new Prompt(List.of(new UserMessage("Hi")), ToolCallingChatOptions.builder()
+                .toolCallbacks(tool)
+                .toolNames("search")
+                .toolContext(Map.of("generationId", "g-1"))
+                .build());
+
+        ToolCallingChatOptions pinned = (ToolCallingChatOptions) invoker.fallbackPrompt(prompt).getOptions();
+
+        assertEquals(FALLBACK, pinned.getModel());
+        assertEquals(List.of(tool), pinned.getToolCallbacks());
+        assertEquals(Set.of("search"), pinned.getToolNames());
+        assertEquals(Map.of("generationId", "g-1"), pinned.getToolContext());
+    }
+
+    @Test
+    void stream_SlowFirstChunk_HedgedStreamWins() {
+        invoker = newInvoker(true);
+        chatModel.latency(PRIMARY, Duration.ofSeconds(5));
+        chatModel.latency(FALLBACK, Duration.ofMillis(10));
+
+        StepVerifier.create(stream())
+                .expectNext("answer ", "from ", FALLBACK)
+                .verifyComplete();
+
+        assertEquals(1.0, outcome("hedge"));
+        assertEquals(1.0, meterRegistry.get("llm.hedges").tag("use_case", "chat").counter().count());
+    }
+
+    @Test
+    void stream_PrimaryFailsBeforeFirstChunk_AsksFallback() {
+        invoker = newInvoker(false);
+        chatModel.failing(PRIMARY);
+
+        StepVerifier.create(stream())
+                .expectNext("answer ", "from ", FALLBACK)
+                .verifyComplete();
+
+        assertEquals(1.0, outcome("fallback"));
+    }
+
+    @Test
+    void stream_NoFirstChunkBeforeDeadline_TimesOut() {
+        invoker = newInvoker(false);
+        chatModel.latency(PRIMARY, Duration.ofSeconds(5));
+
+        StepVerifier.create(stream())
+                .expectError(ModelTimeoutException.class)
+                .verify(Duration.ofSeconds(4));
+
+        assertEquals(1.0, outcome("timeout"));
+    }
+
+    @Test
+    void stream_AdmissionRejected_FailsWithoutFallback() {
+        invoker = newInvoker(false);
+        chatModel.rejecting(PRIMARY);
+
+        StepVerifier.create(stream())
+                .expectError(AdmissionRejectedException.class)
+                .verify(Duration.ofSeconds(4));
+
+        assertEquals(0, chatModel.calls(FALLBACK));
+        assertEquals(1.0, outcome("rejected"));
+    }
+
+    @Test
+    void stream_BreakerOpen_StreamsFromFallback() {
+        invoker = newInvoker(false);
+        chatModel.failing(PRIMARY);
+        for (int i = 0; i < 4; i++) {
+            stream().blockLast();
+        }
+
+        StepVerifier.create(stream())
+                .expectNext("answer ", "from ", FALLBACK)
+                .verifyComplete();
+
+        assertEquals(4, chatModel.calls(PRIMARY));
+    }
+
+    private String call() {
+        return invoker.call(ModelInvoker.UseCase.CHAT, new Prompt("Hi"),
+                p -> chatClient.prompt(p).call().content());
+    }
+
+    private Flux<String> stream() {
+        return invoker.stream(ModelInvoker.UseCase.CHAT, new Prompt("Hi"),
+                p -> chatClient.prompt(p).stream().content());
+    }
+
+    private ModelInvoker newInvoker(boolean hedging) {
+        return new ModelInvoker(meterRegistry, true, FALLBACK, deadlines(), hedging, 0.95, 20,
+                Duration.ofMillis(100), 4, 0.5, Duration.ofSeconds(30), Clock.systemUTC(),
+                Executors.newCachedThreadPool());
+    }
+
+    private static Map<ModelInvoker.UseCase, Duration> deadlines() {
+        return Map.of(ModelInvoker.UseCase.CHAT, DEADLINE, ModelInvoker.UseCase.QUIZ, DEADLINE,
+                ModelInvoker.UseCase.TOPIC_VALIDATION, DEADLINE);
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.get("llm.calls").tag("use_case", "chat").tag("outcome", outcome).counter().count();
+    }
+
+    /**
+     * Local stand-in for the model provider. Answers "answer from model" after the
+     * latency set for the model the prompt is pinned to, fails for models marked as
+     * failing, and turns calls away for models marked as rejecting.
+     */
+    private static class LatencyInjectingChatModel implements ChatModel {
+
+        private final Map<String, Duration> latencies = new ConcurrentHashMap<>();
+        private final Map<String, Boolean> failing = new ConcurrentHashMap<>();
+        private final Map<String, Boolean> rejecting = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+        void latency(String model, Duration latency) {
+            latencies.put(model, latency);
+        }
+
+        void failing(String model) {
+            failing.put(model, true);
+        }
+
+        void rejecting(String model) {
+            rejecting.put(model, true);
+        }
+
+        int calls(String model) {
+            AtomicInteger count = calls.get(model);
+            return count == null ? 0 : count.get();
+        }
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            String model = modelOf(prompt);
+            calls.computeIfAbsent(model, m -> new AtomicInteger()).incrementAndGet();
+            try {
+                Thread.sleep(latencies.getOrDefault(model, Duration.ZERO));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            if (rejecting.getOrDefault(model, false)) {
+                throw new AdmissionRejectedException("busy");
+            }
+            if (failing.getOrDefault(model, false)) {
+                throw unavailable(model);
+            }
+            return chunk("answer from " + model);
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            String model = modelOf(prompt);
+            return Flux.defer(() -> {
+                calls.computeIfAbsent(model, m -> new AtomicInteger()).incrementAndGet();
+                Flux<String> chunks = rejecting.getOrDefault(model, false)
+                        ? Flux.error(new AdmissionRejectedException("busy"))
+                        : failing.getOrDefault(model, false)
+                        ? Flux.error(unavailable(model))
+                        : Flux.just("answer ", "from ", model);
+                return chunks.map(LatencyInjectingChatModel::chunk)
+                        .delaySubscription(latencies.getOrDefault(model, Duration.ZERO));
+            });
+        }
+
+        private String modelOf(Prompt prompt) {
+            return prompt.getOptions() != null && prompt.getOptions().getModel() != null
+                    ? prompt.getOptions().getModel()
+                    : PRIMARY;
+        }
+
+        private static IllegalStateException unavailable(String model) {
+            return new IllegalStateException("Model " + model + " is unavailable");
+        }
+
+        private static ChatResponse chunk(String text) {
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+        }
+    }
+}
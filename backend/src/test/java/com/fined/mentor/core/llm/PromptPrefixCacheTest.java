@@ -0,0 +1,340 @@
+package com.fined.mentor.core.llm;
+
+import com.google.genai.errors.ClientException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.google.genai.GoogleGenAiChatOptions;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PromptPrefixCacheTest {
+
+    private static final String PREFIX = "You are a helpful mentor. ".repeat(20);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StubProvider provider = new StubProvider();
+    private PromptPrefixCache cache;
+
+    @AfterEach
+    void tearDown() {
+        if (cache != null) {
+            cache.close();
+        }
+    }
+
+    @Test
+    void register_CreatesPrefixInBackground() {
+        cache = newCache(true, 10);
+
+        cache.register("chat", PREFIX, List.of());
+
+        awaitLive("chat");
+        assertEquals(List.of("chat"), provider.created);
+        assertEquals(1.0, meterRegistry.get("llm.prompt.cache.live").gauge().value());
+    }
+
+    @Test
+    void register_ShortOrDisabled_SendsPromptsUnchanged() {
+        cache = newCache(true, 10_000);
+        cache.register("chat", PREFIX, List.of());
+        PromptPrefixCache disabled = newCache(false, 10);
+        disabled.register("chat", PREFIX, List.of());
+
+        Prompt prompt = new Prompt(List.of(new SystemMessage(PREFIX), new UserMessage("Hi")));
+
+        assertSame(prompt, cache.call("chat", prompt, p -> p));
+        assertSame(prompt, disabled.call("chat", prompt, p -> p));
+        assertTrue(provider.created.isEmpty());
+        disabled.close();
+    }
+
+    @Test
+    void register_ChecksMinimumWithTokenizer() {
+        TokenCountEstimator tokenizer = mock(TokenCountEstimator.class);
+        when(tokenizer.estimate("dense")).thenReturn(2000);
+        cache = new PromptPrefixCache(provider, tokenizer, meterRegistry, true,
+                Duration.ofHours(1), Duration.ofMillis(200), Duration.ofMillis(50), 1024);
+
+        cache.register("dense", "dense", List.of());
+        cache.register("sparse", PREFIX, List.of());
+
+        awaitCondition(() -> provider.created.contains("dense"));
+        assertFalse(provider.created.contains("sparse"));
+    }
+
+    @Test
+    void call_LivePrefix_ReferencesCachedContentAndMovesSuffixToUserTurn() {
+        cache = newCache(true, 10);
+        cache.register("chat", PREFIX, List.of());
+        awaitLive("chat");
+        Prompt prompt = new Prompt(List.of(new SystemMessage(PREFIX + "\n\nSummary: earlier turns"),
+                new UserMessage("What is an ETF?")));
+
+        Prompt sent = cache.call("chat", prompt, p -> p);
+
+        assertNotSame(prompt, sent);
+        assertTrue(sent.getInstructions().stream().noneMatch(SystemMessage.class::isInstance));
+        assertEquals(List.of("Summary: earlier turns", "What is an ETF?"),
+                sent.getInstructions().stream().map(m -> m.getText()).toList());
+        GoogleGenAiChatOptions options = (GoogleGenAiChatOptions) sent.getOptions();
+        assertEquals("cachedContents/chat-1", options.getCachedContentName());
+        assertTrue(options.getUseCachedContent());
+        // Gemini rejects cached content sent with a system instruction or tools
+        assertTrue(options.getToolCallbacks().isEmpty());
+        assertTrue(options.getToolNames().isEmpty());
+    }
+
+    @Test
+    void call_PromptWithCachedTools_LeavesToolsToCachedContent() {
+        cache = newCache(true, 10);
+        ToolCallback search = tool("search");
+        cache.register("chat", PREFIX, List.of(search));
+        Prompt prompt = new Prompt(List.of(new SystemMessage(PREFIX), new UserMessage("Hi")),
+                ToolCallingChatOptions.builder()
+                        .toolCallbacks(search)
+                        .toolContext(Map.of("generationId", "g-1"))
+                        .build());
+        awaitCondition(() -> cache.cachedPrompt("chat", prompt) != null);
+
+        Prompt sent = cache.call("chat", prompt, p -> p);
+
+        assertEquals(List.of("search"), provider.tools.get("chat"));
+        // Gemini rejects cached content sent with a system instruction or tools
+        assertTrue(sent.getInstructions().stream().noneMatch(SystemMessage.class::isInstance));
+        GoogleGenAiChatOptions options = (GoogleGenAiChatOptions) sent.getOptions();
+        assertEquals("cachedContents/chat-1", options.getCachedContentName());
+        assertTrue(options.getToolCallbacks().isEmpty());
+        assertTrue(options.getToolNames().isEmpty());
+        assertEquals("g-1", options.getToolContext().get("generationId"));
+        assertEquals(List.of("search"), options.getToolContext().get(PromptPrefixCache.CACHED_TOOLS));
+    }
+
+    @Test
+    void call_PromptWithOtherTools_IsSentUnchanged() {
+        cache = newCache(true, 10);
+        ToolCallback search = tool("search");
+        cache.register("chat", PREFIX, List.of(search));
+        Prompt cachedTools = new Prompt(List.of(new SystemMessage(PREFIX), new UserMessage("Hi")),
+                ToolCallingChatOptions.builder().toolCallbacks(search).build());
+        awaitCondition(() -> cache.cachedPrompt("chat", cachedTools) != null);
+        Prompt noTools = new Prompt(List.of(new SystemMessage(PREFIX), new UserMessage("Hi")));
+        Prompt otherTools = new Prompt(List.of(new SystemMessage(PREFIX), new UserMessage("Hi")),
+                ToolCallingChatOptions.builder().toolNames("search", "calculator").build());
+
+        assertSame(noTools, cache.call("chat", noTools, p -> p));
+        assertSame(otherTools, cache.call("chat", otherTools, p -> p));
+    }
+
+    @Test
+    void call_PromptWithOtherSystemMessage_IsSentUnchanged() {
+        cache = newCache(true, 10);
+        cache.register("chat", PREFIX, List.of());
+        awaitLive("chat");
+        Prompt prompt = new Prompt(List.of(new SystemMessage("Something else"), new UserMessage("Hi")));
+
+        assertSame(prompt, cache.call("chat", prompt, p -> p));
+    }
+
+    @Test
+    void call_PromptPinnedToModel_IsSentUnchanged() {
+        cache = newCache(true, 10);
+        cache.register("chat", PREFIX, List.of());
+        awaitLive("chat");
+        Prompt prompt = new Prompt(List.of(new SystemMessage(PREFIX), new UserMessage("Hi")),
+                GoogleGenAiChatOptions.builder().model("gemini-2.5-flash-lite").build());
+
+        assertSame(prompt, cache.call("chat", prompt, p -> p));
+    }
+
+    @Test
+    void call_CacheGone_RetriesUncachedAndRecreates() {
+        cache = newCache(true, 10);
+        cache.register("chat", PREFIX, List.of());
+        awaitLive("chat");
+        Prompt prompt = new Prompt(List.of(new SystemMessage(PREFIX), new UserMessage("Hi")));
+        List<Prompt> attempts = new ArrayList<>();
+
+        String answer = cache.call("chat", prompt, p -> {
+            attempts.add(p);
+            if (p.getOptions() instanceof GoogleGenAiChatOptions) {
+                throw new RuntimeException(new ClientException(404, "NOT_FOUND", "CachedContent not found"));
+            }
+            return "answer";
+        });
+
+        assertEquals("answer", answer);
+        assertEquals(2, attempts.size());
+        assertSame(prompt, attempts.get(1));
+        assertEquals(1.0, meterRegistry.get("llm.prompt.cache.fallbacks").counter().count());
+        awaitCondition(() -> provider.created.size() == 2);
+        awaitLive("chat");
+    }
+
+    @Test
+    void stream_CacheRejected_RetriesUncachedAndStopsUsingPrefix() {
+        cache = newCache(true, 10);
+        cache.register("chat", PREFIX, List.of());
+        awaitLive("chat");
+        Prompt prompt = new Prompt(List.of(new SystemMessage(PREFIX), new UserMessage("Hi")));
+        AtomicInteger cachedAttempts = new AtomicInteger();
+
+        StepVerifier.create(cache.stream("chat", prompt, p -> {
+                    if (p.getOptions() instanceof GoogleGenAiChatOptions) {
+                        cachedAttempts.incrementAndGet();
+                        return Flux.error(new ClientException(400, "INVALID_ARGUMENT", "not allowed"));
+                    }
+                    return Flux.just("a", "b");
+                }))
+                .expectNext("a", "b")
+                .verifyComplete();
+
+        assertEquals(1, cachedAttempts.get());
+        assertSame(prompt, cache.call("chat", prompt, p -> p));
+    }
+
+    @Test
+    void stream_ErrorAfterFirstToken_IsNotRetried() {
+        cache = newCache(true, 10);
+        cache.register("chat", PREFIX, List.of());
+        awaitLive("chat");
+        Prompt prompt = new Prompt(List.of(new SystemMessage(PREFIX), new UserMessage("Hi")));
+
+        StepVerifier.create(cache.stream("chat", prompt, p -> Flux.concat(Flux.just("a"),
+                        Flux.error(new ClientException(400, "INVALID_ARGUMENT", "late")))))
+                .expectNext("a")
+                .expectError(ClientException.class)
+                .verify();
+    }
+
+    @Test
+    void call_ServerError_IsNotRetried() {
+        cache = newCache(true, 10);
+        cache.register("chat", PREFIX, List.of());
+        awaitLive("chat");
+        Prompt prompt = new Prompt(List.of(new SystemMessage(PREFIX), new UserMessage("Hi")));
+
+        assertThrows(IllegalStateException.class, () -> cache.call("chat", prompt, p -> {
+            throw new IllegalStateException("model down");
+        }));
+        assertEquals(0.0, meterRegistry.get("llm.prompt.cache.fallbacks").counter().count());
+    }
+
+    @Test
+    void maintain_RefreshesBeforeExpiryAndRetriesFailedCreate() {
+        provider.failNextCreate = true;
+        provider.lifetime = Duration.ofMillis(300);
+        cache = newCache(true, 10);
+
+        cache.register("chat", PREFIX, List.of());
+
+        awaitCondition(() -> provider.refreshed.get() >= 1);
+        assertEquals(2, provider.createAttempts.get());
+    }
+
+    @Test
+    void close_DeletesLivePrefixes() {
+        cache = newCache(true, 10);
+        cache.register("chat", PREFIX, List.of());
+        awaitLive("chat");
+
+        cache.close();
+
+        assertEquals(List.of("cachedContents/chat-1"), provider.deleted);
+        cache = null;
+    }
+
+    private PromptPrefixCache newCache(boolean enabled, int minTokens) {
+        // Refresh 200ms before expiry and retry failures after 50ms, so background work happens quickly
+        return new PromptPrefixCache(provider, new JTokkitTokenCountEstimator(), meterRegistry, enabled,
+                Duration.ofHours(1), Duration.ofMillis(200), Duration.ofMillis(50), minTokens);
+    }
+
+    private static ToolCallback tool(String name) {
+        ToolCallback tool = mock(ToolCallback.class);
+        when(tool.getToolDefinition()).thenReturn(ToolDefinition.builder()
+                .name(name)
+                .description("Test tool")
+                .inputSchema("{\"type\": \"object\"}")
+                .build());
+        return tool;
+    }
+
+    private void awaitLive(String name) {
+        Prompt probe = new Prompt(List.of(new SystemMessage(PREFIX), new UserMessage("probe")));
+        awaitCondition(() -> cache.cachedPrompt(name, probe) != null);
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met in time");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * In-memory provider standing in for Gemini cached content.
+     */
+    private static class StubProvider implements PromptCacheProvider {
+        private final List<String> created = new CopyOnWriteArrayList<>();
+        private final List<String> deleted = new CopyOnWriteArrayList<>();
+        private final AtomicInteger createAttempts = new AtomicInteger();
+        private final AtomicInteger refreshed = new AtomicInteger();
+        private final ConcurrentHashMap<String, String> stored = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, List<String>> tools = new ConcurrentHashMap<>();
+        private volatile boolean failNextCreate;
+        private volatile Duration lifetime = Duration.ofHours(1);
+
+        @Override
+        public CachedPrefix create(String name, String systemInstruction, List<ToolDefinition> tools,
+                Duration ttl) {
+            createAttempts.incrementAndGet();
+            if (failNextCreate) {
+                failNextCreate = false;
+                throw new IllegalStateException("provider unavailable");
+            }
+            created.add(name);
+            String handle = "cachedContents/" + name + "-" + created.size();
+            stored.put(handle, systemInstruction);
+            this.tools.put(name, tools.stream().map(ToolDefinition::name).toList());
+            return new CachedPrefix(handle, Instant.now().plus(lifetime));
+        }
+
+        @Override
+        public CachedPrefix refresh(CachedPrefix prefix, Duration ttl) {
+            refreshed.incrementAndGet();
+            return new CachedPrefix(prefix.handle(), Instant.now().plus(lifetime));
+        }
+
+        @Override
+        public void delete(CachedPrefix prefix) {
+            stored.remove(prefix.handle());
+            deleted.add(prefix.handle());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.fined.mentor.core.llm;
+
+import com.fined.mentor.core.language.Language;
+import com.fined.mentor.core.language.LanguageDetector;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tool.ToolCallback;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PromptRegistryTest {
+
+    private static final String TEMPLATE = """
+            Shared rules.
+            [[en]]
+            English example.
+            [[/en]]
+            [[fr]]
+            Exemple français.
+            [[/fr]]
+            [[de]]
+            Deutsches Beispiel.
+            [[/de]]
+            Closing rules.
+            """;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PromptPrefixCache promptPrefixCache = mock(PromptPrefixCache.class);
+    private final PromptRegistry registry = new PromptRegistry(new LanguageDetector(), promptPrefixCache,
+            new JTokkitTokenCountEstimator(), meterRegistry);
+
+    @Test
+    void render_LanguageKeepsSharedLinesAndItsOwnBlock() {
+        assertEquals("Shared rules.\nExemple français.\nClosing rules.\n",
+                PromptRegistry.render(TEMPLATE, Language.FR));
+    }
+
+    @Test
+    void render_FallbackKeepsEveryBlockWithoutMarkers() {
+        assertEquals("Shared rules.\nEnglish example.\nExemple français.\nDeutsches Beispiel.\nClosing rules.\n",
+                PromptRegistry.render(TEMPLATE, Language.UNKNOWN));
+    }
+
+    @Test
+    void register_RegistersEveryVariantForPrefixCaching() {
+        registry.register("test", TEMPLATE, List.of());
+
+        verify(promptPrefixCache).register("test-en", "Shared rules.\nEnglish example.\nClosing rules.\n", List.of());
+        verify(promptPrefixCache).register(eq("test-fr"), anyString(), eq(List.of()));
+        verify(promptPrefixCache).register(eq("test-de"), anyString(), eq(List.of()));
+        verify(promptPrefixCache).register(eq("test-multi"), anyString(), eq(List.of()));
+    }
+
+    @Test
+    void register_WithTools_CachesThemWithEveryVariant() {
+        List<ToolCallback> tools = List.of(mock(ToolCallback.class));
+
+        registry.register("test", TEMPLATE, tools);
+
+        verify(promptPrefixCache).register(eq("test-en"), anyString(), eq(tools));
+        verify(promptPrefixCache).register(eq("test-multi"), anyString(), eq(tools));
+    }
+
+    @Test
+    void register_BuildsSavingsSummaryForEveryLanguageUpFront() {
+        registry.register("test", TEMPLATE, List.of());
+
+        for (Language language : Language.values()) {
+            assertEquals(0, meterRegistry.get("llm.prompt.tokens.saved")
+                    .tag("prompt", "test").tag("language", language.getCode()).summary().count());
+        }
+    }
+
+    @Test
+    void select_PicksVariantOfSampleLanguageAndRecordsSavedTokens() {
+        registry.register("test", TEMPLATE, List.of());
+
+        PromptVariant variant = registry.select("test", "Was ist eine Aktie?");
+
+        assertEquals(Language.DE, variant.language());
+        assertEquals("test-de", variant.cacheName());
+        assertFalse(variant.text().contains("English example."));
+        DistributionSummary saved = meterRegistry.get("llm.prompt.tokens.saved")
+                .tag("prompt", "test").tag("language", "de").summary();
+        assertEquals(1, saved.count());
+        assertTrue(saved.totalAmount() > 0);
+    }
+
+    @Test
+    void select_UnclearLanguage_UsesFallbackWithNoSavings() {
+        registry.register("test", TEMPLATE, List.of());
+
+        PromptVariant variant = registry.select("test", "ETF");
+
+        assertEquals(Language.UNKNOWN, variant.language());
+        assertEquals(0.0, meterRegistry.get("llm.prompt.tokens.saved")
+                .tag("language", "multi").summary().totalAmount());
+    }
+
+    @Test
+    void select_UnknownPrompt_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> registry.select("missing", "text"));
+    }
+}
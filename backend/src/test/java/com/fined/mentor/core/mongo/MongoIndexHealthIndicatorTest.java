@@ -0,0 +1,46 @@
+package com.fined.mentor.core.mongo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MongoIndexHealthIndicatorTest {
+
+    @Mock
+    private MongoIndexManager mongoIndexManager;
+
+    @InjectMocks
+    private MongoIndexHealthIndicator healthIndicator;
+
+    @Test
+    void health_AllIndexesPresent_IsUp() {
+        when(mongoIndexManager.findMissing()).thenReturn(List.of());
+        when(mongoIndexManager.getIndexes()).thenReturn(MongoIndexManager.INDEXES);
+
+        Health health = healthIndicator.health();
+
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(MongoIndexManager.INDEXES.size(), health.getDetails().get("managed"));
+    }
+
+    @Test
+    void health_IndexMissing_IsDownAndNamesIt() {
+        when(mongoIndexManager.findMissing()).thenReturn(List.of(MongoIndexManager.INDEXES.get(3)));
+        when(mongoIndexManager.getIndexes()).thenReturn(MongoIndexManager.INDEXES);
+
+        Health health = healthIndicator.health();
+
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals(List.of("quiz_states.quizId"), health.getDetails().get("missing"));
+    }
+}
@@ -0,0 +1,121 @@
+package com.fined.mentor.core.mongo;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class MongoIndexManagerTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private final Map<String, IndexOperations> indexOps = new HashMap<>();
+    private final Map<String, List<IndexInfo>> existing = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.indexOps(anyString())).thenAnswer(invocation -> indexOps.computeIfAbsent(
+                invocation.getArgument(0), collection -> {
+                    IndexOperations ops = mock(IndexOperations.class);
+                    when(ops.getIndexInfo()).thenAnswer(i -> existing.getOrDefault(collection, List.of()));
+                    return ops;
+                }));
+    }
+
+    @Test
+    void run_CreatesEveryManagedIndex() {
+        MongoIndexManager manager = new MongoIndexManager(mongoTemplate, true);
+
+        manager.run(new DefaultApplicationArguments());
+
+        ArgumentCaptor<IndexDefinition> captor = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(indexOps.get("chat_messages")).createIndex(captor.capture());
+        assertEquals(new Document("chatSessionId", 1).append("timestamp", -1).append("_id", -1),
+                captor.getValue().getIndexKeys());
+        assertEquals("chatSessionId_timestamp_id", captor.getValue().getIndexOptions().get("name"));
+        int created = indexOps.values().stream()
+                .mapToInt(ops -> mockingDetails(ops).getInvocations().size())
+                .sum();
+        assertEquals(MongoIndexManager.INDEXES.size(), created);
+    }
+
+    @Test
+    void run_Disabled_CreatesNothing() {
+        new MongoIndexManager(mongoTemplate, false).run(new DefaultApplicationArguments());
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void ensureIndexes_OneCollectionFails_CreatesTheRestAndReportsFailure() {
+        IndexOperations tokens = mock(IndexOperations.class);
+        when(tokens.createIndex(any())).thenThrow(new IllegalStateException("not authorized"));
+        indexOps.put("tokens", tokens);
+
+        List<ManagedIndex> failed = new MongoIndexManager(mongoTemplate, true).ensureIndexes();
+
+        assertEquals(List.of("tokens.token_type", "tokens.user_type"),
+                failed.stream().map(ManagedIndex::toString).toList());
+        verify(indexOps.get("quizzes")).createIndex(any(Index.class));
+    }
+
+    @Test
+    void findMissing_AllPresent_ReturnsEmptyAndReadsEachCollectionOnce() {
+        for (ManagedIndex index : MongoIndexManager.INDEXES) {
+            existing.computeIfAbsent(index.collection(), c -> new ArrayList<>(List.of(info("_id_", new Document("_id", 1)))))
+                    .add(info("other_name", keysOf(index)));
+        }
+
+        assertTrue(new MongoIndexManager(mongoTemplate, true).findMissing().isEmpty());
+        verify(indexOps.get("quiz_states"), times(1)).getIndexInfo();
+    }
+
+    @Test
+    void findMissing_DifferentDirectionOrPrefix_CountsAsMissing() {
+        existing.put("quiz_states", List.of(
+                info("quizId", new Document("quizId", -1)),
+                info("chatSessionId", new Document("chatSessionId", 1))));
+
+        List<String> missing = new MongoIndexManager(mongoTemplate, true).findMissing().stream()
+                .map(ManagedIndex::toString)
+                .toList();
+
+        assertTrue(missing.contains("quiz_states.quizId"));
+        assertTrue(missing.contains("quiz_states.chatSessionId_id"));
+        assertEquals(MongoIndexManager.INDEXES.size(), missing.size());
+    }
+
+    static IndexInfo info(String name, Document keys) {
+        return IndexInfo.indexInfoOf(new Document("name", name).append("key", keys));
+    }
+
+    static Document keysOf(ManagedIndex index) {
+        Document keys = new Document();
+        index.keys().forEach(key -> keys.append(key.field(), key.direction().isAscending() ? 1 : -1));
+        return keys;
+    }
+}
@@ -0,0 +1,182 @@
+package com.fined.mentor.core.mongo;
+
+import com.fined.mentor.auth.entity.Token;
+import com.fined.mentor.auth.entity.User;
+import com.fined.mentor.auth.repository.TokenRepository;
+import com.fined.mentor.auth.repository.UserRepository;
+import com.fined.mentor.chat.entity.ChatMessage;
+import com.fined.mentor.chat.entity.ChatSession;
+import com.fined.mentor.chat.repository.ChatMessageRepository;
+import com.fined.mentor.chat.repository.ChatSessionRepository;
+import com.fined.mentor.core.dto.KeysetCursor;
+import com.fined.mentor.quiz.entity.Quiz;
+import com.fined.mentor.quiz.entity.QuizState;
+import com.fined.mentor.quiz.repository.QuizRepository;
+import com.fined.mentor.quiz.repository.QuizStateRepository;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs every repository query against a real MongoDB with the managed indexes in
+ * place and asserts the query planner never picks a collection scan.
+ * <p>
+ * Needs a disposable database: set {@code MONGO_TEST_URI}, e.g.
+ * {@code mongodb://localhost:27017}. Skipped otherwise.
+ */
+@DataMongoTest(properties = {
+        "spring.data.mongodb.uri=${MONGO_TEST_URI}",
+        "spring.data.mongodb.database=fined_mentor_query_plan_test"
+})
+@Import({MongoIndexManager.class, RepositoryQueryPlanTest.CommandCapture.class})
+@EnabledIfEnvironmentVariable(named = "MONGO_TEST_URI", matches = ".+")
+class RepositoryQueryPlanTest {
+
+    private static final Set<String> QUERY_COMMANDS = Set.of("find", "aggregate", "count", "delete");
+    private static final Set<String> SESSION_FIELDS = Set.of("$db", "lsid", "$clusterTime", "$readPreference",
+            "txnNumber", "apiVersion");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private MongoIndexManager mongoIndexManager;
+    @Autowired
+    private CommandCapture commandCapture;
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+    @Autowired
+    private ChatSessionRepository chatSessionRepository;
+    @Autowired
+    private QuizRepository quizRepository;
+    @Autowired
+    private QuizStateRepository quizStateRepository;
+    @Autowired
+    private TokenRepository tokenRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Instant now = Instant.parse("2026-03-01T12:00:00Z");
+    private ChatSession session;
+    private Quiz quiz;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.getDb().drop();
+        assertTrue(mongoIndexManager.ensureIndexes().isEmpty());
+        assertTrue(mongoIndexManager.findMissing().isEmpty());
+
+        session = chatSessionRepository.save(ChatSession.builder()
+                .userId("user1").title("Budgeting").active(true).createdAt(now).build());
+        chatSessionRepository.save(ChatSession.builder()
+                .userId("user2").title("Taxes").active(false).createdAt(now).build());
+        for (int i = 0; i < 5; i++) {
+            chatMessageRepository.save(ChatMessage.builder().chatSessionId(session.getId())
+                    .role(ChatMessage.Role.USER).text("message " + i).timestamp(now.plusSeconds(i)).build());
+        }
+        quiz = quizRepository.save(Quiz.builder()
+                .chatSessionId(session.getId()).topic("Budgeting").questions(List.of()).createdAt(now).build());
+        quizStateRepository.save(QuizState.builder().chatSessionId(session.getId()).quizId(quiz.getId()).build());
+        user = userRepository.save(User.builder().username("user1").email("user1@example.com").build());
+        tokenRepository.save(Token.builder().token("token1").user(user).type(Token.TokenType.ACTIVATION)
+                .createdAt(now).expiresAt(now.plusSeconds(3600)).build());
+    }
+
+    @Test
+    void chatMessageRepository_UsesIndexes() {
+        String sessionId = session.getId();
+        assertIndexed(() -> chatMessageRepository.findByChatSessionIdOrderByTimestampAsc(sessionId));
+        assertIndexed(() -> chatMessageRepository.findByChatSessionIdOrderByTimestampDesc(sessionId, Limit.of(2)));
+        assertIndexed(() -> chatMessageRepository.findByChatSessionIdAndTimestampAfterOrderByTimestampAsc(
+                sessionId, now, Limit.of(2)));
+        assertIndexed(() -> chatMessageRepository.countByChatSessionIdAndTimestampAfter(sessionId, now));
+        assertIndexed(() -> chatMessageRepository.findPageBefore(sessionId, null, 3));
+        assertIndexed(() -> chatMessageRepository.findPageBefore(sessionId,
+                new KeysetCursor(now.plusSeconds(3), "ffffffffffffffffffffffff"), 3));
+        assertIndexed(() -> chatMessageRepository.deleteByChatSessionId(sessionId));
+    }
+
+    @Test
+    void chatSessionRepository_UsesIndexes() {
+        assertIndexed(() -> chatSessionRepository.findByIdAndActiveTrue(session.getId()));
+        assertIndexed(() -> chatSessionRepository.findByUserIdAndActiveTrueOrderByCreatedAtDesc("user1"));
+        assertIndexed(() -> chatSessionRepository.findActiveSessionsWithLatestQuiz("user1"));
+        assertIndexed(() -> chatSessionRepository.findActiveSessionSummaries("user1", null, 10));
+        assertIndexed(() -> chatSessionRepository.findActiveSessionSummaries("user1",
+                new KeysetCursor(now, session.getId()), 10));
+    }
+
+    @Test
+    void quizRepositories_UseIndexes() {
+        assertIndexed(() -> quizRepository.findByChatSessionId(session.getId()));
+        assertIndexed(() -> quizRepository.findFirstByChatSessionIdOrderByCreatedAtDesc(session.getId()));
+        assertIndexed(() -> quizStateRepository.findByChatSessionId(session.getId()));
+        assertIndexed(() -> quizStateRepository.findFirstByChatSessionIdOrderByIdDesc(session.getId()));
+        assertIndexed(() -> quizStateRepository.findByQuizId(quiz.getId()));
+    }
+
+    @Test
+    void tokenRepository_UsesIndexes() {
+        assertIndexed(() -> tokenRepository.findByTokenAndType("token1", Token.TokenType.ACTIVATION));
+        assertIndexed(() -> tokenRepository.findByUserAndType(user, Token.TokenType.ACTIVATION));
+        assertIndexed(() -> tokenRepository.deleteByUserAndType(user, Token.TokenType.ACTIVATION));
+    }
+
+    /**
+     * Runs the repository call, then explains every query command it sent.
+     */
+    private void assertIndexed(Runnable repositoryCall) {
+        commandCapture.commands.clear();
+        repositoryCall.run();
+
+        List<BsonDocument> queries = commandCapture.commands.stream()
+                .filter(command -> QUERY_COMMANDS.contains(command.getFirstKey()))
+                .toList();
+        assertFalse(queries.isEmpty(), "repository call sent no query");
+
+        for (BsonDocument query : queries) {
+            BsonDocument command = query.clone();
+            SESSION_FIELDS.forEach(command::remove);
+            Document plan = mongoTemplate.getDb().runCommand(new BsonDocument("explain", command)
+                    .append("verbosity", new BsonString("queryPlanner")));
+            assertFalse(plan.toJson().contains("COLLSCAN"), () -> "collection scan for " + command.toJson()
+                    + "\n" + plan.toJson());
+        }
+    }
+
+    @TestConfiguration
+    static class CommandCapture {
+
+        final List<BsonDocument> commands = new CopyOnWriteArrayList<>();
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer commandCaptureCustomizer() {
+            return settings -> settings.addCommandListener(new CommandListener() {
+                @Override
+                public void commandStarted(CommandStartedEvent event) {
+                    commands.add(event.getCommand().clone());
+                }
+            });
+        }
+    }
+}
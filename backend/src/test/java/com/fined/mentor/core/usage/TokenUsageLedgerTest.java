@@ -0,0 +1,123 @@
+package com.fined.mentor.core.usage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TokenUsageLedgerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Clock clock = Clock.fixed(Instant.parse("2026-03-01T10:00:00Z"), ZoneOffset.UTC);
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulk;
+    private TokenUsageLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TokenUsageDay.class)).thenReturn(bulk);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledger.close();
+    }
+
+    @Test
+    void flush_AddsTotalsPerUserDayAndUseCaseInOneBulk() {
+        ledger = newLedger(true, Duration.ofHours(1));
+        ledger.record("alice", "chat", new TokenUsage(100, 20, 80, true));
+        ledger.record("alice", "chat", new TokenUsage(50, 10, 0, false));
+        ledger.record("alice", "quiz", new TokenUsage(300, 900, 0, true));
+
+        ledger.flush();
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(2)).upsert(queries.capture(), updates.capture());
+        verify(bulk).execute();
+        int chat = queries.getAllValues().get(0).getQueryObject().get("_id").equals("alice:2026-03-01:chat") ? 0 : 1;
+        Document inc = (Document) updates.getAllValues().get(chat).getUpdateObject().get("$inc");
+        assertEquals(2L, inc.get("calls"));
+        assertEquals(1L, inc.get("callsWithTools"));
+        assertEquals(150L, inc.get("promptTokens"));
+        assertEquals(30L, inc.get("completionTokens"));
+        assertEquals(80L, inc.get("cachedTokens"));
+        Document setOnInsert = (Document) updates.getAllValues().get(chat).getUpdateObject().get("$setOnInsert");
+        assertEquals("2026-03-01", setOnInsert.get("day"));
+        assertEquals(0, ledger.pendingCount());
+    }
+
+    @Test
+    void flush_NothingRecorded_SkipsMongo() {
+        ledger = newLedger(true, Duration.ofHours(1));
+
+        ledger.flush();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void record_GuestOrDisabled_IsNotKept() {
+        ledger = newLedger(true, Duration.ofHours(1));
+        TokenUsageLedger disabled = newLedger(false, Duration.ofHours(1));
+
+        ledger.record(null, "chat", new TokenUsage(100, 20, 0, false));
+        disabled.record("alice", "chat", new TokenUsage(100, 20, 0, false));
+        disabled.close();
+
+        assertEquals(0, ledger.pendingCount());
+        assertEquals(0, disabled.pendingCount());
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void flush_BulkFails_CountsAndDropsTotals() {
+        ledger = newLedger(true, Duration.ofHours(1));
+        when(bulk.execute()).thenThrow(new IllegalStateException("mongo down"));
+        ledger.record("alice", "chat", new TokenUsage(100, 20, 0, false));
+
+        ledger.flush();
+        ledger.flush();
+
+        verify(bulk, times(1)).execute();
+        assertEquals(1.0, meterRegistry.get("llm.usage.ledger.failures").counter().count());
+    }
+
+    @Test
+    void flushesInBackgroundAndOnClose() {
+        ledger = newLedger(true, Duration.ofMillis(20));
+        ledger.record("alice", "chat", new TokenUsage(100, 20, 0, false));
+
+        verify(bulk, timeout(5000)).execute();
+
+        ledger.record("bob", "chat", new TokenUsage(100, 20, 0, false));
+        ledger.close();
+
+        verify(bulk, times(2)).upsert(any(Query.class), any(Update.class));
+        verify(mongoTemplate, times(2)).bulkOps(eq(BulkOperations.BulkMode.UNORDERED), eq(TokenUsageDay.class));
+        assertEquals(0, ledger.pendingCount());
+    }
+
+    private TokenUsageLedger newLedger(boolean enabled, Duration flushInterval) {
+        return new TokenUsageLedger(mongoTemplate, meterRegistry, enabled, flushInterval, clock);
+    }
+}
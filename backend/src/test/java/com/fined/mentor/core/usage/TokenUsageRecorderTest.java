@@ -0,0 +1,177 @@
+package com.fined.mentor.core.usage;
+
+import com.fined.mentor.core.admission.AdmissionAdvisor;
+import com.fined.mentor.core.llm.PromptPrefixCache;
+import com.google.genai.types.GenerateContentResponseUsageMetadata;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.google.genai.GoogleGenAiChatOptions;
+import org.springframework.ai.google.genai.metadata.GoogleGenAiUsage;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.security.core.context.SecurityContextHolder;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TokenUsageRecorderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TokenUsageLedger ledger = mock(TokenUsageLedger.class);
+    private final TokenUsageRecorder recorder = new TokenUsageRecorder(meterRegistry, ledger);
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void call_GeminiUsage_SplitsCachedAndUncachedInputTokens() {
+        ChatModel chatModel = mock(ChatModel.class);
+        when(chatModel.call(any(Prompt.class))).thenReturn(response("hi", geminiUsage(1200, 1000)));
+
+        chatClient(chatModel).prompt("Hello").call().content();
+
+        assertEquals(1000.0, inputTokens("cached"));
+        assertEquals(200.0, inputTokens("uncached"));
+    }
+
+    @Test
+    void call_TagsTokensByUseCaseAndToolsAndRecordsCaller() {
+        ChatModel chatModel = mock(ChatModel.class);
+        when(chatModel.call(any(Prompt.class))).thenReturn(response("hi", geminiUsage(1200, 1000)));
+
+        chatClient(chatModel).prompt("Hello")
+                .tools(new SearchTool())
+                .advisors(a -> a.param(AdmissionAdvisor.USER_ID, "alice")
+                        .param(TokenUsageRecorder.USE_CASE, "quiz"))
+                .call()
+                .content();
+
+        assertEquals(1200.0, tokens("quiz", true, "prompt"));
+        assertEquals(10.0, tokens("quiz", true, "completion"));
+        assertEquals(1000.0, tokens("quiz", true, "cached"));
+        verify(ledger).record("alice", "quiz", new TokenUsage(1200, 10, 1000, true));
+    }
+
+    @Test
+    void call_ToolsDeclaredByCachedContent_CountAsTools() {
+        ChatModel chatModel = mock(ChatModel.class);
+        when(chatModel.call(any(Prompt.class))).thenReturn(response("hi", geminiUsage(1200, 1000)));
+        GoogleGenAiChatOptions options = GoogleGenAiChatOptions.builder()
+                .toolContext(Map.of(PromptPrefixCache.CACHED_TOOLS, List.of("searchWeb")))
+                .build();
+
+        chatClient(chatModel).prompt(new Prompt("Hello", options))
+                .advisors(a -> a.param(TokenUsageRecorder.USE_CASE, "chat"))
+                .call()
+                .content();
+
+        assertEquals(1200.0, tokens("chat", true, "prompt"));
+    }
+
+    @Test
+    void call_NoUseCaseOrCaller_CountsAsOtherForGuest() {
+        ChatModel chatModel = mock(ChatModel.class);
+        when(chatModel.call(any(Prompt.class))).thenReturn(response("hi", new DefaultUsage(300, 20)));
+
+        chatClient(chatModel).prompt("Hello").call().content();
+
+        assertEquals(300.0, tokens("other", false, "prompt"));
+        assertEquals(20.0, tokens("other", false, "completion"));
+        verify(ledger).record(null, "other", new TokenUsage(300, 20, 0, false));
+    }
+
+    @Test
+    void stream_CountsUsageOnceFromLastChunk() {
+        ChatModel chatModel = mock(ChatModel.class);
+        when(chatModel.stream(any(Prompt.class))).thenReturn(Flux.just(
+                response("a", geminiUsage(500, 0)),
+                response("b", geminiUsage(500, 0))));
+
+        chatClient(chatModel).prompt("Hello").stream().content().blockLast();
+
+        assertEquals(0.0, inputTokens("cached"));
+        assertEquals(500.0, inputTokens("uncached"));
+        verify(ledger, times(1)).record(any(), eq("other"), any());
+    }
+
+    @Test
+    void stream_Cancelled_CountsUsageSoFar() {
+        ChatModel chatModel = mock(ChatModel.class);
+        when(chatModel.stream(any(Prompt.class))).thenReturn(Flux.concat(
+                Flux.just(response("a", geminiUsage(500, 0))), Flux.never()));
+
+        StepVerifier.create(chatClient(chatModel).prompt("Hello").stream().content())
+                .expectNext("a")
+                .thenCancel()
+                .verify();
+
+        assertEquals(500.0, inputTokens("uncached"));
+    }
+
+    @Test
+    void record_UsageWithoutCacheDetailsOrTokens_CountsAllOrNothing() {
+        recorder.record(null, "chat", false, response("a", new DefaultUsage(300, 20)));
+        recorder.record(null, "chat", false, response("b", new DefaultUsage(0, 0)));
+        recorder.record(null, "chat", false, null);
+
+        assertEquals(0.0, inputTokens("cached"));
+        assertEquals(300.0, inputTokens("uncached"));
+        verify(ledger, times(1)).record(any(), any(), any());
+    }
+
+    private ChatClient chatClient(ChatModel chatModel) {
+        ChatClient.Builder builder = ChatClient.builder(chatModel);
+        recorder.customize(builder);
+        return builder.build();
+    }
+
+    private double inputTokens(String cache) {
+        return meterRegistry.get("llm.input.tokens").tag("cache", cache).counter().count();
+    }
+
+    private double tokens(String useCase, boolean tools, String type) {
+        return meterRegistry.get("llm.tokens")
+                .tags("use_case", useCase, "tools", String.valueOf(tools), "type", type)
+                .counter()
+                .count();
+    }
+
+    private static Usage geminiUsage(int promptTokens, int cachedTokens) {
+        return GoogleGenAiUsage.from(GenerateContentResponseUsageMetadata.builder()
+                .promptTokenCount(promptTokens)
+                .cachedContentTokenCount(cachedTokens)
+                .candidatesTokenCount(10)
+                .totalTokenCount(promptTokens + 10)
+                .build());
+    }
+
+    private static ChatResponse response(String text, Usage usage) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))),
+                ChatResponseMetadata.builder().usage(usage).build());
+    }
+
+    static class SearchTool {
+        @Tool(description = "Search the web")
+        public String search(String query) {
+            return "nothing found";
+        }
+    }
+}
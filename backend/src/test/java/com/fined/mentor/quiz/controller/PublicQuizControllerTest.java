@@ -2,6 +2,8 @@ package com.fined.mentor.quiz.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fined.mentor.quiz.dto.GuestQuizRequest;
+import com.fined.mentor.quiz.dto.QuizStreamEvent;
+import com.fined.mentor.quiz.entity.QuizQuestion;
 import com.fined.mentor.quiz.service.QuizService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,12 +13,16 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import reactor.core.publisher.Flux;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,12 +49,21 @@ class PublicQuizControllerTest {
         GuestQuizRequest request = new GuestQuizRequest();
         request.setTopic("Investment");
 
-        when(quizService.streamQuizGeneration("Investment")).thenReturn(Flux.just("Chunk 1", "Chunk 2"));
+        QuizQuestion question = QuizQuestion.builder().question("What is a bond?").build();
+        when(quizService.streamQuizGeneration("Investment")).thenReturn(Flux.just(
+                QuizStreamEvent.question(0, question), QuizStreamEvent.done(null, "Investment", 1)));
 
-        mockMvc.perform(post("/api/public/quiz/stream")
+        MvcResult result = mockMvc.perform(post("/api/public/quiz/stream")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk());
+
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.contains("event:question\ndata:{\"index\":0,\"question\":{\"question\":\"What is a bond?\""));
+        assertTrue(body.contains("event:done\ndata:{\"topic\":\"Investment\",\"questionCount\":1}"));
     }
 
     @Test
@@ -1,8 +1,10 @@
 package com.fined.mentor.quiz.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fined.mentor.core.admission.AdmissionRejectedException;
 import com.fined.mentor.quiz.dto.QuizAnswerRequest;
 import com.fined.mentor.quiz.dto.QuizRequest;
+import com.fined.mentor.quiz.dto.QuizStreamEvent;
 import com.fined.mentor.quiz.entity.Quiz;
 import com.fined.mentor.quiz.entity.QuizState;
 import com.fined.mentor.quiz.service.QuizService;
@@ -14,18 +16,26 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 import java.util.Collections;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -77,12 +87,33 @@ class QuizControllerTest {
                 .andExpect(jsonPath("$.data.id").value("quiz1"));
     }
 
+    @Test
+    void generateQuiz_NoModelCapacity_ReturnsServiceUnavailable() throws Exception {
+        QuizRequest request = new QuizRequest();
+        request.setTopic("Investment");
+        request.setChatSessionId("session1");
+
+        when(quizService.generateQuiz("Investment", "session1"))
+                .thenThrow(new IllegalStateException("Failed to generate quiz",
+                        new AdmissionRejectedException("busy")));
+
+        mockMvc.perform(post("/api/quiz/generate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
     @Test
     void startQuiz_Success() throws Exception {
-        when(quizService.startQuiz("quiz1", "session1")).thenReturn(sampleQuizState);
+        when(quizService.startQuiz("quiz1", "session1")).thenReturn(Mono.just(sampleQuizState));
 
-        mockMvc.perform(post("/api/quiz/quiz1/start")
+        MvcResult result = mockMvc.perform(post("/api/quiz/quiz1/start")
                         .param("chatSessionId", "session1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.data.id").value("state1"));
@@ -142,7 +173,7 @@ class QuizControllerTest {
         request.setTopic("Investment");
         request.setChatSessionId("session1");
 
-        when(quizService.streamQuizGeneration(anyString())).thenThrow(new RuntimeException("Startup error"));
+        when(quizService.streamQuizGeneration(anyString(), anyString())).thenThrow(new RuntimeException("Startup error"));
 
         mockMvc.perform(post("/api/quiz/stream")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -182,23 +213,6 @@ class QuizControllerTest {
                 .andExpect(jsonPath("$.error").value("Failed to generate quiz. Please try again later."));
     }
 
-    @Test
-    void saveStreamedQuiz_Error() throws Exception {
-        com.fined.mentor.quiz.dto.SaveQuizRequest request = new com.fined.mentor.quiz.dto.SaveQuizRequest();
-        request.setTopic("Investment");
-        request.setChatSessionId("session1");
-        request.setQuizJson("{}");
-
-        when(quizService.saveStreamedQuiz(anyString(), anyString(), anyString()))
-                .thenThrow(new RuntimeException("Save failed"));
-
-        mockMvc.perform(post("/api/quiz/save")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(request)))
-                .andExpect(status().isInternalServerError())
-                .andExpect(jsonPath("$.error").value("Failed to save quiz. Please try again later."));
-    }
-
     @Test
     void getQuizState_Error() throws Exception {
         when(quizService.getQuizState("state1")).thenThrow(new RuntimeException("Not found"));
@@ -234,19 +248,24 @@ class QuizControllerTest {
     }
 
     @Test
-    void saveStreamedQuiz_Success() throws Exception {
-        com.fined.mentor.quiz.dto.SaveQuizRequest request = new com.fined.mentor.quiz.dto.SaveQuizRequest();
+    void streamQuizGeneration_Success_SendsSavedQuizId() throws Exception {
+        QuizRequest request = new QuizRequest();
         request.setTopic("Investment");
         request.setChatSessionId("session1");
-        request.setQuizJson("{}");
 
-        when(quizService.saveStreamedQuiz(anyString(), anyString(), anyString())).thenReturn(sampleQuiz);
+        when(quizService.streamQuizGeneration("Investment", "session1"))
+                .thenReturn(Flux.just(QuizStreamEvent.done("quiz1", "Investment", 1)));
 
-        mockMvc.perform(post("/api/quiz/save")
+        MvcResult result = mockMvc.perform(post("/api/quiz/stream")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.success").value(true));
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        assertTrue(result.getResponse().getContentAsString()
+                .contains("event:done\ndata:{\"quizId\":\"quiz1\",\"topic\":\"Investment\",\"questionCount\":1}"));
     }
 
     @Test
@@ -261,11 +280,15 @@ class QuizControllerTest {
 
     @Test
     void startQuiz_Error() throws Exception {
-        when(quizService.startQuiz(anyString(), anyString())).thenThrow(new RuntimeException("Start failed"));
+        when(quizService.startQuiz(anyString(), anyString())).thenReturn(Mono.error(new RuntimeException("Start failed")));
 
-        mockMvc.perform(post("/api/quiz/quiz1/start")
+        MvcResult result = mockMvc.perform(post("/api/quiz/quiz1/start")
                         .param("chatSessionId", "session1"))
-                .andExpect(status().isBadRequest());
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Start failed"));
     }
 
     @Test
@@ -0,0 +1,189 @@
+package com.fined.mentor.quiz.service;
+
+import com.fined.mentor.core.language.LanguageDetector;
+import com.fined.mentor.quiz.entity.Quiz;
+import com.fined.mentor.quiz.entity.QuizQuestion;
+import com.fined.mentor.quiz.exception.QuizGenerationException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class QuizGenerationCoalescerTest {
+
+    private static final String QUIZ_JSON = """
+            {"topic":"ETF basics","questions":[{"question":"Remote?","type":"TRUE_FALSE",\
+            "options":["True","False"],"correctAnswer":"True","explanation":"Yes."}]}""";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger generations = new AtomicInteger();
+
+    @Test
+    void generate_ConcurrentSameTopic_SharesOneGeneration() throws Exception {
+        QuizGenerationCoalescer coalescer = coalescer(null);
+        CountDownLatch generating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Quiz>> results = new ArrayList<>();
+            results.add(pool.submit(() -> coalescer.generate("ETF basics", () -> {
+                generating.countDown();
+                await(release);
+                return quiz("Q1");
+            })));
+            assertTrue(generating.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < callers; i++) {
+                results.add(pool.submit(() -> coalescer.generate("etf Basics?", () -> quiz("never"))));
+            }
+            // Followers register before the leader finishes
+            while (meterRegistry.get("quiz.generation.requests").tag("role", "coalesced").counter().count()
+                    < callers - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            List<Quiz> quizzes = new ArrayList<>();
+            for (Future<Quiz> result : results) {
+                quizzes.add(result.get(5, TimeUnit.SECONDS));
+            }
+            assertTrue(quizzes.stream().allMatch(q -> "Q1".equals(q.getQuestions().get(0).getQuestion())));
+            // Every caller binds and saves its own copy
+            assertEquals(callers, quizzes.stream().map(System::identityHashCode).distinct().count());
+            assertEquals(1.0, requests("leader"));
+            assertEquals(callers - 1.0, requests("coalesced"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void generate_Sequential_GeneratesEachTime() {
+        QuizGenerationCoalescer coalescer = coalescer(null);
+
+        coalescer.generate("ETF basics", () -> quiz("Q1"));
+        coalescer.generate("ETF basics", () -> quiz("Q2"));
+
+        assertEquals(2, generations.get());
+        assertEquals(2.0, requests("leader"));
+    }
+
+    @Test
+    void generate_LeaderFails_FailureRethrownAndNextCallRetries() {
+        QuizGenerationCoalescer coalescer = coalescer(null);
+
+        assertThrows(QuizGenerationException.class, () -> coalescer.generate("ETF basics", () -> {
+            throw new QuizGenerationException("model down", new RuntimeException());
+        }));
+
+        assertEquals("Q1", coalescer.generate("ETF basics", () -> quiz("Q1")).getQuestions().get(0).getQuestion());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generate_Shared_LeaseFree_GeneratesPublishesAndReleases() {
+        RedisCommands<String, String> redis = mock(RedisCommands.class);
+        when(redis.set(startsWith("quiz-generation:lease:"), anyString(), any(SetArgs.class))).thenReturn("OK");
+        QuizGenerationCoalescer coalescer = coalescer(redis);
+
+        coalescer.generate("ETF basics", () -> quiz("Q1"));
+
+        verify(redis).set(startsWith("quiz-generation:result:"), contains("\"Q1\""), any(SetArgs.class));
+        verify(redis).eval(anyString(), eq(ScriptOutputType.INTEGER), any(String[].class), anyString());
+        assertEquals(1, generations.get());
+        assertEquals(1.0, requests("leader"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generate_Shared_LeaseHeldElsewhere_UsesPublishedQuiz() {
+        RedisCommands<String, String> redis = mock(RedisCommands.class);
+        when(redis.set(startsWith("quiz-generation:lease:"), anyString(), any(SetArgs.class))).thenReturn(null);
+        when(redis.get(startsWith("quiz-generation:result:"))).thenReturn(null, QUIZ_JSON);
+        when(redis.exists(anyString())).thenReturn(1L);
+        QuizGenerationCoalescer coalescer = coalescer(redis);
+
+        Quiz quiz = coalescer.generate("ETF basics", () -> quiz("never"));
+
+        assertEquals("Remote?", quiz.getQuestions().get(0).getQuestion());
+        assertEquals(0, generations.get());
+        assertEquals(1.0, requests("coalesced_remote"));
+        verify(redis, never()).eval(anyString(), any(ScriptOutputType.class), any(String[].class), anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generate_Shared_HolderGoneWithoutResult_GeneratesItself() {
+        RedisCommands<String, String> redis = mock(RedisCommands.class);
+        when(redis.set(startsWith("quiz-generation:lease:"), anyString(), any(SetArgs.class)))
+                .thenReturn(null, "OK");
+        when(redis.exists(anyString())).thenReturn(0L);
+        QuizGenerationCoalescer coalescer = coalescer(redis);
+
+        coalescer.generate("ETF basics", () -> quiz("Q1"));
+
+        assertEquals(1, generations.get());
+        verify(redis).eval(anyString(), eq(ScriptOutputType.INTEGER), any(String[].class), anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generate_Shared_RedisDown_StillGenerates() {
+        RedisCommands<String, String> redis = mock(RedisCommands.class);
+        when(redis.set(anyString(), anyString(), any(SetArgs.class))).thenThrow(new IllegalStateException("down"));
+        when(redis.get(anyString())).thenThrow(new IllegalStateException("down"));
+        QuizGenerationCoalescer coalescer = coalescer(redis);
+
+        assertEquals("Q1", coalescer.generate("ETF basics", () -> quiz("Q1")).getQuestions().get(0).getQuestion());
+        verify(redis, never()).eval(anyString(), any(ScriptOutputType.class), any(String[].class), anyString());
+    }
+
+    private QuizGenerationCoalescer coalescer(RedisCommands<String, String> redis) {
+        return new QuizGenerationCoalescer(meterRegistry, new LanguageDetector(), redis,
+                Duration.ofSeconds(5), Duration.ofSeconds(30), Duration.ofMillis(1));
+    }
+
+    private double requests(String role) {
+        return meterRegistry.get("quiz.generation.requests").tag("role", role).counter().count();
+    }
+
+    private Quiz quiz(String question) {
+        generations.incrementAndGet();
+        return Quiz.builder()
+                .topic("ETF basics")
+                .questions(List.of(QuizQuestion.builder()
+                        .question(question)
+                        .type(QuizQuestion.QuestionType.TRUE_FALSE)
+                        .options(new String[] { "True", "False" })
+                        .correctAnswer("True")
+                        .explanation("Yes.")
+                        .build()))
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
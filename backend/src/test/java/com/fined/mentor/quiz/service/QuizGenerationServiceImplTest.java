@@ -1,23 +1,49 @@
 package com.fined.mentor.quiz.service;
 
+import com.fined.mentor.core.admission.AdmissionAdvisor;
+import com.fined.mentor.core.admission.AdmissionRejectedException;
+import com.fined.mentor.core.language.LanguageDetector;
+import com.fined.mentor.core.llm.ModelInvoker;
+import com.fined.mentor.core.llm.PromptCacheProvider;
+import com.fined.mentor.core.llm.PromptPrefixCache;
+import com.fined.mentor.core.llm.PromptRegistry;
 import com.fined.mentor.quiz.entity.Quiz;
 import com.fined.mentor.quiz.exception.QuizValidationException;
 import com.fined.mentor.tavily.TavilySearchTool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
 import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.model.Generation;
 import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
 import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -37,6 +63,10 @@ class QuizGenerationServiceImplTest {
 
     private QuizGenerationServiceImpl quizGenerationService;
 
+    private SimpleMeterRegistry meterRegistry;
+
+    private final List<String> callers = new CopyOnWriteArrayList<>();
+
     private final String validJsonString = """
             {
               "topic": "Investment",
@@ -54,8 +84,26 @@ class QuizGenerationServiceImplTest {
 
     @BeforeEach
     void setUp() {
-        ChatClient.Builder builder = ChatClient.builder(chatModel);
-        quizGenerationService = new QuizGenerationServiceImpl(builder, tavilySearchTool, topicValidatorService);
+        quizGenerationService = service(false);
+    }
+
+    private QuizGenerationServiceImpl service(boolean speculative) {
+        meterRegistry = new SimpleMeterRegistry();
+        ChatClient.Builder builder = ChatClient.builder(chatModel).defaultAdvisors(new CallerRecorder());
+        PromptPrefixCache promptPrefixCache = new PromptPrefixCache(mock(PromptCacheProvider.class),
+                new JTokkitTokenCountEstimator(), new SimpleMeterRegistry(), false, Duration.ofHours(1),
+                Duration.ofMinutes(5), Duration.ofMinutes(5), 1024);
+        return new QuizGenerationServiceImpl(builder, tavilySearchTool, topicValidatorService,
+                new PromptRegistry(new LanguageDetector(), promptPrefixCache,
+                        new JTokkitTokenCountEstimator(), new SimpleMeterRegistry()),
+                promptPrefixCache, new ModelInvoker(new SimpleMeterRegistry(), false, "", Duration.ofSeconds(30),
+                        Duration.ofSeconds(60), Duration.ofSeconds(5), false, 0.95, 20, Duration.ofSeconds(1), 20, 0.5,
+                        Duration.ofSeconds(30)),
+                meterRegistry, speculative);
+    }
+
+    private static ChatResponse chunk(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
     }
 
     @Test
@@ -73,6 +121,43 @@ class QuizGenerationServiceImplTest {
         assertEquals("What is an ETF?", quiz.getQuestions().get(0).getQuestion());
     }
 
+    @Test
+    void generateQuiz_SendsStaticInstructionsAsSystemMessageAndTopicSeparately() {
+        when(topicValidatorService.isValidTopic("Investment")).thenReturn(true);
+        when(chatModel.call(any(Prompt.class)))
+                .thenReturn(new ChatResponse(List.of(new Generation(new AssistantMessage(validJsonString)))));
+
+        quizGenerationService.generateQuiz("Investment");
+
+        ArgumentCaptor<Prompt> prompt = ArgumentCaptor.forClass(Prompt.class);
+        verify(chatModel).call(prompt.capture());
+        // A one-word topic gives no language hint: the multilingual variant, identical for every such topic
+        String systemPrompt = prompt.getValue().getSystemMessage().getText();
+        assertFalse(systemPrompt.contains("[["));
+        assertTrue(systemPrompt.contains("French Multiple Choice Example"));
+        assertTrue(systemPrompt.contains("German Multiple Choice Example"));
+        assertTrue(prompt.getValue().getUserMessage().getText().contains("\"Investment\""));
+        // Sent with the search tool, so never with cached content
+        assertFalse(((ToolCallingChatOptions) prompt.getValue().getOptions()).getToolCallbacks().isEmpty());
+    }
+
+    @Test
+    void generateQuiz_SendsOnlyExamplesOfTheTopicLanguage() {
+        when(topicValidatorService.isValidTopic("Les bases de la bourse")).thenReturn(true);
+        when(chatModel.call(any(Prompt.class)))
+                .thenReturn(new ChatResponse(List.of(new Generation(new AssistantMessage(validJsonString)))));
+
+        quizGenerationService.generateQuiz("Les bases de la bourse");
+
+        ArgumentCaptor<Prompt> prompt = ArgumentCaptor.forClass(Prompt.class);
+        verify(chatModel).call(prompt.capture());
+        String systemPrompt = prompt.getValue().getSystemMessage().getText();
+        assertTrue(systemPrompt.contains("French Multiple Choice Example"));
+        assertTrue(systemPrompt.contains("[\"Vrai\", \"Faux\"]"));
+        assertFalse(systemPrompt.contains("German Multiple Choice Example"));
+        assertFalse(systemPrompt.contains("English True/False Example"));
+    }
+
     @Test
     void generateQuiz_InvalidTopic() {
         when(topicValidatorService.isValidTopic("Cooking")).thenReturn(false);
@@ -97,4 +182,214 @@ class QuizGenerationServiceImplTest {
                 .expectNext("part2")
                 .verifyComplete();
     }
+
+    @Test
+    void streamQuizGeneration_Speculative_GeneratesWhileAIValidates() throws InterruptedException {
+        quizGenerationService = service(true);
+        CountDownLatch validating = new CountDownLatch(1);
+        CountDownLatch generationStarted = new CountDownLatch(1);
+        when(topicValidatorService.quickVerdict("Macroeconomics")).thenReturn(Optional.empty());
+        when(topicValidatorService.verifyWithAI("Macroeconomics")).thenAnswer(invocation -> {
+            // The answer only comes once generation is already under way
+            assertTrue(generationStarted.await(5, TimeUnit.SECONDS));
+            validating.countDown();
+            return true;
+        });
+        when(chatModel.stream(any(Prompt.class))).thenReturn(Flux.just(chunk("part1"), chunk("part2"))
+                .doOnSubscribe(subscription -> generationStarted.countDown()));
+
+        StepVerifier.create(quizGenerationService.streamQuizGeneration("Macroeconomics"))
+                .expectNext("part1", "part2")
+                .verifyComplete();
+
+        assertTrue(validating.await(0, TimeUnit.SECONDS));
+        verify(topicValidatorService, never()).isValidTopic(any());
+        assertEquals(1.0, speculations("confirmed"));
+        assertEquals(1, meterRegistry.get("quiz.generation.speculative.latency.saved").timer().count());
+    }
+
+    @Test
+    void streamQuizGeneration_Speculative_RejectedTopicCancelsGeneration() {
+        quizGenerationService = service(true);
+        AtomicBoolean generationCancelled = new AtomicBoolean();
+        CountDownLatch firstChunk = new CountDownLatch(1);
+        when(topicValidatorService.quickVerdict("Knitting")).thenReturn(Optional.empty());
+        when(topicValidatorService.verifyWithAI("Knitting")).thenAnswer(invocation -> {
+            assertTrue(firstChunk.await(5, TimeUnit.SECONDS));
+            // Let the chunk through the client's advisor chain, which hands it over on another thread
+            Thread.sleep(300);
+            return false;
+        });
+        when(topicValidatorService.getInvalidTopicMessage("Knitting")).thenReturn("Invalid topic.");
+        when(chatModel.stream(any(Prompt.class))).thenReturn(Flux.concat(Flux.just(chunk("{\"topic\": \"Knitting\"")),
+                Flux.<ChatResponse>never())
+                .doOnNext(response -> firstChunk.countDown())
+                .doOnCancel(() -> generationCancelled.set(true)));
+
+        StepVerifier.create(quizGenerationService.streamQuizGeneration("Knitting"))
+                .expectErrorSatisfies(e -> {
+                    assertInstanceOf(QuizValidationException.class, e);
+                    assertEquals("Invalid topic.", e.getMessage());
+                })
+                .verify(Duration.ofSeconds(5));
+
+        assertTrue(generationCancelled.get());
+        // Any web search the model still asks for is skipped
+        ArgumentCaptor<Prompt> prompt = ArgumentCaptor.forClass(Prompt.class);
+        verify(chatModel).stream(prompt.capture());
+        Object generationId = ((ToolCallingChatOptions) prompt.getValue().getOptions()).getToolContext()
+                .get(TavilySearchTool.GENERATION_ID);
+        verify(tavilySearchTool).cancel((String) generationId);
+        assertEquals(1.0, speculations("aborted"));
+        assertTrue(meterRegistry.get("quiz.generation.speculative.wasted.tokens").counter().count() > 0);
+    }
+
+    @Test
+    void streamQuizGeneration_Speculative_FailedValidationCancelsGeneration() {
+        quizGenerationService = service(true);
+        AtomicBoolean generationCancelled = new AtomicBoolean();
+        CountDownLatch generationStarted = new CountDownLatch(1);
+        when(topicValidatorService.quickVerdict("Knitting")).thenReturn(Optional.empty());
+        when(topicValidatorService.verifyWithAI("Knitting")).thenAnswer(invocation -> {
+            assertTrue(generationStarted.await(5, TimeUnit.SECONDS));
+            throw new AdmissionRejectedException("Too many model calls in flight");
+        });
+        when(chatModel.stream(any(Prompt.class))).thenReturn(Flux.<ChatResponse>never()
+                .doOnSubscribe(subscription -> generationStarted.countDown())
+                .doOnCancel(() -> generationCancelled.set(true)));
+
+        StepVerifier.create(quizGenerationService.streamQuizGeneration("Knitting"))
+                .expectError(AdmissionRejectedException.class)
+                .verify(Duration.ofSeconds(5));
+
+        assertTrue(generationCancelled.get());
+        verify(tavilySearchTool).cancel(any());
+        assertEquals(0.0, speculations("aborted"));
+    }
+
+    @Test
+    void streamQuizGeneration_Speculative_ValidatesTopicAsCaller() {
+        quizGenerationService = service(true);
+        AtomicReference<String> validatedAs = new AtomicReference<>();
+        when(topicValidatorService.quickVerdict("Macroeconomics")).thenReturn(Optional.empty());
+        when(topicValidatorService.verifyWithAI("Macroeconomics")).thenAnswer(invocation -> {
+            validatedAs.set(SecurityContextHolder.getContext().getAuthentication().getName());
+            return true;
+        });
+        when(chatModel.stream(any(Prompt.class))).thenReturn(Flux.just(chunk("part1")));
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("alice", null, List.of()));
+        try {
+            StepVerifier.create(quizGenerationService.streamQuizGeneration("Macroeconomics"))
+                    .expectNext("part1")
+                    .verifyComplete();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        assertEquals("alice", validatedAs.get());
+    }
+
+    @Test
+    void streamQuizGeneration_SubscribedWithoutSecurityContext_StillCallsModelAsUser() {
+        when(topicValidatorService.isValidTopic("Investment")).thenReturn(true);
+        when(chatModel.stream(any(Prompt.class))).thenReturn(Flux.just(chunk("part1")));
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("alice", null, List.of()));
+        Flux<String> quiz;
+        try {
+            quiz = quizGenerationService.streamQuizGeneration("Investment");
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        // Like a hedged attempt, which starts on a thread with no security context
+        StepVerifier.create(quiz)
+                .expectNext("part1")
+                .verifyComplete();
+
+        assertEquals(List.of("alice"), callers);
+    }
+
+    @Test
+    void streamQuizGeneration_Speculative_QuickVerdictSkipsSpeculation() {
+        quizGenerationService = service(true);
+        when(topicValidatorService.quickVerdict("Investment")).thenReturn(Optional.of(true));
+        when(chatModel.stream(any(Prompt.class))).thenReturn(Flux.just(chunk("part1")));
+
+        StepVerifier.create(quizGenerationService.streamQuizGeneration("Investment"))
+                .expectNext("part1")
+                .verifyComplete();
+
+        verify(topicValidatorService, never()).verifyWithAI(any());
+        assertEquals(0.0, speculations("confirmed"));
+    }
+
+    @Test
+    void generateQuiz_Speculative_QuickRejectionNeverCallsModel() {
+        quizGenerationService = service(true);
+        when(topicValidatorService.quickVerdict("Cooking")).thenReturn(Optional.of(false));
+        when(topicValidatorService.getInvalidTopicMessage("Cooking")).thenReturn("Invalid topic.");
+
+        assertThrows(QuizValidationException.class, () -> quizGenerationService.generateQuiz("Cooking"));
+        verify(chatModel, never()).call(any(Prompt.class));
+        verify(chatModel, never()).stream(any(Prompt.class));
+    }
+
+    @Test
+    void generateQuiz_Speculative_AcceptedTopicReturnsStreamedQuiz() {
+        quizGenerationService = service(true);
+        when(topicValidatorService.quickVerdict("Macroeconomics")).thenReturn(Optional.empty());
+        when(topicValidatorService.verifyWithAI("Macroeconomics")).thenReturn(true);
+        int half = validJsonString.length() / 2;
+        when(chatModel.stream(any(Prompt.class))).thenReturn(Flux.just(
+                chunk(validJsonString.substring(0, half)), chunk(validJsonString.substring(half))));
+
+        Quiz quiz = quizGenerationService.generateQuiz("Macroeconomics");
+
+        assertEquals(1, quiz.getQuestions().size());
+        verify(chatModel, never()).call(any(Prompt.class));
+    }
+
+    @Test
+    void generateQuiz_Speculative_RejectedTopicThrowsValidationError() {
+        quizGenerationService = service(true);
+        when(topicValidatorService.quickVerdict("Knitting")).thenReturn(Optional.empty());
+        when(topicValidatorService.verifyWithAI("Knitting")).thenReturn(false);
+        when(topicValidatorService.getInvalidTopicMessage("Knitting")).thenReturn("Invalid topic.");
+        when(chatModel.stream(any(Prompt.class))).thenReturn(Flux.never());
+
+        assertThrows(QuizValidationException.class, () -> quizGenerationService.generateQuiz("Knitting"));
+        assertEquals(1.0, speculations("aborted"));
+    }
+
+    private double speculations(String outcome) {
+        return meterRegistry.get("quiz.generation.speculations").tag("outcome", outcome).counter().count();
+    }
+
+    private class CallerRecorder implements CallAdvisor, StreamAdvisor {
+
+        @Override
+        public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+            callers.add(AdmissionAdvisor.callerOf(request));
+            return chain.nextCall(request);
+        }
+
+        @Override
+        public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+            callers.add(AdmissionAdvisor.callerOf(request));
+            return chain.nextStream(request);
+        }
+
+        @Override
+        public String getName() {
+            return "callerRecorder";
+        }
+
+        @Override
+        public int getOrder() {
+            return 0;
+        }
+    }
 }
@@ -0,0 +1,217 @@
+package com.fined.mentor.quiz.service;
+
+import com.fined.mentor.core.language.LanguageDetector;
+import com.fined.mentor.quiz.entity.Quiz;
+import com.fined.mentor.quiz.entity.QuizQuestion;
+import com.fined.mentor.quiz.exception.QuizGenerationException;
+import com.fined.mentor.quiz.exception.QuizValidationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuizPoolTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    @Mock
+    private QuizGenerationService quizGenerationService;
+
+    @Mock
+    private ExecutorService executor;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MutableClock clock = new MutableClock();
+
+    @BeforeEach
+    void setUp() {
+        // Refills run inline
+        lenient().doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+    }
+
+    @Test
+    void take_UnpopularTopic_NeverRefills() {
+        QuizPool pool = pool(true);
+
+        assertTrue(pool.take("ETF basics").isEmpty());
+        assertTrue(pool.take("ETF basics").isEmpty());
+
+        verifyNoInteractions(executor, quizGenerationService);
+        assertEquals(2.0, requests("miss"));
+    }
+
+    @Test
+    void take_PopularTopic_RefillsAndServesEachQuizOnce() {
+        when(quizGenerationService.generateQuiz("ETF basics"))
+                .thenReturn(quiz("Q1"), quiz("Q2"), quiz("Q3"), quiz("Q4"), quiz("Q5"));
+        QuizPool pool = pool(true);
+
+        pool.take("ETF basics");
+        pool.take("etf   basics!");
+        // Third request makes the topic popular and fills the pool to its size
+        assertTrue(pool.take("ETF Basics").isEmpty());
+        verify(quizGenerationService, times(3)).generateQuiz("ETF basics");
+
+        assertEquals("Q1", firstQuestion(pool.take("ETF basics")));
+        assertEquals("Q2", firstQuestion(pool.take("ETF basics")));
+        // Down to the low watermark, topped up again before serving the last one
+        assertEquals("Q3", firstQuestion(pool.take("ETF basics")));
+        verify(quizGenerationService, times(5)).generateQuiz("ETF basics");
+        assertEquals(3.0, requests("hit"));
+        assertEquals(5.0, meterRegistry.get("quiz.pool.generated").counter().count());
+    }
+
+    @Test
+    void take_ServedQuizIsACopy() {
+        Quiz generated = quiz("Q1");
+        when(quizGenerationService.generateQuiz(anyString())).thenReturn(generated);
+        QuizPool pool = pool(true);
+        warmUp(pool, "Budgeting");
+
+        Quiz served = pool.take("Budgeting").orElseThrow();
+        served.getQuestions().get(0).getOptions()[0] = "changed";
+        served.setChatSessionId("session1");
+
+        assertEquals("A", generated.getQuestions().get(0).getOptions()[0]);
+        assertNull(generated.getChatSessionId());
+        assertEquals(NOW, served.getCreatedAt());
+    }
+
+    @Test
+    void take_StaleQuizzes_AreDroppedNotServed() {
+        when(quizGenerationService.generateQuiz(anyString())).thenReturn(quiz("Old"));
+        QuizPool pool = pool(true);
+        warmUp(pool, "Budgeting");
+
+        // Generation now fails, so nothing fresh replaces the expired quizzes
+        when(quizGenerationService.generateQuiz(anyString())).thenThrow(new RuntimeException("model down"));
+        clock.now = NOW.plus(Duration.ofHours(25));
+
+        assertTrue(pool.take("Budgeting").isEmpty());
+    }
+
+    @Test
+    void take_DifferentLanguages_UseSeparatePools() {
+        QuizPool pool = pool(true);
+
+        assertNotEquals(pool.keyFor("Was ist ein ETF"), pool.keyFor("What is an ETF"));
+        assertEquals(pool.keyFor("Les bases de la bourse"), pool.keyFor("les bases de la Bourse ?"));
+        assertNull(pool.keyFor("x".repeat(200)));
+        assertNull(pool(false).keyFor("ETF basics"));
+    }
+
+    @Test
+    void refill_InvalidTopic_StopsPoolingIt() {
+        when(quizGenerationService.generateQuiz("Cooking"))
+                .thenThrow(new QuizValidationException("not a finance topic"));
+        QuizPool pool = pool(true);
+
+        warmUp(pool, "Cooking");
+        pool.take("Cooking");
+        pool.take("Cooking");
+
+        verify(quizGenerationService, times(1)).generateQuiz("Cooking");
+    }
+
+    @Test
+    void refill_GenerationFailure_RetriedOnNextRequest() {
+        when(quizGenerationService.generateQuiz("Bonds"))
+                .thenThrow(new QuizGenerationException("model down", new RuntimeException()))
+                .thenReturn(quiz("Q1"));
+        QuizPool pool = pool(true);
+
+        warmUp(pool, "Bonds");
+        pool.take("Bonds");
+
+        verify(quizGenerationService, atLeast(2)).generateQuiz("Bonds");
+        assertTrue(pool.take("Bonds").isPresent());
+    }
+
+    @Test
+    void refill_QueueFull_SkipsAndRetriesLater() {
+        doThrow(new RejectedExecutionException()).doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+        when(quizGenerationService.generateQuiz(anyString())).thenReturn(quiz("Q1"));
+        QuizPool pool = pool(true);
+
+        warmUp(pool, "Bonds");
+        verifyNoInteractions(quizGenerationService);
+
+        pool.take("Bonds");
+        assertTrue(pool.take("Bonds").isPresent());
+    }
+
+    private QuizPool pool(boolean enabled) {
+        return new QuizPool(quizGenerationService, new LanguageDetector(), meterRegistry, enabled, 3, 1, 3,
+                Duration.ofHours(24), 100, 120, executor, clock);
+    }
+
+    private void warmUp(QuizPool pool, String topic) {
+        for (int i = 0; i < 3; i++) {
+            pool.take(topic);
+        }
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("quiz.pool.requests").tag("result", result).counter().count();
+    }
+
+    private static String firstQuestion(Optional<Quiz> quiz) {
+        return quiz.orElseThrow().getQuestions().get(0).getQuestion();
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = NOW;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private static Quiz quiz(String question) {
+        return Quiz.builder()
+                .topic("ETF basics")
+                .questions(List.of(QuizQuestion.builder()
+                        .question(question)
+                        .type(QuizQuestion.QuestionType.MULTIPLE_CHOICE)
+                        .options(new String[] { "A", "B", "C", "D" })
+                        .correctAnswer("A")
+                        .explanation("Because.")
+                        .build()))
+                .build();
+    }
+}
@@ -1,24 +1,36 @@
 package com.fined.mentor.quiz.service;
 
 import com.fined.mentor.chat.service.ChatSessionService;
+import com.fined.mentor.core.language.LanguageDetector;
+import com.fined.mentor.quiz.dto.QuizStreamEvent;
 import com.fined.mentor.quiz.entity.Quiz;
 import com.fined.mentor.quiz.entity.QuizQuestion;
 import com.fined.mentor.quiz.entity.QuizState;
 import com.fined.mentor.quiz.exception.QuizException;
+import com.fined.mentor.quiz.exception.QuizGenerationException;
 import com.fined.mentor.quiz.exception.QuizValidationException;
 import com.fined.mentor.quiz.repository.QuizRepository;
 import com.fined.mentor.quiz.repository.QuizStateRepository;
+import com.fined.mentor.quiz.repository.ReactiveQuizRepository;
+import com.fined.mentor.quiz.repository.ReactiveQuizStateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 import reactor.core.publisher.Flux;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -34,12 +46,25 @@ class QuizServiceImplTest {
     @Mock
     private QuizStateRepository quizStateRepository;
 
+    @Mock
+    private ReactiveQuizRepository reactiveQuizRepository;
+
+    @Mock
+    private ReactiveQuizStateRepository reactiveQuizStateRepository;
+
     @Mock
     private QuizGenerationService quizGenerationService;
 
     @Mock
     private ChatSessionService chatSessionService;
 
+    @Mock
+    private QuizPool quizPool;
+
+    @Spy
+    private QuizGenerationCoalescer quizGenerationCoalescer = new QuizGenerationCoalescer(new SimpleMeterRegistry(),
+            new LanguageDetector(), null, Duration.ofMinutes(1), Duration.ofSeconds(30), Duration.ofMillis(250));
+
     @InjectMocks
     private QuizServiceImpl quizService;
 
@@ -88,11 +113,146 @@ class QuizServiceImplTest {
 
     @Test
     void streamQuizGeneration_Success() {
-        when(quizGenerationService.streamQuizGeneration("Investment")).thenReturn(Flux.just("quiz content"));
+        when(quizGenerationService.streamQuizGeneration("Investment")).thenReturn(Flux.just(
+                "```json\n{\"topic\": \"Investing\", \"questions\": [{\"question\": \"What is 401k?\", ",
+                "\"type\": \"MULTIPLE_CHOICE\", \"options\": [\"Retirement\", \"Bank\"], ",
+                "\"correctAnswer\": \"retirement \", \"explanation\": \"Saving.\"}",
+                ", {\"question\": \"Stocks are risky?\", \"type\": \"TRUE_FALSE\", ",
+                "\"options\": [\"True\", \"False\"], \"correctAnswer\": \"True\", \"explanation\": \"Yes.\"}]}\n```"));
+
+        StepVerifier.create(quizService.streamQuizGeneration("Investment"))
+                .assertNext(event -> {
+                    assertEquals(QuizStreamEvent.QUESTION, event.getEvent());
+                    assertEquals(0, event.getIndex());
+                    // Validated like a saved quiz, correct answer aligned with its option
+                    assertEquals("Retirement", event.getQuestion().getCorrectAnswer());
+                })
+                .assertNext(event -> assertEquals(1, event.getIndex()))
+                .assertNext(event -> {
+                    assertEquals(QuizStreamEvent.DONE, event.getEvent());
+                    assertEquals("Investing", event.getTopic());
+                    assertEquals(2, event.getQuestionCount());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void streamQuizGeneration_ForSession_SavesParsedQuizAndSendsItsId() {
+        when(quizGenerationService.streamQuizGeneration("Investment")).thenReturn(Flux.just(
+                "{\"topic\": \"Investing\", \"questions\": [{\"question\": \"Stocks are risky?\", ",
+                "\"type\": \"TRUE_FALSE\", \"options\": [\"True\", \"False\"], \"correctAnswer\": \"True\", ",
+                "\"explanation\": \"Yes.\"}]}"));
+        when(reactiveQuizRepository.save(any(Quiz.class))).thenAnswer(invocation -> {
+            Quiz quiz = invocation.getArgument(0);
+            quiz.setId("quiz1");
+            return Mono.just(quiz);
+        });
+
+        StepVerifier.create(quizService.streamQuizGeneration("Investment", "session1"))
+                .assertNext(event -> assertEquals(QuizStreamEvent.QUESTION, event.getEvent()))
+                .assertNext(event -> {
+                    assertEquals(QuizStreamEvent.DONE, event.getEvent());
+                    assertEquals("quiz1", event.getQuizId());
+                })
+                .verifyComplete();
+
+        ArgumentCaptor<Quiz> saved = ArgumentCaptor.forClass(Quiz.class);
+        verify(reactiveQuizRepository).save(saved.capture());
+        assertEquals("Investing", saved.getValue().getTopic());
+        assertEquals("session1", saved.getValue().getChatSessionId());
+        assertEquals("Stocks are risky?", saved.getValue().getQuestions().get(0).getQuestion());
+        assertNotNull(saved.getValue().getCreatedAt());
+        verify(quizRepository, never()).save(any(Quiz.class));
+    }
+
+    @Test
+    void streamQuizGeneration_ForSession_SaveFails_EndsWithError() {
+        Quiz pooled = Quiz.builder().topic("Investment").questions(List.of(sampleQuestion)).build();
+        when(quizPool.take("Investment")).thenReturn(Optional.of(pooled));
+        when(reactiveQuizRepository.save(any(Quiz.class))).thenReturn(Mono.error(new RuntimeException("db down")));
+
+        StepVerifier.create(quizService.streamQuizGeneration("Investment", "session1"))
+                .assertNext(event -> assertEquals(QuizStreamEvent.QUESTION, event.getEvent()))
+                .assertNext(event -> assertEquals("Failed to save streamed quiz. Please try again.", event.getMessage()))
+                .verifyComplete();
+    }
+
+    @Test
+    void streamQuizGeneration_Truncated_NothingSaved() {
+        when(quizGenerationService.streamQuizGeneration("Investment")).thenReturn(Flux.just(
+                "{\"questions\": [{\"question\": \"Stocks are risky?\", \"type\": \"TRUE_FALSE\", ",
+                "\"options\": [\"True\", \"False\"], \"correctAnswer\": \"True\", \"explanation\": \"Yes.\"}"));
+
+        StepVerifier.create(quizService.streamQuizGeneration("Investment", "session1"))
+                .assertNext(event -> assertEquals(QuizStreamEvent.QUESTION, event.getEvent()))
+                .assertNext(event -> assertEquals(QuizStreamEvent.ERROR, event.getEvent()))
+                .verifyComplete();
+        verifyNoInteractions(reactiveQuizRepository);
+    }
+
+    @Test
+    void streamQuizGeneration_InvalidQuestion_SendsEarlierQuestionsThenError() {
+        when(quizGenerationService.streamQuizGeneration("Investment")).thenReturn(Flux.just(
+                "{\"questions\": [{\"question\": \"Q1\", \"type\": \"TRUE_FALSE\", ",
+                "\"options\": [\"True\", \"False\"], \"correctAnswer\": \"True\", \"explanation\": \"Yes.\"},",
+                "{\"question\": \"Q2\", \"type\": \"MULTIPLE_CHOICE\", \"options\": [\"A\", \"B\"], ",
+                "\"correctAnswer\": \"C\", \"explanation\": \"No.\"}]}"));
+
+        StepVerifier.create(quizService.streamQuizGeneration("Investment"))
+                .assertNext(event -> assertEquals(QuizStreamEvent.QUESTION, event.getEvent()))
+                .assertNext(event -> {
+                    assertEquals(QuizStreamEvent.ERROR, event.getEvent());
+                    assertEquals("Correct answer must be one of the provided options for question 2",
+                            event.getMessage());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void streamQuizGeneration_TruncatedStream_EndsWithError() {
+        when(quizGenerationService.streamQuizGeneration("Investment"))
+                .thenReturn(Flux.just("{\"topic\": \"Investing\", \"questions\": ["));
+
+        StepVerifier.create(quizService.streamQuizGeneration("Investment"))
+                .assertNext(event -> {
+                    assertEquals(QuizStreamEvent.ERROR, event.getEvent());
+                    assertEquals("Could not generate a valid quiz. Please try again.", event.getMessage());
+                })
+                .verifyComplete();
+    }
 
-        Flux<String> stream = quizService.streamQuizGeneration("Investment");
+    @Test
+    void streamQuizGeneration_InvalidTopic_SendsTopicMessage() {
+        when(quizGenerationService.streamQuizGeneration("Cooking"))
+                .thenReturn(Flux.error(new QuizValidationException("Please choose a finance topic.")));
+
+        StepVerifier.create(quizService.streamQuizGeneration("Cooking"))
+                .assertNext(event -> assertEquals("Please choose a finance topic.", event.getMessage()))
+                .verifyComplete();
+    }
+
+    @Test
+    void generateQuiz_PooledQuiz_SavedForSessionWithoutGenerating() {
+        Quiz pooled = Quiz.builder().topic("Investment").questions(List.of(sampleQuestion)).build();
+        when(quizPool.take("Investment")).thenReturn(Optional.of(pooled));
+        when(quizRepository.save(any(Quiz.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Quiz quiz = quizService.generateQuiz("Investment", "session1");
+
+        assertEquals("session1", quiz.getChatSessionId());
+        verify(quizGenerationService, never()).generateQuiz(anyString());
+    }
 
-        assertNotNull(stream);
+    @Test
+    void streamQuizGeneration_PooledQuiz_StreamsSameEvents() {
+        Quiz pooled = Quiz.builder().topic("Investment").questions(List.of(sampleQuestion)).build();
+        when(quizPool.take("Investment")).thenReturn(Optional.of(pooled));
+
+        StepVerifier.create(quizService.streamQuizGeneration("Investment"))
+                .assertNext(event -> assertEquals("What is 401k?", event.getQuestion().getQuestion()))
+                .assertNext(event -> assertEquals(1, event.getQuestionCount()))
+                .verifyComplete();
+        verify(quizGenerationService, never()).streamQuizGeneration(anyString());
     }
 
     @Test
@@ -148,13 +308,28 @@ class QuizServiceImplTest {
 
     @Test
     void startQuiz_Success() {
-        when(quizRepository.findById("quiz1")).thenReturn(Optional.of(sampleQuiz));
-        when(quizStateRepository.save(any(QuizState.class))).thenReturn(sampleQuizState);
+        when(reactiveQuizRepository.findById("quiz1")).thenReturn(Mono.just(sampleQuiz));
+        when(reactiveQuizStateRepository.save(any(QuizState.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+
+        StepVerifier.create(quizService.startQuiz("quiz1", "session1"))
+                .assertNext(newState -> {
+                    assertEquals("quiz1", newState.getQuizId());
+                    assertEquals("session1", newState.getChatSessionId());
+                    assertEquals(0, newState.getCurrentQuestionIndex());
+                    assertTrue(newState.getUserAnswers().isEmpty());
+                })
+                .verifyComplete();
+        verifyNoInteractions(quizRepository, quizStateRepository);
+    }
 
-        QuizState newState = quizService.startQuiz("quiz1", "session1");
+    @Test
+    void startQuiz_QuizNotFound_Errors() {
+        when(reactiveQuizRepository.findById("missing")).thenReturn(Mono.empty());
 
-        assertNotNull(newState);
-        assertEquals("quiz1", newState.getQuizId());
+        StepVerifier.create(quizService.startQuiz("missing", "session1"))
+                .expectErrorMessage("Quiz not found")
+                .verify();
+        verify(reactiveQuizStateRepository, never()).save(any(QuizState.class));
     }
 
     @Test
@@ -186,17 +361,6 @@ class QuizServiceImplTest {
         assertThrows(QuizValidationException.class, () -> quizService.generateQuiz("Investment", "session1"));
     }
 
-    @Test
-    void saveStreamedQuiz_Success_WithMarkdown() {
-        String json = "```json\n{\"topic\": \"Investment\", \"questions\": [{\"question\": \"Q1\", \"correctAnswer\": \"A1\", \"type\": \"MULTIPLE_CHOICE\", \"options\": [\"A1\", \"B2\"]}]}\n```";
-        when(quizRepository.save(any(Quiz.class))).thenReturn(sampleQuiz);
-
-        Quiz quiz = quizService.saveStreamedQuiz("Investment", "session1", json);
-
-        assertNotNull(quiz);
-        verify(quizRepository).save(any(Quiz.class));
-    }
-
     @Test
     void finishQuiz_PartialAnswers_CalculatesCorrectScore() {
         sampleQuizState.getUserAnswers().put(0, "Retirement");
@@ -299,7 +463,10 @@ class QuizServiceImplTest {
         // Throw an exception during any of the validation steps (e.g. getType)
         when(mockQuestion.getQuestion()).thenReturn("What is 401k?");
         when(mockQuestion.getCorrectAnswer()).thenReturn("Retirement");
-        when(mockQuestion.getType()).thenThrow(new RuntimeException("Unexpected error during validation"));
+        // The first read is the copy kept for coalesced callers, the second is validation
+        when(mockQuestion.getType())
+                .thenReturn(QuizQuestion.QuestionType.MULTIPLE_CHOICE)
+                .thenThrow(new RuntimeException("Unexpected error during validation"));
 
         Quiz quizWithMock = Quiz.builder()
                 .questions(Collections.singletonList(mockQuestion))
@@ -307,7 +474,7 @@ class QuizServiceImplTest {
 
         when(quizGenerationService.generateQuiz(anyString())).thenReturn(quizWithMock);
 
-        assertThrows(com.fined.mentor.quiz.exception.QuizGenerationException.class,
+        assertThrows(QuizGenerationException.class,
                 () -> quizService.generateQuiz("Investment", "session1"));
     }
 }
@@ -0,0 +1,98 @@
+package com.fined.mentor.quiz.service;
+
+import com.fined.mentor.quiz.entity.QuizQuestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuizStreamParserTest {
+
+    private static final String QUIZ_JSON = """
+            ```json
+            {
+              "topic": "Bonds \\"101\\"",
+              "questions": [
+                {"question": "Is a {coupon} [paid] \\"yearly\\"?", "type": "TRUE_FALSE",
+                 "options": ["True", "False"], "correctAnswer": "True", "explanation": "Often."},
+                {"question": "What is a bond?", "type": "MULTIPLE_CHOICE",
+                 "options": ["Debt", "Equity", "Cash", "Gold"], "correctAnswer": "Debt",
+                 "explanation": "A loan.", "difficulty": "easy"}
+              ]
+            }
+            ```""";
+
+    @Test
+    void feed_CharByChar_EmitsEachQuestionWhenItCloses() {
+        QuizStreamParser parser = new QuizStreamParser();
+        List<Integer> completedAt = new ArrayList<>();
+        List<QuizQuestion> questions = new ArrayList<>();
+
+        for (int i = 0; i < QUIZ_JSON.length(); i++) {
+            List<QuizQuestion> completed = parser.feed(String.valueOf(QUIZ_JSON.charAt(i)));
+            if (!completed.isEmpty()) {
+                completedAt.add(i);
+                questions.addAll(completed);
+            }
+        }
+
+        assertEquals(2, questions.size());
+        assertEquals("Is a {coupon} [paid] \"yearly\"?", questions.get(0).getQuestion());
+        assertEquals(QuizQuestion.QuestionType.MULTIPLE_CHOICE, questions.get(1).getType());
+        // Each question is released on its own closing brace, long before the stream ends
+        assertEquals(QUIZ_JSON.indexOf("\"Often.\"}") + "\"Often.\"}".length() - 1, completedAt.get(0));
+        assertEquals("Bonds \"101\"", parser.topic());
+        assertEquals(2, parser.questionCount());
+        assertTrue(parser.isComplete());
+    }
+
+    @Test
+    void feed_WholeDocument_EmitsAllQuestionsAtOnce() {
+        QuizStreamParser parser = new QuizStreamParser();
+
+        List<QuizQuestion> questions = parser.feed(QUIZ_JSON);
+
+        assertEquals(List.of("Is a {coupon} [paid] \"yearly\"?", "What is a bond?"),
+                questions.stream().map(QuizQuestion::getQuestion).toList());
+    }
+
+    @Test
+    void feed_TruncatedStream_IsNotComplete() {
+        QuizStreamParser parser = new QuizStreamParser();
+        String truncated = QUIZ_JSON.substring(0, QUIZ_JSON.indexOf("What is a bond?"));
+
+        assertEquals(1, parser.feed(truncated).size());
+        assertFalse(parser.isComplete());
+    }
+
+    @Test
+    void feed_NoQuizObject_EmitsNothing() {
+        QuizStreamParser parser = new QuizStreamParser();
+
+        assertTrue(parser.feed("Sorry, I can only help with finance.").isEmpty());
+        assertFalse(parser.isComplete());
+        assertNull(parser.topic());
+    }
+
+    @Test
+    void feed_NestedArraysOutsideQuestions_AreIgnored() {
+        QuizStreamParser parser = new QuizStreamParser();
+
+        List<QuizQuestion> questions = parser.feed("""
+                {"tags": [{"question": "not a quiz question"}], "topic": "ETFs", "questions": []}""");
+
+        assertTrue(questions.isEmpty());
+        assertEquals("ETFs", parser.topic());
+        assertTrue(parser.isComplete());
+    }
+
+    @Test
+    void feed_MalformedQuestion_Throws() {
+        QuizStreamParser parser = new QuizStreamParser();
+
+        assertThrows(IllegalStateException.class,
+                () -> parser.feed("{\"questions\": [{\"type\": \"ESSAY\"}]}"));
+    }
+}
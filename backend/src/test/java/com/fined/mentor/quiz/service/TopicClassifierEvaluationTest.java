@@ -0,0 +1,86 @@
+package com.fined.mentor.quiz.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Offline evaluation of the local topic classifier on held-out topics that none of
+ * the seed corpus contains. Only topics missing the keyword list are counted, as
+ * those are the ones that reach the classifier. For a range of uncertain bands it
+ * reports the precision and recall of the classifier's confident finance verdicts
+ * and the share of AI calls it avoids.
+ */
+class TopicClassifierEvaluationTest {
+
+    private static final double[][] BANDS = { { 0.5, 0.5 }, { 0.3, 0.7 }, { 0.2, 0.8 }, { 0.1, 0.9 }, { 0.05, 0.95 } };
+
+    @Test
+    void reportPrecisionRecallAndAvoidedCalls() throws IOException {
+        TopicClassifierModel model;
+        try (Reader seed = resource("/topic-classifier/seed.tsv")) {
+            model = TopicClassifierModel.train(TopicClassifierModel.readCorpus(seed));
+        }
+        List<TopicClassifierModel.LabelledTopic> holdout;
+        try (Reader reader = resource("/topic-classifier/holdout.tsv")) {
+            holdout = TopicClassifierModel.readCorpus(reader).stream()
+                    .filter(labelled -> !TopicValidatorService.FINANCE_KEYWORDS.matches(labelled.topic()))
+                    .toList();
+        }
+
+        System.out.printf("%d held-out topics miss the keyword list%n", holdout.size());
+        System.out.println("band        | precision | recall | AI calls avoided");
+        Evaluation configured = null;
+        for (double[] band : BANDS) {
+            Evaluation evaluation = evaluate(model, holdout, band[0], band[1]);
+            System.out.printf("%.2f - %.2f | %9.2f | %6.2f | %16.2f%n",
+                    band[0], band[1], evaluation.precision(), evaluation.recall(), evaluation.avoided());
+            if (band[0] == 0.2 && band[1] == 0.8) {
+                configured = evaluation;
+            }
+        }
+
+        // The default band keeps AI calls for the doubtful topics without giving up precision
+        assertNotNull(configured);
+        assertTrue(configured.avoided() > 0.5);
+        assertTrue(configured.precision() >= 0.9);
+        assertTrue(configured.recall() > 0.5);
+    }
+
+    private static Evaluation evaluate(TopicClassifierModel model, List<TopicClassifierModel.LabelledTopic> topics,
+            double rejectBelow, double acceptAbove) {
+        int truePositives = 0;
+        int falsePositives = 0;
+        int finance = 0;
+        int decided = 0;
+        for (TopicClassifierModel.LabelledTopic labelled : topics) {
+            double probability = model.probability(labelled.topic());
+            boolean accepted = probability >= acceptAbove;
+            finance += labelled.finance() ? 1 : 0;
+            if (accepted || probability < rejectBelow) {
+                decided++;
+            }
+            if (accepted && labelled.finance()) {
+                truePositives++;
+            } else if (accepted) {
+                falsePositives++;
+            }
+        }
+        double precision = truePositives + falsePositives == 0 ? 1.0
+                : (double) truePositives / (truePositives + falsePositives);
+        return new Evaluation(precision, (double) truePositives / finance, (double) decided / topics.size());
+    }
+
+    private Reader resource(String path) {
+        return new InputStreamReader(getClass().getResourceAsStream(path), StandardCharsets.UTF_8);
+    }
+
+    private record Evaluation(double precision, double recall, double avoided) {
+    }
+}
@@ -0,0 +1,97 @@
+package com.fined.mentor.quiz.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopicClassifierModelTest {
+
+    private static final List<TopicClassifierModel.LabelledTopic> CORPUS = List.of(
+            new TopicClassifierModel.LabelledTopic("Inflation and interest", true),
+            new TopicClassifierModel.LabelledTopic("Hedge fund strategies", true),
+            new TopicClassifierModel.LabelledTopic("Baking sourdough bread", false),
+            new TopicClassifierModel.LabelledTopic("Marathon training plan", false));
+
+    @Test
+    void probability_SeparatesTrainedClasses() {
+        TopicClassifierModel model = TopicClassifierModel.train(CORPUS);
+
+        assertTrue(model.probability("Inflation hedge") > 0.5);
+        assertTrue(model.probability("Bread baking") < 0.5);
+        assertEquals(0.5, model.probability("?!"));
+    }
+
+    @Test
+    void writeThenRead_GivesSameModel() throws IOException {
+        TopicClassifierModel model = TopicClassifierModel.train(CORPUS);
+        StringWriter written = new StringWriter();
+        model.write(written);
+
+        TopicClassifierModel read = TopicClassifierModel.read(new StringReader(written.toString()));
+
+        assertEquals(model.size(), read.size());
+        assertEquals(model.probability("Hedge funds"), read.probability("Hedge funds"), 1e-12);
+        StringWriter rewritten = new StringWriter();
+        read.write(rewritten);
+        assertEquals(written.toString(), rewritten.toString());
+    }
+
+    @Test
+    void read_MalformedModel_Throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> TopicClassifierModel.read(new StringReader(" in\t1\n")));
+        assertThrows(IllegalArgumentException.class,
+                () -> TopicClassifierModel.read(new StringReader(" in\t1\t0\n")));
+    }
+
+    @Test
+    void readCorpus_AcceptsLoggedVerdictsAndSkipsOtherLines() {
+        String log = """
+                # comment\tignored
+                finance\tHedge funds
+                2026-10-17T10:00:00.000Z  INFO 1 --- [nio-8080-exec-1] topic-verdicts : other\tCooking   pasta
+                2026-10-17T10:00:01.000Z ERROR 1 --- [nio-8080-exec-2] c.f.m.q.s.TopicValidatorService : Error
+                \tat com.fined.mentor.quiz.service.TopicValidatorService.isValidTopic
+                maybe\tSomething
+                finance\t
+                """;
+
+        List<TopicClassifierModel.LabelledTopic> corpus = TopicClassifierModel.readCorpus(new StringReader(log));
+
+        assertEquals(List.of(
+                new TopicClassifierModel.LabelledTopic("Hedge funds", true),
+                new TopicClassifierModel.LabelledTopic("Cooking   pasta", false)), corpus);
+    }
+
+    @Test
+    void bundledModel_IsTrainedFromBundledSeedCorpus() throws IOException {
+        TopicClassifierModel trained;
+        try (Reader seed = resource("/topic-classifier/seed.tsv")) {
+            trained = TopicClassifierModel.train(TopicClassifierModel.readCorpus(seed));
+        }
+        StringWriter expected = new StringWriter();
+        trained.write(expected);
+
+        TopicClassifierModel bundled;
+        try (Reader model = resource("/topic-classifier/model.tsv")) {
+            bundled = TopicClassifierModel.read(model);
+        }
+        StringWriter actual = new StringWriter();
+        bundled.write(actual);
+
+        // Out of date after editing seed.tsv: retrain with TopicClassifierTrainer
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    private Reader resource(String path) {
+        return new InputStreamReader(getClass().getResourceAsStream(path), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,74 @@
+package com.fined.mentor.quiz.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopicClassifierTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void classify_BundledModel_SettlesClearTopicsAndCountsThem() {
+        TopicClassifier classifier = new TopicClassifier(meterRegistry, true,
+                new ClassPathResource("topic-classifier/model.tsv"), 0.2, 0.8);
+
+        assertEquals(TopicClassifier.Verdict.FINANCE, classifier.classify("Macroeconomic cycles"));
+        assertEquals(TopicClassifier.Verdict.OTHER, classifier.classify("Playing the violin"));
+
+        assertEquals(1.0, verdicts("finance"));
+        assertEquals(1.0, verdicts("other"));
+    }
+
+    @Test
+    void classify_InsideBand_LeftToAI() {
+        TopicClassifier classifier = new TopicClassifier(meterRegistry, true,
+                new ClassPathResource("topic-classifier/model.tsv"), 0.0, 1.0);
+
+        assertEquals(TopicClassifier.Verdict.UNCERTAIN, classifier.classify("Macroeconomic cycles"));
+        assertEquals(1.0, verdicts("uncertain"));
+    }
+
+    @Test
+    void classify_Disabled_AlwaysUncertain() {
+        TopicClassifier classifier = new TopicClassifier(meterRegistry, false, null, 0.2, 0.8);
+
+        assertEquals(TopicClassifier.Verdict.UNCERTAIN, classifier.classify("Hedge funds"));
+    }
+
+    @Test
+    void constructor_InvalidBandOrModel_Throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TopicClassifier(meterRegistry, null, 0.9, 0.1));
+        assertThrows(IllegalStateException.class, () -> new TopicClassifier(meterRegistry, true,
+                new ByteArrayResource("not a model".getBytes(StandardCharsets.UTF_8)), 0.2, 0.8));
+    }
+
+    @Test
+    void trainer_WritesModelFromCorpusFiles(@TempDir Path dir) throws IOException {
+        Path seed = Files.writeString(dir.resolve("seed.tsv"), "finance\tHedge funds\nother\tBaking bread\n");
+        Path log = Files.writeString(dir.resolve("verdicts.log"), "INFO topic-verdicts : finance\tMacroeconomics\n");
+        Path model = dir.resolve("model.tsv");
+
+        TopicClassifierTrainer.main(new String[] { model.toString(), seed.toString(), log.toString() });
+
+        List<String> lines = Files.readAllLines(model);
+        assertEquals("@topics\t2\t1", lines.get(1));
+        assertThrows(IllegalArgumentException.class,
+                () -> TopicClassifierTrainer.main(new String[] { model.toString() }));
+    }
+
+    private double verdicts(String result) {
+        return meterRegistry.get("quiz.topic.classifier.verdicts").tag("result", result).counter().count();
+    }
+}
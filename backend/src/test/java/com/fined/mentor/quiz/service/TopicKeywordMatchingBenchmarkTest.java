@@ -0,0 +1,110 @@
+package com.fined.mentor.quiz.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the compiled keyword automaton of {@link TopicValidatorService} with the
+ * substring scan it replaced: how many topics of a mixed EN/FR/DE corpus each one
+ * would send to the AI fallback, how many unrelated topics each wrongly accepts,
+ * and the time per lookup.
+ */
+class TopicKeywordMatchingBenchmarkTest {
+
+    private static final int ITERATIONS = 10_000;
+
+    // The keyword list and check used before the automaton
+    private static final List<String> LEGACY_KEYWORDS = Arrays.asList(
+            "finance", "investment", "stock", "bond", "portfolio", "trading", "dividend",
+            "interest", "loan", "mortgage", "credit", "debt", "budget", "savings", "retirement",
+            "401k", "ira", "roth", "pension", "etf", "mutual fund", "asset", "liability",
+            "equity", "capital", "revenue", "profit", "loss", "tax", "banking", "insurance",
+            "real estate", "property", "reit", "cryptocurrency", "forex", "commodity",
+            "investissement", "actions", "obligations", "portefeuille", "épargne", "retraite",
+            "crédit", "prêt", "hypothèque", "intérêt", "impôt", "banque", "assurance",
+            "immobilier", "propriété", "bourse",
+            "investition", "aktien", "anleihen", "sparplan", "rente", "kredit", "darlehen",
+            "hypothek", "zinsen", "steuer", "versicherung", "immobilien", "eigentum", "börse");
+
+    private static final List<String> FINANCE_TOPICS = List.of(
+            "Stock market basics", "How bonds work", "Roth IRA vs 401k", "Mortgage refinancing",
+            "Real-estate investing", "Emerging market equities", "Commodities trading", "Financial planning",
+            "Rental properties", "Taxes for freelancers", "Dividend stocks", "Budget templates",
+            "Epargne retraite", "Les impots en France", "Interet compose", "Pret immobilier",
+            "La bourse de Paris", "Les obligations d'Etat", "Assurance vie",
+            "Boersengang", "Aktienkurs verstehen", "Zinseszins", "Leitzins der EZB", "Anleihe kaufen",
+            "Steuererklärung", "Immobilienfinanzierung", "Finanzplanung", "Altersrente", "Börse für Anfänger");
+
+    private static final List<String> UNRELATED_TOPICS = List.of(
+            "Taxi drivers in New York", "Iran travel guide", "A trip to Stockholm", "Syntax errors in Java",
+            "Interesting facts about cats", "Lossless audio formats", "Capitalization rules in English",
+            "Spiral galaxies", "Bondage of the will", "Ancient Roman debtors prisons");
+
+    @Test
+    void automatonSendsFewerTopicsToAiAndAcceptsFewerUnrelatedOnes() {
+        Predicate<String> legacy = TopicKeywordMatchingBenchmarkTest::legacyMatches;
+        Predicate<String> automaton = TopicValidatorService.FINANCE_KEYWORDS::matches;
+
+        List<String> legacyFallbacks = misses(legacy, FINANCE_TOPICS);
+        List<String> automatonFallbacks = misses(automaton, FINANCE_TOPICS);
+        long legacyFalsePositives = UNRELATED_TOPICS.stream().filter(legacy).count();
+        long automatonFalsePositives = UNRELATED_TOPICS.stream().filter(automaton).count();
+
+        double legacyMicros = microsPerLookup(legacy);
+        double automatonMicros = microsPerLookup(automaton);
+
+        System.out.println("matcher   | AI fallbacks | false positives | lookup (us)");
+        System.out.printf("scan      | %12d | %15d | %11.2f%n",
+                legacyFallbacks.size(), legacyFalsePositives, legacyMicros);
+        System.out.printf("automaton | %12d | %15d | %11.2f%n",
+                automatonFallbacks.size(), automatonFalsePositives, automatonMicros);
+        System.out.println("still needing AI: " + automatonFallbacks);
+
+        assertTrue(automatonFallbacks.size() < legacyFallbacks.size());
+        assertTrue(automatonFalsePositives < legacyFalsePositives);
+        // Every finance topic the scan recognised is still recognised
+        assertTrue(legacyFallbacks.containsAll(automatonFallbacks));
+    }
+
+    private static List<String> misses(Predicate<String> matcher, List<String> topics) {
+        List<String> misses = new ArrayList<>();
+        for (String topic : topics) {
+            if (!matcher.test(topic)) {
+                misses.add(topic);
+            }
+        }
+        return misses;
+    }
+
+    private static double microsPerLookup(Predicate<String> matcher) {
+        List<String> corpus = new ArrayList<>(FINANCE_TOPICS);
+        corpus.addAll(UNRELATED_TOPICS);
+        int matched = 0;
+        // Warm up before timing
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (String topic : corpus) {
+                matched += matcher.test(topic) ? 1 : 0;
+            }
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (String topic : corpus) {
+                matched += matcher.test(topic) ? 1 : 0;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(matched > 0);
+        return elapsed / 1_000.0 / ITERATIONS / corpus.size();
+    }
+
+    private static boolean legacyMatches(String topic) {
+        String normalizedTopic = topic.toLowerCase().trim();
+        return LEGACY_KEYWORDS.stream().anyMatch(normalizedTopic::contains);
+    }
+}
@@ -1,16 +1,25 @@
 package com.fined.mentor.quiz.service;
 
+import com.fined.mentor.core.language.LanguageDetector;
+import com.fined.mentor.core.llm.ModelInvoker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Consumer;
+
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +37,23 @@ class TopicValidatorServiceTest {
     @Mock
     private ChatClient.CallResponseSpec responseSpec;
 
+    @Spy
+    private LanguageDetector languageDetector = new LanguageDetector();
+
+    // Disabled, so every off-list topic reaches the AI unless a test says otherwise
+    @Spy
+    private TopicClassifier topicClassifier = new TopicClassifier(new SimpleMeterRegistry(), null, 0.2, 0.8);
+
+    @Spy
+    private TopicVerdictCache topicVerdictCache = new TopicVerdictCache(new SimpleMeterRegistry(), null, true, 100,
+            Duration.ofDays(7), Duration.ofHours(6), 200);
+
+    // Disabled, so the AI is asked directly on the test thread
+    @Spy
+    private ModelInvoker modelInvoker = new ModelInvoker(new SimpleMeterRegistry(), false, "", Duration.ofSeconds(30),
+                Duration.ofSeconds(60), Duration.ofSeconds(5), false, 0.95, 20, Duration.ofSeconds(1), 20, 0.5,
+                Duration.ofSeconds(30));
+
     @InjectMocks
     private TopicValidatorService topicValidatorService;
 
@@ -54,7 +80,8 @@ class TopicValidatorServiceTest {
     void isValidTopic_AIValidation_Success() {
         // Mock ChatClient fluent API
         when(chatClientBuilder.build()).thenReturn(chatClient);
-        when(chatClient.prompt(anyString())).thenReturn(requestSpec);
+        when(chatClient.prompt(any(Prompt.class))).thenReturn(requestSpec);
+        when(requestSpec.advisors(any(Consumer.class))).thenReturn(requestSpec);
         when(requestSpec.call()).thenReturn(responseSpec);
         when(responseSpec.content()).thenReturn(" YES ");
 
@@ -62,13 +89,14 @@ class TopicValidatorServiceTest {
         assertTrue(topicValidatorService.isValidTopic("Macroeconomics and inflation"));
         
         verify(chatClientBuilder).build();
-        verify(chatClient).prompt(anyString());
+        verify(chatClient).prompt(any(Prompt.class));
     }
 
     @Test
     void isValidTopic_AIValidation_Failure() {
         when(chatClientBuilder.build()).thenReturn(chatClient);
-        when(chatClient.prompt(anyString())).thenReturn(requestSpec);
+        when(chatClient.prompt(any(Prompt.class))).thenReturn(requestSpec);
+        when(requestSpec.advisors(any(Consumer.class))).thenReturn(requestSpec);
         when(requestSpec.call()).thenReturn(responseSpec);
         when(responseSpec.content()).thenReturn("NO");
 
@@ -78,11 +106,64 @@ class TopicValidatorServiceTest {
     @Test
     void isValidTopic_AIException_ReturnsFalse() {
         when(chatClientBuilder.build()).thenReturn(chatClient);
-        when(chatClient.prompt(anyString())).thenThrow(new RuntimeException("AI service down"));
+        when(chatClient.prompt(any(Prompt.class))).thenThrow(new RuntimeException("AI service down"));
 
         assertFalse(topicValidatorService.isValidTopic("Something valid but needing AI"));
     }
 
+    @Test
+    void quickVerdict_OnlyLocalChecks() {
+        doReturn(TopicClassifier.Verdict.OTHER).when(topicClassifier).classify("Cooking pasta");
+
+        assertEquals(Optional.of(true), topicValidatorService.quickVerdict("Investment strategies"));
+        assertEquals(Optional.of(false), topicValidatorService.quickVerdict("  "));
+        assertEquals(Optional.of(false), topicValidatorService.quickVerdict("Cooking pasta"));
+        assertEquals(Optional.empty(), topicValidatorService.quickVerdict("Macroeconomics"));
+
+        verifyNoInteractions(chatClientBuilder);
+    }
+
+    @Test
+    void isValidTopic_ConfidentLocalClassifier_SkipsAI() {
+        doReturn(TopicClassifier.Verdict.FINANCE).when(topicClassifier).classify("Macroeconomics");
+        doReturn(TopicClassifier.Verdict.OTHER).when(topicClassifier).classify("Cooking pasta");
+
+        assertTrue(topicValidatorService.isValidTopic("Macroeconomics"));
+        assertFalse(topicValidatorService.isValidTopic("Cooking pasta"));
+
+        verifyNoInteractions(chatClientBuilder);
+    }
+
+    @Test
+    void isValidTopic_RepeatedOffListTopic_AskedOnceWithOneClient() {
+        when(chatClientBuilder.build()).thenReturn(chatClient);
+        when(chatClient.prompt(any(Prompt.class))).thenReturn(requestSpec);
+        when(requestSpec.advisors(any(Consumer.class))).thenReturn(requestSpec);
+        when(requestSpec.call()).thenReturn(responseSpec);
+        when(responseSpec.content()).thenReturn("YES");
+
+        assertTrue(topicValidatorService.isValidTopic("Macroeconomics and inflation"));
+        assertTrue(topicValidatorService.isValidTopic("macroeconomics and inflation"));
+        assertTrue(topicValidatorService.isValidTopic("Behavioural economics"));
+
+        verify(chatClientBuilder, times(1)).build();
+        verify(chatClient, times(2)).prompt(any(Prompt.class));
+    }
+
+    @Test
+    void isValidTopic_AIExceptionNotCached_RetriedNextTime() {
+        when(chatClientBuilder.build()).thenReturn(chatClient);
+        when(chatClient.prompt(any(Prompt.class)))
+                .thenThrow(new RuntimeException("AI service down"))
+                .thenReturn(requestSpec);
+        when(requestSpec.advisors(any(Consumer.class))).thenReturn(requestSpec);
+        when(requestSpec.call()).thenReturn(responseSpec);
+        when(responseSpec.content()).thenReturn("YES");
+
+        assertFalse(topicValidatorService.isValidTopic("Macroeconomics"));
+        assertTrue(topicValidatorService.isValidTopic("Macroeconomics"));
+    }
+
     @Test
     void getInvalidTopicMessage_French() {
         String message = topicValidatorService.getInvalidTopicMessage("La cuisine française");
@@ -95,6 +176,13 @@ class TopicValidatorServiceTest {
         assertTrue(message.contains("Das Thema") && message.contains("bezieht sich nicht auf Finanzen"));
     }
 
+    @Test
+    void getInvalidTopicMessage_EnglishTopicContainingFrenchSubstrings() {
+        // "best" contains "est" and "pasta" contains "la", which used to read as French
+        String message = topicValidatorService.getInvalidTopicMessage("The best pasta dishes");
+        assertTrue(message.startsWith("The topic"));
+    }
+
     @Test
     void getInvalidTopicMessage_DefaultEnglish() {
         String message = topicValidatorService.getInvalidTopicMessage("Tennis coach");
@@ -104,7 +192,8 @@ class TopicValidatorServiceTest {
     @Test
     void testValidateWithAI_DirectAccess() {
         when(chatClientBuilder.build()).thenReturn(chatClient);
-        when(chatClient.prompt(anyString())).thenReturn(requestSpec);
+        when(chatClient.prompt(any(Prompt.class))).thenReturn(requestSpec);
+        when(requestSpec.advisors(any(Consumer.class))).thenReturn(requestSpec);
         when(requestSpec.call()).thenReturn(responseSpec);
         when(responseSpec.content()).thenReturn("YES");
 
@@ -0,0 +1,135 @@
+package com.fined.mentor.quiz.service;
+
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class TopicVerdictCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger classifications = new AtomicInteger();
+
+    @Test
+    void isValid_RepeatedTopic_ClassifiedOnce() {
+        TopicVerdictCache cache = cache(null, true);
+
+        assertTrue(cache.isValid("Macroeconomics", classifier(true)));
+        assertTrue(cache.isValid("  macroeconomics? ", classifier(false)));
+
+        assertEquals(1, classifications.get());
+        assertEquals(1.0, requests("hit"));
+        assertEquals(1.0, requests("miss"));
+        assertEquals(0.5, meterRegistry.get("quiz.topic.verdicts.hit.ratio").gauge().value());
+    }
+
+    @Test
+    void isValid_NegativeVerdict_CachedToo() {
+        TopicVerdictCache cache = cache(null, true);
+
+        assertFalse(cache.isValid("Cooking", classifier(false)));
+        assertFalse(cache.isValid("cooking", classifier(true)));
+
+        assertEquals(1, classifications.get());
+    }
+
+    @Test
+    void isValid_ClassifierFails_NothingCached() {
+        TopicVerdictCache cache = cache(null, true);
+
+        assertThrows(IllegalStateException.class, () -> cache.isValid("Macroeconomics", topic -> {
+            throw new IllegalStateException("model down");
+        }));
+
+        assertTrue(cache.isValid("Macroeconomics", classifier(true)));
+        assertEquals(1, classifications.get());
+    }
+
+    @Test
+    void isValid_Disabled_AlwaysClassifies() {
+        TopicVerdictCache cache = cache(null, false);
+
+        cache.isValid("Macroeconomics", classifier(true));
+        cache.isValid("Macroeconomics", classifier(true));
+
+        assertEquals(2, classifications.get());
+        assertNull(cache.keyFor("Macroeconomics"));
+    }
+
+    @Test
+    void keyFor_EmptyOrTooLong_NotCached() {
+        TopicVerdictCache cache = cache(null, true);
+
+        assertNull(cache.keyFor("  ?! "));
+        assertNull(cache.keyFor("x".repeat(201)));
+        assertEquals(cache.keyFor("Inflation"), cache.keyFor("inflation!"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void isValid_Shared_UsesVerdictFromOtherInstance() {
+        RedisCommands<String, String> redis = mock(RedisCommands.class);
+        when(redis.get(startsWith("topic-verdict:"))).thenReturn("1");
+        TopicVerdictCache cache = cache(redis, true);
+
+        assertTrue(cache.isValid("Macroeconomics", classifier(false)));
+        assertTrue(cache.isValid("Macroeconomics", classifier(false)));
+
+        assertEquals(0, classifications.get());
+        assertEquals(1.0, requests("shared_hit"));
+        // The second lookup is served in-process
+        verify(redis, times(1)).get(anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void isValid_Shared_MissStoresVerdictWithItsTtl() {
+        RedisCommands<String, String> redis = mock(RedisCommands.class);
+        TopicVerdictCache cache = cache(redis, true);
+
+        cache.isValid("Cooking", classifier(false));
+
+        verify(redis).set(startsWith("topic-verdict:"), eq("0"), any(SetArgs.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void isValid_Shared_RedisDown_StillClassifies() {
+        RedisCommands<String, String> redis = mock(RedisCommands.class);
+        when(redis.get(anyString())).thenThrow(new IllegalStateException("down"));
+        when(redis.set(anyString(), anyString(), any(SetArgs.class))).thenThrow(new IllegalStateException("down"));
+        TopicVerdictCache cache = cache(redis, true);
+
+        assertTrue(cache.isValid("Macroeconomics", classifier(true)));
+        assertTrue(cache.isValid("Macroeconomics", classifier(false)));
+
+        assertEquals(1, classifications.get());
+    }
+
+    private TopicVerdictCache cache(RedisCommands<String, String> redis, boolean enabled) {
+        return new TopicVerdictCache(meterRegistry, redis, enabled, 100,
+                Duration.ofDays(7), Duration.ofHours(6), 200);
+    }
+
+    private Predicate<String> classifier(boolean verdict) {
+        return topic -> {
+            classifications.incrementAndGet();
+            return verdict;
+        };
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("quiz.topic.verdicts.requests").tag("result", result).counter().count();
+    }
+}
@@ -5,11 +5,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.model.ToolContext;
 
 import java.util.List;
+import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,11 +39,22 @@ class TavilySearchToolTest {
 
         when(tavilyApiClient.search(any(TavilyApiClient.TavilyRequest.class))).thenReturn(mockResponse);
 
-        String result = tavilySearchTool.searchWeb("test query");
+        String result = tavilySearchTool.searchWeb("test query", null);
 
         assertTrue(result.contains("Test Answer"));
         assertTrue(result.contains("Test Title"));
         assertTrue(result.contains("http://test.url"));
         assertTrue(result.contains("Test Content"));
     }
+
+    @Test
+    void testSearchWeb_CancelledGeneration_SkipsSearch() {
+        ToolContext toolContext = new ToolContext(Map.of(TavilySearchTool.GENERATION_ID, "generation-1"));
+        tavilySearchTool.cancel("generation-1");
+
+        String result = tavilySearchTool.searchWeb("test query", toolContext);
+
+        assertEquals("Search cancelled.", result);
+        verifyNoInteractions(tavilyApiClient);
+    }
 }
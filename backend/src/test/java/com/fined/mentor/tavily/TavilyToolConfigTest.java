@@ -0,0 +1,51 @@
+package com.fined.mentor.tavily;
+
+import com.fined.mentor.core.llm.PromptPrefixCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.google.genai.GoogleGenAiChatOptions;
+import org.springframework.ai.model.tool.DefaultToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.ai.tool.resolution.StaticToolCallbackResolver;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TavilyToolConfigTest {
+
+    @Test
+    void tavilyToolCallbacks_RunSearchRequestedThroughCachedContent() {
+        TavilySearchTool tavilySearchTool = spy(new TavilySearchTool(mock(TavilyApiClient.class)));
+        tavilySearchTool.cancel("g-1");
+        ToolCallbackProvider provider = new TavilyToolConfig().tavilyToolCallbacks(tavilySearchTool);
+        DefaultToolCallingManager toolCallingManager = DefaultToolCallingManager.builder()
+                .toolCallbackResolver(new StaticToolCallbackResolver(List.of(provider.getToolCallbacks())))
+                .build();
+        // As rewritten by the prompt prefix cache: no tools of its own
+        Prompt prompt = new Prompt(List.of(new UserMessage("What is an ETF?")), GoogleGenAiChatOptions.builder()
+                .toolContext(Map.of(TavilySearchTool.GENERATION_ID, "g-1",
+                        PromptPrefixCache.CACHED_TOOLS, List.of("searchWeb")))
+                .build());
+        ChatResponse toolCall = new ChatResponse(List.of(new Generation(AssistantMessage.builder()
+                .content("")
+                .toolCalls(List.of(new AssistantMessage.ToolCall("1", "function", "searchWeb",
+                        "{\"query\": \"ETF\"}")))
+                .build())));
+
+        ToolExecutionResult result = toolCallingManager.executeToolCalls(prompt, toolCall);
+
+        ToolResponseMessage response = (ToolResponseMessage) result.conversationHistory()
+                .get(result.conversationHistory().size() - 1);
+        assertEquals("searchWeb", response.getResponses().get(0).name());
+        verify(tavilySearchTool).searchWeb(eq("ETF"), any());
+    }
+}
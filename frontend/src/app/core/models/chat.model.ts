@@ -43,6 +43,16 @@ export interface QuizState {
   finished: boolean;
 }
 
+export interface QuizStreamEvent {
+  event: 'question' | 'done' | 'error';
+  index?: number;
+  quizId?: string;
+  question?: QuizQuestion;
+  topic?: string;
+  questionCount?: number;
+  message?: string;
+}
+
 export interface QuizStreamingProgress {
   elapsedTime: number;
   status: 'GENERATING' | 'SAVING';
@@ -2,6 +2,7 @@ import { Injectable, NgZone } from '@angular/core';
 import { Observable } from 'rxjs';
 import { HttpClient } from '@angular/common/http';
 import { environment } from '../../../environments/environment';
+import { QuizStreamEvent } from '../models/chat.model';
 
 @Injectable({
     providedIn: 'root'
@@ -15,11 +16,11 @@ export class QuizStreamingService {
     ) { }
 
     /**
-     * Specialized stream for JSON data that preserves all whitespace.
-     * No typing delay or emission queue, emits chunks as they arrive.
+     * Stream of typed quiz events: one per question as soon as the server has
+     * validated it, then a final 'done' (or 'error') event.
      */
-    getJsonStream(endpoint: string, body: any): Observable<string> {
-        return new Observable<string>(observer => {
+    getEventStream(endpoint: string, body: any): Observable<QuizStreamEvent> {
+        return new Observable<QuizStreamEvent>(observer => {
             const url = `${this.apiUrl}${endpoint}`;
             const controller = new AbortController();
             const signal = controller.signal;
@@ -50,27 +51,34 @@ export class QuizStreamingService {
 
                     const decoder = new TextDecoder();
 
-                    const processBuffer = (data: string): string => {
+                    let eventName = 'message';
+                    let data = '';
+
+                    const dispatch = () => {
+                        if (data) {
+                            const event: QuizStreamEvent = { ...JSON.parse(data), event: eventName };
+                            // Run inside zone to ensure UI updates for every event
+                            this.zone.run(() => {
+                                observer.next(event);
+                            });
+                        }
+                        eventName = 'message';
+                        data = '';
+                    };
+
+                    const processBuffer = (text: string): string => {
                         // Handle both \n and \r\n
-                        const lines = data.split(/\r?\n/);
+                        const lines = text.split(/\r?\n/);
                         const lastLine = lines.pop() || '';
 
                         for (const line of lines) {
-                            const trimmed = line.trim();
-                            if (!trimmed) continue;
-
-                            if (trimmed.startsWith('data:')) {
-                                let content = trimmed.slice(5);
-                                if (content.startsWith(' ')) {
-                                    content = content.slice(1);
-                                }
-
-                                if (content && content !== '[DONE]') {
-                                    // Run inside zone to ensure UI updates for every chunk
-                                    this.zone.run(() => {
-                                        observer.next(content);
-                                    });
-                                }
+                            // A blank line ends the event
+                            if (!line.trim()) {
+                                dispatch();
+                            } else if (line.startsWith('event:')) {
+                                eventName = line.slice(6).trim();
+                            } else if (line.startsWith('data:')) {
+                                data += line.slice(5).trim();
                             }
                         }
                         return lastLine;
@@ -80,9 +88,8 @@ export class QuizStreamingService {
                         try {
                             const { done, value } = await reader.read();
                             if (done) {
-                                if (buffer) {
-                                    processBuffer(buffer + '\n');
-                                }
+                                processBuffer(buffer + '\n');
+                                dispatch();
                                 observer.complete();
                                 return;
                             }
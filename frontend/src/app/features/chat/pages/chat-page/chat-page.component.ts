@@ -15,7 +15,7 @@ import { StreamingService } from '../../../../core/services/streaming.service';
 import { QuizStreamingService } from '../../../../core/services/quiz-streaming.service';
 import { LoggerService } from '../../../../core/services/logger.service';
 import { AuthService } from '../../../../core/services/auth.service';
-import { ChatMessage, ChatSession, Quiz, QuizState, QuizStreamingProgress } from '../../../../core/models/chat.model';
+import { ChatMessage, ChatSession, Quiz, QuizQuestion, QuizState, QuizStreamingProgress } from '../../../../core/models/chat.model';
 import { TranslateModule } from '@ngx-translate/core';
 
 import { MessageService } from 'primeng/api';
@@ -229,7 +229,11 @@ export class ChatPageComponent implements OnInit, OnDestroy {
       startedAt: Date.now(),
       firstChunkAt: null
     });
-    let accumulatedJson = '';
+    const questions: QuizQuestion[] = [];
+    let quizTopic = topic;
+    let quizId: string | null = null;
+    let guestQuiz: Quiz | null = null;
+    let streamError: string | null = null;
 
     // Start timer
     const startTime = Date.now();
@@ -243,25 +247,42 @@ export class ChatPageComponent implements OnInit, OnDestroy {
     const endpoint = this.isGuest() ? '/public/quiz/stream' : '/quiz/stream';
     const payload = this.isGuest() ? { topic } : { topic, chatSessionId: activeSession.id };
 
-    // Use the specialized QuizStreamingService for robust JSON accumulation
-    this.quizStreamingService.getJsonStream(endpoint, payload).pipe(
-      tap(chunk => {
-        accumulatedJson += chunk;
+    // The server sends each question as soon as it is validated, then 'done' or 'error'
+    this.quizStreamingService.getEventStream(endpoint, payload).pipe(
+      tap(event => {
+        if (event.event === 'error') {
+          streamError = event.message || null;
+          return;
+        }
+        if (event.event === 'done') {
+          quizTopic = event.topic || topic;
+          quizId = event.quizId || null;
+          return;
+        }
+        if (event.event !== 'question' || !event.question) return;
+
+        questions.push(event.question);
 
         // Track first chunk time
-        if (!this.quizStreamingProgress().firstChunkAt && chunk.trim()) {
+        if (!this.quizStreamingProgress().firstChunkAt) {
           this.quizStreamingProgress.update(p => ({ ...p, firstChunkAt: Date.now() }));
         }
 
         this.quizStreamingProgress.update(p => ({
           ...p,
-          charsReceived: accumulatedJson.length
+          charsReceived: p.charsReceived + JSON.stringify(event.question).length
         }));
+
+        // Guests can start on the first question while the rest are still being generated
+        if (this.isGuest()) {
+          guestQuiz = this.showGuestQuiz(guestQuiz, topic, questions, activeSession.id);
+        }
       }),
       catchError(error => {
         this.logger.error('Quiz streaming failed:', error);
         clearInterval(timerId);
         this.isQuizLoading.set(false);
+        this.quizStreamingProgress.update(p => ({ ...p, isGenerating: false }));
         if (error?.status === 429) {
           this.showRateLimitToast();
         } else {
@@ -272,46 +293,44 @@ export class ChatPageComponent implements OnInit, OnDestroy {
     ).subscribe({
       complete: () => {
         clearInterval(timerId);
-        this.quizStreamingProgress.update(p => ({ ...p, status: 'SAVING' }));
 
-        const cleanJson = accumulatedJson.replace(/^```(?:json)?\s*/i, '').replace(/```\s*$/i, '').trim();
+        if (streamError || questions.length === 0) {
+          this.logger.error('Quiz generation failed:', streamError);
+          this.isQuizLoading.set(false);
+          this.quizStreamingProgress.update(p => ({ ...p, isGenerating: false }));
+          this.setErrorMessage('TOAST.QUIZ_GEN_FAILED');
+          return;
+        }
 
         if (this.isGuest()) {
-          const quiz: Quiz = JSON.parse(cleanJson);
-          quiz.id = 'guest-quiz-' + Date.now();
-          const quizState: QuizState = {
-            id: 'guest-quiz-state-' + Date.now(),
-            quizId: quiz.id,
-            chatSessionId: activeSession.id,
-            currentQuestionIndex: 0,
-            userAnswers: {},
-            isSubmitted: {},
-            score: 0,
-            finished: false
-          };
-          const current = this.activeSession();
-          if (current) {
-            const updatedSession = { ...current, quiz, quizState };
-            this.chatSessionService.setActiveSession(updatedSession);
-          }
-          this.mobileTab.set('quiz');
+          guestQuiz = this.showGuestQuiz(guestQuiz, quizTopic, questions, activeSession.id);
+          this.quizStreamingProgress.update(p => ({ ...p, isGenerating: false }));
           this.isQuizLoading.set(false);
         } else {
-          // Now save the complete quiz
-          this.quizService.saveStreamedQuiz(topic, activeSession.id, cleanJson).pipe(
-            switchMap(quiz => this.quizService.startQuiz(quiz.id, activeSession.id).pipe(
-              tap(quizState => {
-                const current = this.activeSession();
-                if (!current) return;
-                const updatedSession = { ...current, quiz, quizState };
-                this.chatSessionService.setActiveSession(updatedSession);
-                this.mobileTab.set('quiz');
-                this.isQuizLoading.set(false);
-              })
-            )),
+          // The server saved the quiz as it streamed; only the quiz state is left to start
+          const savedQuizId = quizId;
+          if (!savedQuizId) {
+            this.isQuizLoading.set(false);
+            this.quizStreamingProgress.update(p => ({ ...p, isGenerating: false }));
+            this.setErrorMessage('TOAST.QUIZ_GEN_FAILED');
+            return;
+          }
+          const quiz: Quiz = { id: savedQuizId, topic: quizTopic, questions, createdAt: new Date(), chatSessionId: activeSession.id };
+          this.quizStreamingProgress.update(p => ({ ...p, status: 'SAVING' }));
+          this.quizService.startQuiz(savedQuizId, activeSession.id).pipe(
+            tap(quizState => {
+              const current = this.activeSession();
+              if (!current) return;
+              const updatedSession = { ...current, quiz, quizState };
+              this.chatSessionService.setActiveSession(updatedSession);
+              this.mobileTab.set('quiz');
+              this.isQuizLoading.set(false);
+              this.quizStreamingProgress.update(p => ({ ...p, isGenerating: false }));
+            }),
             catchError(err => {
-              this.logger.error('Failed to save or start streamed quiz:', err);
+              this.logger.error('Failed to start streamed quiz:', err);
               this.isQuizLoading.set(false);
+              this.quizStreamingProgress.update(p => ({ ...p, isGenerating: false }));
               if (err?.status === 429) {
                 this.showRateLimitToast();
               } else {
@@ -325,6 +344,38 @@ export class ChatPageComponent implements OnInit, OnDestroy {
     });
   }
 
+  /**
+   * Shows the guest quiz with the questions received so far, creating its local state
+   * on the first question and keeping the player's progress on the following ones.
+   */
+  private showGuestQuiz(quiz: Quiz | null, topic: string, questions: QuizQuestion[], sessionId: string): Quiz {
+    const current = this.activeSession();
+    const updatedQuiz: Quiz = quiz
+      ? { ...quiz, topic, questions: [...questions] }
+      : { id: 'guest-quiz-' + Date.now(), topic, questions: [...questions], createdAt: new Date() };
+
+    if (current) {
+      const quizState: QuizState = quiz && current.quizState?.quizId === quiz.id
+        ? current.quizState
+        : {
+          id: 'guest-quiz-state-' + Date.now(),
+          quizId: updatedQuiz.id,
+          chatSessionId: sessionId,
+          currentQuestionIndex: 0,
+          userAnswers: {},
+          isSubmitted: {},
+          score: 0,
+          finished: false
+        };
+      this.chatSessionService.setActiveSession({ ...current, quiz: updatedQuiz, quizState });
+    }
+    if (!quiz) {
+      this.mobileTab.set('quiz');
+      this.isQuizLoading.set(false);
+    }
+    return updatedQuiz;
+  }
+
   private checkAnswerLocally(userAnswer: string, question: any): boolean {
     if (!userAnswer || !question || !question.correctAnswer) return false;
     if (question.type === 'TRUE_FALSE') {